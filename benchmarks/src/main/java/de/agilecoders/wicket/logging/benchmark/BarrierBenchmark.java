@@ -0,0 +1,74 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import de.agilecoders.wicket.logging.util.ILoggingBarrier;
+import org.apache.wicket.util.time.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a barrier check under contention. All barriers are configured with a limit that
+ * is never reached, so only the shared state is contended. Run with different thread counts, e.g.
+ * {@code java -jar benchmarks.jar BarrierBenchmark -t 64}.
+ *
+ * @author miha
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@SuppressWarnings("deprecation")
+public class BarrierBenchmark {
+
+    @Param({"tokenBucket", "slidingWindow", "sizeAndTimeFrame"})
+    public String barrierType;
+
+    private final ClientSideLogObject logObject = new ClientSideLogObject("error", "message", 1234L, "app.js", "1", null, 1);
+    private final List<ClientSideLogObject> batch = new ArrayList<>(Collections.nCopies(10, logObject));
+
+    private ILoggingBarrier barrier;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if ("tokenBucket".equals(barrierType)) {
+            barrier = new ILoggingBarrier.TokenBucketBarrier(1000000000L, 1000000000L, Duration.seconds(1));
+        } else if ("slidingWindow".equals(barrierType)) {
+            barrier = new ILoggingBarrier.SlidingWindowBarrier(Long.MAX_VALUE / 2, Duration.seconds(10), 10);
+        } else {
+            barrier = new ILoggingBarrier.SizeAndTimeFrameBasedBarrier(Long.MAX_VALUE, 1, TimeUnit.HOURS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Throwable {
+        barrier.destroy();
+    }
+
+    @Benchmark
+    public boolean single() {
+        return barrier.isAllowed(logObject);
+    }
+
+    @Benchmark
+    public boolean batch() {
+        return barrier.isAllowed(batch);
+    }
+}
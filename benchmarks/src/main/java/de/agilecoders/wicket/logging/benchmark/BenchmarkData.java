@@ -0,0 +1,205 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.util.ParamNames;
+import de.agilecoders.wicket.logging.util.RequestBodies;
+import org.apache.wicket.ajax.json.JSONArray;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.apache.wicket.request.IRequestParameters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Generates realistic log batches in all wire formats that are supported by the client.
+ *
+ * @author miha
+ */
+public final class BenchmarkData {
+
+    public static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/52.0.2743.116 Safari/537.36";
+    public static final String AJAX_BASE_URL = "shop/checkout/payment?0";
+    public static final String WINDOW_SIZE = "1280x720";
+    public static final String SCREEN_SIZE = "1920x1040";
+
+    private static final String[] MESSAGES = {
+            "Uncaught TypeError: Cannot read property 'length' of undefined",
+            "Uncaught ReferenceError: jQuery is not defined",
+            "TypeError: undefined is not a function (evaluating 'e.preventDefault()')",
+            "Script error.",
+            "Uncaught RangeError: Maximum call stack size exceeded"
+    };
+
+    private static final String[] FILES = {
+            "https://shop.example.com/wicket/resource/org.apache.wicket.ajax.AbstractDefaultAjaxBehavior/res/js/wicket-ajax-jquery-ver-1469478434000.js",
+            "https://shop.example.com/static/js/checkout.min.js?v=2016-08-12-1",
+            "https://cdn.example.com/libs/vendor.bundle.js"
+    };
+
+    private static final String[] LEVELS = {"error", "warn", "info", "debug"};
+
+    /**
+     * A single client side log event
+     */
+    public static final class Event {
+        public final String level;
+        public final long timestamp;
+        public final String message;
+        public final String file;
+        public final int line;
+        public final String stack;
+
+        Event(String level, long timestamp, String message, String file, int line, String stack) {
+            this.level = level;
+            this.timestamp = timestamp;
+            this.message = message;
+            this.file = file;
+            this.line = line;
+            this.stack = stack;
+        }
+    }
+
+    /**
+     * creates a batch of log events
+     *
+     * @param size      the number of events
+     * @param withStack whether to add a stacktrace to each event
+     * @return new batch
+     */
+    public static List<Event> events(final int size, final boolean withStack) {
+        final Random random = new Random(42);
+        final List<Event> events = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            final String file = FILES[random.nextInt(FILES.length)];
+            final int line = 1 + random.nextInt(2000);
+
+            events.add(new Event(LEVELS[random.nextInt(LEVELS.length)], 1470000000000L + i * 37,
+                                 MESSAGES[random.nextInt(MESSAGES.length)], file, line,
+                                 withStack ? stack(random, file, line) : null));
+        }
+
+        return events;
+    }
+
+    /**
+     * creates a chrome like stacktrace
+     */
+    private static String stack(final Random random, final String file, final int line) {
+        final StringBuilder stack = new StringBuilder();
+        final int frames = 6 + random.nextInt(6);
+
+        stack.append("    at HTMLButtonElement.onClick (").append(file).append(':').append(line).append(':').append(random.nextInt(80)).append(")\n");
+        for (int i = 1; i < frames; i++) {
+            stack.append("    at Object.handler").append(i % 4).append(" (").append(FILES[i % FILES.length])
+                    .append(':').append(100 * i).append(':').append(i * 7).append(")\n");
+        }
+        return stack.toString();
+    }
+
+    /**
+     * encodes given events like jQuery.param does
+     *
+     * @param events the events to encode
+     * @return url encoded form body
+     */
+    public static String formBody(final List<Event> events) {
+        final StringBuilder body = new StringBuilder();
+
+        append(body, ParamNames.AJAX_BASE_URL, AJAX_BASE_URL);
+        append(body, ParamNames.USER_AGENT, USER_AGENT);
+        append(body, ParamNames.WINDOW_SIZE, WINDOW_SIZE);
+        append(body, ParamNames.SCREEN_SIZE, SCREEN_SIZE);
+
+        for (int i = 1; i <= events.size(); i++) {
+            final Event e = events.get(i - 1);
+
+            append(body, ParamNames.TIMESTAMP + "_" + i, String.valueOf(e.timestamp));
+            append(body, ParamNames.MESSAGE + "_" + i, e.message);
+            append(body, ParamNames.LEVEL + "_" + i, e.level);
+            append(body, ParamNames.LINE + "_" + i, String.valueOf(e.line));
+            append(body, ParamNames.FILE + "_" + i, e.file);
+
+            if (e.stack != null) {
+                append(body, ParamNames.STACKTRACE + "_" + i, e.stack);
+            }
+        }
+
+        append(body, ParamNames.ELEMENTS, String.valueOf(events.size()));
+        return body.toString();
+    }
+
+    /**
+     * parses a form body into request parameters, like the servlet container does
+     *
+     * @param body the url encoded form body
+     * @return request parameters
+     */
+    public static IRequestParameters parseFormBody(final String body) {
+        try {
+            return RequestBodies.formParameters(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * encodes given events in json wire format
+     *
+     * @param events the events to encode
+     * @return json body
+     */
+    public static String jsonBody(final List<Event> events) {
+        final JSONObject body = new JSONObject();
+        final JSONArray entries = new JSONArray();
+
+        body.put(ParamNames.AJAX_BASE_URL, AJAX_BASE_URL);
+        body.put(ParamNames.USER_AGENT, USER_AGENT);
+        body.put(ParamNames.WINDOW_SIZE, WINDOW_SIZE);
+        body.put(ParamNames.SCREEN_SIZE, SCREEN_SIZE);
+        body.put(ParamNames.ELEMENTS, events.size());
+
+        for (Event e : events) {
+            entries.put(new JSONArray().put(e.level).put(e.timestamp).put(e.message).put(e.file).put(e.line)
+                                .put(e.stack != null ? e.stack : JSONObject.NULL));
+        }
+
+        body.put(ParamNames.ENTRIES, entries);
+        return body.toString();
+    }
+
+    /**
+     * @param value the value to compress
+     * @return gzip compressed value
+     */
+    public static byte[] gzip(final String value) {
+        try {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(value.getBytes(StandardCharsets.UTF_8));
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void append(final StringBuilder body, final String name, final String value) {
+        if (body.length() > 0) {
+            body.append('&');
+        }
+
+        try {
+            body.append(URLEncoder.encode(name, "UTF-8")).append('=').append(URLEncoder.encode(value, "UTF-8"));
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
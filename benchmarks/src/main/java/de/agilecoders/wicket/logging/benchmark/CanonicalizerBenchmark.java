@@ -0,0 +1,98 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.IParamValueExtractor;
+import de.agilecoders.wicket.logging.IRequestBodyExtractor;
+import de.agilecoders.wicket.logging.util.ICanonicalizer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of canonicalizing repeating values while parsing a json log request. The heap that is
+ * retained by buffered log messages with and without canonicalization is printed by {@link #main(String[])}.
+ *
+ * @author miha
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CanonicalizerBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int batchSize;
+
+    private final IRequestBodyExtractor noop = new IRequestBodyExtractor.JsonBodyExtractor(null, ICanonicalizer.NoopCanonicalizer.INSTANCE);
+    private final IRequestBodyExtractor bounded = new IRequestBodyExtractor.JsonBodyExtractor(null, new ICanonicalizer.BoundedCanonicalizer(4096, 1024));
+
+    private String json;
+
+    @Setup
+    public void setUp() {
+        json = BenchmarkData.jsonBody(BenchmarkData.events(batchSize, false));
+    }
+
+    @Benchmark
+    public IParamValueExtractor.Result noop() throws IOException {
+        return noop.parse(new StringReader(json));
+    }
+
+    @Benchmark
+    public IParamValueExtractor.Result bounded() throws IOException {
+        return bounded.parse(new StringReader(json));
+    }
+
+    /**
+     * prints the heap that is retained by 100.000 buffered log messages
+     *
+     * @param args ignored
+     * @throws IOException if a log request can't be parsed
+     */
+    public static void main(String[] args) throws IOException {
+        final String json = BenchmarkData.jsonBody(BenchmarkData.events(10, false));
+        final ICanonicalizer.BoundedCanonicalizer bounded = new ICanonicalizer.BoundedCanonicalizer(4096, 1024);
+
+        System.out.println(String.format("%-10s %16s", "", "bytes/event"));
+        System.out.println(String.format("%-10s %16d", "noop", retainedBytesPerEvent(json, ICanonicalizer.NoopCanonicalizer.INSTANCE)));
+        System.out.println(String.format("%-10s %16d", "bounded", retainedBytesPerEvent(json, bounded)));
+        System.out.println(String.format("hits: %d, misses: %d, evictions: %d", bounded.hits(), bounded.misses(), bounded.evictions()));
+    }
+
+    private static long retainedBytesPerEvent(final String json, final ICanonicalizer canonicalizer) throws IOException {
+        final IRequestBodyExtractor extractor = new IRequestBodyExtractor.JsonBodyExtractor(null, canonicalizer);
+        final List<IParamValueExtractor.Result> buffer = new ArrayList<>(10000);
+        final long before = usedHeap();
+
+        for (int i = 0; i < 10000; i++) {
+            buffer.add(extractor.parse(new StringReader(json)));
+        }
+
+        final long retained = usedHeap() - before;
+        return buffer.isEmpty() ? 0 : retained / (buffer.size() * 10L);
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,124 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import de.agilecoders.wicket.logging.IClientLogger;
+import de.agilecoders.wicket.logging.ILogCleaner;
+import de.agilecoders.wicket.logging.LogMessageLayout;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ParamNames;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.event.SubstituteLoggingEvent;
+import org.slf4j.helpers.SubstituteLogger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rendering of log lines by {@link IClientLogger.DefaultClientLogger} against the previous
+ * implementation ({@link LegacyClientLogger}). The slf4j logger only sums up the length of all lines. Run it with
+ * the gc profiler ("-prof gc") and divide "gc.alloc.rate.norm" by "batchSize" to get the bytes per log line, the
+ * throughput per log line is "ops/s" multiplied by "batchSize".
+ *
+ * @author miha
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClientLoggerBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int batchSize;
+
+    private final SinkLogger sink = new SinkLogger();
+    private final ILogCleaner cleaner = new ILogCleaner.DefaultLogCleaner();
+
+    private List<ClientSideLogObject> logObjects;
+    private ClientInfos clientInfos;
+    private IClientLogger legacy;
+    private IClientLogger layout;
+
+    @Setup
+    public void setUp() {
+        logObjects = new ArrayList<>(batchSize);
+        for (BenchmarkData.Event event : BenchmarkData.events(batchSize, true)) {
+            logObjects.add(new ClientSideLogObject(event.level, event.message, event.timestamp, event.file,
+                                                   String.valueOf(event.line), event.stack, logObjects.size()));
+        }
+
+        clientInfos = new ClientInfos();
+        clientInfos.put(ParamNames.AJAX_BASE_URL, BenchmarkData.AJAX_BASE_URL);
+        clientInfos.put(ParamNames.USER_AGENT, BenchmarkData.USER_AGENT);
+
+        legacy = new LegacyClientLogger(sink, cleaner);
+        layout = new IClientLogger.DefaultClientLogger("benchmark", LogMessageLayout.DEFAULT, cleaner) {
+            @Override
+            protected Logger newLogger(String loggerName) {
+                return sink;
+            }
+        };
+    }
+
+    @Benchmark
+    public long legacy() {
+        legacy.log(logObjects, clientInfos);
+        return sink.chars;
+    }
+
+    @Benchmark
+    public long layout() {
+        layout.log(logObjects, clientInfos);
+        return sink.chars;
+    }
+
+    /**
+     * a logger with all levels enabled that sums up the length of all lines
+     */
+    private static final class SinkLogger extends SubstituteLogger {
+        private long chars;
+
+        private SinkLogger() {
+            super("benchmark", new ConcurrentLinkedQueue<SubstituteLoggingEvent>(), false);
+        }
+
+        @Override
+        public void error(String msg) {
+            chars += msg.length();
+        }
+
+        @Override
+        public void warn(String msg) {
+            chars += msg.length();
+        }
+
+        @Override
+        public void info(String msg) {
+            chars += msg.length();
+        }
+
+        @Override
+        public void debug(String msg) {
+            chars += msg.length();
+        }
+
+        @Override
+        public void trace(String msg) {
+            chars += msg.length();
+        }
+    }
+}
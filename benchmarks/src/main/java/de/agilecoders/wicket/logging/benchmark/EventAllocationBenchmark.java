@@ -0,0 +1,62 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.IParamValueExtractor;
+import de.agilecoders.wicket.logging.IRequestBodyExtractor;
+import org.apache.wicket.request.IRequestParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the memory that is allocated to turn a parsed log request into log messages. Run it with
+ * the gc profiler ("-prof gc") and divide "gc.alloc.rate.norm" by "batchSize" to get the bytes per
+ * ingested event. The form parameters are parsed during setup, so the cost of the parameter map
+ * isn't included.
+ *
+ * @author miha
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventAllocationBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int batchSize;
+
+    private final IParamValueExtractor paramValueExtractor = new IParamValueExtractor.DefaultParamValueExtractor();
+    private final IRequestBodyExtractor requestBodyExtractor = new IRequestBodyExtractor.JsonBodyExtractor();
+
+    private IRequestParameters params;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        params = BenchmarkData.parseFormBody(BenchmarkData.formBody(BenchmarkData.events(batchSize, false)));
+        json = BenchmarkData.jsonBody(BenchmarkData.events(batchSize, false));
+    }
+
+    @Benchmark
+    public IParamValueExtractor.Result form() {
+        return paramValueExtractor.parse(params);
+    }
+
+    @Benchmark
+    public IParamValueExtractor.Result json() throws IOException {
+        return requestBodyExtractor.parse(new StringReader(json));
+    }
+}
@@ -0,0 +1,118 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.ClientSideErrorLoggingResourceReference;
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import de.agilecoders.wicket.logging.ClientSideLogging;
+import de.agilecoders.wicket.logging.IClientLogger;
+import de.agilecoders.wicket.logging.settings.ClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
+import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.util.string.StringValue;
+import org.apache.wicket.util.tester.WicketTester;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the throughput of the resource reference entry point with the session-free ingest path. Both
+ * requests run through a complete (mocked) wicket request cycle, so the difference is the overhead of the
+ * resource reference handling.
+ *
+ * @author miha
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IngestBenchmark {
+
+    private static final String INGEST_PATH = "client-log";
+
+    private final AtomicLong written = new AtomicLong();
+
+    private WicketTester tester;
+    private IRequestParameters parameters;
+    private String resourceUrl;
+    private String ingestUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tester = new WicketTester(new MockApplication() {
+            @Override
+            protected void init() {
+                super.init();
+
+                ClientSideLogging.install(this, new ClientSideLoggingSettings().ingestPath(INGEST_PATH).logger(new IClientLogger() {
+                    @Override
+                    public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+                        written.addAndGet(logObjects.size());
+                    }
+
+                    @Override
+                    public void destroy() throws Throwable {
+                    }
+                }));
+            }
+        });
+
+        final MockHttpServletRequest request = tester.getRequest();
+        final String prefix = request.getContextPath() + request.getServletPath() + "/";
+
+        resourceUrl = prefix + tester.getRequestCycle().mapUrlFor(new ClientSideErrorLoggingResourceReference(ClientSideLogging.settings(tester.getApplication()).id()), null);
+        ingestUrl = prefix + INGEST_PATH;
+        parameters = BenchmarkData.parseFormBody(BenchmarkData.formBody(BenchmarkData.events(5, true)));
+
+        post(resourceUrl);
+        post(ingestUrl);
+        if (written.get() != 10) {
+            throw new IllegalStateException("log requests weren't handled: " + written.get());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tester.destroy();
+    }
+
+    @Benchmark
+    public int resourceReference() {
+        return post(resourceUrl);
+    }
+
+    @Benchmark
+    public int ingestPath() {
+        return post(ingestUrl);
+    }
+
+    private int post(final String url) {
+        final MockHttpServletRequest request = tester.getRequest();
+        request.setMethod("POST");
+        request.setURL(url);
+
+        for (String name : parameters.getParameterNames()) {
+            for (StringValue value : parameters.getParameterValues(name)) {
+                request.getPostParameters().addParameterValue(name, value.toString());
+            }
+        }
+
+        tester.processRequest(request);
+        return tester.getLastResponse().getStatus();
+    }
+}
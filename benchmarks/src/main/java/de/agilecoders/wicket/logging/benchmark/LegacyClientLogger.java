@@ -0,0 +1,88 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import de.agilecoders.wicket.logging.IClientLogger;
+import de.agilecoders.wicket.logging.ILogCleaner;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import org.slf4j.Logger;
+
+import java.util.Collection;
+
+/**
+ * The previous rendering of {@link IClientLogger.DefaultClientLogger} and {@link ClientSideLogObject#toString()}.
+ * It's kept as baseline for {@link ClientLoggerBenchmark}. The cleaner is given instead of being looked up in the
+ * settings of the current application.
+ *
+ * @author miha
+ */
+public final class LegacyClientLogger implements IClientLogger {
+
+    private final Logger logger;
+    private final ILogCleaner cleaner;
+
+    public LegacyClientLogger(final Logger logger, final ILogCleaner cleaner) {
+        this.logger = logger;
+        this.cleaner = cleaner;
+    }
+
+    @Override
+    public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+        for (ClientSideLogObject logObject : logObjects) {
+            switch (logObject.level()) {
+                case "error":
+                    if (logger.isErrorEnabled()) {
+                        logger.error(newLogMessage(logObject, clientInfos));
+                    }
+                    break;
+                case "warn":
+                    if (logger.isWarnEnabled()) {
+                        logger.warn(newLogMessage(logObject, clientInfos));
+                    }
+                    break;
+                case "info":
+                    if (logger.isInfoEnabled()) {
+                        logger.info(newLogMessage(logObject, clientInfos));
+                    }
+                    break;
+                case "debug":
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(newLogMessage(logObject, clientInfos));
+                    }
+                    break;
+                case "trace":
+                    if (logger.isTraceEnabled()) {
+                        logger.trace(newLogMessage(logObject, clientInfos));
+                    }
+                    break;
+                default:
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    private String newLogMessage(ClientSideLogObject logObject, ClientInfos clientInfos) {
+        return String.format("[%s] %s [%s]; Stack: %s", cleaner.toCleanPath(clientInfos.ajaxBaseUrl()), toString(logObject),
+                             cleaner.clean(clientInfos.userAgent()), logObject.stacktrace());
+    }
+
+    private static String toString(ClientSideLogObject logObject) {
+        if (logObject.count() > 1) {
+            return String.format("[%s | %s] %s %s (%d times until %s)", logObject.timestamp(), logObject.level(),
+                                 fileAndLine(logObject), logObject.message(), logObject.count(), logObject.lastTimestamp());
+        }
+        return String.format("[%s | %s] %s %s", logObject.timestamp(), logObject.level(), fileAndLine(logObject), logObject.message());
+    }
+
+    private static String fileAndLine(ClientSideLogObject logObject) {
+        if (logObject.file().isEmpty()) {
+            return "";
+        } else if (logObject.line().isEmpty()) {
+            return logObject.file() + ":";
+        } else {
+            return logObject.file() + ":" + logObject.line() + ":";
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import de.agilecoders.wicket.logging.IParamValueExtractor;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.DefaultValues;
+import de.agilecoders.wicket.logging.util.ParamNames;
+import org.apache.wicket.request.IRequestParameters;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The previous implementation of {@link IParamValueExtractor.DefaultParamValueExtractor}. It's kept
+ * as baseline for {@link ParamValueExtractorBenchmark}.
+ *
+ * @author miha
+ */
+public final class LegacyParamValueExtractor implements IParamValueExtractor {
+
+    @Override
+    public Result parse(IRequestParameters params) {
+        final Set<ClientSideLogObject> logObjects = new HashSet<>();
+        final ClientInfos clientInfos = new ClientInfos();
+        final List<Integer> parsedIndex = new ArrayList<>();
+
+        for (final String paramName : params.getParameterNames()) {
+            final String realParamName = extractRealParamName(paramName);
+
+            switch (realParamName) {
+                case ParamNames.TIMESTAMP:
+                case ParamNames.LEVEL:
+                case ParamNames.MESSAGE:
+                case ParamNames.FILE:
+                case ParamNames.LINE:
+                case ParamNames.STACKTRACE:
+                    final int index = extractIndex(paramName);
+
+                    if (index > -1 && !parsedIndex.contains(index)) {
+                        ClientSideLogObject obj = new ClientSideLogObject(params.getParameterValue(ParamNames.LEVEL + DefaultValues.paramSplitter + index),
+                                                                          params.getParameterValue(ParamNames.MESSAGE + DefaultValues.paramSplitter + index),
+                                                                          params.getParameterValue(ParamNames.TIMESTAMP + DefaultValues.paramSplitter + index),
+                                                                          params.getParameterValue(ParamNames.FILE + DefaultValues.paramSplitter + index),
+                                                                          params.getParameterValue(ParamNames.LINE + DefaultValues.paramSplitter + index),
+                                                                          params.getParameterValue(ParamNames.STACKTRACE + DefaultValues.paramSplitter + index),
+                                                                          index);
+
+                        if (obj.isValid()) {
+                            logObjects.add(obj);
+                        }
+
+                        parsedIndex.add(index);
+                    }
+                    break;
+
+                case ParamNames.AJAX_BASE_URL:
+                case ParamNames.SCREEN_SIZE:
+                case ParamNames.WINDOW_SIZE:
+                case ParamNames.USER_AGENT:
+                    clientInfos.put(paramName, params.getParameterValue(paramName).toString(DefaultValues.defaultClientInfoValue));
+            }
+        }
+
+        return new Result(logObjects, clientInfos);
+    }
+
+    private int extractIndex(String paramName) {
+        final int index = paramName.indexOf(DefaultValues.paramSplitterChar);
+
+        if (index > -1) {
+            return Integer.parseInt(paramName.substring(index + 1));
+        } else {
+            return -1;
+        }
+    }
+
+    private String extractRealParamName(final String paramName) {
+        final int index = paramName.indexOf(DefaultValues.paramSplitterChar);
+        if (index >= 0) {
+            return paramName.substring(0, index);
+        }
+
+        return paramName;
+    }
+}
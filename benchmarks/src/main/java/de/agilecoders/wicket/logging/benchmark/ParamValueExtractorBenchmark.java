@@ -0,0 +1,56 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.IParamValueExtractor;
+import org.apache.wicket.request.IRequestParameters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single pass {@link IParamValueExtractor.DefaultParamValueExtractor} with its
+ * predecessor ({@link LegacyParamValueExtractor}). The request parameters are parsed once during
+ * setup, so only the extraction itself is measured.
+ *
+ * @author miha
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParamValueExtractorBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int batchSize;
+
+    private final IParamValueExtractor current = new IParamValueExtractor.DefaultParamValueExtractor();
+    private final IParamValueExtractor legacy = new LegacyParamValueExtractor();
+
+    private IRequestParameters params;
+
+    @Setup
+    public void setUp() {
+        params = BenchmarkData.parseFormBody(BenchmarkData.formBody(BenchmarkData.events(batchSize, true)));
+    }
+
+    @Benchmark
+    public IParamValueExtractor.Result singlePass() {
+        return current.parse(params);
+    }
+
+    @Benchmark
+    public IParamValueExtractor.Result legacy() {
+        return legacy.parse(params);
+    }
+}
@@ -0,0 +1,97 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.util.IStackTraceParser;
+import de.agilecoders.wicket.logging.util.StackFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures parsing of real world stacktraces of all major browsers, with and without the frame cache. Each
+ * invocation parses a new string instance, like a stacktrace that was read from a log request.
+ *
+ * @author miha
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StackTraceParserBenchmark {
+
+    private static final String CHROME = "TypeError: Cannot read property 'length' of undefined\n" +
+                                         "    at Object.render (https://cdn.example.com/js/app.min.js?v=20161018:1:23456)\n" +
+                                         "    at HTMLButtonElement.onClick (https://cdn.example.com/js/app.min.js?v=20161018:1:24680)\n" +
+                                         "    at HTMLButtonElement.dispatch (https://cdn.example.com/js/jquery-2.2.4.min.js:3:7537)\n" +
+                                         "    at HTMLButtonElement.r.handle (https://cdn.example.com/js/jquery-2.2.4.min.js:3:5620)\n" +
+                                         "    at Object.trigger (https://cdn.example.com/js/jquery-2.2.4.min.js:4:1234)\n" +
+                                         "    at eval (eval at load (https://cdn.example.com/js/app.min.js?v=20161018:1:100), <anonymous>:1:1)\n" +
+                                         "    at Array.forEach (native)";
+
+    private static final String FIREFOX = "render@https://cdn.example.com/js/app.min.js?v=20161018:1:23456\n" +
+                                          "onClick@https://cdn.example.com/js/app.min.js?v=20161018:1:24680\n" +
+                                          "dispatch@https://cdn.example.com/js/jquery-2.2.4.min.js:3:7537\n" +
+                                          "add/r.handle@https://cdn.example.com/js/jquery-2.2.4.min.js:3:5620\n" +
+                                          "trigger@https://cdn.example.com/js/jquery-2.2.4.min.js:4:1234\n" +
+                                          "@https://cdn.example.com/js/app.min.js?v=20161018:1:100\n";
+
+    private static final String SAFARI = "render@https://cdn.example.com/js/app.min.js?v=20161018:1:23456\n" +
+                                         "onClick@https://cdn.example.com/js/app.min.js?v=20161018:1:24680\n" +
+                                         "dispatch@https://cdn.example.com/js/jquery-2.2.4.min.js:3:7537\n" +
+                                         "forEach@[native code]\n" +
+                                         "global code@https://www.example.com/index.html:12:34";
+
+    private static final String IE = "TypeError: Unable to get property 'length' of undefined or null reference\n" +
+                                     "   at render (https://cdn.example.com/js/app.min.js?v=20161018:1:23456)\n" +
+                                     "   at onClick (https://cdn.example.com/js/app.min.js?v=20161018:1:24680)\n" +
+                                     "   at dispatch (https://cdn.example.com/js/jquery-2.2.4.min.js:3:7537)\n" +
+                                     "   at Anonymous function (https://cdn.example.com/js/jquery-2.2.4.min.js:3:5620)\n" +
+                                     "   at Global code (https://www.example.com/index.html:12:34)";
+
+    @Param({"chrome", "firefox", "safari", "ie"})
+    public String browser;
+
+    private final IStackTraceParser parser = IStackTraceParser.DefaultStackTraceParser.INSTANCE;
+    private final IStackTraceParser cached = new IStackTraceParser.CachingStackTraceParser(1024, 16384);
+
+    private char[] stacktrace;
+
+    @Setup
+    public void setUp() {
+        switch (browser) {
+            case "chrome":
+                stacktrace = CHROME.toCharArray();
+                break;
+            case "firefox":
+                stacktrace = FIREFOX.toCharArray();
+                break;
+            case "safari":
+                stacktrace = SAFARI.toCharArray();
+                break;
+            default:
+                stacktrace = IE.toCharArray();
+        }
+    }
+
+    @Benchmark
+    public List<StackFrame> parse() {
+        return parser.parse(new String(stacktrace));
+    }
+
+    @Benchmark
+    public List<StackFrame> cached() {
+        return cached.parse(new String(stacktrace));
+    }
+}
@@ -0,0 +1,71 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import de.agilecoders.wicket.logging.TopErrorTracker;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ParamNames;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per event cost of the {@link TopErrorTracker} for a growing number of distinct errors, single threaded
+ * and with concurrent writers.
+ *
+ * @author miha
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopErrorTrackerBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int distinctErrors;
+
+    private final TopErrorTracker tracker = new TopErrorTracker();
+    private final ClientInfos clientInfos = new ClientInfos();
+    private List<List<ClientSideLogObject>> events;
+
+    @Setup
+    public void setUp() {
+        clientInfos.put(ParamNames.AJAX_BASE_URL, "wicket/page?3");
+
+        events = new ArrayList<>(1024);
+        for (int i = 0; i < 1024; i++) {
+            final int error = ThreadLocalRandom.current().nextInt(distinctErrors);
+            events.add(Collections.singletonList(new ClientSideLogObject("error", "Uncaught TypeError: x is undefined", 1234L,
+                                                                         "https://host/js/app" + error + ".js", "12",
+                                                                         "    at f (https://host/js/app" + error + ".js:12:5)", 1)));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void record() {
+        tracker.record(events.get(ThreadLocalRandom.current().nextInt(1024)), clientInfos);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record4Threads() {
+        tracker.record(events.get(ThreadLocalRandom.current().nextInt(1024)), clientInfos);
+    }
+}
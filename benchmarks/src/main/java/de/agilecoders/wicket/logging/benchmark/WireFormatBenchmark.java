@@ -0,0 +1,98 @@
+package de.agilecoders.wicket.logging.benchmark;
+
+import de.agilecoders.wicket.logging.IParamValueExtractor;
+import de.agilecoders.wicket.logging.IRequestBodyExtractor;
+import de.agilecoders.wicket.logging.util.RequestBodies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the server side cost of all wire formats: form parameters (including the url decoding that
+ * is done by the servlet container), json and gzip compressed json. Divide the score by "batchSize" to
+ * get the cost per event. The bytes on wire per format are printed by {@link #main(String[])}.
+ *
+ * @author miha
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int batchSize;
+
+    @Param({"false", "true"})
+    public boolean withStack;
+
+    private final IParamValueExtractor paramValueExtractor = new IParamValueExtractor.DefaultParamValueExtractor();
+    private final IRequestBodyExtractor requestBodyExtractor = new IRequestBodyExtractor.JsonBodyExtractor();
+
+    private String formBody;
+    private byte[] jsonBody;
+    private byte[] gzipBody;
+
+    @Setup
+    public void setUp() {
+        final List<BenchmarkData.Event> events = BenchmarkData.events(batchSize, withStack);
+        final String json = BenchmarkData.jsonBody(events);
+
+        formBody = BenchmarkData.formBody(events);
+        jsonBody = json.getBytes(StandardCharsets.UTF_8);
+        gzipBody = BenchmarkData.gzip(json);
+    }
+
+    @Benchmark
+    public IParamValueExtractor.Result form() {
+        return paramValueExtractor.parse(BenchmarkData.parseFormBody(formBody));
+    }
+
+    @Benchmark
+    public IParamValueExtractor.Result json() throws IOException {
+        return requestBodyExtractor.parse(new InputStreamReader(RequestBodies.decode(new ByteArrayInputStream(jsonBody), null, Long.MAX_VALUE), StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public IParamValueExtractor.Result jsonGzip() throws IOException {
+        return requestBodyExtractor.parse(new InputStreamReader(RequestBodies.decode(new ByteArrayInputStream(gzipBody), "gzip", Long.MAX_VALUE), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * prints the bytes on wire per event for all wire formats
+     *
+     * @param args ignored
+     */
+    public static void main(String[] args) {
+        System.out.println(String.format("%-10s %-6s %12s %12s %12s", "batchSize", "stack", "form", "json", "json+gzip"));
+
+        for (int size : new int[]{1, 10, 100}) {
+            for (boolean stack : new boolean[]{false, true}) {
+                final List<BenchmarkData.Event> events = BenchmarkData.events(size, stack);
+                final String json = BenchmarkData.jsonBody(events);
+
+                System.out.println(String.format("%-10d %-6s %12d %12d %12d", size, stack,
+                                                 BenchmarkData.formBody(events).length() / size,
+                                                 json.getBytes(StandardCharsets.UTF_8).length / size,
+                                                 BenchmarkData.gzip(json).length / size));
+            }
+        }
+    }
+}
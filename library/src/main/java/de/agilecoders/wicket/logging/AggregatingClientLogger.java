@@ -0,0 +1,449 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ErrorFingerprint;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link IClientLogger} that aggregates repeating errors. Each log message gets an {@link ErrorFingerprint};
+ * the first occurrence of a fingerprint is written in full by a delegate logger, all further occurrences are only
+ * counted (including the repeats that were already collapsed on client side, see {@link ClientSideLogObject#count()}). Once per window a summary line is written for each fingerprint that was seen again, e.g.
+ * "seen 1234 times from 56 clients in the last 60s". Fingerprints that weren't seen for a whole window are removed,
+ * so their next occurrence is written in full again.
+ * <p>
+ * The aggregation state is split into stripes, each stripe is a bounded LRU map that is guarded by its own lock.
+ * Summaries are written by the first thread that logs a message after the window has passed or by a daemon timer
+ * (see {@link #newFlushTimer()}) that is started with the first log message, so summaries are written even if no
+ * further message arrives; {@link #destroy()} stops the timer and writes all pending summaries.
+ *
+ * @author miha
+ */
+public class AggregatingClientLogger implements IClientLogger, ILogLevelFilter {
+
+    private static final int STRIPES = 16;
+
+    private final IClientLogger delegate;
+    private final Logger logger;
+    private final long window;
+    private final Stripe[] stripes;
+    private final AtomicLong nextFlush;
+    private final AtomicLong evicted = new AtomicLong(0);
+    private final AtomicBoolean timerStarted = new AtomicBoolean(false);
+    private Timer timer;
+
+    /**
+     * Construct. Uses a {@link IClientLogger.DefaultClientLogger} for first occurrences, a window of
+     * 60 seconds and keeps up to 4096 fingerprints.
+     *
+     * @param id the logger id
+     */
+    public AggregatingClientLogger(final String id) {
+        this(new DefaultClientLogger(id), id, Duration.minutes(1), 4096);
+    }
+
+    /**
+     * Construct.
+     *
+     * @param delegate        the logger that writes first occurrences
+     * @param id              the name of the logger that writes summaries
+     * @param window          the time between two summaries
+     * @param maxFingerprints the max number of fingerprints that are kept
+     */
+    public AggregatingClientLogger(final IClientLogger delegate, final String id, final Duration window, final int maxFingerprints) {
+        this.delegate = Args.notNull(delegate, "delegate");
+        this.logger = newLogger(id);
+        this.window = Args.notNull(window, "window").getMilliseconds();
+        this.nextFlush = new AtomicLong(now() + this.window);
+        this.stripes = new Stripe[STRIPES];
+
+        final int stripeSize = Math.max(1, maxFingerprints / STRIPES);
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(stripeSize);
+        }
+    }
+
+    /**
+     * creates a new slf4j logger
+     *
+     * @param loggerName the name of the logger
+     * @return new logger
+     */
+    protected Logger newLogger(String loggerName) {
+        return LoggerFactory.getLogger(loggerName);
+    }
+
+    /**
+     * @return current time in milliseconds
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * creates the timer that writes the summaries of a window if no log message arrives after the window has
+     * passed. It checks once per window, but at least once a second.
+     *
+     * @return new daemon timer or null to write summaries only while log messages arrive
+     */
+    protected Timer newFlushTimer() {
+        return new Timer(logger.getName() + "-flush", true);
+    }
+
+    @Override
+    public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+        if (!timerStarted.get()) {
+            startTimer();
+        }
+
+        final long now = now();
+        final int client = clientHash(clientInfos);
+        List<ClientSideLogObject> firstOccurrences = null;
+
+        for (ClientSideLogObject logObject : logObjects) {
+            final long fingerprint = ErrorFingerprint.of(logObject);
+
+            if (stripeOf(fingerprint).add(fingerprint, logObject, client, now)) {
+                if (firstOccurrences == null) {
+                    firstOccurrences = new ArrayList<>(logObjects.size());
+                }
+                firstOccurrences.add(logObject);
+            }
+        }
+
+        if (firstOccurrences != null) {
+            delegate.log(firstOccurrences, clientInfos);
+        }
+
+        flushIfDue(now);
+    }
+
+    /**
+     * writes the summaries of the current window if it has passed. If several threads call this method at the
+     * same time, only one of them writes the summaries.
+     *
+     * @param now the current time in milliseconds
+     * @return true, if the summaries were written
+     */
+    public boolean flushIfDue(final long now) {
+        final long flush = nextFlush.get();
+
+        if (now >= flush && nextFlush.compareAndSet(flush, now + window)) {
+            flush(now);
+            return true;
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean isEnabled(String level) {
+        return !(delegate instanceof ILogLevelFilter) || ((ILogLevelFilter) delegate).isEnabled(level);
+    }
+
+    /**
+     * @return the number of fingerprints that are currently aggregated
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of fingerprints that were removed because there were too many
+     */
+    public long evictedFingerprints() {
+        return evicted.get();
+    }
+
+    /**
+     * writes a summary for each fingerprint that was seen in the current window and removes all
+     * fingerprints that weren't seen for a whole window.
+     *
+     * @param now the current time in milliseconds
+     */
+    public void flush(final long now) {
+        final List<Summary> summaries = new ArrayList<>();
+
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                final Iterator<Aggregate> iterator = stripe.entries.values().iterator();
+
+                while (iterator.hasNext()) {
+                    final Aggregate entry = iterator.next();
+
+                    if (entry.count > 0) {
+                        summaries.add(new Summary(entry.fingerprint, entry.level, entry.description, entry.count, entry.clients()));
+                        entry.reset();
+                    } else if (now - entry.lastSeen >= window) {
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+
+        for (Summary summary : summaries) {
+            writeSummary(summary);
+        }
+    }
+
+    @Override
+    public void destroy() throws Throwable {
+        synchronized (timerStarted) {
+            timerStarted.set(true);
+
+            if (timer != null) {
+                timer.cancel();
+                timer = null;
+            }
+        }
+
+        flush(now());
+        delegate.destroy();
+    }
+
+    /**
+     * starts the flush timer once, it's never started after this logger was destroyed
+     */
+    private void startTimer() {
+        synchronized (timerStarted) {
+            if (timerStarted.get()) {
+                return;
+            }
+            timerStarted.set(true);
+
+            final Timer current = newFlushTimer();
+
+            if (current != null) {
+                final long period = Math.max(1, Math.min(window, 1000));
+
+                current.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        try {
+                            flushIfDue(now());
+                        } catch (RuntimeException e) {
+                            logger.warn("can't write summaries of aggregated client side errors", e);
+                        }
+                    }
+                }, period, period);
+                timer = current;
+            }
+        }
+    }
+
+    /**
+     * calculates a hash of the client that has sent a log request, it's used to estimate the
+     * number of distinct clients per fingerprint.
+     *
+     * @param clientInfos the client information
+     * @return hash of the client
+     */
+    protected int clientHash(final ClientInfos clientInfos) {
+        final long hash = clientInfos.clientHash();
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * creates a new summary line
+     *
+     * @param summary the summary of a fingerprint
+     * @return new log line
+     */
+    protected String newSummaryMessage(final Summary summary) {
+        return String.format("[%s] seen %d times from %d clients in the last %ds: %s", ErrorFingerprint.toString(summary.fingerprint),
+                             summary.count, summary.clients, window / 1000, summary.description);
+    }
+
+    /**
+     * writes a summary line with the level of the aggregated error
+     *
+     * @param summary the summary of a fingerprint
+     */
+    protected void writeSummary(final Summary summary) {
+        switch (summary.level) {
+            case "error":
+                if (logger.isErrorEnabled()) {
+                    logger.error(newSummaryMessage(summary));
+                }
+                break;
+            case "warn":
+                if (logger.isWarnEnabled()) {
+                    logger.warn(newSummaryMessage(summary));
+                }
+                break;
+            case "info":
+                if (logger.isInfoEnabled()) {
+                    logger.info(newSummaryMessage(summary));
+                }
+                break;
+            case "debug":
+                if (logger.isDebugEnabled()) {
+                    logger.debug(newSummaryMessage(summary));
+                }
+                break;
+            case "trace":
+                if (logger.isTraceEnabled()) {
+                    logger.trace(newSummaryMessage(summary));
+                }
+                break;
+            default:
+        }
+    }
+
+    private Stripe stripeOf(final long fingerprint) {
+        return stripes[(int) (fingerprint ^ (fingerprint >>> 32)) & (STRIPES - 1)];
+    }
+
+    /**
+     * The summary of a single fingerprint in one window
+     */
+    public static final class Summary {
+        private final long fingerprint;
+        private final String level;
+        private final String description;
+        private final long count;
+        private final int clients;
+
+        private Summary(long fingerprint, String level, String description, long count, int clients) {
+            this.fingerprint = fingerprint;
+            this.level = level;
+            this.description = description;
+            this.count = count;
+            this.clients = clients;
+        }
+
+        /**
+         * @return the error fingerprint
+         */
+        public long fingerprint() { return fingerprint; }
+
+        /**
+         * @return the log level of the error
+         */
+        public String level() { return level; }
+
+        /**
+         * @return file, line and message of the first occurrence
+         */
+        public String description() { return description; }
+
+        /**
+         * @return the number of occurrences in the window (without the first one)
+         */
+        public long count() { return count; }
+
+        /**
+         * @return the estimated number of distinct clients
+         */
+        public int clients() { return clients; }
+    }
+
+    /**
+     * A bounded LRU map of fingerprints
+     */
+    private final class Stripe {
+        private final LinkedHashMap<Long, Aggregate> entries;
+
+        private Stripe(final int maxSize) {
+            this.entries = new LinkedHashMap<Long, Aggregate>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Aggregate> eldest) {
+                    if (size() > maxSize) {
+                        evicted.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        /**
+         * counts an occurrence of given fingerprint
+         *
+         * @return TRUE, if it's the first occurrence
+         */
+        private synchronized boolean add(final long fingerprint, final ClientSideLogObject logObject, final int client, final long now) {
+            final Aggregate entry = entries.get(fingerprint);
+
+            if (entry == null) {
+                final Aggregate created = new Aggregate(fingerprint, logObject, now);
+                created.count = logObject.count() - 1;
+                created.addClient(client);
+                entries.put(fingerprint, created);
+                return true;
+            }
+
+            entry.count += logObject.count();
+            entry.lastSeen = now;
+            entry.addClient(client);
+            return false;
+        }
+    }
+
+    /**
+     * The aggregation state of a single fingerprint. The distinct clients are estimated by linear
+     * counting on a 256 bit bitmap.
+     */
+    private static final class Aggregate {
+        private static final int BITS = 256;
+
+        private final long fingerprint;
+        private final String level;
+        private final String description;
+        private final long[] clients = new long[BITS / 64];
+        private long count = 0;
+        private long lastSeen;
+
+        private Aggregate(final long fingerprint, final ClientSideLogObject logObject, final long now) {
+            this.fingerprint = fingerprint;
+            this.level = logObject.level();
+            this.description = logObject.file().isEmpty()
+                               ? logObject.message()
+                               : logObject.file() + ":" + logObject.line() + ": " + logObject.message();
+            this.lastSeen = now;
+        }
+
+        private void addClient(final int client) {
+            final int bit = (client ^ (client >>> 16)) & (BITS - 1);
+            clients[bit >>> 6] |= 1L << (bit & 63);
+        }
+
+        private int clients() {
+            int set = 0;
+            for (long word : clients) {
+                set += Long.bitCount(word);
+            }
+
+            if (set == BITS) {
+                return BITS;
+            }
+            return (int) Math.round(BITS * Math.log((double) BITS / (BITS - set)));
+        }
+
+        private void reset() {
+            count = 0;
+            for (int i = 0; i < clients.length; i++) {
+                clients[i] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.settings.IClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ErrorFingerprint;
+import de.agilecoders.wicket.logging.util.ILogWriteListener;
+import de.agilecoders.wicket.logging.util.ILoggingBarrier;
+import de.agilecoders.wicket.logging.util.OverflowPolicy;
+import org.apache.wicket.Application;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@link AsyncLogDispatcher} decouples the request thread from the configured {@link IClientLogger}.
+ * Incoming log messages are put into a bounded queue and a pool of worker threads writes them to the log
+ * store. Log messages are partitioned by their error fingerprint, so all occurrences of the same error
+ * are handled by the same worker thread and per-error state of a logger doesn't need any locking.
+ *
+ * @author miha
+ */
+public class AsyncLogDispatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncLogDispatcher.class);
+
+    /**
+     * the max number of log messages a worker takes from its queue at once
+     */
+    private static final int MAX_DRAIN_SIZE = 64;
+
+    private final IClientSideLoggingSettings settings;
+    private final List<BlockingQueue<Event>> partitions;
+    private final OverflowPolicy overflowPolicy;
+    private final long overflowTimeout;
+    private final int capacity;
+    private final AtomicLong dropped = new AtomicLong(0);
+    private final AtomicLong processed = new AtomicLong(0);
+    private final Object lock = new Object();
+
+    private volatile boolean running = false;
+    private volatile boolean destroyed = false;
+    private Thread[] workers;
+
+    /**
+     * Construct.
+     *
+     * @param settings the settings that provide the queue configuration and the logger to use
+     */
+    public AsyncLogDispatcher(final IClientSideLoggingSettings settings) {
+        this.settings = Args.notNull(settings, "settings");
+        this.overflowPolicy = Args.notNull(settings.overflowPolicy(), "overflowPolicy");
+        this.overflowTimeout = settings.overflowTimeout().getMilliseconds();
+
+        final int workers = Math.max(1, settings.asyncWorkers());
+        final int partitionSize = Math.max(1, settings.asyncQueueSize() / workers);
+
+        this.capacity = partitionSize * workers;
+        this.partitions = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            partitions.add(new ArrayBlockingQueue<Event>(partitionSize));
+        }
+    }
+
+    /**
+     * hands over all given log messages to the worker threads. A request is only rejected if none of its log
+     * messages was queued, so the client can retry it without writing a log message twice:
+     * <ul>
+     * <li>{@link OverflowPolicy#DropNewest}: the log messages are only queued if the partition of each one has
+     * enough free space for all of them (as long as no other request fills the same partitions concurrently)</li>
+     * <li>{@link OverflowPolicy#Block}: waits for free space in each partition. Once a log message of the request
+     * was queued, the remaining ones are only queued if there is free space right away, all others are dropped
+     * and counted</li>
+     * <li>{@link OverflowPolicy#DropOldest}: all log messages are queued, the oldest queued ones are dropped</li>
+     * </ul>
+     *
+     * @param logObjects  all log messages that needs to be written
+     * @param clientInfos the client information according to given logObjects.
+     * @return FALSE, if no log message was queued and the request can be retried
+     */
+    public boolean submit(final Collection<ClientSideLogObject> logObjects, final ClientInfos clientInfos) {
+        if (destroyed) {
+            dropped.addAndGet(logObjects.size());
+            return false;
+        }
+
+        start();
+
+        final int[] indexes = new int[logObjects.size()];
+        int i = 0;
+        for (ClientSideLogObject logObject : logObjects) {
+            indexes[i++] = partitionOf(logObject);
+        }
+
+        if (overflowPolicy == OverflowPolicy.DropNewest && !hasRoomFor(indexes)) {
+            dropped.addAndGet(logObjects.size());
+            return false;
+        }
+
+        boolean wait = overflowPolicy == OverflowPolicy.Block;
+        boolean queued = false;
+        i = 0;
+        for (ClientSideLogObject logObject : logObjects) {
+            if (enqueue(partitions.get(indexes[i]), new Event(logObject, clientInfos), wait)) {
+                queued = true;
+            } else if (!queued) {
+                // nothing was queued yet, so the whole request is dropped and the client can retry it
+                dropped.addAndGet(indexes.length - i - 1);
+                return false;
+            } else {
+                wait = false;
+            }
+            i++;
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the number of log messages that are currently waiting to be written
+     */
+    public int queueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Event> partition : partitions) {
+            depth += partition.size();
+        }
+        return depth;
+    }
+
+    /**
+     * @return the max number of log messages that can be queued
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of log messages that were dropped because of a full queue
+     */
+    public long droppedEvents() {
+        return dropped.get();
+    }
+
+    /**
+     * @return the number of log messages that were handed over to the logger
+     */
+    public long processedEvents() {
+        return processed.get();
+    }
+
+    /**
+     * @return the active overflow policy
+     */
+    public OverflowPolicy overflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * stops all worker threads. All queued log messages are written before, as long as this
+     * doesn't take longer than a second.
+     *
+     * @throws InterruptedException if the current thread was interrupted while waiting for the workers
+     */
+    public void destroy() throws InterruptedException {
+        final Thread[] threads;
+
+        synchronized (lock) {
+            destroyed = true;
+            running = false;
+            threads = workers;
+            workers = null;
+        }
+
+        if (threads != null) {
+            for (Thread worker : threads) {
+                worker.join(TimeUnit.SECONDS.toMillis(1));
+                worker.interrupt();
+            }
+        }
+    }
+
+    /**
+     * starts the worker threads if they aren't running yet. The current application is
+     * attached to all workers, so loggers can access the settings.
+     */
+    private void start() {
+        if (running) {
+            return;
+        }
+
+        synchronized (lock) {
+            if (running || destroyed) {
+                return;
+            }
+
+            final Application application = Application.exists() ? Application.get() : null;
+
+            running = true;
+            workers = new Thread[partitions.size()];
+            for (int i = 0; i < workers.length; i++) {
+                workers[i] = newWorkerThread(new Worker(partitions.get(i), application), i);
+                workers[i].start();
+            }
+        }
+    }
+
+    /**
+     * creates a new worker thread
+     *
+     * @param worker the worker to execute
+     * @param index  the partition index of this worker
+     * @return new (not started) thread
+     */
+    protected Thread newWorkerThread(final Runnable worker, final int index) {
+        final Thread thread = new Thread(worker, settings.id() + "-async-" + index);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * calculates the partition of a log message by its error fingerprint
+     *
+     * @param logObject the log message
+     * @return the index of the partition queue
+     */
+    private int partitionOf(final ClientSideLogObject logObject) {
+        final long fingerprint = ErrorFingerprint.of(logObject);
+        final int hash = (int) (fingerprint ^ (fingerprint >>> 32));
+
+        return (hash & Integer.MAX_VALUE) % partitions.size();
+    }
+
+    /**
+     * @param indexes the partition index of each log message
+     * @return TRUE, if each partition has enough free space for all its log messages
+     */
+    private boolean hasRoomFor(final int[] indexes) {
+        final int[] needed = new int[partitions.size()];
+
+        for (int index : indexes) {
+            if (++needed[index] > partitions.get(index).remainingCapacity()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * adds a single event to given queue according to the overflow policy.
+     *
+     * @param queue the queue to add the event to
+     * @param event the event to add
+     * @param wait  whether to wait for free space with {@link OverflowPolicy#Block}
+     * @return FALSE, if given event was dropped
+     */
+    private boolean enqueue(final BlockingQueue<Event> queue, final Event event, final boolean wait) {
+        switch (overflowPolicy) {
+            case DropOldest:
+                while (!queue.offer(event)) {
+                    if (queue.poll() != null) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                return true;
+
+            case Block:
+                try {
+                    if (wait ? queue.offer(event, overflowTimeout, TimeUnit.MILLISECONDS) : queue.offer(event)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                dropped.incrementAndGet();
+                return false;
+
+            case DropNewest:
+            default:
+                if (queue.offer(event)) {
+                    return true;
+                }
+
+                dropped.incrementAndGet();
+                return false;
+        }
+    }
+
+    /**
+     * writes a list of events to the configured logger. All consecutive events that belong to the same
+     * request are written with a single call. A barrier that is an {@link ILogWriteListener} is notified
+     * about the latency of each call and the fill level of the queue.
+     *
+     * @param events the events to write
+     */
+    private void dispatch(final List<Event> events) {
+        final IClientLogger logger = settings.logger();
+        final ILoggingBarrier barrier = settings.barrier();
+        final ILogWriteListener listener = barrier instanceof ILogWriteListener ? (ILogWriteListener) barrier : null;
+
+        int start = 0;
+        for (int i = 1; i <= events.size(); i++) {
+            if (i == events.size() || events.get(i).clientInfos != events.get(start).clientInfos) {
+                final List<ClientSideLogObject> logObjects = new ArrayList<>(i - start);
+                for (int j = start; j < i; j++) {
+                    logObjects.add(events.get(j).logObject);
+                }
+
+                final long begin = listener != null ? System.nanoTime() : 0;
+                try {
+                    logger.log(logObjects, events.get(start).clientInfos);
+                } catch (RuntimeException e) {
+                    LOG.error("can't write client side log messages", e);
+                }
+
+                if (listener != null) {
+                    listener.onWritten(logObjects.size(), System.nanoTime() - begin, (double) queueDepth() / capacity);
+                }
+
+                processed.addAndGet(logObjects.size());
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * A single queued log message
+     */
+    private static final class Event {
+        private final ClientSideLogObject logObject;
+        private final ClientInfos clientInfos;
+
+        private Event(ClientSideLogObject logObject, ClientInfos clientInfos) {
+            this.logObject = logObject;
+            this.clientInfos = clientInfos;
+        }
+    }
+
+    /**
+     * The worker that consumes a single partition
+     */
+    private final class Worker implements Runnable {
+        private final BlockingQueue<Event> queue;
+        private final Application application;
+
+        private Worker(BlockingQueue<Event> queue, Application application) {
+            this.queue = queue;
+            this.application = application;
+        }
+
+        @Override
+        public void run() {
+            if (application != null) {
+                ThreadContext.setApplication(application);
+            }
+
+            final List<Event> events = new ArrayList<>(MAX_DRAIN_SIZE);
+
+            try {
+                while (running || !queue.isEmpty()) {
+                    final Event event = queue.poll(100, TimeUnit.MILLISECONDS);
+
+                    if (event != null) {
+                        events.add(event);
+                        queue.drainTo(events, MAX_DRAIN_SIZE - 1);
+
+                        dispatch(events);
+                        events.clear();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                ThreadContext.detach();
+            }
+        }
+    }
+}
@@ -2,11 +2,14 @@ package de.agilecoders.wicket.logging;
 
 import de.agilecoders.wicket.logging.settings.IClientSideLoggingSettings;
 import de.agilecoders.wicket.logging.util.EmptyResourceResponse;
-import org.apache.wicket.request.IRequestParameters;
+import de.agilecoders.wicket.logging.util.Hooks;
+import de.agilecoders.wicket.logging.util.JsonResourceResponse;
 import org.apache.wicket.request.resource.AbstractResource;
 import org.apache.wicket.request.resource.IResource;
 import org.apache.wicket.request.resource.ResourceReference;
 
+import javax.servlet.http.HttpServletRequest;
+
 /**
  * The resource reference that represents the entry point on server side
  * for client side logging.
@@ -42,29 +45,68 @@ public class ClientSideErrorLoggingResourceReference extends ResourceReference {
     }
 
     /**
-     * The resource that is executed when an incoming log request needs to be handled.
+     * The resource that is executed when an incoming log request needs to be handled. Subclasses that still
+     * override the deprecated {@link #writeToLog(Attributes)} are called as before and always answer with 200.
      */
     public static class ClientSideErrorLoggingResource extends AbstractResource {
 
+        private static final ClassValue<Boolean> LEGACY_HOOK = new ClassValue<Boolean>() {
+            @Override
+            protected Boolean computeValue(Class<?> type) {
+                return Hooks.isOverridden(type, ClientSideErrorLoggingResource.class, "writeToLog", Attributes.class);
+            }
+        };
+
         @Override
         protected ResourceResponse newResourceResponse(Attributes attributes) {
-            writeToLog(attributes);
+            if (LEGACY_HOOK.get(getClass())) {
+                writeToLog(attributes);
+
+                return new EmptyResourceResponse();
+            }
+
+            final LogRequestProcessor.Response response = process(attributes);
+            final ResourceResponse resourceResponse = response.body() != null
+                                                      ? new JsonResourceResponse(response.status(), response.body())
+                                                      : new EmptyResourceResponse(response.status());
 
-            return new EmptyResourceResponse();
+            if (response.retryAfter() > 0) {
+                resourceResponse.getHeaders().addHeader("Retry-After", String.valueOf(response.retryAfter()));
+            }
+
+            return resourceResponse;
         }
 
         /**
          * writes all log messages to the log store
          *
          * @param attributes response attributes
+         * @deprecated the log request is handled by the {@link LogRequestProcessor} of {@link #newRequestProcessor()},
+         *             this hook ignores its status (e.g. 429 if the request was rejected).
          */
+        @Deprecated
         protected void writeToLog(Attributes attributes) {
-            final IRequestParameters params = attributes.getRequest().getPostParameters();
-            final IParamValueExtractor.Result result = settings().paramValueExtractor().parse(params);
-
-            settings().logger().log(result.logObjects(), result.clientInfos());
+            process(attributes);
         }
 
+        /**
+         * parses and writes the log request
+         *
+         * @param attributes response attributes
+         * @return the response that must be sent to the client
+         */
+        private LogRequestProcessor.Response process(final Attributes attributes) {
+            final Object containerRequest = attributes.getRequest().getContainerRequest();
+            final HttpServletRequest request = containerRequest instanceof HttpServletRequest ? (HttpServletRequest) containerRequest : null;
+
+            return newRequestProcessor().process(request, attributes.getRequest().getPostParameters());
+        }
 
+        /**
+         * @return new processor that parses and writes the log request
+         */
+        protected LogRequestProcessor newRequestProcessor() {
+            return new LogRequestProcessor(settings());
+        }
     }
 }
@@ -1,23 +1,36 @@
 package de.agilecoders.wicket.logging;
 
 import de.agilecoders.wicket.logging.util.DefaultValues;
+import de.agilecoders.wicket.logging.util.LogLevel;
+import de.agilecoders.wicket.logging.util.StackFrame;
 import org.apache.wicket.util.string.StringValue;
+import org.apache.wicket.util.string.Strings;
+
+import java.util.Collections;
+import java.util.List;
 
 /**
  * A {@link ClientSideLogObject} represents a log message that was created
- * on client side.
+ * on client side. Timestamp, line and level are stored as primitives, because
+ * log messages can be queued in large numbers.
  *
  * @author miha
  */
 public class ClientSideLogObject {
 
-    private final StringValue lvl;
-    private final StringValue message;
-    private final StringValue timestamp;
-    private final StringValue stacktrace;
+    private final LogLevel level;
+    private final String unknownLevel;
+    private final String message;
+    private final long timestamp;
+    private final String stacktrace;
     private final int index;
-    private final StringValue line;
-    private final StringValue file;
+    private final int line;
+    private final String rawLine;
+    private final String file;
+    private final boolean valid;
+    private final int count;
+    private final long lastTimestamp;
+    private volatile List<StackFrame> frames;
 
     /**
      * Construct.
@@ -32,8 +45,7 @@ public class ClientSideLogObject {
      */
     public ClientSideLogObject(String lvl, String message, long timestamp, String file, String line,
                                String stacktrace, int index) {
-        this(StringValue.valueOf(lvl), StringValue.valueOf(message), StringValue.valueOf(timestamp),
-             StringValue.valueOf(file), StringValue.valueOf(line), StringValue.valueOf(stacktrace), index);
+        this(lvl, message, timestamp, true, file, line, stacktrace, index, 1, timestamp);
     }
 
     /**
@@ -49,13 +61,38 @@ public class ClientSideLogObject {
      */
     public ClientSideLogObject(StringValue lvl, StringValue message, StringValue timestamp,
                                StringValue file, StringValue line, StringValue stacktrace, int index) {
-        this.lvl = lvl;
+        this(lvl.toString(), message.toString(), timestamp.toLong(DefaultValues.defaultTimestamp), !timestamp.isEmpty(),
+             file.toString(), line.toString(), stacktrace.toString(), index, 1, timestamp.toLong(DefaultValues.defaultTimestamp));
+    }
+
+    /**
+     * Construct. Used by parsers that read plain strings, so no {@link StringValue} needs to be created.
+     *
+     * @param lvl           the log level
+     * @param message       the message
+     * @param timestamp     the timestamp in UTC format
+     * @param hasTimestamp  whether the client has sent a timestamp
+     * @param file          the file that has thrown this error
+     * @param line          the line in file that has thrown this error
+     * @param stacktrace    the client side stacktrace
+     * @param index         the param index
+     * @param count         the number of occurrences that were collapsed into this log message on client side
+     * @param lastTimestamp the timestamp of the last collapsed occurrence
+     */
+    ClientSideLogObject(String lvl, String message, long timestamp, boolean hasTimestamp, String file,
+                        String line, String stacktrace, int index, int count, long lastTimestamp) {
+        this.level = LogLevel.parse(lvl);
+        this.unknownLevel = level == null ? lvl : null;
         this.message = message;
         this.timestamp = timestamp;
-        this.stacktrace = stacktrace;
+        this.stacktrace = Strings.isEmpty(stacktrace) ? null : stacktrace;
         this.index = index;
-        this.file = file;
-        this.line = line;
+        this.file = Strings.isEmpty(file) ? null : file;
+        this.line = parseLine(line);
+        this.rawLine = this.line < 0 && !Strings.isEmpty(line) ? line : null;
+        this.valid = !Strings.isEmpty(message) && hasTimestamp && !Strings.isEmpty(lvl);
+        this.count = Math.max(1, count);
+        this.lastTimestamp = this.count > 1 ? Math.max(timestamp, lastTimestamp) : timestamp;
     }
 
     /**
@@ -69,58 +106,137 @@ public class ClientSideLogObject {
      * @return log level as string or "error" if not valid
      */
     public String level() {
-        return lvl.toString("error");
+        if (level != null) {
+            return level.value();
+        }
+        return unknownLevel != null ? unknownLevel : "error";
+    }
+
+    /**
+     * @return log level or null, if the client has sent an unknown level
+     */
+    public LogLevel logLevel() {
+        return level;
     }
 
     /**
      * @return stacktrace or empty string if non is set
      */
     public String stacktrace() {
-        return stacktrace.toString("");
+        return stacktrace != null ? stacktrace : "";
     }
 
+    /**
+     * returns the frames of the stacktrace. The stacktrace is parsed by the {@link de.agilecoders.wicket.logging.util.IStackTraceParser}
+     * of the current application on first access.
+     *
+     * @return all known frames of the stacktrace, top frame first
+     */
+    public List<StackFrame> frames() {
+        List<StackFrame> result = frames;
+
+        if (result == null) {
+            result = stacktrace != null ? ClientSideLogging.stackTraceParser().parse(stacktrace) : Collections.<StackFrame>emptyList();
+            frames = result;
+        }
+
+        return result;
+    }
 
     /**
      * @return the file that has thrown this error
      */
     public String file() {
-        return file.toString("");
+        return file != null ? file : "";
     }
 
     /**
      * @return the line in file that has thrown this error
      */
     public String line() {
-        return line.toString("");
+        if (line > -1) {
+            return String.valueOf(line);
+        }
+        return rawLine != null ? rawLine : "";
+    }
+
+    /**
+     * @return the line in file that has thrown this error or -1, if it's unknown or not a number
+     */
+    public int lineNumber() {
+        return line;
     }
 
     /**
      * @return log message or default message if invalid
      */
     public String message() {
-        return message.toString(DefaultValues.defaultMessage);
+        return message != null ? message : DefaultValues.defaultMessage;
     }
 
     /**
      * @return timestamp as string or default timestamp if invalid
      */
     public long timestamp() {
-        return timestamp.toLong(DefaultValues.defaultTimestamp);
+        return timestamp;
+    }
+
+    /**
+     * @return the number of identical occurrences this log message stands for, at least 1
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the timestamp of the last occurrence, equal to {@link #timestamp()} if it occurred only once
+     */
+    public long lastTimestamp() {
+        return lastTimestamp;
     }
 
     @Override
     public String toString() {
-        return String.format("[%s | %s] %s %s", timestamp(), level(), fileAndLine(), message());
+        return appendTo(new StringBuilder(64 + message().length())).toString();
     }
 
-    private String fileAndLine() {
+    /**
+     * appends the string representation of this log message, e.g. {@code "[1234 | error] app.js:12: message"},
+     * to given buffer without creating intermediate strings.
+     *
+     * @param buffer the buffer to append to
+     * @return given buffer
+     */
+    public StringBuilder appendTo(final StringBuilder buffer) {
+        buffer.append('[').append(timestamp).append(" | ").append(level()).append("] ");
+        appendLocationTo(buffer).append(' ').append(message());
+
+        if (count > 1) {
+            buffer.append(" (").append(count).append(" times until ").append(lastTimestamp).append(')');
+        }
+
+        return buffer;
+    }
+
+    /**
+     * appends file and line of this log message, e.g. {@code "app.js:12:"}, to given buffer
+     *
+     * @param buffer the buffer to append to
+     * @return given buffer
+     */
+    public StringBuilder appendLocationTo(final StringBuilder buffer) {
         if (file().isEmpty()) {
-            return "";
-        } else if (line().isEmpty()) {
-            return file() + ":";
-        } else {
-            return file() + ":" + line() + ":";
+            return buffer;
+        }
+
+        buffer.append(file).append(':');
+        if (line > -1) {
+            buffer.append(line).append(':');
+        } else if (rawLine != null && !rawLine.isEmpty()) {
+            buffer.append(rawLine).append(':');
         }
+
+        return buffer;
     }
 
     @Override
@@ -134,7 +250,11 @@ public class ClientSideLogObject {
 
         ClientSideLogObject logObject = (ClientSideLogObject) o;
 
-        if (lvl != null ? !lvl.equals(logObject.lvl) : logObject.lvl != null) {
+        if (timestamp != logObject.timestamp || line != logObject.line || level != logObject.level
+            || count != logObject.count || lastTimestamp != logObject.lastTimestamp) {
+            return false;
+        }
+        if (unknownLevel != null ? !unknownLevel.equals(logObject.unknownLevel) : logObject.unknownLevel != null) {
             return false;
         }
         if (message != null ? !message.equals(logObject.message) : logObject.message != null) {
@@ -146,10 +266,7 @@ public class ClientSideLogObject {
         if (file != null ? !file.equals(logObject.file) : logObject.file != null) {
             return false;
         }
-        if (line != null ? !line.equals(logObject.line) : logObject.line != null) {
-            return false;
-        }
-        if (timestamp != null ? !timestamp.equals(logObject.timestamp) : logObject.timestamp != null) {
+        if (rawLine != null ? !rawLine.equals(logObject.rawLine) : logObject.rawLine != null) {
             return false;
         }
 
@@ -158,12 +275,14 @@ public class ClientSideLogObject {
 
     @Override
     public int hashCode() {
-        int result = lvl != null ? lvl.hashCode() : 0;
+        int result = level().hashCode();
         result = 31 * result + (message != null ? message.hashCode() : 0);
         result = 31 * result + (stacktrace != null ? stacktrace.hashCode() : 0);
         result = 31 * result + (file != null ? file.hashCode() : 0);
-        result = 31 * result + (line != null ? line.hashCode() : 0);
-        result = 31 * result + (timestamp != null ? timestamp.hashCode() : 0);
+        result = 31 * result + line;
+        result = 31 * result + (rawLine != null ? rawLine.hashCode() : 0);
+        result = 31 * result + (int) (timestamp ^ (timestamp >>> 32));
+        result = 31 * result + count;
         return result;
     }
 
@@ -171,6 +290,30 @@ public class ClientSideLogObject {
      * @return TRUE, if all values are set
      */
     public boolean isValid() {
-        return !message.isEmpty() && !timestamp.isEmpty() && !lvl.isEmpty();
+        return valid;
+    }
+
+    /**
+     * parses a line number without throwing an exception for values that aren't numbers.
+     *
+     * @param line the line as string
+     * @return the line number or -1, if given value isn't a (positive) number
+     */
+    private static int parseLine(final String line) {
+        if (line == null || line.isEmpty() || line.length() > 9) {
+            return -1;
+        }
+
+        int value = 0;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        return value;
     }
-}
\ No newline at end of file
+}
@@ -2,11 +2,16 @@ package de.agilecoders.wicket.logging;
 
 import de.agilecoders.wicket.logging.settings.ClientSideLoggingSettings;
 import de.agilecoders.wicket.logging.settings.IClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.ICanonicalizer;
+import de.agilecoders.wicket.logging.util.IStackTraceParser;
 import de.agilecoders.wicket.webjars.WicketWebjars;
 import org.apache.wicket.Application;
+import org.apache.wicket.IApplicationListener;
 import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.protocol.http.WebApplication;
 import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * base initialization class
@@ -14,6 +19,7 @@ import org.apache.wicket.util.lang.Args;
  * @author miha
  */
 public final class ClientSideLogging {
+    private static final Logger LOG = LoggerFactory.getLogger(ClientSideLogging.class);
 
     /**
      * The {@link org.apache.wicket.MetaDataKey} used to retrieve the {@link ClientSideLoggingSettings} from the Wicket {@link Appendable}.
@@ -47,6 +53,12 @@ public final class ClientSideLogging {
             }
 
             application.setMetaData(METADATA_KEY, settings);
+
+            if (settings.ingestPath() != null) {
+                application.getRootRequestMapperAsCompound().add(new ClientSideLoggingRequestMapper(settings));
+            }
+
+            application.getApplicationListeners().add(new DestroyListener());
         }
     }
 
@@ -73,4 +85,82 @@ public final class ClientSideLogging {
         throw new IllegalStateException("there is no active application assigned to this thread.");
     }
 
+    /**
+     * returns the {@link ILogLevelFilter} of the current application, that is the configured logger if it
+     * implements {@link ILogLevelFilter}.
+     *
+     * @return the level filter to use, all levels are enabled if there's no filter or no application
+     */
+    public static ILogLevelFilter levelFilter() {
+        final IClientSideLoggingSettings settings = Application.exists() ? settings(Application.get()) : null;
+
+        if (settings != null && settings.logger() instanceof ILogLevelFilter) {
+            return (ILogLevelFilter) settings.logger();
+        }
+
+        return ILogLevelFilter.AllowAllFilter.INSTANCE;
+    }
+
+    /**
+     * returns the {@link ICanonicalizer} of the current application.
+     *
+     * @return the canonicalizer to use, values aren't canonicalized if there's no application
+     */
+    public static ICanonicalizer canonicalizer() {
+        final IClientSideLoggingSettings settings = Application.exists() ? settings(Application.get()) : null;
+
+        return settings != null ? settings.canonicalizer() : ICanonicalizer.NoopCanonicalizer.INSTANCE;
+    }
+
+    /**
+     * returns the {@link IStackTraceParser} of the current application.
+     *
+     * @return the stacktrace parser to use, stacktraces aren't cached if there's no application
+     */
+    public static IStackTraceParser stackTraceParser() {
+        final IClientSideLoggingSettings settings = Application.exists() ? settings(Application.get()) : null;
+
+        return settings != null ? settings.stackTraceParser() : IStackTraceParser.DefaultStackTraceParser.INSTANCE;
+    }
+
+    /**
+     * stops the async dispatcher, the logger and the barrier when the application gets destroyed. The logger is
+     * destroyed after all queued log messages were written, so it can write all pending state (e.g. the summaries
+     * of the {@link AggregatingClientLogger}).
+     */
+    private static final class DestroyListener implements IApplicationListener {
+
+        @Override
+        public void onAfterInitialized(Application application) {
+            // nothing to do.
+        }
+
+        @Override
+        public void onBeforeDestroyed(Application application) {
+            final IClientSideLoggingSettings settings = settings(application);
+
+            if (settings != null && settings.async()) {
+                try {
+                    settings.asyncDispatcher().destroy();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    LOG.warn("interrupted while stopping async dispatcher", e);
+                }
+            }
+
+            if (settings != null) {
+                try {
+                    settings.logger().destroy();
+                } catch (Throwable e) {
+                    LOG.warn("can't destroy client logger", e);
+                }
+
+                try {
+                    settings.barrier().destroy();
+                } catch (Throwable e) {
+                    LOG.warn("can't destroy logging barrier", e);
+                }
+            }
+        }
+    }
 }
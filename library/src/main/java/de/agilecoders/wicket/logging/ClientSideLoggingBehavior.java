@@ -16,6 +16,7 @@ import org.apache.wicket.markup.head.HeaderItem;
 import org.apache.wicket.markup.head.IHeaderResponse;
 import org.apache.wicket.markup.head.JavaScriptHeaderItem;
 import org.apache.wicket.markup.head.OnDomReadyHeaderItem;
+import org.apache.wicket.request.Url;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.util.lang.Args;
 import org.apache.wicket.util.time.Duration;
@@ -159,6 +160,16 @@ public class ClientSideLoggingBehavior extends Behavior {
             return this;
         }
 
+        public Builder throttleInterval(final Duration value) {
+            data.put("throttleInterval", value.getMilliseconds());
+
+            if (DefaultValues.throttleInterval == value.getMilliseconds()) {
+                data.remove("throttleInterval");
+            }
+
+            return this;
+        }
+
         public Builder collectionType(final CollectionType value) {
             data.put("collectionType", value.asString());
 
@@ -271,6 +282,14 @@ public class ClientSideLoggingBehavior extends Behavior {
             data.put("logStacktrace", settings().logStacktrace());
         }
 
+        if (settings().wireFormat() != DefaultValues.wireFormat) {
+            data.put("wireFormat", settings().wireFormat().asString());
+        }
+
+        if (settings().compressRequests()) {
+            data.put("compression", "gzip");
+        }
+
         if (settings().debug()) {
             data.put("debug", true);
         }
@@ -285,6 +304,18 @@ public class ClientSideLoggingBehavior extends Behavior {
         // createCallbackUrl must be called for each request, else it could be wrong because it is relative to ajax base url.
         data.put("url", createCallbackUrl());
 
+        // the current control block is rendered too, so new page views start with the same options as running ones
+        final String control = settings.clientControl().toJson();
+        if (control != null) {
+            try {
+                data.put("control", new JSONObject(control));
+            } catch (JSONException e) {
+                throw new WicketRuntimeException(e);
+            }
+        } else {
+            data.remove("control");
+        }
+
         response.render(JavaScriptHeaderItem.forReference(Application.get().getJavaScriptLibrarySettings().getJQueryReference()));
         response.render(JavaScriptHeaderItem.forReference(WicketAjaxJQueryResourceReference.get()));
 
@@ -337,6 +368,15 @@ public class ClientSideLoggingBehavior extends Behavior {
      * @return callback url that is used as client side logging entry
      */
     protected CharSequence createCallbackUrl() {
+        final String servletPath = settings().servletPath();
+        final String ingestPath = settings().ingestPath();
+
+        if (servletPath != null) {
+            return RequestCycle.get().getUrlRenderer().renderContextRelativeUrl(servletPath);
+        } else if (ingestPath != null) {
+            return RequestCycle.get().getUrlRenderer().renderRelativeUrl(Url.parse(ingestPath));
+        }
+
         return RequestCycle.get().urlFor(new ClientSideErrorLoggingResourceReference(), null);
     }
 
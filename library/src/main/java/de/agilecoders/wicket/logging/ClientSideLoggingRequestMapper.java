@@ -0,0 +1,146 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.settings.IClientSideLoggingSettings;
+import org.apache.wicket.request.IRequestCycle;
+import org.apache.wicket.request.IRequestHandler;
+import org.apache.wicket.request.IRequestMapper;
+import org.apache.wicket.request.Request;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.string.Strings;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A lightweight entry point for log requests that is mounted at {@link IClientSideLoggingSettings#ingestPath()}.
+ * Log requests are handled directly by a {@link IRequestHandler} without resource reference lookup and without
+ * touching the session or the page store, so error floods of anonymous users can't create new sessions and
+ * don't contend on the lock of the page that is erroring.
+ *
+ * @author miha
+ */
+public class ClientSideLoggingRequestMapper implements IRequestMapper {
+
+    private final IClientSideLoggingSettings settings;
+    private final List<String> segments;
+
+    /**
+     * Construct.
+     *
+     * @param settings the settings that provide the ingest path
+     */
+    public ClientSideLoggingRequestMapper(final IClientSideLoggingSettings settings) {
+        this.settings = Args.notNull(settings, "settings");
+        this.segments = segments(Args.notEmpty(settings.ingestPath(), "ingestPath"));
+    }
+
+    /**
+     * splits given path into its segments
+     *
+     * @param path the path to split
+     * @return all non-empty segments
+     */
+    private static List<String> segments(final String path) {
+        final List<String> segments = new ArrayList<>();
+
+        for (String segment : Strings.split(path, '/')) {
+            if (!Strings.isEmpty(segment)) {
+                segments.add(segment);
+            }
+        }
+
+        return segments;
+    }
+
+    @Override
+    public IRequestHandler mapRequest(Request request) {
+        if (matches(request.getUrl())) {
+            return newRequestHandler();
+        }
+
+        return null;
+    }
+
+    @Override
+    public int getCompatibilityScore(Request request) {
+        return matches(request.getUrl()) ? Integer.MAX_VALUE : 0;
+    }
+
+    @Override
+    public Url mapHandler(IRequestHandler requestHandler) {
+        if (requestHandler instanceof IngestRequestHandler) {
+            return new Url(segments, new ArrayList<Url.QueryParameter>());
+        }
+
+        return null;
+    }
+
+    /**
+     * @param url the url to check
+     * @return TRUE, if given url points to the ingest path
+     */
+    private boolean matches(final Url url) {
+        return url.getSegments().equals(segments);
+    }
+
+    /**
+     * @return new request handler that handles a single log request
+     */
+    protected IRequestHandler newRequestHandler() {
+        return new IngestRequestHandler(new LogRequestProcessor(settings));
+    }
+
+    /**
+     * The request handler that parses and writes a single log request.
+     */
+    public static class IngestRequestHandler implements IRequestHandler {
+
+        private final LogRequestProcessor processor;
+
+        /**
+         * Construct.
+         *
+         * @param processor the processor that parses and writes the log request
+         */
+        public IngestRequestHandler(final LogRequestProcessor processor) {
+            this.processor = processor;
+        }
+
+        @Override
+        public void respond(IRequestCycle requestCycle) {
+            final WebRequest request = (WebRequest) requestCycle.getRequest();
+            final WebResponse response = (WebResponse) requestCycle.getResponse();
+            final Object containerRequest = request.getContainerRequest();
+
+            final LogRequestProcessor.Response result = processor.process(containerRequest instanceof HttpServletRequest ? (HttpServletRequest) containerRequest : null,
+                                                                          request.getPostParameters());
+
+            response.setStatus(result.status());
+            if (result.retryAfter() > 0) {
+                response.setHeader("Retry-After", String.valueOf(result.retryAfter()));
+            }
+            response.disableCaching();
+
+            if (result.body() != null) {
+                final byte[] content = result.body().getBytes(StandardCharsets.UTF_8);
+
+                response.setContentType("application/json; charset=UTF-8");
+                response.setContentLength(content.length);
+                response.write(content);
+            } else {
+                response.setContentType("text/plain");
+                response.setContentLength(0);
+            }
+        }
+
+        @Override
+        public void detach(IRequestCycle requestCycle) {
+            // nothing to do.
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.settings.IClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.BufferPool;
+import de.agilecoders.wicket.logging.util.LogRequestContext;
+import org.apache.wicket.Application;
+import org.apache.wicket.ThreadContext;
+import org.apache.wicket.util.string.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A non-blocking entry point for log requests that is based on servlet 3.1 async io. The request body is read
+ * by a {@link ReadListener} into pooled buffers whenever the container signals new data, so slow uploads
+ * don't pin a container thread. Only complete bodies are handed over to a small thread pool that parses and
+ * writes them with the configured {@link IParamValueExtractor}, {@link IRequestBodyExtractor} and
+ * {@link IClientLogger}.
+ * <p/>
+ * The servlet must be registered with async support and needs the name of the wicket application
+ * as init parameter "applicationName". Optional init parameters are "threads" (default: 2), "queueSize"
+ * (default: 1024) and "timeout" in milliseconds (default: 30000).
+ *
+ * @author miha
+ */
+public class ClientSideLoggingServlet extends HttpServlet {
+    private static final Logger LOG = LoggerFactory.getLogger(ClientSideLoggingServlet.class);
+
+    private static final int BUFFER_SIZE = 4096;
+    private static final int POOL_CAPACITY = 256;
+
+    private String applicationName;
+    private long timeout;
+    private BufferPool bufferPool;
+    private ExecutorService executor;
+    private volatile Application application;
+
+    @Override
+    public void init() throws ServletException {
+        applicationName = getInitParameter("applicationName");
+
+        if (Strings.isEmpty(applicationName)) {
+            throw new ServletException("init parameter 'applicationName' is required");
+        }
+
+        timeout = intParameter("timeout", 30000);
+        bufferPool = newBufferPool();
+        executor = newExecutor(intParameter("threads", 2), intParameter("queueSize", 1024));
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        final AsyncContext context = request.startAsync();
+        context.setTimeout(timeout);
+
+        final ServletInputStream input = request.getInputStream();
+        final BodyReader reader = newBodyReader(context, input, request.getContentType(), request.getHeader("Content-Encoding"), request.getCharacterEncoding());
+
+        context.addListener(reader);
+        input.setReadListener(reader);
+    }
+
+    /**
+     * @return new buffer pool for request bodies
+     */
+    protected BufferPool newBufferPool() {
+        return new BufferPool(BUFFER_SIZE, POOL_CAPACITY);
+    }
+
+    /**
+     * creates the thread pool that parses and writes complete request bodies
+     *
+     * @param threads   the number of threads
+     * @param queueSize the max number of waiting request bodies
+     * @return new executor
+     */
+    protected ExecutorService newExecutor(final int threads, final int queueSize) {
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "client-side-logging-servlet-" + counter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * creates a new read listener for a single log request
+     *
+     * @param context           the async context of the log request
+     * @param input             the request body stream
+     * @param contentType       the content type of the request body
+     * @param contentEncoding   the content encoding of the request body
+     * @param characterEncoding the character encoding of the request body
+     * @return new read listener
+     */
+    protected BodyReader newBodyReader(final AsyncContext context, final ServletInputStream input, final String contentType,
+                                       final String contentEncoding, final String characterEncoding) {
+        return new BodyReader(context, input, contentType, contentEncoding, characterEncoding);
+    }
+
+    /**
+     * @return the wicket application that provides the settings
+     */
+    protected Application application() {
+        if (application == null) {
+            final Application app = Application.get(applicationName);
+
+            if (app == null) {
+                throw new IllegalStateException("there is no application with name: " + applicationName);
+            }
+            application = app;
+        }
+
+        return application;
+    }
+
+    /**
+     * @return the settings of the wicket application
+     */
+    protected IClientSideLoggingSettings settings() {
+        return ClientSideLogging.settings(application());
+    }
+
+    private int intParameter(final String name, final int defaultValue) {
+        final String value = getInitParameter(name);
+
+        return Strings.isEmpty(value) ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Reads the body of a single log request into pooled buffers and hands it over to the
+     * thread pool as soon as it's complete.
+     */
+    protected class BodyReader implements ReadListener, AsyncListener {
+        private final AsyncContext context;
+        private final ServletInputStream input;
+        private final String contentType;
+        private final String contentEncoding;
+        private final String characterEncoding;
+        private final LogRequestContext requestContext;
+        private final long maxSize;
+        private final List<byte[]> buffers = new ArrayList<>();
+        private byte[] current = null;
+        private int position = 0;
+        private long size = 0;
+        private volatile boolean finished = false;
+        private boolean processing = false;
+
+        /**
+         * Construct.
+         *
+         * @param context           the async context of the log request
+         * @param input             the request body stream
+         * @param contentType       the content type of the request body
+         * @param contentEncoding   the content encoding of the request body
+         * @param characterEncoding the character encoding of the request body
+         */
+        protected BodyReader(final AsyncContext context, final ServletInputStream input, final String contentType,
+                             final String contentEncoding, final String characterEncoding) {
+            this.context = context;
+            this.input = input;
+            this.contentType = contentType;
+            this.contentEncoding = contentEncoding;
+            this.characterEncoding = characterEncoding;
+            this.requestContext = LogRequestContext.of(context.getRequest() instanceof HttpServletRequest ? (HttpServletRequest) context.getRequest() : null);
+            this.maxSize = settings().maxRequestBodySize().bytes();
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            while (!finished && input.isReady()) {
+                if (current == null || position == current.length) {
+                    current = bufferPool.acquire();
+                    position = 0;
+                    buffers.add(current);
+                }
+
+                final int read = input.read(current, position, current.length - position);
+                if (read == -1) {
+                    return;
+                }
+
+                position += read;
+                size += read;
+
+                if (size > maxSize) {
+                    LOG.warn("reject client side log request: request body exceeds max size of {} bytes", maxSize);
+                    finish(413);
+                }
+            }
+        }
+
+        @Override
+        public void onAllDataRead() throws IOException {
+            if (finished) {
+                return;
+            }
+
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        process();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LOG.warn("reject client side log request: too many pending requests");
+                finish(503, Math.max(1, (long) Math.ceil(settings().retryAfter().seconds())), settings().clientControl().toJson());
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            LOG.debug("can't read client side log request", t);
+
+            finish(400);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException {
+            finish(408);
+        }
+
+        @Override
+        public void onError(AsyncEvent event) throws IOException {
+            release();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) throws IOException {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) throws IOException {
+            // nothing to do.
+        }
+
+        /**
+         * parses and writes the complete request body
+         */
+        protected void process() {
+            final InputStream body;
+
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                processing = true;
+                body = body();
+            }
+
+            LogRequestProcessor.Response response = new LogRequestProcessor.Response(500, 0);
+            ThreadContext.setApplication(application());
+            try {
+                response = new LogRequestProcessor(settings()).process(body, contentType, contentEncoding, characterEncoding, requestContext);
+            } catch (RuntimeException e) {
+                LOG.error("can't write client side log messages", e);
+            } finally {
+                ThreadContext.detach();
+
+                synchronized (this) {
+                    processing = false;
+                }
+                finish(response.status(), response.retryAfter(), response.body());
+                release();
+            }
+        }
+
+        /**
+         * @return the buffered request body as stream
+         */
+        private InputStream body() {
+            final List<InputStream> streams = new ArrayList<>(buffers.size());
+
+            for (int i = 0; i < buffers.size(); i++) {
+                streams.add(new ByteArrayInputStream(buffers.get(i), 0, i == buffers.size() - 1 ? position : buffers.get(i).length));
+            }
+
+            return new SequenceInputStream(Collections.enumeration(streams));
+        }
+
+        /**
+         * sends the status code and completes the request.
+         *
+         * @param status the http status code
+         */
+        private void finish(final int status) {
+            finish(status, 0, null);
+        }
+
+        /**
+         * sends the status code and completes the request.
+         *
+         * @param status     the http status code
+         * @param retryAfter the value of the "Retry-After" header in seconds, 0 if no header must be sent
+         * @param body       the json response body or null, if the response is empty
+         */
+        private void finish(final int status, final long retryAfter, final String body) {
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+            }
+
+            try {
+                final HttpServletResponse response = (HttpServletResponse) context.getResponse();
+                response.setStatus(status);
+                response.setHeader("Cache-Control", "no-cache, no-store");
+
+                if (retryAfter > 0) {
+                    response.setHeader("Retry-After", String.valueOf(retryAfter));
+                }
+
+                if (body != null) {
+                    final byte[] content = body.getBytes(StandardCharsets.UTF_8);
+
+                    response.setContentType("application/json; charset=UTF-8");
+                    response.setContentLength(content.length);
+                    response.getOutputStream().write(content);
+                } else {
+                    response.setContentLength(0);
+                }
+            } catch (IOException e) {
+                LOG.debug("can't write client side log response", e);
+            } finally {
+                context.complete();
+                release();
+            }
+        }
+
+        /**
+         * hands back all buffers to the pool, as long as they aren't parsed at the moment
+         */
+        private synchronized void release() {
+            if (processing) {
+                return;
+            }
+
+            for (byte[] buffer : buffers) {
+                bufferPool.release(buffer);
+            }
+            buffers.clear();
+            current = null;
+        }
+    }
+}
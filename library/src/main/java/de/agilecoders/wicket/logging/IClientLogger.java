@@ -1,7 +1,9 @@
 package de.agilecoders.wicket.logging;
 
 import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.Hooks;
 import de.agilecoders.wicket.logging.util.ILoggingBarrier;
+import org.apache.wicket.util.lang.Args;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,20 +31,42 @@ public interface IClientLogger {
     void destroy() throws Throwable;
 
     /**
-     * Default implementation of {@link IClientLogger} that uses slf4j as logger.
+     * Default implementation of {@link IClientLogger} that uses slf4j as logger. It's also used as
+     * {@link ILogLevelFilter}, so log messages of levels that are disabled in slf4j aren't parsed.
+     * Subclasses that still override the deprecated
+     * {@link #newLogMessage(String, ClientSideLogObject, ClientInfos, ILogCleaner)} are called as before.
      */
-    public static class DefaultClientLogger implements IClientLogger {
+    public static class DefaultClientLogger implements IClientLogger, ILogLevelFilter {
         private final Logger logger;
         private final ILoggingBarrier barrier;
+        private final LogMessageLayout layout;
+        private final ILogCleaner cleaner;
+        private final boolean legacyHook;
 
         /**
-         * Construct.
+         * Construct. Uses the {@link LogMessageLayout#DEFAULT default layout} and the cleaner of the current
+         * application.
          *
          * @param id the logger id
          */
         public DefaultClientLogger(final String id) {
+            this(id, LogMessageLayout.DEFAULT, null);
+        }
+
+        /**
+         * Construct.
+         *
+         * @param id      the logger id
+         * @param layout  the layout of the log lines
+         * @param cleaner the cleaner of path and user agent or null to use the cleaner of the current application
+         */
+        public DefaultClientLogger(final String id, final LogMessageLayout layout, final ILogCleaner cleaner) {
             this.logger = newLogger(id);
             this.barrier = newBarrier();
+            this.layout = Args.notNull(layout, "layout");
+            this.cleaner = cleaner;
+            this.legacyHook = Hooks.isOverridden(getClass(), DefaultClientLogger.class, "newLogMessage", String.class,
+                                                 ClientSideLogObject.class, ClientInfos.class, ILogCleaner.class);
         }
 
         /**
@@ -62,48 +86,54 @@ public interface IClientLogger {
             return new ILoggingBarrier.AllowAllBarrier();
         }
 
+        /**
+         * writes all allowed log messages whose level is enabled. Path and user agent are cleaned once per batch
+         * and only if at least one log message is written.
+         */
         @Override
         public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
             if(!barrier.isAllowed(logObjects)) {
                 return;
             }
 
-            final ILogCleaner cleaner = ClientSideLogging.settings().cleaner();
+            boolean cleaned = false;
+            String path = null;
+            String userAgent = null;
 
             for (ClientSideLogObject logObject : logObjects) {
-                if (barrier.isAllowed(logObject)) {
-                    switch (logObject.level()) {
-                        case "error":
-                            if (logger.isErrorEnabled()) {
-                                logger.error(newLogMessage("error", logObject, clientInfos, cleaner));
-                            }
-                            break;
-                        case "warn":
-                            if (logger.isWarnEnabled()) {
-                                logger.warn(newLogMessage("warn", logObject, clientInfos, cleaner));
-                            }
-                            break;
-                        case "info":
-                            if (logger.isInfoEnabled()) {
-                                logger.info(newLogMessage("info", logObject, clientInfos, cleaner));
-                            }
-                            break;
-                        case "debug":
-                            if (logger.isDebugEnabled()) {
-                                logger.debug(newLogMessage("debug", logObject, clientInfos, cleaner));
-                            }
-                            break;
-                        case "trace":
-                            if (logger.isTraceEnabled()) {
-                                logger.trace(newLogMessage("trace", logObject, clientInfos, cleaner));
-                            }
-                            break;
-                        default:
+                final String level = logObject.level();
+
+                if (barrier.isAllowed(logObject) && isEnabled(level)) {
+                    if (!cleaned) {
+                        final ILogCleaner cleaner = cleaner();
+                        path = cleaner.toCleanPath(clientInfos.ajaxBaseUrl());
+                        userAgent = cleaner.clean(clientInfos.userAgent());
+                        cleaned = true;
                     }
+
+                    write(level, logObject, clientInfos, path, userAgent);
                 }
             }
         }
 
+        @Override
+        public boolean isEnabled(String level) {
+            switch (level) {
+                case "error":
+                    return logger.isErrorEnabled();
+                case "warn":
+                    return logger.isWarnEnabled();
+                case "info":
+                    return logger.isInfoEnabled();
+                case "debug":
+                    return logger.isDebugEnabled();
+                case "trace":
+                    return logger.isTraceEnabled();
+                default:
+                    return false;
+            }
+        }
+
         @Override
         public void destroy() throws Throwable {
             barrier.destroy();
@@ -112,14 +142,76 @@ public interface IClientLogger {
         /**
          * creates a new log line
          *
-         * @param logLevel    the current log level
+         * @param logObject the log object that contains message and level
+         * @param path      the cleaned ajax base url of the client
+         * @param userAgent the cleaned user agent of the client
+         * @return new log message line.
+         */
+        protected String newLogMessage(ClientSideLogObject logObject, String path, String userAgent) {
+            return layout.render(logObject, path, userAgent);
+        }
+
+        /**
+         * creates a new log line
+         *
+         * @param logLevel    the log level
          * @param logObject   the log object that contains message and level
-         * @param clientInfos the client information that contains user-agent and ajax base url
-         * @param cleaner     the log cleaner implementation
+         * @param clientInfos the client information
+         * @param cleaner     the cleaner of path and user agent
          * @return new log message line.
+         * @deprecated override {@link #newLogMessage(ClientSideLogObject, String, String)} or use a
+         *             {@link LogMessageLayout}, this hook cleans path and user agent for each log message.
          */
+        @Deprecated
         protected String newLogMessage(String logLevel, ClientSideLogObject logObject, ClientInfos clientInfos, ILogCleaner cleaner) {
-            return String.format("[%s] %s [%s]; Stack: %s", cleaner.toCleanPath(clientInfos.ajaxBaseUrl()), logObject, cleaner.clean(clientInfos.userAgent()), logObject.stacktrace());
+            return newLogMessage(logObject, cleaner.toCleanPath(clientInfos.ajaxBaseUrl()), cleaner.clean(clientInfos.userAgent()));
+        }
+
+        /**
+         * writes a single log message whose level is enabled
+         *
+         * @param level       the log level, e.g. "error"
+         * @param logObject   the log message
+         * @param clientInfos the client information
+         * @param path        the cleaned ajax base url of the client
+         * @param userAgent   the cleaned user agent of the client
+         */
+        protected void write(String level, ClientSideLogObject logObject, ClientInfos clientInfos, String path, String userAgent) {
+            write(level, legacyHook ? newLogMessage(level, logObject, clientInfos, cleaner()) : newLogMessage(logObject, path, userAgent));
+        }
+
+        /**
+         * writes a log line by the slf4j logger
+         *
+         * @param level   the log level, e.g. "error"
+         * @param message the log line
+         */
+        protected final void write(final String level, final String message) {
+            switch (level) {
+                case "error":
+                    logger.error(message);
+                    break;
+                case "warn":
+                    logger.warn(message);
+                    break;
+                case "info":
+                    logger.info(message);
+                    break;
+                case "debug":
+                    logger.debug(message);
+                    break;
+                case "trace":
+                    logger.trace(message);
+                    break;
+                default:
+            }
+        }
+
+        /**
+         * @return the cleaner of this logger or the one of the current application
+         */
+        private ILogCleaner cleaner() {
+            return cleaner != null ? cleaner : ClientSideLogging.settings().cleaner();
         }
     }
 
@@ -0,0 +1,29 @@
+package de.agilecoders.wicket.logging;
+
+/**
+ * An {@link ILogLevelFilter} tells the request parsers which log levels are written at all. Log messages
+ * of a disabled level are skipped right after their level was read, so they are neither decoded nor
+ * queued. An {@link IClientLogger} that implements this interface is used as filter automatically.
+ *
+ * @author miha
+ */
+public interface ILogLevelFilter {
+
+    /**
+     * @param level the client side log level, e.g. "error"
+     * @return TRUE, if log messages of given level will be written
+     */
+    boolean isEnabled(String level);
+
+    /**
+     * Default implementation of {@link ILogLevelFilter} that enables all log levels.
+     */
+    public static final class AllowAllFilter implements ILogLevelFilter {
+        public static final AllowAllFilter INSTANCE = new AllowAllFilter();
+
+        @Override
+        public boolean isEnabled(String level) {
+            return true;
+        }
+    }
+}
@@ -2,15 +2,16 @@ package de.agilecoders.wicket.logging;
 
 import de.agilecoders.wicket.logging.util.ClientInfos;
 import de.agilecoders.wicket.logging.util.DefaultValues;
+import de.agilecoders.wicket.logging.util.ICanonicalizer;
 import de.agilecoders.wicket.logging.util.ParamNames;
 import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.util.string.StringValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 /**
@@ -30,76 +31,223 @@ public interface IParamValueExtractor {
     Result parse(IRequestParameters params);
 
     /**
-     * Default implementation of {@link IParamValueExtractor}
+     * Default implementation of {@link IParamValueExtractor}. All parameters are read in a single pass and
+     * bucketed by their index, so each parameter value is fetched exactly once and no parameter name is
+     * created or split.
      */
     public static final class DefaultParamValueExtractor implements IParamValueExtractor {
         private static final Logger LOG = LoggerFactory.getLogger(DefaultParamValueExtractor.class);
 
+        /**
+         * the highest accepted parameter index, parameters with a higher index are ignored
+         */
+        private static final int MAX_INDEX = 4096;
+
+        private static final String[] FIELD_NAMES = {ParamNames.LEVEL, ParamNames.MESSAGE, ParamNames.TIMESTAMP,
+                                                     ParamNames.FILE, ParamNames.LINE, ParamNames.STACKTRACE,
+                                                     ParamNames.COUNT, ParamNames.LAST_TIMESTAMP};
+        private static final int LEVEL = 0;
+        private static final int MESSAGE = 1;
+        private static final int TIMESTAMP = 2;
+        private static final int FILE = 3;
+        private static final int LINE = 4;
+        private static final int STACKTRACE = 5;
+        private static final int COUNT = 6;
+        private static final int LAST_TIMESTAMP = 7;
+        private static final int FIELDS = FIELD_NAMES.length;
+
+        private static final StringValue EMPTY = StringValue.valueOf((String) null);
+
+        private final ILogLevelFilter levelFilter;
+        private final ICanonicalizer canonicalizer;
+
+        /**
+         * Construct. Uses the configured logger as level filter, if it implements {@link ILogLevelFilter},
+         * and the configured canonicalizer.
+         */
+        public DefaultParamValueExtractor() {
+            this(null);
+        }
+
+        /**
+         * Construct.
+         *
+         * @param levelFilter the filter that decides which log levels are read at all
+         */
+        public DefaultParamValueExtractor(final ILogLevelFilter levelFilter) {
+            this(levelFilter, null);
+        }
+
+        /**
+         * Construct.
+         *
+         * @param levelFilter   the filter that decides which log levels are read at all
+         * @param canonicalizer the canonicalizer for repeating values like user agents, files and messages
+         */
+        public DefaultParamValueExtractor(final ILogLevelFilter levelFilter, final ICanonicalizer canonicalizer) {
+            this.levelFilter = levelFilter;
+            this.canonicalizer = canonicalizer;
+        }
+
         @Override
         public Result parse(IRequestParameters params) {
-            final Set<ClientSideLogObject> logObjects = new HashSet<>();
             final ClientInfos clientInfos = new ClientInfos();
-            final List<Integer> parsedIndex = new ArrayList<>();
+            final ILogLevelFilter levelFilter = levelFilter();
+            final ICanonicalizer canonicalizer = canonicalizer();
+            final int elements = Math.min(MAX_INDEX, Math.max(0, params.getParameterValue(ParamNames.ELEMENTS).toInt(0)));
+
+            // field values of all entries: values[index * FIELDS + field]
+            StringValue[] values = new StringValue[(Math.max(elements, 1) + 1) * FIELDS];
+            int maxIndex = -1;
 
             for (final String paramName : params.getParameterNames()) {
-                final String realParamName = extractRealParamName(paramName);
-
-                switch (realParamName) {
-                    case ParamNames.TIMESTAMP:
-                    case ParamNames.LEVEL:
-                    case ParamNames.MESSAGE:
-                    case ParamNames.FILE:
-                    case ParamNames.LINE:
-                    case ParamNames.STACKTRACE:
-                        final int index = extractIndex(paramName);
-
-                        if (index > -1 && !parsedIndex.contains(index)) {
-                            ClientSideLogObject obj = new ClientSideLogObject(params.getParameterValue(ParamNames.LEVEL + DefaultValues.paramSplitter + index),
-                                                                              params.getParameterValue(ParamNames.MESSAGE + DefaultValues.paramSplitter + index),
-                                                                              params.getParameterValue(ParamNames.TIMESTAMP + DefaultValues.paramSplitter + index),
-                                                                              params.getParameterValue(ParamNames.FILE + DefaultValues.paramSplitter + index),
-                                                                              params.getParameterValue(ParamNames.LINE + DefaultValues.paramSplitter + index),
-                                                                              params.getParameterValue(ParamNames.STACKTRACE + DefaultValues.paramSplitter + index),
-                                                                              index);
-
-                            if (obj.isValid()) {
-                                logObjects.add(obj);
-                            } else {
-                                LOG.warn("skip log object because it isn't valid: {}", obj);
-                            }
-
-                            parsedIndex.add(index);
-                        }
-                        break;
-
-                    case ParamNames.AJAX_BASE_URL:
-                    case ParamNames.SCREEN_SIZE:
-                    case ParamNames.WINDOW_SIZE:
-                    case ParamNames.USER_AGENT:
-                        clientInfos.put(paramName, params.getParameterValue(paramName).toString(DefaultValues.defaultClientInfoValue));
+                final int splitter = paramName.indexOf(DefaultValues.paramSplitterChar);
+
+                if (splitter < 0) {
+                    switch (paramName) {
+                        case ParamNames.AJAX_BASE_URL:
+                        case ParamNames.SCREEN_SIZE:
+                        case ParamNames.WINDOW_SIZE:
+                        case ParamNames.USER_AGENT:
+                            clientInfos.put(paramName, canonicalizer.canonicalize(params.getParameterValue(paramName).toString(DefaultValues.defaultClientInfoValue)));
+                            break;
+                        case ParamNames.PAGE_VIEW_ID:
+                            // unique per page view, so it isn't canonicalized
+                            clientInfos.put(paramName, params.getParameterValue(paramName).toString());
+                            break;
+                        default:
+                    }
+                    continue;
+                }
+
+                final int field = fieldOf(paramName, splitter);
+                final int index = field > -1 ? indexOf(paramName, splitter + 1) : -1;
+
+                if (index < 0) {
+                    continue;
+                }
+
+                if ((index + 1) * FIELDS > values.length) {
+                    values = Arrays.copyOf(values, Math.max(values.length * 2, (index + 1) * FIELDS));
+                }
+
+                values[index * FIELDS + field] = params.getParameterValue(paramName);
+                maxIndex = Math.max(maxIndex, index);
+            }
+
+            final Set<ClientSideLogObject> logObjects = new HashSet<>(Math.max(16, (int) ((maxIndex + 1) / 0.75f) + 1));
+            for (int index = 0; index <= maxIndex; index++) {
+                final int offset = index * FIELDS;
+
+                if (isEmpty(values, offset) || !isEnabled(levelFilter, values[offset + LEVEL])) {
+                    continue;
+                }
+
+                final StringValue timestamp = valueOf(values[offset + TIMESTAMP]);
+                final ClientSideLogObject obj = new ClientSideLogObject(valueOf(values[offset + LEVEL]).toString(),
+                                                                        canonicalizer.canonicalize(valueOf(values[offset + MESSAGE]).toString()),
+                                                                        timestamp.toLong(DefaultValues.defaultTimestamp),
+                                                                        !timestamp.isEmpty(),
+                                                                        canonicalizer.canonicalize(valueOf(values[offset + FILE]).toString()),
+                                                                        valueOf(values[offset + LINE]).toString(),
+                                                                        valueOf(values[offset + STACKTRACE]).toString(),
+                                                                        index,
+                                                                        valueOf(values[offset + COUNT]).toInt(1),
+                                                                        valueOf(values[offset + LAST_TIMESTAMP]).toLong(DefaultValues.defaultTimestamp));
+
+                if (obj.isValid()) {
+                    logObjects.add(obj);
+                } else {
+                    LOG.warn("skip log object because it isn't valid: {}", obj);
                 }
             }
 
             return new Result(logObjects, clientInfos);
         }
 
-        private int extractIndex(String paramName) {
-            final int index = paramName.indexOf(DefaultValues.paramSplitterChar);
+        /**
+         * @return the filter that decides which log levels are read at all
+         */
+        private ILogLevelFilter levelFilter() {
+            return levelFilter != null ? levelFilter : ClientSideLogging.levelFilter();
+        }
+
+        /**
+         * @return the canonicalizer for repeating values like user agents, files and messages
+         */
+        private ICanonicalizer canonicalizer() {
+            return canonicalizer != null ? canonicalizer : ClientSideLogging.canonicalizer();
+        }
+
+        /**
+         * @param levelFilter the active level filter
+         * @param level       the level of a log message or null, if it hasn't any
+         * @return FALSE, if the level is disabled; log messages without level are left to validation
+         */
+        private static boolean isEnabled(final ILogLevelFilter levelFilter, final StringValue level) {
+            return level == null || level.isEmpty() || levelFilter.isEnabled(level.toString());
+        }
 
-            if (index > -1) {
-                return Integer.parseInt(paramName.substring(index + 1));
-            } else {
+        /**
+         * @param paramName the parameter name, e.g. "msg_1"
+         * @param splitter  the position of the index splitter
+         * @return the field of given parameter name or -1, if it's not a log message field
+         */
+        private static int fieldOf(final String paramName, final int splitter) {
+            for (int field = 0; field < FIELDS; field++) {
+                final String fieldName = FIELD_NAMES[field];
+
+                if (fieldName.length() == splitter && paramName.regionMatches(0, fieldName, 0, splitter)) {
+                    return field;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * parses the index of a parameter name without creating a substring
+         *
+         * @param paramName the parameter name, e.g. "msg_1"
+         * @param start     the position of the first digit
+         * @return the index or -1, if it's not a valid index
+         */
+        private static int indexOf(final String paramName, final int start) {
+            final int length = paramName.length();
+            int index = 0;
+
+            if (start >= length) {
                 return -1;
             }
+
+            for (int i = start; i < length; i++) {
+                final char c = paramName.charAt(i);
+
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+
+                index = index * 10 + (c - '0');
+                if (index > MAX_INDEX) {
+                    return -1;
+                }
+            }
+
+            return index;
         }
 
-        private String extractRealParamName(final String paramName) {
-            final int index = paramName.indexOf(DefaultValues.paramSplitterChar);
-            if (index >= 0) {
-                return paramName.substring(0, index);
+        private static boolean isEmpty(final StringValue[] values, final int offset) {
+            for (int field = 0; field < FIELDS; field++) {
+                if (values[offset + field] != null) {
+                    return false;
+                }
             }
 
-            return paramName;
+            return true;
+        }
+
+        private static StringValue valueOf(final StringValue value) {
+            return value != null ? value : EMPTY;
         }
     }
 
@@ -107,7 +255,7 @@ public interface IParamValueExtractor {
      * result of {@link IParamValueExtractor#parse(org.apache.wicket.request.IRequestParameters)}
      */
     public static final class Result {
-        private final Set<ClientSideLogObject> logObjects;
+        private final Collection<ClientSideLogObject> logObjects;
         private final ClientInfos clientInfos;
 
         /**
@@ -116,7 +264,7 @@ public interface IParamValueExtractor {
          * @param logObjects  all log messages
          * @param clientInfos the client information
          */
-        public Result(Set<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+        public Result(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
             this.logObjects = logObjects;
             this.clientInfos = clientInfos;
         }
@@ -0,0 +1,222 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.DefaultValues;
+import de.agilecoders.wicket.logging.util.ICanonicalizer;
+import de.agilecoders.wicket.logging.util.JsonReader;
+import de.agilecoders.wicket.logging.util.ParamNames;
+import org.apache.wicket.util.string.StringValue;
+import org.apache.wicket.util.string.Strings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An {@link IRequestBodyExtractor} parses the raw request body of a log request. It's the
+ * counterpart of {@link IParamValueExtractor} for clients that don't send form encoded data.
+ *
+ * @author miha
+ */
+public interface IRequestBodyExtractor {
+
+    /**
+     * parses given request body
+     *
+     * @param body the request body to parse
+     * @return result that contains all log messages and the client information
+     * @throws IOException if the body can't be read or is malformed
+     */
+    IParamValueExtractor.Result parse(Reader body) throws IOException;
+
+    /**
+     * Default implementation of {@link IRequestBodyExtractor} that reads the json wire format
+     * with a streaming tokenizer, no parameter map or object tree is created.
+     */
+    public static class JsonBodyExtractor implements IRequestBodyExtractor {
+        private static final Logger LOG = LoggerFactory.getLogger(JsonBodyExtractor.class);
+
+        private static final int LEVEL = 0;
+        private static final int TIMESTAMP = 1;
+        private static final int MESSAGE = 2;
+        private static final int FILE = 3;
+        private static final int LINE = 4;
+        private static final int STACKTRACE = 5;
+        private static final int COUNT = 6;
+        private static final int LAST_TIMESTAMP = 7;
+        private static final int FIELDS = 8;
+
+        private final ILogLevelFilter levelFilter;
+        private final ICanonicalizer canonicalizer;
+
+        /**
+         * Construct. Uses the configured logger as level filter, if it implements {@link ILogLevelFilter},
+         * and the configured canonicalizer.
+         */
+        public JsonBodyExtractor() {
+            this(null);
+        }
+
+        /**
+         * Construct.
+         *
+         * @param levelFilter the filter that decides which log levels are read at all
+         */
+        public JsonBodyExtractor(final ILogLevelFilter levelFilter) {
+            this(levelFilter, null);
+        }
+
+        /**
+         * Construct.
+         *
+         * @param levelFilter   the filter that decides which log levels are read at all
+         * @param canonicalizer the canonicalizer for repeating values like user agents, files and messages
+         */
+        public JsonBodyExtractor(final ILogLevelFilter levelFilter, final ICanonicalizer canonicalizer) {
+            this.levelFilter = levelFilter;
+            this.canonicalizer = canonicalizer;
+        }
+
+        @Override
+        public IParamValueExtractor.Result parse(Reader body) throws IOException {
+            final JsonReader reader = new JsonReader(body);
+            final ClientInfos clientInfos = new ClientInfos();
+            final ICanonicalizer canonicalizer = canonicalizer();
+            Set<ClientSideLogObject> logObjects = null;
+            int elements = 16;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                final String name = reader.nextName();
+
+                switch (name) {
+                    case ParamNames.ELEMENTS:
+                        elements = StringValue.valueOf(reader.nextString()).toInt(elements);
+                        break;
+
+                    case ParamNames.ENTRIES:
+                        logObjects = new HashSet<>(Math.max(16, elements * 2));
+                        readEntries(reader, logObjects, levelFilter(), canonicalizer);
+                        break;
+
+                    case ParamNames.AJAX_BASE_URL:
+                    case ParamNames.SCREEN_SIZE:
+                    case ParamNames.WINDOW_SIZE:
+                    case ParamNames.USER_AGENT:
+                        clientInfos.put(name, canonicalizer.canonicalize(StringValue.valueOf(reader.nextString()).toString(DefaultValues.defaultClientInfoValue)));
+                        break;
+
+                    case ParamNames.PAGE_VIEW_ID:
+                        // unique per page view, so it isn't canonicalized
+                        clientInfos.put(name, reader.nextString());
+                        break;
+
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            return new IParamValueExtractor.Result(logObjects != null ? logObjects : new HashSet<ClientSideLogObject>(), clientInfos);
+        }
+
+        /**
+         * @return the filter that decides which log levels are read at all
+         */
+        private ILogLevelFilter levelFilter() {
+            return levelFilter != null ? levelFilter : ClientSideLogging.levelFilter();
+        }
+
+        /**
+         * @return the canonicalizer for repeating values like user agents, files and messages
+         */
+        private ICanonicalizer canonicalizer() {
+            return canonicalizer != null ? canonicalizer : ClientSideLogging.canonicalizer();
+        }
+
+        /**
+         * reads all log messages of the "entries" array.
+         *
+         * @param reader        the json reader
+         * @param logObjects    the set to add all valid log messages to
+         * @param levelFilter   the filter that decides which log levels are read at all
+         * @param canonicalizer the canonicalizer for messages and files
+         * @throws IOException if the body can't be read or is malformed
+         */
+        private void readEntries(final JsonReader reader, final Set<ClientSideLogObject> logObjects,
+                                 final ILogLevelFilter levelFilter, final ICanonicalizer canonicalizer) throws IOException {
+            final String[] values = new String[FIELDS];
+            int index = 1;
+
+            reader.beginArray();
+            while (reader.hasNext()) {
+                reader.beginArray();
+
+                int field = 0;
+                boolean enabled = true;
+                while (reader.hasNext()) {
+                    if (enabled && field < FIELDS) {
+                        values[field++] = readScalar(reader);
+
+                        // the level is the first field, entries of disabled levels are skipped without decoding
+                        if (field == LEVEL + 1 && values[LEVEL] != null && !levelFilter.isEnabled(values[LEVEL])) {
+                            enabled = false;
+                        }
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                while (field < FIELDS) {
+                    values[field++] = null;
+                }
+
+                reader.endArray();
+
+                if (!enabled) {
+                    index++;
+                    continue;
+                }
+
+                final ClientSideLogObject obj = new ClientSideLogObject(values[LEVEL],
+                                                                        canonicalizer.canonicalize(values[MESSAGE]),
+                                                                        StringValue.valueOf(values[TIMESTAMP]).toLong(DefaultValues.defaultTimestamp),
+                                                                        !Strings.isEmpty(values[TIMESTAMP]),
+                                                                        canonicalizer.canonicalize(values[FILE]),
+                                                                        values[LINE],
+                                                                        values[STACKTRACE],
+                                                                        index++,
+                                                                        StringValue.valueOf(values[COUNT]).toInt(1),
+                                                                        StringValue.valueOf(values[LAST_TIMESTAMP]).toLong(DefaultValues.defaultTimestamp));
+
+                if (obj.isValid()) {
+                    logObjects.add(obj);
+                } else {
+                    LOG.warn("skip log object because it isn't valid: {}", obj);
+                }
+            }
+            reader.endArray();
+        }
+
+        /**
+         * reads the next value as string; nested objects or arrays aren't part of the wire format and
+         * are skipped.
+         *
+         * @param reader the json reader
+         * @return the next scalar value or null
+         * @throws IOException if the body can't be read or is malformed
+         */
+        private static String readScalar(final JsonReader reader) throws IOException {
+            switch (reader.peek()) {
+                case BEGIN_ARRAY:
+                case BEGIN_OBJECT:
+                    reader.skipValue();
+                    return null;
+                default:
+                    return reader.nextString();
+            }
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package de.agilecoders.wicket.logging;
+
+import org.apache.wicket.util.lang.Args;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A precompiled layout of the log lines that are written by the {@link IClientLogger.DefaultClientLogger}. The
+ * pattern is parsed once into literals and fields, each log line is rendered into a buffer of the current thread
+ * that is reused for all log lines, so the only allocation per log line is the resulting string.
+ * <p>
+ * Known fields:
+ * <ul>
+ * <li>{@code %path}: the cleaned ajax base url of the client</li>
+ * <li>{@code %userAgent}: the cleaned user agent of the client</li>
+ * <li>{@code %event}: timestamp, level, file, line, message and repetitions, see {@link ClientSideLogObject#appendTo(StringBuilder)}</li>
+ * <li>{@code %timestamp}, {@code %level}, {@code %location}, {@code %message}, {@code %count}: the single parts of the event</li>
+ * <li>{@code %stack}: the client side stacktrace</li>
+ * <li>{@code %%}: a percent sign</li>
+ * </ul>
+ *
+ * @author miha
+ */
+public final class LogMessageLayout {
+
+    /**
+     * the pattern of the default layout, e.g. {@code "[/shop] [1234 | error] app.js:12: message [Mozilla/5.0]; Stack: ..."}
+     */
+    public static final String DEFAULT_PATTERN = "[%path] %event [%userAgent]; Stack: %stack";
+
+    /**
+     * the default layout
+     */
+    public static final LogMessageLayout DEFAULT = compile(DEFAULT_PATTERN);
+
+    /**
+     * buffers that grew larger than this number of chars (e.g. because of a huge stacktrace) aren't kept
+     */
+    private static final int MAX_BUFFER_SIZE = 16 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(512);
+        }
+    };
+
+    private final String pattern;
+    private final String[] literals;
+    private final Field[] fields;
+
+    private LogMessageLayout(final String pattern, final String[] literals, final Field[] fields) {
+        this.pattern = pattern;
+        this.literals = literals;
+        this.fields = fields;
+    }
+
+    /**
+     * parses given pattern
+     *
+     * @param pattern the pattern, e.g. {@code "[%path] %event [%userAgent]; Stack: %stack"}
+     * @return the compiled layout
+     * @throws IllegalArgumentException if the pattern contains an unknown field
+     */
+    public static LogMessageLayout compile(final String pattern) {
+        Args.notNull(pattern, "pattern");
+
+        final List<String> literals = new ArrayList<>();
+        final List<Field> fields = new ArrayList<>();
+        final StringBuilder literal = new StringBuilder();
+
+        int i = 0;
+        while (i < pattern.length()) {
+            final char c = pattern.charAt(i++);
+
+            if (c != '%') {
+                literal.append(c);
+            } else if (i < pattern.length() && pattern.charAt(i) == '%') {
+                literal.append('%');
+                i++;
+            } else {
+                int end = i;
+                while (end < pattern.length() && Character.isLetter(pattern.charAt(end))) {
+                    end++;
+                }
+
+                literals.add(literal.toString());
+                fields.add(Field.parse(pattern.substring(i, end)));
+                literal.setLength(0);
+                i = end;
+            }
+        }
+        literals.add(literal.toString());
+
+        return new LogMessageLayout(pattern, literals.toArray(new String[literals.size()]), fields.toArray(new Field[fields.size()]));
+    }
+
+    /**
+     * renders a log line into the buffer of the current thread
+     *
+     * @param logObject the log message
+     * @param path      the cleaned path of the client
+     * @param userAgent the cleaned user agent of the client
+     * @return the log line
+     */
+    public String render(final ClientSideLogObject logObject, final String path, final String userAgent) {
+        final StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+
+        final String line = appendTo(buffer, logObject, path, userAgent).toString();
+
+        if (buffer.capacity() > MAX_BUFFER_SIZE) {
+            BUFFER.remove();
+        }
+
+        return line;
+    }
+
+    /**
+     * appends a log line to given buffer
+     *
+     * @param buffer    the buffer to append to
+     * @param logObject the log message
+     * @param path      the cleaned path of the client
+     * @param userAgent the cleaned user agent of the client
+     * @return given buffer
+     */
+    public StringBuilder appendTo(final StringBuilder buffer, final ClientSideLogObject logObject, final String path,
+                                  final String userAgent) {
+        for (int i = 0; i < fields.length; i++) {
+            buffer.append(literals[i]);
+            fields[i].appendTo(buffer, logObject, path, userAgent);
+        }
+
+        return buffer.append(literals[fields.length]);
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    /**
+     * A single field of a layout
+     */
+    private enum Field {
+        PATH("path") {
+            @Override
+            void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent) {
+                buffer.append(path);
+            }
+        },
+        USER_AGENT("userAgent") {
+            @Override
+            void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent) {
+                buffer.append(userAgent);
+            }
+        },
+        EVENT("event") {
+            @Override
+            void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent) {
+                logObject.appendTo(buffer);
+            }
+        },
+        TIMESTAMP("timestamp") {
+            @Override
+            void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent) {
+                buffer.append(logObject.timestamp());
+            }
+        },
+        LEVEL("level") {
+            @Override
+            void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent) {
+                buffer.append(logObject.level());
+            }
+        },
+        LOCATION("location") {
+            @Override
+            void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent) {
+                logObject.appendLocationTo(buffer);
+            }
+        },
+        MESSAGE("message") {
+            @Override
+            void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent) {
+                buffer.append(logObject.message());
+            }
+        },
+        COUNT("count") {
+            @Override
+            void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent) {
+                buffer.append(logObject.count());
+            }
+        },
+        STACK("stack") {
+            @Override
+            void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent) {
+                buffer.append(logObject.stacktrace());
+            }
+        };
+
+        private final String name;
+
+        Field(final String name) {
+            this.name = name;
+        }
+
+        abstract void appendTo(StringBuilder buffer, ClientSideLogObject logObject, String path, String userAgent);
+
+        private static Field parse(final String name) {
+            for (Field field : values()) {
+                if (field.name.equals(name)) {
+                    return field;
+                }
+            }
+
+            throw new IllegalArgumentException("unknown field in log message layout: %" + name);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.settings.IClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.IBatchLoggingBarrier;
+import de.agilecoders.wicket.logging.util.IContextAwareLoggingBarrier;
+import de.agilecoders.wicket.logging.util.ILogWriteListener;
+import de.agilecoders.wicket.logging.util.ILoggingBarrier;
+import de.agilecoders.wicket.logging.util.LimitedInputStream;
+import de.agilecoders.wicket.logging.util.LogRequestContext;
+import de.agilecoders.wicket.logging.util.RequestBodies;
+import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+/**
+ * The {@link LogRequestProcessor} handles a single incoming log request, independent of the entry point
+ * that received it. It parses the request, writes all log messages and returns the response that must be
+ * sent back to the client. Requests are rejected with "429 Too Many Requests" if the
+ * {@link ILoggingBarrier} doesn't allow them and with "503 Service Unavailable" if the async queue (or
+ * the partition of one of its log messages) is full; both responses tell the client when to retry, so it backs off instead of posting at full rate.
+Log messages that are dropped by a policy (e.g. sampling or suppressed duplicates) aren't rejected, a request whose log messages were all dropped is answered with
+"200 OK" and the client control block, so the client doesn't send it again.
+ * An {@link IContextAwareLoggingBarrier} gets the {@link LogRequestContext} of each request, an
+ * {@link IBatchLoggingBarrier} admits all log messages of a request at once, highest severity first; both are
+ * asked by {@link IContextAwareLoggingBarrier.Admission#of(ILoggingBarrier, java.util.Collection, LogRequestContext)}.
+ *
+ * @author miha
+ */
+public class LogRequestProcessor {
+    private static final Logger LOG = LoggerFactory.getLogger(LogRequestProcessor.class);
+
+    private final IClientSideLoggingSettings settings;
+
+    /**
+     * Construct.
+     *
+     * @param settings the settings to use
+     */
+    public LogRequestProcessor(final IClientSideLoggingSettings settings) {
+        this.settings = Args.notNull(settings, "settings");
+    }
+
+    /**
+     * parses given log request and writes all log messages.
+     *
+     * @param request        the servlet request, can be null if the request isn't backed by a servlet container
+     * @param postParameters the post parameters of current request, used for form encoded requests
+     * @return the response that must be sent to the client
+     */
+    public Response process(final HttpServletRequest request, final IRequestParameters postParameters) {
+        if (isSaturated()) {
+            return reject(503);
+        }
+
+        try {
+            return process(parse(request, postParameters), LogRequestContext.of(request));
+        } catch (IOException e) {
+            return error(e);
+        }
+    }
+
+    /**
+     * parses given raw request body and writes all log messages.
+     *
+     * @param body              the raw request body
+     * @param contentType       the content type of the request body
+     * @param contentEncoding   the content encoding of the request body
+     * @param characterEncoding the character encoding of the request body
+     * @return the response that must be sent to the client
+     */
+    public Response process(final InputStream body, final String contentType, final String contentEncoding, final String characterEncoding) {
+        return process(body, contentType, contentEncoding, characterEncoding, LogRequestContext.EMPTY);
+    }
+
+    /**
+     * parses given raw request body and writes all log messages.
+     *
+     * @param body              the raw request body
+     * @param contentType       the content type of the request body
+     * @param contentEncoding   the content encoding of the request body
+     * @param characterEncoding the character encoding of the request body
+     * @param context           the context of the log request
+     * @return the response that must be sent to the client
+     */
+    public Response process(final InputStream body, final String contentType, final String contentEncoding, final String characterEncoding,
+                            final LogRequestContext context) {
+        if (isSaturated()) {
+            return reject(503);
+        }
+
+        try {
+            return process(parse(body, contentType, contentEncoding, characterEncoding), context);
+        } catch (IOException e) {
+            return error(e);
+        }
+    }
+
+    /**
+     * writes all parsed log messages, as long as the barrier allows it.
+     *
+     * @param result the parsed log request
+     * @return the response that must be sent to the client
+     */
+    public Response process(final IParamValueExtractor.Result result) {
+        return process(result, LogRequestContext.EMPTY);
+    }
+
+    /**
+     * writes all parsed log messages, as long as the barrier allows it.
+     *
+     * @param result  the parsed log request
+     * @param context the context of the log request, the client information of given result are added
+     * @return the response that must be sent to the client
+     */
+    public Response process(final IParamValueExtractor.Result result, final LogRequestContext context) {
+        final LogRequestContext requestContext = Args.notNull(context, "context").clientInfos(result.clientInfos());
+        final IContextAwareLoggingBarrier.Admission admission =
+                IContextAwareLoggingBarrier.Admission.of(settings.barrier(), result.logObjects(), requestContext);
+
+        if (admission.isRejected()) {
+            return reject(429);
+        }
+
+        if (!write(new IParamValueExtractor.Result(admission.admitted(), result.clientInfos()))) {
+            return reject(503);
+        }
+
+        return response(200, 0);
+    }
+
+    /**
+     * @return TRUE, if the async queue is full and new log requests must be rejected
+     */
+    protected boolean isSaturated() {
+        if (settings.async()) {
+            final AsyncLogDispatcher dispatcher = settings.asyncDispatcher();
+
+            return dispatcher.queueDepth() >= dispatcher.capacity();
+        }
+
+        return false;
+    }
+
+    /**
+     * creates a response that tells the client to back off
+     *
+     * @param status the http status code, 429 or 503
+     * @return new response with "Retry-After" header
+     */
+    protected Response reject(final int status) {
+        LOG.debug("reject client side log request with status {}", status);
+
+        return response(status, Math.max(1, (long) Math.ceil(settings.retryAfter().seconds())));
+    }
+
+    /**
+     * creates a new response that carries the current client control block, if there is one.
+     *
+     * @param status     the http status code
+     * @param retryAfter the value of the "Retry-After" header in seconds, 0 if no header must be sent
+     * @return new response
+     */
+    protected Response response(final int status, final long retryAfter) {
+        return new Response(status, retryAfter, settings.clientControl().toJson());
+    }
+
+    /**
+     * @param e the exception that was thrown while reading the log request
+     * @return the response for given exception
+     */
+    protected Response error(final IOException e) {
+        if (e instanceof LimitedInputStream.LimitExceededException) {
+            LOG.warn("reject client side log request: {}", e.getMessage());
+
+            return response(413, 0);
+        }
+
+        LOG.warn("can't read client side log request: {}", e.getMessage());
+
+        return response(400, 0);
+    }
+
+    /**
+     * parses the log request. Json encoded requests are read directly from request body, compressed
+     * bodies are inflated on the fly. All other requests are parsed as form parameters.
+     *
+     * @param request        the servlet request, can be null if the request isn't backed by a servlet container
+     * @param postParameters the post parameters of current request, used for form encoded requests
+     * @return the parsed log request
+     * @throws IOException if the request body can't be read or is malformed
+     */
+    public IParamValueExtractor.Result parse(final HttpServletRequest request, final IRequestParameters postParameters) throws IOException {
+        if (request != null && RequestBodies.isJson(request.getContentType())) {
+            return parseJson(request.getInputStream(), request.getHeader("Content-Encoding"), request.getCharacterEncoding());
+        }
+
+        return settings.paramValueExtractor().parse(postParameters);
+    }
+
+    /**
+     * parses a raw request body. Json encoded bodies are read with the request body extractor, all other
+     * bodies are parsed as form parameters.
+     *
+     * @param body              the raw request body
+     * @param contentType       the content type of the request body
+     * @param contentEncoding   the content encoding of the request body
+     * @param characterEncoding the character encoding of the request body
+     * @return the parsed log request
+     * @throws IOException if the request body can't be read or is malformed
+     */
+    public IParamValueExtractor.Result parse(final InputStream body, final String contentType, final String contentEncoding, final String characterEncoding) throws IOException {
+        if (RequestBodies.isJson(contentType)) {
+            return parseJson(body, contentEncoding, characterEncoding);
+        }
+
+        final InputStream decoded = RequestBodies.decode(body, contentEncoding, settings.maxRequestBodySize().bytes());
+        return settings.paramValueExtractor().parse(RequestBodies.formParameters(decoded, RequestBodies.charset(characterEncoding)));
+    }
+
+    /**
+     * parses a json encoded request body
+     *
+     * @param body              the raw request body
+     * @param contentEncoding   the content encoding of the request body
+     * @param characterEncoding the character encoding of the request body
+     * @return the parsed log request
+     * @throws IOException if the request body can't be read or is malformed
+     */
+    public IParamValueExtractor.Result parseJson(final InputStream body, final String contentEncoding, final String characterEncoding) throws IOException {
+        final InputStream decoded = RequestBodies.decode(body, contentEncoding, settings.maxRequestBodySize().bytes());
+
+        try (Reader reader = new InputStreamReader(decoded, RequestBodies.charset(characterEncoding))) {
+            return settings.requestBodyExtractor().parse(reader);
+        }
+    }
+
+    /**
+     * writes all parsed log messages to the log store and counts them by the {@link TopErrorTracker}, if
+     * there is one. A barrier that is an {@link ILogWriteListener} is notified about the latency of synchronous
+     * writes.
+     *
+     * @param result the parsed log request
+     * @return FALSE, if the async queue didn't accept any of the log messages, e.g. because the partition of one
+     *         of them is full; the messages aren't counted by the {@link TopErrorTracker} in this case
+     */
+    public boolean write(final IParamValueExtractor.Result result) {
+        if (settings.async()) {
+            if (!settings.asyncDispatcher().submit(result.logObjects(), result.clientInfos())) {
+                return false;
+            }
+        } else {
+            final ILoggingBarrier barrier = settings.barrier();
+            final long start = barrier instanceof ILogWriteListener ? System.nanoTime() : 0;
+
+            settings.logger().log(result.logObjects(), result.clientInfos());
+
+            if (barrier instanceof ILogWriteListener) {
+                ((ILogWriteListener) barrier).onWritten(result.logObjects().size(), System.nanoTime() - start, 0);
+            }
+        }
+
+        final TopErrorTracker tracker = settings.topErrorTracker();
+        if (tracker != null) {
+            tracker.record(result.logObjects(), result.clientInfos());
+        }
+
+        return true;
+    }
+
+    /**
+     * The response of a processed log request
+     */
+    public static final class Response {
+        private final int status;
+        private final long retryAfter;
+        private final String body;
+
+        /**
+         * Construct.
+         *
+         * @param status     the http status code
+         * @param retryAfter the number of seconds the client must wait before sending the next log request, 0 if it
+         *                   doesn't need to wait
+         */
+        public Response(final int status, final long retryAfter) {
+            this(status, retryAfter, null);
+        }
+
+        /**
+         * Construct.
+         *
+         * @param status     the http status code
+         * @param retryAfter the number of seconds the client must wait before sending the next log request, 0 if it
+         *                   doesn't need to wait
+         * @param body       the json response body or null, if the response is empty
+         */
+        public Response(final int status, final long retryAfter, final String body) {
+            this.status = status;
+            this.retryAfter = retryAfter;
+            this.body = body;
+        }
+
+        /**
+         * @return the http status code
+         */
+        public int status() { return status; }
+
+        /**
+         * @return the value of the "Retry-After" header in seconds, 0 if no header must be sent
+         */
+        public long retryAfter() { return retryAfter; }
+
+        /**
+         * @return the json response body or null, if the response is empty
+         */
+        public String body() { return body; }
+    }
+}
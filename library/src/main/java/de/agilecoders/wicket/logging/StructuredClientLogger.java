@@ -0,0 +1,148 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ErrorFingerprint;
+import org.apache.wicket.util.lang.Args;
+import org.slf4j.MDC;
+
+/**
+ * An {@link IClientLogger} that writes the plain client side message and passes all other fields as {@link MDC}
+ * entries, so encoders like the logstash-logback-encoder can write them as json fields and the log shipper doesn't
+ * have to parse formatted log lines. The MDC entries are set for the single log call only and removed afterwards.
+ * Entries without value (e.g. the user agent if client infos aren't collected) aren't set.
+ * <p>
+ * Each key starts with a prefix ({@value #DEFAULT_PREFIX} by default), e.g. {@code client.level},
+ * {@code client.file}, {@code client.line}, {@code client.timestamp}, {@code client.path}, {@code client.userAgent},
+ * {@code client.windowSize}, {@code client.screenSize}, {@code client.pageViewId}, {@code client.fingerprint},
+ * {@code client.count} (only for collapsed messages) and {@code client.stack} (only if there is a stacktrace).
+ *
+ * @author miha
+ */
+public class StructuredClientLogger extends IClientLogger.DefaultClientLogger {
+
+    /**
+     * the default prefix of all MDC keys
+     */
+    public static final String DEFAULT_PREFIX = "client.";
+
+    /**
+     * All fields that are passed as MDC entries
+     */
+    public enum Key {
+        LEVEL("level"),
+        FILE("file"),
+        LINE("line"),
+        TIMESTAMP("timestamp"),
+        PATH("path"),
+        USER_AGENT("userAgent"),
+        WINDOW_SIZE("windowSize"),
+        SCREEN_SIZE("screenSize"),
+        PAGE_VIEW_ID("pageViewId"),
+        FINGERPRINT("fingerprint"),
+        COUNT("count"),
+        STACK("stack");
+
+        private final String value;
+
+        Key(final String value) {
+            this.value = value;
+        }
+
+        /**
+         * @return the name of this key without prefix, e.g. "userAgent"
+         */
+        public String value() {
+            return value;
+        }
+    }
+
+    private final String[] keys;
+
+    /**
+     * Construct. Uses the {@link #DEFAULT_PREFIX default prefix} and the cleaner of the current application.
+     *
+     * @param id the logger id
+     */
+    public StructuredClientLogger(final String id) {
+        this(id, DEFAULT_PREFIX, null);
+    }
+
+    /**
+     * Construct.
+     *
+     * @param id      the logger id
+     * @param prefix  the prefix of all MDC keys, can be empty
+     * @param cleaner the cleaner of path and user agent or null to use the cleaner of the current application
+     */
+    public StructuredClientLogger(final String id, final String prefix, final ILogCleaner cleaner) {
+        super(id, LogMessageLayout.DEFAULT, cleaner);
+
+        Args.notNull(prefix, "prefix");
+
+        final Key[] values = Key.values();
+        this.keys = new String[values.length];
+        for (Key key : values) {
+            keys[key.ordinal()] = prefix + key.value();
+        }
+    }
+
+    /**
+     * @param key the field
+     * @return the MDC key of given field, including the prefix
+     */
+    public String key(final Key key) {
+        return keys[key.ordinal()];
+    }
+
+    /**
+     * writes the plain message with all other fields as MDC entries
+     */
+    @Override
+    protected void write(String level, ClientSideLogObject logObject, ClientInfos clientInfos, String path, String userAgent) {
+        put(Key.LEVEL, level);
+        put(Key.FILE, logObject.file());
+        put(Key.LINE, logObject.line());
+        put(Key.TIMESTAMP, String.valueOf(logObject.timestamp()));
+        put(Key.PATH, path);
+        put(Key.USER_AGENT, userAgent);
+        put(Key.WINDOW_SIZE, clientInfos.windowSize());
+        put(Key.SCREEN_SIZE, clientInfos.screenSize());
+        put(Key.PAGE_VIEW_ID, clientInfos.pageViewId());
+        put(Key.FINGERPRINT, ErrorFingerprint.toString(ErrorFingerprint.of(logObject)));
+        put(Key.COUNT, logObject.count() > 1 ? String.valueOf(logObject.count()) : null);
+        put(Key.STACK, logObject.stacktrace());
+
+        try {
+            write(level, logObject.message());
+        } finally {
+            for (String key : keys) {
+                remove(key);
+            }
+        }
+    }
+
+    private void put(final Key key, final String value) {
+        if (value != null && !value.isEmpty()) {
+            put(keys[key.ordinal()], value);
+        }
+    }
+
+    /**
+     * sets a MDC entry of the current thread
+     *
+     * @param key   the MDC key
+     * @param value the value
+     */
+    protected void put(final String key, final String value) {
+        MDC.put(key, value);
+    }
+
+    /**
+     * removes a MDC entry of the current thread
+     *
+     * @param key the MDC key
+     */
+    protected void remove(final String key) {
+        MDC.remove(key);
+    }
+}
@@ -0,0 +1,365 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ErrorFingerprint;
+import de.agilecoders.wicket.logging.util.HyperLogLog;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link TopErrorTracker} answers "what are the top client errors right now" with a fixed amount of memory.
+ * Errors are keyed by their {@link ErrorFingerprint} and the page path (the ajax base url without query string)
+ * and counted by a Space-Saving sketch: the sketch keeps a fixed number of counters, a new error replaces the
+ * counter with the lowest count and inherits its count as possible overestimation ({@link Entry#error()}).
+ * Errors that occur more often than 1/capacity of all errors are guaranteed to be tracked.
+ * <p>
+ * The tracked time is split into buckets of equal length that form a ring, so counts are available for sliding
+ * windows up to the configured window. Each bucket is split into stripes with their own lock, recording a log
+ * message costs a fingerprint and a scan of a single, small stripe.
+ * <p>
+ * Each counter has a {@link HyperLogLog} sketch of the clients (see {@link ClientInfos#clientHash()}) that hit the
+ * error, so an error that a single client reloads in a loop can be told apart from an error that hits many clients.
+ * Each sketch takes 2^clientPrecision bytes, the sketches of all buckets are merged for a window.
+ *
+ * @author miha
+ */
+public class TopErrorTracker {
+
+    private static final int STRIPES = 8;
+
+    private final long bucketLength;
+    private final int clientPrecision;
+    private final Stripe[][] buckets;
+
+    /**
+     * Construct. Keeps 256 counters per bucket and tracks the last 5 minutes in buckets of 30 seconds.
+     */
+    public TopErrorTracker() {
+        this(256, Duration.minutes(5), 10);
+    }
+
+    /**
+     * Construct. Distinct clients are estimated with {@link HyperLogLog#DEFAULT_PRECISION}.
+     *
+     * @param capacity the number of counters per bucket
+     * @param window   the max window that can be queried
+     * @param buckets  the number of buckets the window is split into
+     */
+    public TopErrorTracker(final int capacity, final Duration window, final int buckets) {
+        this(capacity, window, buckets, HyperLogLog.DEFAULT_PRECISION);
+    }
+
+    /**
+     * Construct.
+     *
+     * @param capacity        the number of counters per bucket
+     * @param window          the max window that can be queried
+     * @param buckets         the number of buckets the window is split into
+     * @param clientPrecision the precision of the distinct client sketches, see {@link HyperLogLog#HyperLogLog(int)}
+     */
+    public TopErrorTracker(final int capacity, final Duration window, final int buckets, final int clientPrecision) {
+        Args.withinRange(1, 1 << 20, capacity, "capacity");
+        Args.withinRange(1, 1024, buckets, "buckets");
+
+        this.bucketLength = Math.max(1, Args.notNull(window, "window").getMilliseconds() / buckets);
+        this.clientPrecision = clientPrecision;
+        this.buckets = new Stripe[buckets][STRIPES];
+
+        final int stripeCapacity = Math.max(1, (capacity + STRIPES - 1) / STRIPES);
+        for (Stripe[] stripes : this.buckets) {
+            for (int i = 0; i < stripes.length; i++) {
+                stripes[i] = new Stripe(stripeCapacity, clientPrecision);
+            }
+        }
+    }
+
+    /**
+     * @return current time in milliseconds
+     */
+    protected long now() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * counts all given log messages
+     *
+     * @param logObjects  the log messages to count
+     * @param clientInfos the client information according to given log messages
+     */
+    public void record(final Collection<ClientSideLogObject> logObjects, final ClientInfos clientInfos) {
+        final long epoch = now() / bucketLength;
+        final Stripe[] stripes = buckets[(int) (epoch % buckets.length)];
+        final String url = clientInfos != null ? clientInfos.ajaxBaseUrl() : null;
+        final long pathHash = pathHash(url);
+        final long client = clientInfos != null ? clientInfos.clientHash() : 0;
+
+        for (ClientSideLogObject logObject : logObjects) {
+            final long fingerprint = ErrorFingerprint.of(logObject);
+            final long key = (fingerprint ^ pathHash) * 0x9e3779b97f4a7c15L;
+
+            stripes[(int) (key >>> 32) & (STRIPES - 1)].add(epoch, key, fingerprint, logObject.count(), client, logObject, url);
+        }
+    }
+
+    /**
+     * @param limit the max number of errors to return
+     * @return the most frequent errors of the whole window, most frequent first
+     */
+    public List<Entry> top(final int limit) {
+        return top(limit, Duration.milliseconds(bucketLength * buckets.length));
+    }
+
+    /**
+     * @param limit  the max number of errors to return
+     * @param window the window to return errors of, is rounded up to the bucket length and limited to the configured window
+     * @return the most frequent errors of given window, most frequent first
+     */
+    public List<Entry> top(final int limit, final Duration window) {
+        final long epoch = now() / bucketLength;
+        final long windowBuckets = Math.min(buckets.length, Math.max(1, (window.getMilliseconds() + bucketLength - 1) / bucketLength));
+        final Map<Long, Counter> counters = new HashMap<>();
+
+        for (long e = Math.max(0, epoch - windowBuckets + 1); e <= epoch; e++) {
+            for (Stripe stripe : buckets[(int) (e % buckets.length)]) {
+                stripe.collect(e, counters, clientPrecision);
+            }
+        }
+
+        final List<Counter> sorted = new ArrayList<>(counters.values());
+        Collections.sort(sorted, new Comparator<Counter>() {
+            @Override
+            public int compare(Counter o1, Counter o2) {
+                return o1.count < o2.count ? 1 : o1.count > o2.count ? -1 : 0;
+            }
+        });
+
+        final List<Entry> top = new ArrayList<>(Math.min(limit, sorted.size()));
+        for (int i = 0; i < sorted.size() && i < limit; i++) {
+            final Counter counter = sorted.get(i);
+            top.add(new Entry(counter.fingerprint, counter.path, counter.count, counter.error, counter.clients, counter.sample));
+        }
+
+        return top;
+    }
+
+    /**
+     * hashes the page path of given ajax base url
+     */
+    private static long pathHash(final String url) {
+        long hash = 0xcbf29ce484222325L;
+
+        if (url != null) {
+            for (int i = 0; i < url.length(); i++) {
+                final char c = url.charAt(i);
+
+                if (c == '?' || c == '#') {
+                    break;
+                }
+                hash = (hash ^ c) * 0x100000001b3L;
+            }
+        }
+
+        return hash;
+    }
+
+    /**
+     * @param url the ajax base url
+     * @return the page path of given ajax base url
+     */
+    private static String path(final String url) {
+        if (url == null) {
+            return "";
+        }
+
+        for (int i = 0; i < url.length(); i++) {
+            final char c = url.charAt(i);
+
+            if (c == '?' || c == '#') {
+                return url.substring(0, i);
+            }
+        }
+
+        return url;
+    }
+
+    /**
+     * A tracked error
+     */
+    public static final class Entry {
+        private final long fingerprint;
+        private final String path;
+        private final long count;
+        private final long error;
+        private final HyperLogLog clients;
+        private final ClientSideLogObject sample;
+
+        private Entry(long fingerprint, String path, long count, long error, HyperLogLog clients, ClientSideLogObject sample) {
+            this.fingerprint = fingerprint;
+            this.path = path;
+            this.count = count;
+            this.error = error;
+            this.clients = clients;
+            this.sample = sample;
+        }
+
+        /**
+         * @return the error fingerprint
+         */
+        public long fingerprint() { return fingerprint; }
+
+        /**
+         * @return the page path the error occurred on
+         */
+        public String path() { return path; }
+
+        /**
+         * @return the estimated number of occurrences, {@code count() - error()} is a guaranteed lower bound
+         */
+        public long count() { return count; }
+
+        /**
+         * @return the max overestimation of {@link #count()}
+         */
+        public long error() { return error; }
+
+        /**
+         * @return the estimated number of distinct clients that hit this error
+         */
+        public long clients() { return clients.estimate(); }
+
+        /**
+         * @return the sketch of all clients that hit this error, it can be merged with the sketches of other nodes
+         */
+        public HyperLogLog clientSketch() { return clients.copy(); }
+
+        /**
+         * @return the log message that was counted last for this error
+         */
+        public ClientSideLogObject sample() { return sample; }
+
+        @Override
+        public String toString() {
+            return ErrorFingerprint.toString(fingerprint) + " " + path + ": " + count + " (+/- " + error + ") from " + clients() + " clients " + sample;
+        }
+    }
+
+    /**
+     * The merged counts of a single error
+     */
+    private static final class Counter {
+        private final long fingerprint;
+        private final String path;
+        private final HyperLogLog clients;
+        private ClientSideLogObject sample;
+        private long count;
+        private long error;
+
+        private Counter(long fingerprint, String path, HyperLogLog clients, ClientSideLogObject sample) {
+            this.fingerprint = fingerprint;
+            this.path = path;
+            this.clients = clients;
+            this.sample = sample;
+        }
+    }
+
+    /**
+     * A Space-Saving sketch of a single bucket and stripe. The counters are kept in plain arrays that are scanned
+     * linearly, which is faster than any map for the small number of counters per stripe.
+     */
+    private static final class Stripe {
+        private final long[] keys;
+        private final long[] fingerprints;
+        private final long[] counts;
+        private final long[] errors;
+        private final HyperLogLog[] clients;
+        private final ClientSideLogObject[] samples;
+        private final String[] urls;
+        private long epoch = -1;
+        private int size = 0;
+
+        private Stripe(final int capacity, final int clientPrecision) {
+            this.keys = new long[capacity];
+            this.fingerprints = new long[capacity];
+            this.counts = new long[capacity];
+            this.errors = new long[capacity];
+            this.clients = new HyperLogLog[capacity];
+            this.samples = new ClientSideLogObject[capacity];
+            this.urls = new String[capacity];
+
+            for (int i = 0; i < capacity; i++) {
+                clients[i] = new HyperLogLog(clientPrecision);
+            }
+        }
+
+        private synchronized void add(final long epoch, final long key, final long fingerprint, final int count,
+                                      final long client, final ClientSideLogObject sample, final String url) {
+            if (this.epoch != epoch) {
+                this.epoch = epoch;
+                this.size = 0;
+                Arrays.fill(samples, null);
+                Arrays.fill(urls, null);
+            }
+
+            int min = 0;
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) {
+                    counts[i] += count;
+                    clients[i].add(client);
+                    samples[i] = sample;
+                    return;
+                } else if (counts[i] < counts[min]) {
+                    min = i;
+                }
+            }
+
+            final int slot;
+            if (size < keys.length) {
+                slot = size++;
+                counts[slot] = count;
+                errors[slot] = 0;
+            } else {
+                slot = min;
+                errors[slot] = counts[slot];
+                counts[slot] += count;
+            }
+
+            // the clients of a replaced error are unknown, so the new error starts with an empty sketch
+            clients[slot].clear();
+            clients[slot].add(client);
+            keys[slot] = key;
+            fingerprints[slot] = fingerprint;
+            samples[slot] = sample;
+            urls[slot] = url;
+        }
+
+        private synchronized void collect(final long epoch, final Map<Long, Counter> counters, final int clientPrecision) {
+            if (this.epoch != epoch) {
+                return;
+            }
+
+            for (int i = 0; i < size; i++) {
+                Counter counter = counters.get(keys[i]);
+
+                if (counter == null) {
+                    counter = new Counter(fingerprints[i], path(urls[i]), new HyperLogLog(clientPrecision), samples[i]);
+                    counters.put(keys[i], counter);
+                } else {
+                    counter.sample = samples[i];
+                }
+
+                counter.count += counts[i];
+                counter.error += errors[i];
+                counter.clients.merge(clients[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.settings.IClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.EmptyResourceResponse;
+import de.agilecoders.wicket.logging.util.ErrorFingerprint;
+import de.agilecoders.wicket.logging.util.JsonResourceResponse;
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.json.JSONArray;
+import org.apache.wicket.ajax.json.JSONException;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.request.resource.IResource;
+import org.apache.wicket.request.resource.ResourceReference;
+import org.apache.wicket.util.crypt.Base64;
+import org.apache.wicket.util.time.Duration;
+
+import java.util.List;
+
+/**
+ * The resource reference that returns the most frequent client errors of the {@link TopErrorTracker} as json.
+ * It isn't mounted by default, applications that want to use it must mount it themselves (and protect it, because
+ * it exposes client side error messages):
+ * <pre>
+ *     mountResource("/admin/top-errors", new TopErrorsResourceReference());
+ * </pre>
+ * The query parameter "limit" sets the max number of errors (default: 20), "window" the time window in seconds
+ * (default: the whole window of the tracker). Each error contains the estimated number of distinct clients and
+ * the base64 encoded {@link de.agilecoders.wicket.logging.util.HyperLogLog} sketch of these clients, so the results of
+ * several nodes can be merged.
+ *
+ * @author miha
+ */
+public class TopErrorsResourceReference extends ResourceReference {
+
+    /**
+     * Construct.
+     */
+    public TopErrorsResourceReference() {
+        super(TopErrorsResourceReference.class, "top-errors");
+    }
+
+    @Override
+    public IResource getResource() {
+        return new TopErrorsResource();
+    }
+
+    /**
+     * The resource that writes the most frequent client errors.
+     */
+    public static class TopErrorsResource extends AbstractResource {
+
+        @Override
+        protected ResourceResponse newResourceResponse(Attributes attributes) {
+            final TopErrorTracker tracker = settings().topErrorTracker();
+
+            if (tracker == null) {
+                return new EmptyResourceResponse(404);
+            }
+
+            final IRequestParameters params = attributes.getRequest().getQueryParameters();
+            final int limit = Math.max(1, Math.min(1000, params.getParameterValue("limit").toInt(20)));
+            final long window = params.getParameterValue("window").toLong(-1);
+
+            final List<TopErrorTracker.Entry> top = window > 0
+                                                    ? tracker.top(limit, Duration.seconds(window))
+                                                    : tracker.top(limit);
+
+            return new JsonResourceResponse(200, toJson(top));
+        }
+
+        /**
+         * @return current active settings
+         */
+        protected IClientSideLoggingSettings settings() {
+            return ClientSideLogging.settings();
+        }
+
+        /**
+         * @param top the errors to write
+         * @return given errors as json document
+         */
+        protected String toJson(final List<TopErrorTracker.Entry> top) {
+            try {
+                final JSONArray errors = new JSONArray();
+
+                for (TopErrorTracker.Entry entry : top) {
+                    final ClientSideLogObject sample = entry.sample();
+                    final JSONObject error = new JSONObject();
+
+                    error.put("fingerprint", ErrorFingerprint.toString(entry.fingerprint()));
+                    error.put("path", entry.path());
+                    error.put("count", entry.count());
+                    error.put("error", entry.error());
+                    error.put("clients", entry.clients());
+                    error.put("clientSketch", Base64.encodeBase64URLSafeString(entry.clientSketch().toBytes()));
+                    error.put("level", sample.level());
+                    error.put("message", sample.message());
+                    error.put("file", sample.file());
+                    error.put("line", sample.line());
+                    errors.put(error);
+                }
+
+                return new JSONObject().put("errors", errors).toString();
+            } catch (JSONException e) {
+                throw new WicketRuntimeException(e);
+            }
+        }
+    }
+}
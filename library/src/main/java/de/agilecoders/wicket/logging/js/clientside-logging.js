@@ -128,7 +128,7 @@
          * @param stacktrace current stacktrace
          */
         log: function (lvl, message, stacktrace) {
-            if (this.isLoggingActive(lvl)) {
+            if (defaults.logLevel > 0 && defaults.logLevel >= lvl && isSampled(lvl)) {
                 var logLevelName = logLevelNames[lvl];
                 var log = {
                     lvl: logLevelName,
@@ -147,7 +147,11 @@
                     log.message = message + "";
                 }
 
-                sendMessage(log);
+                // repeats of a queued or just sent message don't count against maxEntriesPerPage
+                if (!collapse(log) && this.isLoggingActive(lvl)) {
+                    markSent(log);
+                    sendMessage(log);
+                }
             }
 
             if (defaults.debug === true) {
@@ -272,7 +276,29 @@
         }
     };
 
-    var queue = [], noOfWinOnError = 0;
+    var queue = [], noOfWinOnError = 0, collectionTimerId = null, unloadHandlerBound = false;
+
+    // the state per message signature (level, message, file and line), see collapse
+    var signatures = {}, signatureCount = 0, maxSignatures = 100;
+
+    // a random id of the current page view, the server uses it to count distinct clients per error
+    var pageViewId = Math.floor(Math.random() * 0x7fffffff).toString(36) + (+(new Date())).toString(36);
+
+    // the sample value of the current page view between 0 and 1, see isSampled
+    var pageViewSample = sampleOf(pageViewId);
+
+    // the version of the last applied control block, see applyControl
+    var controlVersion = 0;
+
+    // backoff state of the current page view, it's set as soon as the server rejects log requests because of load
+    var backoff = {
+        attempts: 0,
+        until: 0,
+        timer: null
+    };
+
+    // bodies smaller than this number of characters aren't worth compressing
+    var minCompressionSize = 1024;
     var defaults = {
         replaceWicketLog: true,
         replaceWindowOnError: true,
@@ -292,6 +318,13 @@
         customFilter: null,
         debug: false,
         collectionTimer: 5000,
+        throttleInterval: 1000,  // identical messages within this interval (in ms) are counted instead of sent
+        wireFormat: "form",  // form, json
+        compression: null,  // null, gzip, deflate (only used with wireFormat json)
+        backoffBase: 1000,  // the initial backoff in ms if the server rejects log requests
+        backoffMax: 60000,  // the max backoff in ms
+        sampling: null,  // sampling rate per log level, e.g. {info: 0.1}; can be changed by the server
+        control: null,  // the control block of the server that is applied on startup
         collectionType: "single"  // single, timer, size, unload, localstorage
     };
 
@@ -329,13 +362,87 @@
     function sendMessage(data) {
         var type = defaults.collectionType;
 
-        data.timestamp = currentTimestamp();
+        data.timestamp = data.timestamp || currentTimestamp();
 
         if (collectionTypes.hasOwnProperty(type)) {
             collectionTypes[type](data);
         }
     }
 
+    /**
+     * collapses repeats of the same message. A repeat of a message that is still queued only increments the
+     * count of the queued entry. A repeat within defaults.throttleInterval after the message was sent is
+     * suppressed and counted; the count is attached to the next entry of the same signature, see markSent.
+     * An entry that isn't collapsed doesn't change the state of its signature until it is actually sent, so
+     * entries that are dropped (e.g. because maxEntriesPerPage is reached) don't swallow later repeats.
+     *
+     * @param {Object} log the new log entry
+     * @returns {boolean} TRUE, if the log entry was collapsed and mustn't be sent
+     */
+    function collapse(log) {
+        var state = signatures[signatureOf(log)];
+
+        if (!state) {
+            return false;
+        }
+        else if (state.entry && state.entry.queued) {
+            state.entry.count = (state.entry.count || 1) + 1;
+            state.entry.lastTs = currentTimestamp();
+            return true;
+        }
+        else if (defaults.throttleInterval > 0 && +(new Date()) - state.sent < defaults.throttleInterval) {
+            if (state.suppressed === 0) {
+                state.first = currentTimestamp();
+            }
+
+            state.suppressed++;
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * remembers given entry as the last sent entry of its signature and attaches the number of suppressed
+     * repeats to it. Must be called right before the entry is sent.
+     *
+     * @param {Object} log the log entry that is sent
+     */
+    function markSent(log) {
+        var signature = signatureOf(log),
+            state = signatures[signature];
+
+        if (!state) {
+            if (signatureCount >= maxSignatures) {
+                signatures = {};
+                signatureCount = 0;
+            }
+
+            state = signatures[signature] = {entry: null, sent: 0, suppressed: 0, first: null};
+            signatureCount++;
+        }
+
+        if (state.suppressed > 0) {
+            log.timestamp = state.first;
+            log.count = state.suppressed + 1;
+            log.lastTs = currentTimestamp();
+            state.suppressed = 0;
+        }
+
+        // entries in localStorage are copies, so they can't be collapsed
+        log.queued = defaults.collectionType !== "localstorage";
+        state.entry = log;
+        state.sent = +(new Date());
+    }
+
+    /**
+     * @param {Object} log the log entry
+     * @returns {string} the signature of given entry: level, message, file and line
+     */
+    function signatureOf(log) {
+        return log.lvl + "|" + log.msg + "|" + (log.file || "") + "|" + (log.line || "");
+    }
+
     /**
      * flushes all queued messages to the backend.
      *
@@ -346,10 +453,10 @@
             var currentValue = amplify.store("clientside-logging");
 
             if (currentValue && currentValue.length > 0) {
-                sendQueue(currentValue, async);
-
                 // clear queue, i.e. remove from localStorage
                 amplify.store("clientside-logging", null);
+
+                sendQueue(currentValue, async);
             }
         }
         else {
@@ -358,43 +465,99 @@
     }
 
     /**
-     * Processes the queue to a flat object that contains all data that should
-     * be sent to the backend.
+     * removes all entries from the given queue and returns all entries that
+     * pass the filter.
      *
      * @param {Array} queue
-     * @return {Object}
+     * @return {Array} all accepted entries
      */
-    function prepareData(queue) {
-        var data = appendClientInfo({}), i = 1;
+    function takeEntries(queue) {
+        var entries = [];
 
         while (queue.length > 0) {
             // removes the item from the queue
             var e = queue.pop();
 
+            if (e) {
+                e.queued = false;
+            }
+
             if (filter(e)) {
-                data["timestamp_" + i] = e.timestamp;
-                data["msg_" + i] = e.msg;
-                data["lvl_" + i] = e.lvl;
+                entries.push(e);
+            }
+        }
 
-                if (e.line) {
-                    data["line_" + i] = e.line;
-                }
-                if (e.file) {
-                    data["file_" + i] = e.file;
-                }
+        return entries;
+    }
 
-                if (defaults.logStacktrace && e.stack) {
-                    data["stack_" + i] = e.stack;
-                }
+    /**
+     * Processes the entries to a flat object that contains all data that should
+     * be sent to the backend.
+     *
+     * @param {Array} entries
+     * @return {Object}
+     */
+    function prepareData(entries) {
+        var data = appendClientInfo({}), i;
 
-                i++;
+        for (i = 1; i <= entries.length; i++) {
+            var e = entries[i - 1];
+
+            data["timestamp_" + i] = e.timestamp;
+            data["msg_" + i] = e.msg;
+            data["lvl_" + i] = e.lvl;
+
+            if (e.line) {
+                data["line_" + i] = e.line;
+            }
+            if (e.file) {
+                data["file_" + i] = e.file;
+            }
+
+            if (defaults.logStacktrace && e.stack) {
+                data["stack_" + i] = e.stack;
+            }
+
+            if (e.count > 1) {
+                data["count_" + i] = e.count;
+                data["lastTs_" + i] = e.lastTs;
             }
         }
 
-        data.elements = i - 1;
+        data.elements = entries.length;
         return data;
     }
 
+    /**
+     * Processes the entries to a compact json document. Each entry is an array
+     * of [level, timestamp, message, file, line, stacktrace]; collapsed repeats
+     * additionally contain count and last timestamp.
+     *
+     * @param {Array} entries
+     * @return {string}
+     */
+    function prepareJsonData(entries) {
+        var data = appendClientInfo({}), i;
+
+        data.elements = entries.length;
+        data.entries = [];
+
+        for (i = 0; i < entries.length; i++) {
+            var e = entries[i];
+
+            var entry = [e.lvl, e.timestamp, e.msg, e.file || null, e.line || null,
+                         defaults.logStacktrace && e.stack ? e.stack : null];
+
+            if (e.count > 1) {
+                entry.push(e.count, e.lastTs);
+            }
+
+            data.entries.push(entry);
+        }
+
+        return win.JSON.stringify(data);
+    }
+
     /**
      * executes the ajax call
      *
@@ -406,24 +569,324 @@
             return;
         }
 
-        var data = prepareData(q);
-        if (!data || data.elements <= 0) {
+        if (isBackingOff()) {
+            // keep all entries until the server accepts log requests again
+            if (q !== queue) {
+                requeue(q.splice(0, q.length));
+            }
+
+            scheduleRetry();
             return;
         }
 
-        sentEntriesOnPage = sentEntriesOnPage + data.elements;
+        var entries = takeEntries(q);
+        if (entries.length <= 0) {
+            return;
+        }
 
-        // default mode is async
-        async = async !== false;
+        sentEntriesOnPage = sentEntriesOnPage + entries.length;
 
-        $.ajax({
+        var request = {
             type: defaults.method,
             url: defaults.url,
             cache: false,
-            async: async,
-            dataType: "text",
-            data: data
-        });
+            // default mode is async
+            async: async !== false,
+            dataType: "text"
+        };
+
+        if (defaults.wireFormat === "json" && win.JSON) {
+            request.contentType = "application/json; charset=UTF-8";
+            request.processData = false;
+
+            compress(prepareJsonData(entries), request.async, function (body, encoding) {
+                if (encoding) {
+                    request.headers = { "Content-Encoding": encoding };
+                }
+
+                request.data = body;
+                send(request, entries);
+            });
+        }
+        else {
+            request.data = prepareData(entries);
+            send(request, entries);
+        }
+    }
+
+    /**
+     * sends the request and handles backpressure of the server. If the server is overloaded (429 or 503),
+     * all entries are queued again and the client backs off exponentially.
+     *
+     * @param {Object} request the ajax request
+     * @param {Array} entries all entries that are sent with this request
+     */
+    function send(request, entries) {
+        $.ajax(request)
+            .done(function (body) {
+                backoff.attempts = 0;
+                applyResponse(body);
+            })
+            .fail(function (xhr) {
+                applyResponse(xhr ? xhr.responseText : null);
+
+                if (xhr && (xhr.status === 429 || xhr.status === 503)) {
+                    sentEntriesOnPage = Math.max(0, sentEntriesOnPage - entries.length);
+
+                    requeue(entries);
+                    startBackoff(retryAfter(xhr));
+                }
+            });
+    }
+
+    /**
+     * checks whether a message of given level is sampled, i.e. should be sent to server. The decision is the same
+     * for all messages of a level during a page view, so a sampled page view keeps all its messages.
+     *
+     * @param {number} lvl the log level
+     * @returns {boolean} TRUE, if the message should be sent
+     */
+    function isSampled(lvl) {
+        var rate = defaults.sampling ? defaults.sampling[logLevelNames[lvl]] : null;
+
+        return typeof rate !== "number" || rate >= 1 || pageViewSample < rate;
+    }
+
+    /**
+     * hashes given id to a value between 0 and 1 by the 32 bit FNV-1a hash of its chars; the server uses the
+     * same hash (see ConsistentSampling), so it knows which messages were sampled.
+     *
+     * @param {string} id the page view id
+     * @returns {number} the sample value, 0 (inclusive) to 1 (exclusive)
+     */
+    function sampleOf(id) {
+        var hash = 0x811c9dc5, i;
+
+        for (i = 0; i < id.length; i++) {
+            hash ^= id.charCodeAt(i);
+            // multiplies by the FNV prime 2^24 + 2^8 + 0x93 without losing precision
+            hash += (hash << 1) + (hash << 4) + (hash << 7) + (hash << 8) + (hash << 24);
+        }
+
+        return (hash >>> 0) / 4294967296;
+    }
+
+    /**
+     * applies the control block of a log response, if there is one.
+     *
+     * @param {string} body the response body
+     */
+    function applyResponse(body) {
+        if (body && typeof body === "string" && win.JSON) {
+            try {
+                applyControl(win.JSON.parse(body));
+            }
+            catch (e) {
+                /* ignore invalid responses */
+            }
+        }
+    }
+
+    /**
+     * applies a control block of the server for the rest of the page view. Control blocks
+     * that are older than the last applied one are ignored.
+     *
+     * @param {Object} control the control block, e.g. {v: 1, off: false, maxEntriesPerPage: 5, collectionType: "timer", sampling: {info: 0.1}}
+     */
+    function applyControl(control) {
+        if (!control || typeof control !== "object" || !(control.v > controlVersion)) {
+            return;
+        }
+
+        controlVersion = control.v;
+
+        if (control.off === true) {
+            // kill switch
+            defaults.logLevel = 0;
+            queue.length = 0;
+        }
+
+        if (typeof control.maxEntriesPerPage === "number") {
+            defaults.maxEntriesPerPage = control.maxEntriesPerPage;
+        }
+
+        if (control.sampling && typeof control.sampling === "object") {
+            defaults.sampling = control.sampling;
+        }
+
+        if (control.collectionType && collectionTypes.hasOwnProperty(control.collectionType)) {
+            changeCollectionType(control.collectionType);
+        }
+    }
+
+    /**
+     * changes the collection type at runtime. All queued entries are moved to the new collection.
+     *
+     * @param {string} type the new collection type
+     */
+    function changeCollectionType(type) {
+        var previous = defaults.collectionType, stored;
+
+        if (type === previous || (type === "localstorage" && !amplify)) {
+            return;
+        }
+
+        if (previous === "localstorage") {
+            stored = amplify.store("clientside-logging") || [];
+            amplify.store("clientside-logging", null);
+
+            Array.prototype.push.apply(queue, stored);
+        }
+
+        defaults.collectionType = type;
+
+        if (type === "localstorage" && queue.length > 0) {
+            amplify.store("clientside-logging", (amplify.store("clientside-logging") || []).concat(queue.splice(0, queue.length)));
+        }
+
+        if (type === "timer") {
+            startCollectionTimer();
+        }
+
+        if (type === "unload") {
+            bindUnloadHandler();
+        }
+
+        if (type === "single" || (type === "size" && queue.length >= defaults.maxQueueSize)) {
+            flushMessages(true);
+        }
+    }
+
+    /**
+     * starts the timer that flushes all messages periodically, if it's not running yet.
+     */
+    function startCollectionTimer() {
+        if (collectionTimerId === null) {
+            collectionTimerId = win.setInterval(function () {
+                if (defaults.collectionType === "timer") {
+                    flushMessages(true);
+                }
+            }, defaults.collectionTimer);
+        }
+    }
+
+    /**
+     * flushes all messages synchronously on page unload
+     */
+    function bindUnloadHandler() {
+        if (!unloadHandlerBound) {
+            unloadHandlerBound = true;
+
+            $(win).on('beforeunload', function () {
+                flushMessages(false);
+            });
+        }
+    }
+
+    /**
+     * @returns {boolean} TRUE, if the client must not send log requests at the moment
+     */
+    function isBackingOff() {
+        return backoff.until > +(new Date());
+    }
+
+    /**
+     * starts or extends the backoff. The delay grows exponentially with each rejected request and is
+     * randomized (full jitter), so not all clients retry at the same time.
+     *
+     * @param {number} minDelay the min delay in ms as requested by the server
+     */
+    function startBackoff(minDelay) {
+        var delay = Math.min(defaults.backoffMax, defaults.backoffBase * Math.pow(2, backoff.attempts));
+
+        backoff.attempts++;
+        backoff.until = +(new Date()) + minDelay + Math.floor(Math.random() * delay);
+
+        scheduleRetry();
+    }
+
+    /**
+     * schedules a flush of all queued entries when the backoff ends.
+     */
+    function scheduleRetry() {
+        if (backoff.timer === null) {
+            backoff.timer = win.setTimeout(function () {
+                backoff.timer = null;
+                flushMessages(true);
+            }, Math.max(0, backoff.until - (+(new Date()))));
+        }
+    }
+
+    /**
+     * reads the "Retry-After" header of a rejected request
+     *
+     * @param {Object} xhr the xhr of the rejected request
+     * @returns {number} the delay in ms or 0, if there's no valid header
+     */
+    function retryAfter(xhr) {
+        var value = xhr.getResponseHeader ? xhr.getResponseHeader("Retry-After") : null, seconds, date;
+
+        if (!value) {
+            return 0;
+        }
+
+        seconds = parseInt(value, 10);
+        if (!isNaN(seconds)) {
+            return Math.max(0, seconds * 1000);
+        }
+
+        date = Date.parse(value);
+        return isNaN(date) ? 0 : Math.max(0, date - (+(new Date())));
+    }
+
+    /**
+     * puts given entries back into the queue, so they are sent with the next request
+     *
+     * @param {Array} entries the entries to queue
+     */
+    function requeue(entries) {
+        if (defaults.collectionType === "localstorage") {
+            var currentValue = amplify.store("clientside-logging") || [];
+
+            amplify.store("clientside-logging", currentValue.concat(entries));
+        }
+        else {
+            for (var i = 0; i < entries.length; i++) {
+                entries[i].queued = true;
+            }
+
+            Array.prototype.push.apply(queue, entries);
+        }
+    }
+
+    /**
+     * compresses the given request body if compression is activated and the browser
+     * supports CompressionStream. Compression is asynchronous, so synchronous requests
+     * (e.g. on page unload) and small bodies are always sent uncompressed.
+     *
+     * @param {string} body the request body
+     * @param {boolean} async whether the request will be sent asynchronously
+     * @param {Function} callback is called with the (compressed) body and its content encoding
+     */
+    function compress(body, async, callback) {
+        if (defaults.compression && async && body.length >= minCompressionSize &&
+            win.CompressionStream && win.Blob && win.Response) {
+            try {
+                var stream = new win.Blob([body]).stream().pipeThrough(new win.CompressionStream(defaults.compression));
+
+                new win.Response(stream).arrayBuffer().then(function (buffer) {
+                    callback(buffer, defaults.compression);
+                }, function () {
+                    callback(body, null);
+                });
+                return;
+            }
+            catch (e) {
+                /* fall back to uncompressed body */
+            }
+        }
+
+        callback(body, null);
     }
 
     /**
@@ -456,6 +919,7 @@
      */
     function appendClientInfo(data) {
         data.ajaxBaseUrl = Wicket.Ajax.baseUrl || '.';
+        data.pageViewId = pageViewId;
 
         if (defaults.collectClientInfos === true) {
             data.ua = navigator.userAgent;
@@ -653,9 +1117,7 @@
         }
 
         if (defaults.collectionType === "timer") {
-            win.setInterval(function () {
-                flushMessages(true);
-            }, defaults.collectionTimer);
+            startCollectionTimer();
         }
 
         if (defaults.collectionType === "localstorage") {
@@ -673,15 +1135,15 @@
         }
 
         if (defaults.flushMessagesOnUnload === true || defaults.collectionType === "unload") {
-            $(win).on('beforeunload', function () {
-                flushMessages(false);
-            });
+            bindUnloadHandler();
         }
 
         if (defaults.loggerName) {
             win[defaults.loggerName] = WicketClientSideLogging;
             $[defaults.loggerName] = WicketClientSideLogging;
         }
+
+        applyControl(defaults.control);
     }
 
     // allow configuration via WicketClientSideLogging
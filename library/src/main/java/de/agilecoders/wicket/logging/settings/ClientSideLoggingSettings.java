@@ -1,12 +1,24 @@
 package de.agilecoders.wicket.logging.settings;
 
+import de.agilecoders.wicket.logging.AsyncLogDispatcher;
 import de.agilecoders.wicket.logging.ClientSideLoggingJavaScript;
 import de.agilecoders.wicket.logging.IClientLogger;
 import de.agilecoders.wicket.logging.ILogCleaner;
 import de.agilecoders.wicket.logging.IParamValueExtractor;
+import de.agilecoders.wicket.logging.IRequestBodyExtractor;
+import de.agilecoders.wicket.logging.TopErrorTracker;
+import de.agilecoders.wicket.logging.util.ClientControl;
+import de.agilecoders.wicket.logging.util.DefaultValues;
+import de.agilecoders.wicket.logging.util.ICanonicalizer;
+import de.agilecoders.wicket.logging.util.ILoggingBarrier;
+import de.agilecoders.wicket.logging.util.IStackTraceParser;
+import de.agilecoders.wicket.logging.util.OverflowPolicy;
+import de.agilecoders.wicket.logging.util.WireFormat;
 import org.apache.wicket.markup.head.JavaScriptHeaderItem;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.time.Duration;
 
 /**
  * A set of configuration options for the clientside logging library
@@ -24,6 +36,24 @@ public class ClientSideLoggingSettings implements IClientSideLoggingSettings {
     private IClientLogger logger = new IClientLogger.DefaultClientLogger(id);
     private ResourceReference reference = ClientSideLoggingJavaScript.instance();
     private IParamValueExtractor paramValueExtractor = new IParamValueExtractor.DefaultParamValueExtractor();
+    private IRequestBodyExtractor requestBodyExtractor = new IRequestBodyExtractor.JsonBodyExtractor();
+    private WireFormat wireFormat = DefaultValues.wireFormat;
+    private boolean compressRequests = false;
+    private Bytes maxRequestBodySize = Bytes.megabytes(1);
+    private String ingestPath = null;
+    private String servletPath = null;
+    private ILoggingBarrier barrier = new ILoggingBarrier.AllowAllBarrier();
+    private Duration retryAfter = Duration.seconds(10);
+    private final ClientControl clientControl = new ClientControl();
+    private ICanonicalizer canonicalizer = new ICanonicalizer.BoundedCanonicalizer(4096, 1024);
+    private IStackTraceParser stackTraceParser = new IStackTraceParser.CachingStackTraceParser(1024, 16384);
+    private TopErrorTracker topErrorTracker = null;
+    private boolean async = false;
+    private int asyncQueueSize = 4096;
+    private int asyncWorkers = 2;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DropNewest;
+    private Duration overflowTimeout = Duration.milliseconds(50);
+    private volatile AsyncLogDispatcher asyncDispatcher = null;
 
     /**
      * sets the client side error level
@@ -80,6 +110,135 @@ public class ClientSideLoggingSettings implements IClientSideLoggingSettings {
         return this;
     }
 
+    /**
+     * sets the request body parser that is used for json encoded log requests
+     *
+     * @param requestBodyExtractor the request body parser
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings requestBodyExtractor(final IRequestBodyExtractor requestBodyExtractor) {
+        this.requestBodyExtractor = Args.notNull(requestBodyExtractor, "requestBodyExtractor");
+        return this;
+    }
+
+    /**
+     * sets the format that is used on client side to send log messages. The backend accepts
+     * all formats, so old clients can still send form encoded data.
+     *
+     * @param wireFormat the wire format to use on client side
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings wireFormat(final WireFormat wireFormat) {
+        this.wireFormat = Args.notNull(wireFormat, "wireFormat");
+        return this;
+    }
+
+    /**
+     * whether the client should compress json encoded log requests or not. Compression is only used if the
+     * browser supports "CompressionStream", other browsers send uncompressed data.
+     *
+     * @param value whether to compress log requests
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings compressRequests(final boolean value) {
+        this.compressRequests = value;
+        return this;
+    }
+
+    /**
+     * sets the max size of a (decompressed) request body, larger requests will be rejected.
+     *
+     * @param size the max size of a request body
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings maxRequestBodySize(final Bytes size) {
+        this.maxRequestBodySize = Args.notNull(size, "maxRequestBodySize");
+        return this;
+    }
+
+    /**
+     * sets the path of the lightweight log request entry point. If set, log requests are handled by a
+     * {@link de.agilecoders.wicket.logging.ClientSideLoggingRequestMapper} that never touches the session,
+     * instead of a resource reference. The path is relative to the wicket filter path, e.g. "client-log".
+     *
+     * @param path the ingest path or null to use the resource reference
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings ingestPath(final String path) {
+        this.ingestPath = path != null ? path.replaceAll("^/+|/+$", "") : null;
+        return this;
+    }
+
+    /**
+     * sets the path of a {@link de.agilecoders.wicket.logging.ClientSideLoggingServlet}. If set, the client sends
+     * all log requests to this servlet. The path is relative to the servlet context, e.g. "client-log".
+     *
+     * @param path the servlet path or null to use the wicket entry points
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings servletPath(final String path) {
+        this.servletPath = path != null ? path.replaceAll("^/+|/+$", "") : null;
+        return this;
+    }
+
+    /**
+     * sets the barrier that is checked for each incoming log request. If the barrier rejects a request, the
+     * client is told to back off with "429 Too Many Requests" and keeps its log messages.
+     *
+     * @param barrier the barrier to use
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings barrier(final ILoggingBarrier barrier) {
+        this.barrier = Args.notNull(barrier, "barrier");
+        return this;
+    }
+
+    /**
+     * sets the time a client has to wait after a log request was rejected because of load.
+     *
+     * @param retryAfter the time to wait, is sent as "Retry-After" header
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings retryAfter(final Duration retryAfter) {
+        this.retryAfter = Args.notNull(retryAfter, "retryAfter");
+        return this;
+    }
+
+    /**
+     * sets the canonicalizer that maps repeating values (user agents, urls, files and messages) of
+     * incoming log messages to a shared instance.
+     *
+     * @param canonicalizer the canonicalizer to use
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings canonicalizer(final ICanonicalizer canonicalizer) {
+        this.canonicalizer = Args.notNull(canonicalizer, "canonicalizer");
+        return this;
+    }
+
+    /**
+     * sets the parser that turns client side stacktraces into structured frames, which are used
+     * for fingerprinting and by loggers.
+     *
+     * @param stackTraceParser the parser to use
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings stackTraceParser(final IStackTraceParser stackTraceParser) {
+        this.stackTraceParser = Args.notNull(stackTraceParser, "stackTraceParser");
+        return this;
+    }
+
+    /**
+     * sets the tracker that counts the most frequent client errors of all incoming log requests.
+     *
+     * @param tracker the tracker to use or null, to disable tracking
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings topErrorTracker(final TopErrorTracker tracker) {
+        this.topErrorTracker = tracker;
+        return this;
+    }
+
     /**
      * sets the javascript reference to use to render clientside logging js
      *
@@ -114,6 +273,63 @@ public class ClientSideLoggingSettings implements IClientSideLoggingSettings {
         return this;
     }
 
+    /**
+     * whether to write log messages asynchronously or not. If activated, the request thread only
+     * puts all log messages into a bounded queue and a pool of worker threads writes them to the logger.
+     *
+     * @param value whether to write log messages asynchronously
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings async(final boolean value) {
+        this.async = value;
+        return this;
+    }
+
+    /**
+     * sets the max number of log messages that can be queued in async mode
+     *
+     * @param size the max queue size
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings asyncQueueSize(final int size) {
+        this.asyncQueueSize = Args.withinRange(1, Integer.MAX_VALUE, size, "asyncQueueSize");
+        return this;
+    }
+
+    /**
+     * sets the number of worker threads that write log messages in async mode
+     *
+     * @param workers the number of worker threads
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings asyncWorkers(final int workers) {
+        this.asyncWorkers = Args.withinRange(1, 256, workers, "asyncWorkers");
+        return this;
+    }
+
+    /**
+     * sets the policy that is used if the queue is full in async mode
+     *
+     * @param policy the overflow policy
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings overflowPolicy(final OverflowPolicy policy) {
+        this.overflowPolicy = Args.notNull(policy, "overflowPolicy");
+        return this;
+    }
+
+    /**
+     * sets the max time a request thread waits for free space in the queue, this is only
+     * used if overflow policy is set to {@link OverflowPolicy#Block}.
+     *
+     * @param timeout the max time to wait
+     * @return this instance for chaining
+     */
+    public ClientSideLoggingSettings overflowTimeout(final Duration timeout) {
+        this.overflowTimeout = Args.notNull(timeout, "overflowTimeout");
+        return this;
+    }
+
     @Override
     public String level() { return level; }
 
@@ -137,9 +353,80 @@ public class ClientSideLoggingSettings implements IClientSideLoggingSettings {
     @Override
     public IParamValueExtractor paramValueExtractor() { return paramValueExtractor; }
 
+    @Override
+    public IRequestBodyExtractor requestBodyExtractor() { return requestBodyExtractor; }
+
+    @Override
+    public WireFormat wireFormat() { return wireFormat; }
+
+    @Override
+    public boolean compressRequests() { return compressRequests; }
+
+    @Override
+    public Bytes maxRequestBodySize() { return maxRequestBodySize; }
+
+    @Override
+    public String ingestPath() { return ingestPath; }
+
+    @Override
+    public String servletPath() { return servletPath; }
+
+    @Override
+    public ILoggingBarrier barrier() { return barrier; }
+
+    @Override
+    public Duration retryAfter() { return retryAfter; }
+
+    @Override
+    public ClientControl clientControl() { return clientControl; }
+
+    @Override
+    public ICanonicalizer canonicalizer() { return canonicalizer; }
+
+    @Override
+    public IStackTraceParser stackTraceParser() { return stackTraceParser; }
+
+    @Override
+    public TopErrorTracker topErrorTracker() { return topErrorTracker; }
+
     @Override
     public String id() { return id; }
 
+    @Override
+    public boolean async() { return async; }
+
+    @Override
+    public int asyncQueueSize() { return asyncQueueSize; }
+
+    @Override
+    public int asyncWorkers() { return asyncWorkers; }
+
+    @Override
+    public OverflowPolicy overflowPolicy() { return overflowPolicy; }
+
+    @Override
+    public Duration overflowTimeout() { return overflowTimeout; }
+
+    @Override
+    public AsyncLogDispatcher asyncDispatcher() {
+        if (async && asyncDispatcher == null) {
+            synchronized (this) {
+                if (asyncDispatcher == null) {
+                    asyncDispatcher = newAsyncDispatcher();
+                }
+            }
+        }
+
+        return asyncDispatcher;
+    }
+
+    /**
+     * @return new dispatcher for async mode
+     */
+    protected AsyncLogDispatcher newAsyncDispatcher() {
+        return new AsyncLogDispatcher(this);
+    }
+
     @Override
     public JavaScriptHeaderItem javaScriptHeaderItem() { return JavaScriptHeaderItem.forReference(reference); }
 }
@@ -1,9 +1,20 @@
 package de.agilecoders.wicket.logging.settings;
 
+import de.agilecoders.wicket.logging.AsyncLogDispatcher;
 import de.agilecoders.wicket.logging.IClientLogger;
 import de.agilecoders.wicket.logging.ILogCleaner;
 import de.agilecoders.wicket.logging.IParamValueExtractor;
+import de.agilecoders.wicket.logging.IRequestBodyExtractor;
+import de.agilecoders.wicket.logging.TopErrorTracker;
+import de.agilecoders.wicket.logging.util.ClientControl;
+import de.agilecoders.wicket.logging.util.ICanonicalizer;
+import de.agilecoders.wicket.logging.util.ILoggingBarrier;
+import de.agilecoders.wicket.logging.util.IStackTraceParser;
+import de.agilecoders.wicket.logging.util.OverflowPolicy;
+import de.agilecoders.wicket.logging.util.WireFormat;
 import org.apache.wicket.markup.head.JavaScriptHeaderItem;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.time.Duration;
 
 /**
  * client side logging settings.
@@ -48,6 +59,67 @@ public interface IClientSideLoggingSettings {
      */
     IParamValueExtractor paramValueExtractor();
 
+    /**
+     * @return request body parser for json encoded log requests
+     */
+    IRequestBodyExtractor requestBodyExtractor();
+
+    /**
+     * @return the format that is used on client side to send log messages
+     */
+    WireFormat wireFormat();
+
+    /**
+     * @return TRUE, if the client should compress json encoded log requests
+     */
+    boolean compressRequests();
+
+    /**
+     * @return the max size of a (decompressed) request body
+     */
+    Bytes maxRequestBodySize();
+
+    /**
+     * @return the path of the lightweight log request entry point or null, if log requests are
+     *         handled by a resource reference
+     */
+    String ingestPath();
+
+    /**
+     * @return the path of the non-blocking log servlet or null, if log requests are handled by wicket
+     */
+    String servletPath();
+
+    /**
+     * @return the barrier that is checked for each incoming log request
+     */
+    ILoggingBarrier barrier();
+
+    /**
+     * @return the time a client has to wait after a log request was rejected because of load
+     */
+    Duration retryAfter();
+
+    /**
+     * @return the client side options that can be changed at runtime, e.g. to reduce client traffic during an incident
+     */
+    ClientControl clientControl();
+
+    /**
+     * @return the canonicalizer that is used by the request parsers for repeating values
+     */
+    ICanonicalizer canonicalizer();
+
+    /**
+     * @return the parser that turns client side stacktraces into structured frames
+     */
+    IStackTraceParser stackTraceParser();
+
+    /**
+     * @return the tracker that counts the most frequent client errors or null, if they aren't tracked
+     */
+    TopErrorTracker topErrorTracker();
+
     /**
      * @return the library id (is used as logger name)
      */
@@ -57,4 +129,34 @@ public interface IClientSideLoggingSettings {
      * @return the javascript resource reference as header item.
      */
     JavaScriptHeaderItem javaScriptHeaderItem();
+
+    /**
+     * @return TRUE, if log messages are written asynchronously by a pool of worker threads
+     */
+    boolean async();
+
+    /**
+     * @return the max number of queued log messages in async mode
+     */
+    int asyncQueueSize();
+
+    /**
+     * @return the number of worker threads in async mode
+     */
+    int asyncWorkers();
+
+    /**
+     * @return the policy that is used if the queue is full in async mode
+     */
+    OverflowPolicy overflowPolicy();
+
+    /**
+     * @return the max time to wait for free space in the queue if {@link OverflowPolicy#Block} is active
+     */
+    Duration overflowTimeout();
+
+    /**
+     * @return the dispatcher that provides queue depth and drop counts or null if async mode is deactivated
+     */
+    AsyncLogDispatcher asyncDispatcher();
 }
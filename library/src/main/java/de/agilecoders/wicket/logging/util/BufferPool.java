@@ -0,0 +1,63 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.apache.wicket.util.lang.Args;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A bounded pool of fixed size byte buffers. If the pool is empty new buffers are allocated, released buffers
+ * are dropped if the pool is already full, so the pool never holds more than its capacity.
+ *
+ * @author miha
+ */
+public class BufferPool {
+
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> buffers;
+
+    /**
+     * Construct.
+     *
+     * @param bufferSize the size of a single buffer in bytes
+     * @param capacity   the max number of pooled buffers
+     */
+    public BufferPool(final int bufferSize, final int capacity) {
+        this.bufferSize = Args.withinRange(1, Integer.MAX_VALUE, bufferSize, "bufferSize");
+        this.buffers = new ArrayBlockingQueue<>(Args.withinRange(1, Integer.MAX_VALUE, capacity, "capacity"));
+    }
+
+    /**
+     * @return a pooled buffer or a new one, if the pool is empty
+     */
+    public byte[] acquire() {
+        final byte[] buffer = buffers.poll();
+
+        return buffer != null ? buffer : new byte[bufferSize];
+    }
+
+    /**
+     * hands back a buffer to the pool.
+     *
+     * @param buffer the buffer to release
+     */
+    public void release(final byte[] buffer) {
+        if (buffer != null && buffer.length == bufferSize) {
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * @return the size of a single buffer in bytes
+     */
+    public int bufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return the number of buffers that are currently pooled
+     */
+    public int size() {
+        return buffers.size();
+    }
+}
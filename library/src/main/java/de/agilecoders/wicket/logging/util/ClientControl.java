@@ -0,0 +1,166 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.apache.wicket.WicketRuntimeException;
+import org.apache.wicket.ajax.json.JSONException;
+import org.apache.wicket.ajax.json.JSONObject;
+import org.apache.wicket.util.lang.Args;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A set of client side options that can be changed at runtime. All changes are sent to the clients with the
+ * response of their next log request and are applied for the rest of the page view, so client traffic can be
+ * reduced within seconds without re-rendering pages.
+ * <p/>
+ * Each change gets a new version (a timestamp), clients ignore control blocks that are older than the
+ * one they already applied.
+ *
+ * @author miha
+ */
+public class ClientControl {
+
+    private final Map<String, Double> sampling = new LinkedHashMap<>();
+    private volatile Map<String, Double> samplingRates = Collections.emptyMap();
+    private Integer maxEntriesPerPage = null;
+    private CollectionType collectionType = null;
+    private boolean disabled = false;
+    private long version = 0;
+    private volatile String json = null;
+
+    /**
+     * sets the sampling rate of a log level. Sampling is consistent per page view (see {@link ConsistentSampling}):
+     * a rate of 0.1 means that 10% of all page views send all their messages of this level to server, the other
+     * page views send none of them.
+     *
+     * @param level the log level, e.g. "info"
+     * @param rate  the sampling rate between 0 and 1
+     * @return this instance for chaining
+     */
+    public synchronized ClientControl sampling(final String level, final double rate) {
+        Args.notEmpty(level, "level");
+
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("sampling rate must be between 0 and 1: " + rate);
+        }
+
+        sampling.put(level.toLowerCase(Locale.ROOT), rate);
+        samplingRates = Collections.unmodifiableMap(new LinkedHashMap<>(sampling));
+        return changed();
+    }
+
+    /**
+     * returns the sampling rate of a log level without locking, so it can be checked for each log message.
+     *
+     * @param level the log level, e.g. "info"
+     * @return the sampling rate of given level, 1 if no rate was set
+     */
+    public double sampling(final String level) {
+        final Double rate = level != null ? samplingRates.get(level) : null;
+
+        return rate != null ? rate : 1;
+    }
+
+    /**
+     * sets the max number of log entries a client can send per page view
+     *
+     * @param value the max number of log entries
+     * @return this instance for chaining
+     */
+    public synchronized ClientControl maxEntriesPerPage(final int value) {
+        this.maxEntriesPerPage = Args.withinRange(0, Integer.MAX_VALUE, value, "maxEntriesPerPage");
+        return changed();
+    }
+
+    /**
+     * sets the collection type that clients must use
+     *
+     * @param value the collection type
+     * @return this instance for chaining
+     */
+    public synchronized ClientControl collectionType(final CollectionType value) {
+        this.collectionType = Args.notNull(value, "collectionType");
+        return changed();
+    }
+
+    /**
+     * kill switch: if set to true, clients stop logging for the rest of the page view.
+     *
+     * @param value whether to disable client side logging
+     * @return this instance for chaining
+     */
+    public synchronized ClientControl disabled(final boolean value) {
+        this.disabled = value;
+        return changed();
+    }
+
+    /**
+     * removes all changes. Clients that already applied a control block keep it for the
+     * rest of their page view.
+     *
+     * @return this instance for chaining
+     */
+    public synchronized ClientControl reset() {
+        sampling.clear();
+        samplingRates = Collections.emptyMap();
+        maxEntriesPerPage = null;
+        collectionType = null;
+        disabled = false;
+        json = null;
+        return this;
+    }
+
+    /**
+     * @return TRUE, if client side logging is disabled
+     */
+    public synchronized boolean disabled() {
+        return disabled;
+    }
+
+    /**
+     * @return the current version, 0 if nothing was changed
+     */
+    public synchronized long version() {
+        return json != null ? version : 0;
+    }
+
+    /**
+     * @return the control block as json or null, if nothing was changed
+     */
+    public String toJson() {
+        return json;
+    }
+
+    /**
+     * creates a new version of the control block
+     */
+    private ClientControl changed() {
+        version = Math.max(version + 1, System.currentTimeMillis());
+
+        try {
+            final JSONObject control = new JSONObject();
+            control.put("v", version);
+
+            if (disabled) {
+                control.put("off", true);
+            }
+            if (maxEntriesPerPage != null) {
+                control.put("maxEntriesPerPage", maxEntriesPerPage.intValue());
+            }
+            if (collectionType != null) {
+                control.put("collectionType", collectionType.asString());
+            }
+            if (!sampling.isEmpty()) {
+                control.put("sampling", new JSONObject(sampling));
+            }
+
+            json = control.toString();
+        } catch (JSONException e) {
+            throw new WicketRuntimeException(e);
+        }
+
+        return this;
+    }
+}
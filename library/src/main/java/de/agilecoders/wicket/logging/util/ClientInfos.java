@@ -1,63 +1,165 @@
 package de.agilecoders.wicket.logging.util;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
- * A wrapped {@link HashMap} that provides a simple interface
- * to access special fields. Please notice that you can add only
- * special set of keys to this map (see {@link #validKeys}).
+ * The client information of a log request. It has a fixed set of fields
+ * (user agent, ajax base url, window size, screen size and page view id).
+ * <p>
+ * The map like methods {@link #put(String, String)}, {@link #get(String)} and
+ * {@link #asMap()} are kept for loggers that accessed the client information by
+ * parameter name. Note: {@link ClientInfos} was a {@code HashMap<String, String>} before,
+ * it isn't a {@link Map} anymore. Code that passed it as map or used other map methods
+ * (e.g. {@code entrySet()}, {@code containsKey()} or {@code size()}) has to use
+ * {@link #asMap()} instead.
  *
  * @author miha
  */
-public class ClientInfos extends HashMap<String, String> {
-    /**
-     * a list of all valid keys.
-     */
-    private static final List<String> validKeys = Arrays.asList(
-            ParamNames.USER_AGENT, ParamNames.AJAX_BASE_URL, ParamNames.WINDOW_SIZE, ParamNames.SCREEN_SIZE
-    );
+public class ClientInfos {
+
+    private String userAgent;
+    private String ajaxBaseUrl;
+    private String windowSize;
+    private String screenSize;
+    private String pageViewId;
 
     /**
      * @return the user agent
      */
     public String userAgent() {
-        return get(ParamNames.USER_AGENT);
+        return userAgent;
     }
 
     /**
      * @return the ajax base url
      */
     public String ajaxBaseUrl() {
-        return get(ParamNames.AJAX_BASE_URL);
+        return ajaxBaseUrl;
     }
 
     /**
      * @return the window size (wxh: 1024x768)
      */
     public String windowSize() {
-        return get(ParamNames.WINDOW_SIZE);
+        return windowSize;
     }
 
     /**
      * @return the screen size (wxh: 1024x768)
      */
     public String screenSize() {
-        return get(ParamNames.SCREEN_SIZE);
+        return screenSize;
     }
 
-    @Override
+    /**
+     * @return the random id the client has generated for the current page view
+     */
+    public String pageViewId() {
+        return pageViewId;
+    }
+
+    /**
+     * @return a 64 bit hash that identifies the client: the page view id or, for clients that don't send one,
+     *         the combination of user agent, screen and window size
+     */
+    public long clientHash() {
+        if (pageViewId != null) {
+            return HyperLogLog.hash(pageViewId);
+        }
+
+        return HyperLogLog.hash(userAgent + '|' + screenSize + '|' + windowSize);
+    }
+
+    /**
+     * sets a value by its parameter name. Only the parameter names of
+     * client information are accepted, all others are ignored.
+     *
+     * @param key   the parameter name
+     * @param value the value to set
+     * @return the previous value or null, if there was none or the key isn't valid
+     */
     public String put(String key, String value) {
-        if (validKeys.contains(key)) {
-            return super.put(key, value);
+        if (key == null) {
+            return null;
+        }
+
+        final String previous = get(key);
+
+        switch (key) {
+            case ParamNames.USER_AGENT:
+                userAgent = value;
+                return previous;
+            case ParamNames.AJAX_BASE_URL:
+                ajaxBaseUrl = value;
+                return previous;
+            case ParamNames.WINDOW_SIZE:
+                windowSize = value;
+                return previous;
+            case ParamNames.SCREEN_SIZE:
+                screenSize = value;
+                return previous;
+            case ParamNames.PAGE_VIEW_ID:
+                pageViewId = value;
+                return previous;
+            default:
+                return null;
         }
-        return null;
     }
 
-    @Override
+    /**
+     * @param key the parameter name
+     * @return the value of given parameter name or null, if it isn't set
+     */
+    public String get(String key) {
+        if (key == null) {
+            return null;
+        }
+
+        switch (key) {
+            case ParamNames.USER_AGENT:
+                return userAgent;
+            case ParamNames.AJAX_BASE_URL:
+                return ajaxBaseUrl;
+            case ParamNames.WINDOW_SIZE:
+                return windowSize;
+            case ParamNames.SCREEN_SIZE:
+                return screenSize;
+            case ParamNames.PAGE_VIEW_ID:
+                return pageViewId;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @param m ignored
+     * @throws UnsupportedOperationException always
+     */
     public void putAll(Map<? extends String, ? extends String> m) {
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * @return all values that are set as read only map, the keys are the parameter names
+     */
+    public Map<String, String> asMap() {
+        final Map<String, String> map = new LinkedHashMap<>(8);
+
+        for (String key : new String[]{ParamNames.USER_AGENT, ParamNames.AJAX_BASE_URL, ParamNames.WINDOW_SIZE, ParamNames.SCREEN_SIZE, ParamNames.PAGE_VIEW_ID}) {
+            final String value = get(key);
+
+            if (value != null) {
+                map.put(key, value);
+            }
+        }
+
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public String toString() {
+        return asMap().toString();
+    }
 }
@@ -0,0 +1,55 @@
+package de.agilecoders.wicket.logging.util;
+
+/**
+ * Consistent sampling by page view: each page view id is hashed to a fixed value between 0 and 1 and a log message
+ * is sampled if this value is lower than the sampling rate of its level. All messages of a page view get the same
+ * value, so a page view is either sampled with all its messages of a level or not at all, and a page view that is
+ * sampled at a lower rate is sampled at each higher rate too.
+ * <p>
+ * The hash is the 32 bit FNV-1a hash of the UTF-16 chars of the id, which is computed the same way by
+ * {@code clientside-logging.js}. This way the server knows which messages a client has dropped without sending them.
+ *
+ * @author miha
+ */
+public final class ConsistentSampling {
+
+    private static final int FNV_OFFSET_BASIS = 0x811c9dc5;
+    private static final int FNV_PRIME = 16777619;
+    private static final double TWO_POW_32 = 4294967296.0;
+
+    private ConsistentSampling() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @param value the value to hash
+     * @return the 32 bit FNV-1a hash of the chars of given value
+     */
+    public static int hash(final CharSequence value) {
+        int hash = FNV_OFFSET_BASIS;
+
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        return hash;
+    }
+
+    /**
+     * @param pageViewId the page view id
+     * @return the sample value of given page view between 0 (inclusive) and 1 (exclusive)
+     */
+    public static double sample(final CharSequence pageViewId) {
+        return (hash(pageViewId) & 0xffffffffL) / TWO_POW_32;
+    }
+
+    /**
+     * @param pageViewId the page view id
+     * @param rate       the sampling rate between 0 and 1
+     * @return true, if messages of given page view are sampled at given rate
+     */
+    public static boolean isSampled(final CharSequence pageViewId, final double rate) {
+        return rate >= 1 || (rate > 0 && sample(pageViewId) < rate);
+    }
+}
@@ -23,9 +23,11 @@ public final class DefaultValues {
     public static final int maxQueueSize = 5;
     public static final String loggerName = "Log";
     public static final long collectionTimer = Duration.seconds(5).getMilliseconds();
+    public static final long throttleInterval = Duration.seconds(1).getMilliseconds();
     public static final CollectionType collectionType = CollectionType.Single;
     public static int maxEntriesPerPage = 10;
     public static final boolean collectClientInfos = true;
+    public static final WireFormat wireFormat = WireFormat.Form;
 
     public static final String defaultMessage = "NULL_MSG";
     public static final long defaultTimestamp = -1;
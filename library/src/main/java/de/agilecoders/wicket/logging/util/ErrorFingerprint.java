@@ -0,0 +1,166 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+
+import java.util.List;
+
+/**
+ * Calculates a 64 bit fingerprint of a client side error. All occurrences of the same error get
+ * the same fingerprint, even if they differ in details that change with each occurrence:
+ * <ul>
+ *     <li>numbers in the message are ignored, e.g. ids or indexes</li>
+ *     <li>query strings and fragments of the file and of all stack frames are ignored, e.g. cache busters</li>
+ *     <li>only the top stack frames are used, the error message line of a stacktrace is ignored</li>
+ * </ul>
+ * The fingerprint is calculated from the structured {@link ClientSideLogObject#frames() frames}, stacktraces of
+ * an unknown format are hashed line by line without creating any normalized copy of the values.
+ *
+ * @author miha
+ */
+public final class ErrorFingerprint {
+
+    /**
+     * the number of stack frames that are part of the fingerprint
+     */
+    public static final int TOP_FRAMES = 3;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * @param logObject the log message
+     * @return the fingerprint of given log message
+     */
+    public static long of(final ClientSideLogObject logObject) {
+        long hash = FNV_OFFSET;
+
+        hash = hashValue(hash, logObject.level(), 0, logObject.level().length(), false);
+        hash = hashMessage(hash, logObject.message());
+        hash = hashValue(hash, logObject.file(), 0, logObject.file().length(), true);
+        hash = mix(hash, logObject.lineNumber());
+        hash = hashFrames(hash, logObject.frames(), logObject.stacktrace());
+
+        return hash;
+    }
+
+    /**
+     * @param fingerprint the fingerprint
+     * @return the fingerprint as 16 digit hex string
+     */
+    public static String toString(final long fingerprint) {
+        final String hex = Long.toHexString(fingerprint);
+        return "0000000000000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * hashes the message, each sequence of digits is hashed as a single '#'
+     */
+    private static long hashMessage(long hash, final String message) {
+        boolean digits = false;
+
+        for (int i = 0; i < message.length(); i++) {
+            final char c = message.charAt(i);
+
+            if (c >= '0' && c <= '9') {
+                if (!digits) {
+                    hash = mix(hash, '#');
+                    digits = true;
+                }
+            } else {
+                hash = mix(hash, c);
+                digits = false;
+            }
+        }
+
+        return mix(hash, 0);
+    }
+
+    /**
+     * hashes the first {@link #TOP_FRAMES} frames or, if there are no known frames, the first non-empty
+     * lines of given stacktrace
+     */
+    private static long hashFrames(long hash, final List<StackFrame> frames, final String stacktrace) {
+        if (!frames.isEmpty()) {
+            for (int i = 0; i < frames.size() && i < TOP_FRAMES; i++) {
+                final StackFrame frame = frames.get(i);
+
+                hash = hashValue(hash, frame.function(), 0, frame.function().length(), false);
+                hash = hashValue(hash, frame.file(), 0, frame.file().length(), false);
+                hash = mix(hash, frame.line());
+                hash = mix(hash, frame.column());
+            }
+            return hash;
+        }
+
+        return hashLines(hash, stacktrace);
+    }
+
+    /**
+     * hashes the first {@link #TOP_FRAMES} non-empty lines of given stacktrace
+     */
+    private static long hashLines(long hash, final String stacktrace) {
+        int frames = 0;
+        int start = 0;
+
+        while (frames < TOP_FRAMES && start < stacktrace.length()) {
+            int end = stacktrace.indexOf('\n', start);
+            if (end < 0) {
+                end = stacktrace.length();
+            }
+
+            int from = start;
+            int to = end;
+            while (from < to && Character.isWhitespace(stacktrace.charAt(from))) {
+                from++;
+            }
+            while (to > from && Character.isWhitespace(stacktrace.charAt(to - 1))) {
+                to--;
+            }
+
+            if (from < to) {
+                hash = hashValue(hash, stacktrace, from, to, true);
+                frames++;
+            }
+            start = end + 1;
+        }
+
+        return hash;
+    }
+
+    /**
+     * hashes a part of given value
+     *
+     * @param hash             the current hash
+     * @param value            the value to hash
+     * @param from             the first char to hash
+     * @param to               the end (exclusive)
+     * @param skipQueryStrings whether to skip url query strings and fragments, they end with ':', ')' or a whitespace
+     * @return new hash
+     */
+    private static long hashValue(long hash, final String value, final int from, final int to, final boolean skipQueryStrings) {
+        boolean query = false;
+
+        for (int i = from; i < to; i++) {
+            final char c = value.charAt(i);
+
+            if (skipQueryStrings) {
+                if (c == '?' || c == '#') {
+                    query = true;
+                    continue;
+                } else if (query && (c == ':' || c == ')' || Character.isWhitespace(c))) {
+                    query = false;
+                } else if (query) {
+                    continue;
+                }
+            }
+
+            hash = mix(hash, c);
+        }
+
+        return mix(hash, 0);
+    }
+
+    private static long mix(final long hash, final int value) {
+        return (hash ^ value) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,34 @@
+package de.agilecoders.wicket.logging.util;
+
+/**
+ * Helper to find out whether a subclass overrides a (deprecated) hook method, so it can still be called
+ * instead of its replacement.
+ *
+ * @author miha
+ */
+public final class Hooks {
+
+    private Hooks() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @param type           the class to check
+     * @param base           the class that declares the hook
+     * @param name           the name of the hook method
+     * @param parameterTypes the parameter types of the hook method
+     * @return true, if given class or one of its superclasses below given base class declares the hook method
+     */
+    public static boolean isOverridden(final Class<?> type, final Class<?> base, final String name, final Class<?>... parameterTypes) {
+        for (Class<?> current = type; current != null && current != base; current = current.getSuperclass()) {
+            try {
+                current.getDeclaredMethod(name, parameterTypes);
+                return true;
+            } catch (NoSuchMethodException e) {
+                // check superclass
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,213 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.apache.wicket.util.lang.Args;
+
+import java.util.Arrays;
+
+/**
+ * A HyperLogLog sketch that estimates the number of distinct values with a fixed amount of memory: 2^precision
+ * registers of one byte each. The standard error is about 1.04 / sqrt(2^precision), e.g. 6.5% for the default
+ * precision of 8 (256 bytes). Sketches of the same precision can be merged, e.g. sketches of several time windows or
+ * of several nodes that were transferred by {@link #toBytes()}.
+ * <p>
+ * This class isn't thread safe.
+ *
+ * @author miha
+ */
+public class HyperLogLog {
+
+    /**
+     * the default precision, 256 registers
+     */
+    public static final int DEFAULT_PRECISION = 8;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Construct with {@link #DEFAULT_PRECISION}.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * Construct.
+     *
+     * @param precision the number of index bits, between 4 and 16
+     */
+    public HyperLogLog(final int precision) {
+        this.precision = Args.withinRange(4, 16, precision, "precision");
+        this.registers = new byte[1 << precision];
+    }
+
+    /**
+     * adds a value by its hash
+     *
+     * @param hash a well distributed 64 bit hash of the value, see {@link #hash(String)}
+     */
+    public void add(final long hash) {
+        final int index = (int) (hash >>> (64 - precision));
+        final int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    /**
+     * adds a value
+     *
+     * @param value the value to add
+     */
+    public void add(final String value) {
+        add(hash(value));
+    }
+
+    /**
+     * @return the estimated number of distinct values
+     */
+    public long estimate() {
+        final int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+
+        final double estimate = alpha(m) * m * m / sum;
+
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // small range correction: linear counting
+            return Math.round(m * Math.log((double) m / zeros));
+        }
+
+        return Math.round(estimate);
+    }
+
+    /**
+     * merges all values of given sketch into this one
+     *
+     * @param other the sketch to merge
+     * @return this instance for chaining
+     */
+    public HyperLogLog merge(final HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("can't merge sketches of precision " + other.precision + " and " + precision);
+        }
+
+        for (int i = 0; i < registers.length; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+
+        return this;
+    }
+
+    /**
+     * removes all values
+     */
+    public void clear() {
+        Arrays.fill(registers, (byte) 0);
+    }
+
+    /**
+     * @return the number of index bits
+     */
+    public int precision() {
+        return precision;
+    }
+
+    /**
+     * @return a copy of this sketch
+     */
+    public HyperLogLog copy() {
+        return new HyperLogLog(precision).merge(this);
+    }
+
+    /**
+     * @return this sketch as byte array: the precision followed by all registers
+     */
+    public byte[] toBytes() {
+        final byte[] bytes = new byte[registers.length + 1];
+        bytes[0] = (byte) precision;
+        System.arraycopy(registers, 0, bytes, 1, registers.length);
+        return bytes;
+    }
+
+    /**
+     * @param bytes a sketch that was serialized by {@link #toBytes()}
+     * @return the deserialized sketch
+     */
+    public static HyperLogLog fromBytes(final byte[] bytes) {
+        Args.notNull(bytes, "bytes");
+
+        final HyperLogLog sketch = new HyperLogLog(bytes.length > 0 ? bytes[0] : 0);
+        if (bytes.length != sketch.registers.length + 1) {
+            throw new IllegalArgumentException("invalid sketch size: " + bytes.length);
+        }
+
+        for (int i = 0; i < sketch.registers.length; i++) {
+            sketch.registers[i] = (byte) Math.max(0, Math.min(64, bytes[i + 1]));
+        }
+
+        return sketch;
+    }
+
+    /**
+     * calculates a well distributed 64 bit hash (FNV-1a with a final avalanche step)
+     *
+     * @param value the value to hash
+     * @return the hash of given value, 0 if value is null
+     */
+    public static long hash(final String value) {
+        if (value == null) {
+            return 0;
+        }
+
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    /**
+     * the finalizer of murmur3, every input bit affects every output bit
+     *
+     * @param hash the hash to mix
+     * @return the mixed hash
+     */
+    public static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static double alpha(final int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLog{precision=" + precision + ", estimate=" + estimate() + "}";
+    }
+}
@@ -0,0 +1,120 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An {@link IBatchLoggingBarrier} is an {@link ILoggingBarrier} that admits all log events of a request at once:
+ * it reserves the permits of the whole batch atomically, so concurrent requests can't take the permits that were
+ * checked for another request. If there are less permits than log events, the events with the highest severity
+ * are admitted (errors before warnings before info, debug and trace), so errors keep flowing during an info flood.
+ * <p>
+ * The {@link de.agilecoders.wicket.logging.LogRequestProcessor} uses {@link #admit(Collection)} instead of
+ * {@link #isAllowed(Collection)} and {@link #isAllowed(ClientSideLogObject)} for all barriers that implement this
+ * interface.
+ *
+ * @author miha
+ */
+public interface IBatchLoggingBarrier extends ILoggingBarrier {
+
+    /**
+     * reserves as many permits as available, but not more than given number, in a single atomic step
+     *
+     * @param permits the max number of permits to reserve
+     * @return the number of reserved permits, between 0 and given number
+     */
+    int tryAcquireUpTo(int permits);
+
+    /**
+     * reserves permits for given log events and returns the events that were admitted, highest severity first
+     *
+     * @param logObjects the log events of a single request
+     * @return all admitted log events, an empty collection if none was admitted
+     */
+    Collection<ClientSideLogObject> admit(Collection<ClientSideLogObject> logObjects);
+
+    /**
+     * Selects the log events with the highest severity
+     */
+    public static final class LevelPriority {
+
+        /**
+         * the number of priorities: all log levels and unknown levels
+         */
+        private static final int PRIORITIES = LogLevel.values().length + 1;
+
+        private LevelPriority() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * admits given number of permits to given log events, highest severity first
+         *
+         * @param logObjects the log events
+         * @param permits    the number of reserved permits
+         * @return the admitted log events
+         */
+        public static Collection<ClientSideLogObject> admit(final Collection<ClientSideLogObject> logObjects, final int permits) {
+            if (permits >= logObjects.size()) {
+                return logObjects;
+            }
+
+            return select(logObjects, permits);
+        }
+
+        /**
+         * selects the log events with the highest severity; unknown levels have the lowest one. Log events of the
+         * same severity are selected in iteration order, the selected events keep the iteration order too. It doesn't
+         * sort, it counts the events per severity and needs two passes.
+         *
+         * @param logObjects the log events to select from
+         * @param limit      the max number of log events to select
+         * @return at most "limit" log events with the highest severity
+         */
+        public static List<ClientSideLogObject> select(final Collection<ClientSideLogObject> logObjects, final int limit) {
+            if (limit <= 0 || logObjects.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            final int[] counts = new int[PRIORITIES];
+            for (ClientSideLogObject logObject : logObjects) {
+                counts[priority(logObject)]++;
+            }
+
+            // all events above the threshold are selected, the first "remaining" events of the threshold too
+            int threshold = 0;
+            int remaining = limit;
+            while (threshold < PRIORITIES - 1 && counts[threshold] < remaining) {
+                remaining -= counts[threshold];
+                threshold++;
+            }
+
+            final List<ClientSideLogObject> selected = new ArrayList<>(Math.min(limit, logObjects.size()));
+            for (ClientSideLogObject logObject : logObjects) {
+                final int priority = priority(logObject);
+
+                if (priority < threshold) {
+                    selected.add(logObject);
+                } else if (priority == threshold && remaining > 0) {
+                    selected.add(logObject);
+                    remaining--;
+                }
+            }
+
+            return selected;
+        }
+
+        /**
+         * @return the priority of given log event, 0 is the highest
+         */
+        private static int priority(final ClientSideLogObject logObject) {
+            final LogLevel level = logObject.logLevel();
+
+            return level != null ? level.ordinal() : PRIORITIES - 1;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.apache.wicket.util.lang.Args;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An {@link ICanonicalizer} maps equal strings to a single shared instance. The request parsers
+ * use it for values that repeat across many log messages (user agents, urls, files and messages),
+ * so log messages that are buffered by a logger don't hold their own copy of each value.
+ *
+ * @author miha
+ */
+public interface ICanonicalizer {
+
+    /**
+     * @param value the value to canonicalize
+     * @return an equal, shared instance or value itself; null if value is null
+     */
+    String canonicalize(String value);
+
+    /**
+     * An {@link ICanonicalizer} that returns all values as they are.
+     */
+    public static final class NoopCanonicalizer implements ICanonicalizer {
+        public static final NoopCanonicalizer INSTANCE = new NoopCanonicalizer();
+
+        @Override
+        public String canonicalize(String value) {
+            return value;
+        }
+    }
+
+    /**
+     * A bounded, lock free {@link ICanonicalizer}. Each value is mapped to a single slot by its hash code,
+     * a value that doesn't match the cached one replaces it. So the cache never holds more than
+     * "size" values and values that aren't used anymore get evicted by newer ones. Values longer than
+     * "maxLength" aren't cached at all.
+     */
+    public static class BoundedCanonicalizer implements ICanonicalizer {
+        private final AtomicReferenceArray<String> slots;
+        private final int mask;
+        private final int maxLength;
+        private final AtomicLong hits = new AtomicLong(0);
+        private final AtomicLong misses = new AtomicLong(0);
+        private final AtomicLong evictions = new AtomicLong(0);
+
+        /**
+         * Construct.
+         *
+         * @param size      the max number of cached values, is rounded up to the next power of two
+         * @param maxLength the max length of a value that is cached
+         */
+        public BoundedCanonicalizer(final int size, final int maxLength) {
+            Args.withinRange(1, 1 << 24, size, "size");
+
+            int capacity = 1;
+            while (capacity < size) {
+                capacity <<= 1;
+            }
+
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = slots.length() - 1;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public String canonicalize(String value) {
+            if (value == null || value.length() > maxLength) {
+                return value;
+            }
+
+            final int hash = value.hashCode();
+            final int slot = (hash ^ (hash >>> 16)) & mask;
+            final String cached = slots.get(slot);
+
+            if (cached != null && cached.hashCode() == hash && cached.equals(value)) {
+                hits.incrementAndGet();
+                return cached;
+            }
+
+            if (cached != null) {
+                evictions.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            slots.set(slot, value);
+
+            return value;
+        }
+
+        /**
+         * @return the number of slots
+         */
+        public int size() {
+            return slots.length();
+        }
+
+        /**
+         * @return the number of values that were found in cache
+         */
+        public long hits() {
+            return hits.get();
+        }
+
+        /**
+         * @return the number of values that weren't found in cache
+         */
+        public long misses() {
+            return misses.get();
+        }
+
+        /**
+         * @return the number of cached values that were replaced by another value
+         */
+        public long evictions() {
+            return evictions.get();
+        }
+    }
+}
@@ -0,0 +1,894 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An {@link IContextAwareLoggingBarrier} is an {@link ILoggingBarrier} that gets the {@link LogRequestContext} of
+ * each log request, e.g. to limit each client on its own. The {@link de.agilecoders.wicket.logging.LogRequestProcessor}
+ * calls {@link #admit(Collection, LogRequestContext)} for all barriers that implement this interface, the methods of
+ * {@link ILoggingBarrier} are used by callers that don't know the request context. Barriers that wrap another barrier
+ * pass the log events that they allow on to it, an {@link IBatchLoggingBarrier} admits them at once (see
+ * {@link Admission#of(ILoggingBarrier, Collection, LogRequestContext)}).
+ *
+ * @author miha
+ */
+public interface IContextAwareLoggingBarrier extends ILoggingBarrier {
+
+    /**
+     * checks a single log event
+     *
+     * @param logObject the log event to check
+     * @param context   the context of the log request
+     * @return true, if it's allowed to be logged
+     */
+    boolean isAllowed(ClientSideLogObject logObject, LogRequestContext context);
+
+    /**
+     * checks multiple log events of a single log request. Like {@link ILoggingBarrier#isAllowed(Collection)}
+     * this is a check of the whole request, each single event is checked by
+     * {@link #isAllowed(ClientSideLogObject, LogRequestContext)} afterwards.
+     *
+     * @param logObjects the log events to check
+     * @param context    the context of the log request
+     * @return true, if all log events are allowed to be logged
+     */
+    boolean isAllowed(Collection<ClientSideLogObject> logObjects, LogRequestContext context);
+
+    /**
+     * admits all log events of a single log request at once
+     *
+     * @param logObjects the log events of a single request
+     * @param context    the context of the log request
+     * @return the admitted log events
+     */
+    Admission admit(Collection<ClientSideLogObject> logObjects, LogRequestContext context);
+
+    /**
+     * The result of admitting the log events of a single log request. Only log events that were rejected by a rate
+     * limit are counted as rejected, the client sends them again later. Log events that were dropped by a policy
+     * (e.g. sampling or suppressed duplicates) aren't counted: a request whose log events were all dropped is answered like a written one,
+     * otherwise the client would send it again and again.
+     */
+    public static final class Admission {
+
+        /**
+         * admits given log events by given barrier: an {@link IContextAwareLoggingBarrier} admits them by
+         * {@link IContextAwareLoggingBarrier#admit(Collection, LogRequestContext)}, an {@link IBatchLoggingBarrier}
+         * by {@link IBatchLoggingBarrier#admit(Collection)}, all other barriers check the whole request and each
+         * single log event.
+         *
+         * @param barrier    the barrier to ask
+         * @param logObjects the log events of a single request
+         * @param context    the context of the log request
+         * @return the admitted log events
+         */
+        public static Admission of(final ILoggingBarrier barrier, final Collection<ClientSideLogObject> logObjects,
+                                   final LogRequestContext context) {
+            if (barrier instanceof IContextAwareLoggingBarrier) {
+                return ((IContextAwareLoggingBarrier) barrier).admit(logObjects, context);
+            } else if (barrier instanceof IBatchLoggingBarrier) {
+                final Collection<ClientSideLogObject> admitted = ((IBatchLoggingBarrier) barrier).admit(logObjects);
+
+                return new Admission(admitted, logObjects.size() - admitted.size());
+            } else if (!barrier.isAllowed(logObjects)) {
+                // a rejected request is rejected even if it's empty
+                return new Admission(Collections.<ClientSideLogObject>emptyList(), Math.max(1, logObjects.size()));
+            }
+
+            final List<ClientSideLogObject> admitted = new ArrayList<>(logObjects.size());
+            for (ClientSideLogObject logObject : logObjects) {
+                if (barrier.isAllowed(logObject)) {
+                    admitted.add(logObject);
+                }
+            }
+
+            return new Admission(admitted, logObjects.size() - admitted.size());
+        }
+
+        private final Collection<ClientSideLogObject> admitted;
+        private final int rejected;
+
+        /**
+         * Construct.
+         *
+         * @param admitted the admitted log events
+         * @param rejected the number of log events that were rejected by a rate limit
+         */
+        public Admission(final Collection<ClientSideLogObject> admitted, final int rejected) {
+            this.admitted = Args.notNull(admitted, "admitted");
+            this.rejected = rejected;
+        }
+
+        /**
+         * @return the admitted log events
+         */
+        public Collection<ClientSideLogObject> admitted() {
+            return admitted;
+        }
+
+        /**
+         * @return the number of log events that were rejected by a rate limit
+         */
+        public int rejected() {
+            return rejected;
+        }
+
+        /**
+         * @return true, if no log event was admitted but at least one was rejected, the client must back off
+         */
+        public boolean isRejected() {
+            return admitted.isEmpty() && rejected > 0;
+        }
+
+        /**
+         * @param count the number of log events that were rejected before
+         * @return an admission that counts given number of rejected log events too
+         */
+        public Admission plusRejected(final int count) {
+            return count > 0 ? new Admission(admitted, rejected + count) : this;
+        }
+    }
+
+    /**
+     * A barrier that limits each client by its own token bucket and all clients together by a global barrier, so a
+     * single misbehaving client can't use up the global budget of all others. Clients are identified by their
+     * remote address, session id or page view id (see {@link ClientKey}).
+     * <p>
+     * The buckets are kept in a fixed number of stripes, each one a small LRU map with its own lock. The number of
+     * tracked clients is bounded: if a stripe is full, its least recently used client is evicted. A client whose
+     * bucket is full again is idle and evicted first, which doesn't change anything because a new client starts with
+     * a full bucket. Each client is stored by a 64 bit hash of its key, so memory stays constant even if an attacker
+     * sends a new (and long) key with each request; such an attacker is still limited by the global barrier.
+     */
+    public static class PerClientBarrier implements IContextAwareLoggingBarrier {
+
+        private static final int STRIPES = 16;
+
+        /**
+         * The key that identifies a client
+         */
+        public enum ClientKey {
+            /**
+             * the remote address of the client, all clients behind the same NAT share a bucket
+             */
+            REMOTE_ADDRESS {
+                @Override
+                public String of(LogRequestContext context) {
+                    return context.remoteAddress();
+                }
+            },
+
+            /**
+             * the id of the http session, the remote address for clients without session
+             */
+            SESSION_ID {
+                @Override
+                public String of(LogRequestContext context) {
+                    return context.sessionId() != null ? context.sessionId() : context.remoteAddress();
+                }
+            },
+
+            /**
+             * the page view id the client has generated, the remote address for clients that haven't sent one. The
+             * page view id is chosen by the client, so a scripted client can bypass the per client limit by
+             * sending a new one each time; it's still limited by the global barrier.
+             */
+            PAGE_VIEW_ID {
+                @Override
+                public String of(LogRequestContext context) {
+                    return context.pageViewId() != null ? context.pageViewId() : context.remoteAddress();
+                }
+            };
+
+            /**
+             * @param context the context of the log request
+             * @return the key of the client or null, if the client can't be identified
+             */
+            public abstract String of(LogRequestContext context);
+        }
+
+        private final ILoggingBarrier global;
+        private final ClientKey clientKey;
+        private final long burst;
+        private final long interval;
+        private final long tolerance;
+        private final Stripe[] stripes;
+
+        /**
+         * Construct.
+         *
+         * @param global     the barrier that limits all clients together
+         * @param clientKey  the key that identifies a client
+         * @param burst      the max number of events a single client can send at once
+         * @param rate       the number of events a single client can send per period in the long run
+         * @param period     the period of given rate
+         * @param maxClients the max number of clients that are tracked
+         */
+        public PerClientBarrier(final ILoggingBarrier global, final ClientKey clientKey, final long burst, final long rate,
+                                final Duration period, final int maxClients) {
+            Args.isTrue(burst > 0, "burst must be positive");
+            Args.isTrue(rate > 0, "rate must be positive");
+            Args.withinRange(1, 1 << 24, maxClients, "maxClients");
+
+            this.global = Args.notNull(global, "global");
+            this.clientKey = Args.notNull(clientKey, "clientKey");
+            this.burst = burst;
+            this.interval = Math.max(1, Args.notNull(period, "period").getMilliseconds() * 1000000L / rate);
+            this.tolerance = burst * interval;
+            this.stripes = new Stripe[STRIPES];
+
+            final int stripeCapacity = Math.max(1, (maxClients + STRIPES - 1) / STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new Stripe(stripeCapacity);
+            }
+        }
+
+        /**
+         * @return the current value of the monotonic clock in nanoseconds
+         */
+        protected long nanoTime() {
+            return System.nanoTime();
+        }
+
+        /**
+         * @return the global barrier
+         */
+        public ILoggingBarrier global() {
+            return global;
+        }
+
+        /**
+         * @return the number of clients that are tracked right now
+         */
+        public int size() {
+            int size = 0;
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    size += stripe.size();
+                }
+            }
+            return size;
+        }
+
+        /**
+         * acquires given number of tokens of a single client, either all of them or none. The global barrier
+         * isn't checked.
+         *
+         * @param context the context of the log request
+         * @param permits the number of tokens to acquire
+         * @return true, if all tokens were acquired or the client can't be identified
+         */
+        public boolean tryAcquire(final LogRequestContext context, final int permits) {
+            final String key = clientKey.of(context);
+
+            if (key == null || permits <= 0) {
+                return true;
+            } else if (permits > burst) {
+                return false;
+            }
+
+            final long hash = HyperLogLog.hash(key);
+            return stripe(hash).tryAcquire(hash, nanoTime(), permits * interval, tolerance);
+        }
+
+        /**
+         * acquires as many tokens of a single client as available, but not more than given number, in a single
+         * atomic step. The global barrier isn't checked.
+         *
+         * @param context the context of the log request
+         * @param permits the max number of tokens to acquire
+         * @return the number of acquired tokens, given number if the client can't be identified
+         */
+        public int tryAcquireUpTo(final LogRequestContext context, final int permits) {
+            final String key = clientKey.of(context);
+
+            if (key == null || permits <= 0) {
+                return Math.max(0, permits);
+            }
+
+            final long hash = HyperLogLog.hash(key);
+            return stripe(hash).tryAcquireUpTo(hash, nanoTime(), interval, tolerance, permits);
+        }
+
+        /**
+         * @param context the context of the log request
+         * @return the number of tokens the client of given request has right now
+         */
+        public long availableTokens(final LogRequestContext context) {
+            final String key = clientKey.of(context);
+
+            if (key == null) {
+                return burst;
+            }
+
+            final long hash = HyperLogLog.hash(key);
+            final long backlog = stripe(hash).backlog(hash, nanoTime());
+
+            return backlog <= 0 ? burst : Math.max(0, (tolerance - backlog) / interval);
+        }
+
+        /**
+         * gives back tokens of a single client that were acquired but not used
+         *
+         * @param context the context of the log request
+         * @param permits the number of tokens to give back
+         */
+        public void release(final LogRequestContext context, final int permits) {
+            final String key = clientKey.of(context);
+
+            if (key != null && permits > 0) {
+                final long hash = HyperLogLog.hash(key);
+                stripe(hash).release(hash, permits * interval);
+            }
+        }
+
+        /**
+         * acquires a token of the client and checks the global barrier afterwards; the token is given back if the
+         * global barrier rejects the event.
+         */
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject, LogRequestContext context) {
+            if (!tryAcquire(context, 1)) {
+                return false;
+            } else if (global.isAllowed(logObject)) {
+                return true;
+            }
+
+            release(context, 1);
+            return false;
+        }
+
+        /**
+         * checks whether the client has at least one token left. A batch that is larger than the available tokens
+         * isn't rejected, each single event is checked afterwards, so the client gets as many events through as it
+         * has tokens and doesn't retry the same (too large) batch forever.
+         */
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects, LogRequestContext context) {
+            return availableTokens(context) > 0 && global.isAllowed(logObjects);
+        }
+
+        /**
+         * acquires up to one token per log event of the client and lets the global barrier admit the log events with
+         * the highest severity that got a token; tokens that the global barrier didn't use are given back.
+         */
+        @Override
+        public Admission admit(Collection<ClientSideLogObject> logObjects, LogRequestContext context) {
+            final int granted = tryAcquireUpTo(context, logObjects.size());
+
+            if (granted == 0 && !logObjects.isEmpty()) {
+                return new Admission(Collections.<ClientSideLogObject>emptyList(), logObjects.size());
+            }
+
+            final Collection<ClientSideLogObject> selected = IBatchLoggingBarrier.LevelPriority.admit(logObjects, granted);
+            final Admission admission = Admission.of(global, selected, context);
+
+            release(context, granted - admission.admitted().size());
+            return admission.plusRejected(logObjects.size() - selected.size());
+        }
+
+        /**
+         * checks given log event by the global barrier only, because the client is unknown
+         */
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject) {
+            return global.isAllowed(logObject);
+        }
+
+        /**
+         * checks given log events by the global barrier only, because the client is unknown
+         */
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects) {
+            return global.isAllowed(logObjects);
+        }
+
+        @Override
+        public void destroy() throws Throwable {
+            global.destroy();
+        }
+
+        private Stripe stripe(final long hash) {
+            return stripes[(int) (hash >>> 60)];
+        }
+
+        /**
+         * A bounded LRU map of client hashes to the theoretical arrival time of their next event (see
+         * {@link ILoggingBarrier.TokenBucketBarrier})
+         */
+        private static final class Stripe extends LinkedHashMap<Long, Stripe.Bucket> {
+            private final int capacity;
+
+            private Stripe(final int capacity) {
+                super(Math.min(capacity, 1024), 0.75f, true);
+                this.capacity = capacity;
+            }
+
+            private synchronized boolean tryAcquire(final long hash, final long now, final long cost, final long tolerance) {
+                evictIdle(now);
+
+                final Bucket bucket = get(hash);
+                final long next = (bucket == null || bucket.arrival - now < 0 ? now : bucket.arrival) + cost;
+
+                if (next - now > tolerance) {
+                    return false;
+                } else if (bucket == null) {
+                    put(hash, new Bucket(next));
+                } else {
+                    bucket.arrival = next;
+                }
+
+                return true;
+            }
+
+            private synchronized int tryAcquireUpTo(final long hash, final long now, final long interval, final long tolerance,
+                                                    final int permits) {
+                evictIdle(now);
+
+                final Bucket bucket = get(hash);
+                final long start = bucket == null || bucket.arrival - now < 0 ? now : bucket.arrival;
+                final int granted = (int) Math.min(permits, (tolerance - (start - now)) / interval);
+
+                if (granted <= 0) {
+                    return 0;
+                } else if (bucket == null) {
+                    put(hash, new Bucket(start + granted * interval));
+                } else {
+                    bucket.arrival = start + granted * interval;
+                }
+
+                return granted;
+            }
+
+            private synchronized void release(final long hash, final long cost) {
+                final Bucket bucket = get(hash);
+
+                if (bucket != null) {
+                    bucket.arrival -= cost;
+                }
+            }
+
+            /**
+             * @return the time the bucket of given client needs to be full again, 0 or less if it's full
+             */
+            private synchronized long backlog(final long hash, final long now) {
+                final Bucket bucket = get(hash);
+
+                return bucket != null ? bucket.arrival - now : 0;
+            }
+
+            /**
+             * removes up to two least recently used clients whose buckets are full again
+             */
+            private void evictIdle(final long now) {
+                final Iterator<Bucket> iterator = values().iterator();
+
+                for (int i = 0; i < 2 && iterator.hasNext(); i++) {
+                    if (iterator.next().arrival - now <= 0) {
+                        iterator.remove();
+                    } else {
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Bucket> eldest) {
+                return size() > capacity;
+            }
+
+            /**
+             * the state of a single client
+             */
+            private static final class Bucket {
+                private long arrival;
+
+                private Bucket(long arrival) {
+                    this.arrival = arrival;
+                }
+            }
+        }
+    }
+
+    /**
+     * A barrier that budgets each error on its own: at most "limit" log messages with the same {@link ErrorFingerprint}
+     * are allowed per window, so a single noisy error can't starve rarer errors. All other messages of an error are
+     * suppressed and their number is written as a single warning when the window of the error has rolled over, e.g.
+     * {@code "[5f0e...] suppressed 1234 occurrences in the last 60s: ..."}. Allowed messages are checked by the next
+     * barrier afterwards (e.g. a {@link PerClientBarrier}), so suppressed errors don't use up its budget.
+     * <p>
+     * Like the {@link ICanonicalizer.BoundedCanonicalizer} each fingerprint is mapped to a single slot of a fixed
+     * size table, so memory stays fixed regardless of how many distinct errors arrive. If two errors share a slot,
+     * the newer one replaces the older one and both get a fresh budget, which lets more messages through but never
+     * drops a rare error. The slots are swapped by CAS, counting an allowed or suppressed message is a single atomic
+     * increment.
+     */
+    public static class FingerprintBarrier implements IContextAwareLoggingBarrier {
+        private static final Logger LOG = LoggerFactory.getLogger(FingerprintBarrier.class);
+
+        private final ILoggingBarrier next;
+        private final int limit;
+        private final long window;
+        private final AtomicReferenceArray<Slot> slots;
+        private final int mask;
+        private final AtomicLong nextFlush;
+        private final AtomicLong suppressed = new AtomicLong(0);
+
+        /**
+         * Construct.
+         *
+         * @param next   the barrier that checks all allowed log messages afterwards
+         * @param limit  the max number of log messages per error and window
+         * @param window the length of a window
+         * @param size   the number of slots, is rounded up to the next power of two
+         */
+        public FingerprintBarrier(final ILoggingBarrier next, final int limit, final Duration window, final int size) {
+            Args.isTrue(limit > 0, "limit must be positive");
+            Args.withinRange(1, 1 << 24, size, "size");
+
+            int capacity = 1;
+            while (capacity < size) {
+                capacity <<= 1;
+            }
+
+            this.next = Args.notNull(next, "next");
+            this.limit = limit;
+            this.window = Math.max(1, Args.notNull(window, "window").getMilliseconds());
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.nextFlush = new AtomicLong(now() + this.window);
+        }
+
+        /**
+         * @return current time in milliseconds
+         */
+        protected long now() {
+            return System.currentTimeMillis();
+        }
+
+        /**
+         * @return the barrier that checks all allowed log messages afterwards
+         */
+        public ILoggingBarrier next() {
+            return next;
+        }
+
+        /**
+         * @return the number of occurrences that were suppressed since this barrier was created
+         */
+        public long suppressed() {
+            return suppressed.get();
+        }
+
+        /**
+         * counts given log message against the budget of its error, the next barrier isn't checked.
+         *
+         * @param logObject the log message
+         * @return true, if the error of given log message hasn't used up its budget of the current window
+         */
+        public boolean tryAcquire(final ClientSideLogObject logObject) {
+            final long now = now();
+            final long epoch = now / window;
+            final long fingerprint = ErrorFingerprint.of(logObject);
+            final int index = (int) HyperLogLog.mix(fingerprint) & mask;
+
+            Slot slot;
+            while (true) {
+                final Slot current = slots.get(index);
+
+                if (current != null && current.fingerprint == fingerprint && current.epoch == epoch) {
+                    slot = current;
+                    break;
+                }
+
+                slot = new Slot(fingerprint, epoch);
+                if (slots.compareAndSet(index, current, slot)) {
+                    report(current);
+                    break;
+                }
+            }
+
+            final long flush = nextFlush.get();
+            if (now >= flush && nextFlush.compareAndSet(flush, now + window)) {
+                flush(now);
+            }
+
+            if (slot.logged.get() < limit && slot.logged.incrementAndGet() <= limit) {
+                return true;
+            }
+
+            slot.sample = logObject;
+            slot.suppressed.addAndGet(logObject.count());
+            suppressed.addAndGet(logObject.count());
+            return false;
+        }
+
+        /**
+         * writes the suppressed occurrences of all errors whose window has rolled over and removes them.
+         *
+         * @param now the current time in milliseconds
+         */
+        public void flush(final long now) {
+            final long epoch = now / window;
+
+            for (int i = 0; i < slots.length(); i++) {
+                final Slot slot = slots.get(i);
+
+                if (slot != null && slot.epoch < epoch && slots.compareAndSet(i, slot, null)) {
+                    report(slot);
+                }
+            }
+        }
+
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject) {
+            return tryAcquire(logObject) && next.isAllowed(logObject);
+        }
+
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject, LogRequestContext context) {
+            return tryAcquire(logObject) && (next instanceof IContextAwareLoggingBarrier
+                                             ? ((IContextAwareLoggingBarrier) next).isAllowed(logObject, context)
+                                             : next.isAllowed(logObject));
+        }
+
+        /**
+         * checks given log events by the next barrier only. The budget of each error is checked per log event,
+         * so a noisy error never blocks the other errors of the same request.
+         */
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects) {
+            return next.isAllowed(logObjects);
+        }
+
+        /**
+         * checks given log events by the next barrier only. The budget of each error is checked per log event,
+         * so a noisy error never blocks the other errors of the same request.
+         */
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects, LogRequestContext context) {
+            return next instanceof IContextAwareLoggingBarrier
+                   ? ((IContextAwareLoggingBarrier) next).isAllowed(logObjects, context)
+                   : next.isAllowed(logObjects);
+        }
+
+        /**
+         * counts each log event against the budget of its error and lets the next barrier admit the allowed ones.
+         * Suppressed log events are counted once and aren't rejected, the client must not send them again.
+         */
+        @Override
+        public Admission admit(Collection<ClientSideLogObject> logObjects, LogRequestContext context) {
+            final List<ClientSideLogObject> allowed = new ArrayList<>(logObjects.size());
+            for (ClientSideLogObject logObject : logObjects) {
+                if (tryAcquire(logObject)) {
+                    allowed.add(logObject);
+                }
+            }
+
+            return allowed.isEmpty() ? new Admission(allowed, 0) : Admission.of(next, allowed, context);
+        }
+
+        @Override
+        public void destroy() throws Throwable {
+            flush(Long.MAX_VALUE);
+            next.destroy();
+        }
+
+        private void report(final Slot slot) {
+            if (slot != null) {
+                final long count = slot.suppressed.get();
+
+                if (count > 0) {
+                    writeSuppressed(slot.fingerprint, count, slot.sample);
+                }
+            }
+        }
+
+        /**
+         * writes the number of suppressed occurrences of a single error
+         *
+         * @param fingerprint the fingerprint of the error
+         * @param count       the number of suppressed occurrences
+         * @param sample      the last suppressed log message
+         */
+        protected void writeSuppressed(final long fingerprint, final long count, final ClientSideLogObject sample) {
+            LOG.warn("[{}] suppressed {} occurrences in the last {}s: {}", ErrorFingerprint.toString(fingerprint), count, window / 1000, sample);
+        }
+
+        /**
+         * The budget of a single error in a single window
+         */
+        private static final class Slot {
+            private final long fingerprint;
+            private final long epoch;
+            private final AtomicInteger logged = new AtomicInteger(0);
+            private final AtomicLong suppressed = new AtomicLong(0);
+            private volatile ClientSideLogObject sample;
+
+            private Slot(long fingerprint, long epoch) {
+                this.fingerprint = fingerprint;
+                this.epoch = epoch;
+            }
+        }
+    }
+
+    /**
+     * A barrier that samples log messages by level and page view: a message is allowed if the sample value of its
+     * page view (see {@link ConsistentSampling}) is lower than the sampling rate of its level, e.g. all errors but
+     * only 1% of info messages. All messages of a sampled page view are kept together. The rates are read from the
+     * {@link ClientControl}, which sends the same rates to the clients. {@code clientside-logging.js} uses the same
+     * hash and drops unsampled messages before they are queued, so this barrier only drops the messages of clients
+     * that haven't applied the current rates yet. Levels without a rate are always allowed, clients without page
+     * view id are sampled by their remote address. Allowed messages are checked by the next barrier afterwards.
+     * <p>
+     * Each allowed message stands for 1/rate messages, so the number of all messages (including those that were
+     * dropped on client side) is extrapolated per level, see {@link #estimated(LogLevel)}.
+     */
+    public static class SamplingBarrier implements IContextAwareLoggingBarrier {
+
+        /**
+         * the fixed point scale of the extrapolated number of messages
+         */
+        private static final long SCALE = 1000;
+
+        private final ILoggingBarrier next;
+        private final ClientControl control;
+        private final StripedCounter[] kept;
+        private final StripedCounter[] sampledOut;
+        private final StripedCounter[] estimated;
+
+        /**
+         * Construct.
+         *
+         * @param next    the barrier that checks all sampled log messages afterwards
+         * @param control the client control that holds the sampling rates
+         */
+        public SamplingBarrier(final ILoggingBarrier next, final ClientControl control) {
+            this.next = Args.notNull(next, "next");
+            this.control = Args.notNull(control, "control");
+
+            final int levels = LogLevel.values().length + 1;
+            this.kept = new StripedCounter[levels];
+            this.sampledOut = new StripedCounter[levels];
+            this.estimated = new StripedCounter[levels];
+
+            for (int i = 0; i < levels; i++) {
+                kept[i] = new StripedCounter();
+                sampledOut[i] = new StripedCounter();
+                estimated[i] = new StripedCounter();
+            }
+        }
+
+        /**
+         * @return the barrier that checks all sampled log messages afterwards
+         */
+        public ILoggingBarrier next() {
+            return next;
+        }
+
+        /**
+         * checks whether given log message is sampled and counts it, the next barrier isn't checked.
+         *
+         * @param logObject the log message
+         * @param context   the context of the log request
+         * @return true, if given log message is sampled
+         */
+        public boolean isSampled(final ClientSideLogObject logObject, final LogRequestContext context) {
+            final double rate = control.sampling(logObject.level());
+            final int index = index(logObject.logLevel());
+            final int count = logObject.count();
+
+            if (rate >= 1 || isSampled(context, rate)) {
+                kept[index].add(count);
+                estimated[index].add(Math.round(count * SCALE / rate));
+                return true;
+            }
+
+            sampledOut[index].add(count);
+            return false;
+        }
+
+        private boolean isSampled(final LogRequestContext context, final double rate) {
+            final String key = context.pageViewId() != null ? context.pageViewId() : context.remoteAddress();
+
+            return key != null ? ConsistentSampling.isSampled(key, rate) : ThreadLocalRandom.current().nextDouble() < rate;
+        }
+
+        /**
+         * @param level the log level, null for unknown levels
+         * @return the number of log messages of given level that were sampled
+         */
+        public long kept(final LogLevel level) {
+            return kept[index(level)].sum();
+        }
+
+        /**
+         * @param level the log level, null for unknown levels
+         * @return the number of log messages of given level that were dropped by this barrier; messages that were
+         *         dropped on client side aren't counted
+         */
+        public long sampledOut(final LogLevel level) {
+            return sampledOut[index(level)].sum();
+        }
+
+        /**
+         * @param level the log level, null for unknown levels
+         * @return the extrapolated number of log messages of given level that happened on all clients, including the
+         *         messages that were sampled out on client or server side
+         */
+        public long estimated(final LogLevel level) {
+            return estimated[index(level)].sum() / SCALE;
+        }
+
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject) {
+            return isAllowed(logObject, LogRequestContext.EMPTY);
+        }
+
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject, LogRequestContext context) {
+            return isSampled(logObject, context) && (next instanceof IContextAwareLoggingBarrier
+                                                     ? ((IContextAwareLoggingBarrier) next).isAllowed(logObject, context)
+                                                     : next.isAllowed(logObject));
+        }
+
+        /**
+         * checks given log events by the next barrier only, each single event is sampled on its own.
+         */
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects) {
+            return next.isAllowed(logObjects);
+        }
+
+        /**
+         * checks given log events by the next barrier only, each single event is sampled on its own.
+         */
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects, LogRequestContext context) {
+            return next instanceof IContextAwareLoggingBarrier
+                   ? ((IContextAwareLoggingBarrier) next).isAllowed(logObjects, context)
+                   : next.isAllowed(logObjects);
+        }
+
+        /**
+         * samples each log event on its own and lets the next barrier admit the sampled ones. Unsampled log events
+         * aren't rejected, the client must not send them again.
+         */
+        @Override
+        public Admission admit(Collection<ClientSideLogObject> logObjects, LogRequestContext context) {
+            final List<ClientSideLogObject> sampled = new ArrayList<>(logObjects.size());
+            for (ClientSideLogObject logObject : logObjects) {
+                if (isSampled(logObject, context)) {
+                    sampled.add(logObject);
+                }
+            }
+
+            return sampled.isEmpty() ? new Admission(sampled, 0) : Admission.of(next, sampled, context);
+        }
+
+        @Override
+        public void destroy() throws Throwable {
+            next.destroy();
+        }
+
+        private static int index(final LogLevel level) {
+            return level != null ? level.ordinal() : LogLevel.values().length;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package de.agilecoders.wicket.logging.util;
+
+/**
+ * An {@link ILogWriteListener} is notified each time log messages were written to the log store, e.g. to adapt the
+ * rate of an {@link ILoggingBarrier} to the health of the log store. If the configured barrier implements this
+ * interface, it's notified by the {@link de.agilecoders.wicket.logging.LogRequestProcessor} (synchronous logging)
+ * or by the worker threads of the {@link de.agilecoders.wicket.logging.AsyncLogDispatcher}.
+ *
+ * @author miha
+ */
+public interface ILogWriteListener {
+
+    /**
+     * called after a single call of {@link de.agilecoders.wicket.logging.IClientLogger#log}
+     *
+     * @param events       the number of written log messages
+     * @param latencyNanos the time the logger needed in nanoseconds
+     * @param backlog      the fill level of the async queue between 0 and 1, 0 for synchronous logging
+     */
+    void onWritten(int events, long latencyNanos, double backlog);
+}
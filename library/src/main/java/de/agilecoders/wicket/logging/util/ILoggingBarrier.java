@@ -1,8 +1,12 @@
 package de.agilecoders.wicket.logging.util;
 
 import de.agilecoders.wicket.logging.ClientSideLogObject;
+import org.apache.wicket.util.lang.Args;
+import org.apache.wicket.util.time.Duration;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -41,28 +45,710 @@ public interface ILoggingBarrier {
     /**
      * Default implementation that allows everything.
      */
-    public static final class AllowAllBarrier implements ILoggingBarrier {
+    public static final class AllowAllBarrier implements IBatchLoggingBarrier {
 
         @Override
         public boolean isAllowed(ClientSideLogObject logObject) {
             return true;
         }
 
+        @Override
+        public int tryAcquireUpTo(int permits) {
+            return Math.max(0, permits);
+        }
+
+        @Override
+        public Collection<ClientSideLogObject> admit(Collection<ClientSideLogObject> logObjects) {
+            return logObjects;
+        }
+
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects) {
+            return true;
+        }
+
+        @Override
+        public void destroy() throws Throwable {
+            // nothing to do.
+        }
+    }
+
+    /**
+     * A token bucket barrier that allows bursts of up to "burst" events and a sustained rate of "rate" events
+     * per period. It doesn't need any background thread: the bucket is refilled lazily from {@link System#nanoTime()}
+     * whenever tokens are acquired.
+     * <p>
+     * The whole state is a single {@link AtomicLong}, the theoretical arrival time of the next event (generic cell rate
+     * algorithm): each token moves it one emission interval into the future, a request is rejected if it would move
+     * it more than "burst" intervals ahead of now. So acquiring any number of tokens is a single CAS and the bucket
+     * refills continuously instead of at window edges. A batch can reserve as many tokens as available by a single CAS
+     * too, see {@link #admit(Collection)}.
+     */
+    public static class TokenBucketBarrier implements IBatchLoggingBarrier {
+
+        private final AtomicLong arrival;
+        private final long interval;
+        private final long tolerance;
+        private final long burst;
+
+        /**
+         * Construct.
+         *
+         * @param burst  the max number of events that are allowed at once (the bucket size)
+         * @param rate   the number of events that are allowed per period in the long run
+         * @param period the period of given rate
+         */
+        public TokenBucketBarrier(final long burst, final long rate, final Duration period) {
+            Args.isTrue(burst > 0, "burst must be positive");
+            Args.isTrue(rate > 0, "rate must be positive");
+
+            this.burst = burst;
+            this.interval = Math.max(1, Args.notNull(period, "period").getMilliseconds() * 1000000L / rate);
+            this.tolerance = burst * interval;
+            this.arrival = new AtomicLong(nanoTime());
+        }
+
+        /**
+         * @return the current value of the monotonic clock in nanoseconds
+         */
+        protected long nanoTime() {
+            return System.nanoTime();
+        }
+
+        /**
+         * acquires given number of tokens at once, either all of them or none
+         *
+         * @param permits the number of tokens to acquire
+         * @return true, if all tokens were acquired
+         */
+        public boolean tryAcquire(final int permits) {
+            if (permits <= 0) {
+                return true;
+            } else if (permits > burst) {
+                return false;
+            }
+
+            final long cost = permits * interval;
+
+            while (true) {
+                final long now = nanoTime();
+                final long current = arrival.get();
+                final long next = (current - now < 0 ? now : current) + cost;
+
+                if (next - now > tolerance) {
+                    return false;
+                } else if (arrival.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        public int tryAcquireUpTo(final int permits) {
+            if (permits <= 0) {
+                return 0;
+            }
+
+            while (true) {
+                final long now = nanoTime();
+                final long current = arrival.get();
+                final long base = current - now < 0 ? now : current;
+                final long granted = Math.min(permits, (tolerance - (base - now)) / interval);
+
+                if (granted <= 0) {
+                    return 0;
+                } else if (arrival.compareAndSet(current, base + granted * interval)) {
+                    return (int) granted;
+                }
+            }
+        }
+
+        @Override
+        public Collection<ClientSideLogObject> admit(final Collection<ClientSideLogObject> logObjects) {
+            return IBatchLoggingBarrier.LevelPriority.admit(logObjects, tryAcquireUpTo(logObjects.size()));
+        }
+
+        /**
+         * @return the number of tokens that are available right now
+         */
+        public long availableTokens() {
+            final long now = nanoTime();
+            final long current = arrival.get();
+
+            return current - now < 0 ? burst : Math.max(0, (tolerance - (current - now)) / interval);
+        }
+
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject) {
+            return tryAcquire(1);
+        }
+
+        /**
+         * checks whether there are enough tokens for all given log events, no token is acquired. Tokens are acquired
+         * by {@link #isAllowed(ClientSideLogObject)} for each single event or by {@link #tryAcquire(int)}.
+         *
+         * @param logObjects the log events to check
+         * @return true, if there are enough tokens for all log events
+         */
         @Override
         public boolean isAllowed(Collection<ClientSideLogObject> logObjects) {
+            return logObjects.size() <= availableTokens();
+        }
+
+        @Override
+        public void destroy() throws Throwable {
+            // nothing to do.
+        }
+    }
+
+    /**
+     * A sliding window barrier that allows at most "limit" events in any window of the configured length. The window
+     * is split into a ring of time buckets; the count of the window is the sum of the current bucket, all completed
+     * buckets and the part of the oldest bucket that is still inside the window (assuming its events were evenly
+     * distributed). So the limit slides smoothly instead of being reset at window edges.
+     * <p>
+     * Each bucket counts by a {@link StripedCounter}, the sum of the completed buckets is cached once per bucket, so
+     * a check costs the sum of a single bucket. Buckets are reset lazily when they are reused, there's no background
+     * thread. The check and the increment aren't a single atomic operation, so concurrent threads can exceed the limit
+     * by at most one event per thread.
+     * <p>
+     * As {@link IBatchLoggingBarrier} it admits as many events of a request as the window has room for, highest
+     * severity first.
+     */
+    public static class SlidingWindowBarrier implements IBatchLoggingBarrier {
+
+        private final long limit;
+        private final long window;
+        private final long bucketLength;
+        private final int buckets;
+        private final Bucket[] ring;
+        private final int mask;
+        private final StripedCounter rejected = new StripedCounter();
+        private volatile Completed completed = new Completed(Long.MIN_VALUE, 0, 0);
+
+        /**
+         * Construct.
+         *
+         * @param limit   the max number of events per window
+         * @param window  the length of the sliding window
+         * @param buckets the number of buckets the window is split into
+         */
+        public SlidingWindowBarrier(final long limit, final Duration window, final int buckets) {
+            Args.isTrue(limit > 0, "limit must be positive");
+            Args.withinRange(1, 1024, buckets, "buckets");
+
+            this.limit = limit;
+            this.buckets = buckets;
+            this.bucketLength = Math.max(1, Args.notNull(window, "window").getMilliseconds() / buckets);
+            this.window = bucketLength * buckets;
+
+            // the ring keeps the bucket that is sliding out of the window too
+            int capacity = 1;
+            while (capacity < buckets + 1) {
+                capacity <<= 1;
+            }
+            this.ring = new Bucket[capacity];
+            this.mask = capacity - 1;
+
+            for (int i = 0; i < ring.length; i++) {
+                ring[i] = new Bucket();
+            }
+        }
+
+        /**
+         * @return current time in milliseconds
+         */
+        protected long now() {
+            return System.currentTimeMillis();
+        }
+
+        /**
+         * acquires given number of permits, either all of them or none
+         *
+         * @param permits the number of permits to acquire
+         * @return true, if the window has room for all permits
+         */
+        public boolean tryAcquire(final int permits) {
+            if (permits <= 0) {
+                return true;
+            }
+
+            final long now = now();
+            final long epoch = now / bucketLength;
+            final Bucket bucket = bucket(epoch);
+
+            if (count(now, epoch, bucket) + permits > limit) {
+                rejected.add(permits);
+                return false;
+            }
+
+            bucket.counter.add(permits);
             return true;
         }
 
+        /**
+         * acquires as many of given permits as the window has room for
+         *
+         * @param permits the number of permits to acquire
+         * @return the number of acquired permits, between 0 and given number of permits
+         */
+        @Override
+        public int tryAcquireUpTo(final int permits) {
+            if (permits <= 0) {
+                return 0;
+            }
+
+            final long now = now();
+            final long epoch = now / bucketLength;
+            final Bucket bucket = bucket(epoch);
+            final int granted = (int) Math.max(0, Math.min(permits, limit - count(now, epoch, bucket)));
+
+            if (granted > 0) {
+                bucket.counter.add(granted);
+            }
+            if (granted < permits) {
+                rejected.add(permits - granted);
+            }
+
+            return granted;
+        }
+
+        @Override
+        public Collection<ClientSideLogObject> admit(final Collection<ClientSideLogObject> logObjects) {
+            return IBatchLoggingBarrier.LevelPriority.admit(logObjects, tryAcquireUpTo(logObjects.size()));
+        }
+
+        /**
+         * @return the number of events in the current window
+         */
+        public long count() {
+            final long now = now();
+            final long epoch = now / bucketLength;
+
+            return count(now, epoch, bucket(epoch));
+        }
+
+        /**
+         * @return the current rate in events per second
+         */
+        public double rate() {
+            return count() * 1000.0 / window;
+        }
+
+        /**
+         * @return the number of events that were rejected since this barrier was created
+         */
+        public long rejected() {
+            return rejected.sum();
+        }
+
+        /**
+         * @return the max number of events per window
+         */
+        public long limit() {
+            return limit;
+        }
+
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject) {
+            return tryAcquire(1);
+        }
+
+        /**
+         * checks whether the window has room for at least one of given log events, no permit is acquired and no
+         * rejection is counted. Permits are acquired by {@link #isAllowed(ClientSideLogObject)} for each single
+         * event, so a batch that is larger than the free room is admitted partially instead of being rejected as a
+         * whole.
+         *
+         * @param logObjects the log events to check
+         * @return true, if the window has room for at least one log event
+         */
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects) {
+            return logObjects.isEmpty() || count() < limit;
+        }
+
+        @Override
+        public void destroy() throws Throwable {
+            // nothing to do.
+        }
+
+        private long count(final long now, final long epoch, final Bucket current) {
+            final Completed c = completed(epoch);
+            final long previous = c.previous > 0 ? c.previous * (bucketLength - (now - epoch * bucketLength)) / bucketLength : 0;
+
+            return c.sum + previous + current.counter.sum();
+        }
+
+        /**
+         * @return the counts of all completed buckets of the window that ends in given bucket
+         */
+        private Completed completed(final long epoch) {
+            Completed c = completed;
+
+            if (c.epoch != epoch) {
+                long sum = 0;
+                for (long e = epoch - buckets + 1; e < epoch; e++) {
+                    sum += countOf(e);
+                }
+
+                c = new Completed(epoch, sum, countOf(epoch - buckets));
+                completed = c;
+            }
+
+            return c;
+        }
+
+        private long countOf(final long epoch) {
+            if (epoch < 0) {
+                return 0;
+            }
+
+            final Bucket bucket = ring[(int) epoch & mask];
+
+            return bucket.epoch == epoch ? bucket.counter.sum() : 0;
+        }
+
+        /**
+         * @return the bucket of given epoch, it's reset if it was used by an older epoch
+         */
+        private Bucket bucket(final long epoch) {
+            final Bucket bucket = ring[(int) epoch & mask];
+
+            if (bucket.epoch < epoch) {
+                synchronized (bucket) {
+                    if (bucket.epoch < epoch) {
+                        bucket.counter.reset();
+                        bucket.epoch = epoch;
+                    }
+                }
+            }
+
+            return bucket;
+        }
+
+        /**
+         * The count of a single time bucket
+         */
+        private static final class Bucket {
+            private final StripedCounter counter = new StripedCounter();
+            private volatile long epoch = -1;
+        }
+
+        /**
+         * The cached counts of all completed buckets of a window
+         */
+        private static final class Completed {
+            private final long epoch;
+            private final long sum;
+            private final long previous;
+
+            private Completed(long epoch, long sum, long previous) {
+                this.epoch = epoch;
+                this.sum = sum;
+                this.previous = previous;
+            }
+        }
+    }
+
+    /**
+     * A token bucket barrier whose rate adapts to the health of the log store (additive increase, multiplicative
+     * decrease): it's notified about the latency of each write and the fill level of the async queue (see
+     * {@link ILogWriteListener}). Once per adjust interval it compares the average latency and the max fill level
+     * of the last interval to the configured thresholds; if one of them is exceeded the rate is multiplied by the
+     * decrease factor (e.g. halved), otherwise it's raised by a fixed step, always between min and max rate. The
+     * adjustment is done by the thread that checks or writes first after the interval, there's no background thread.
+     * <p>
+     * The bucket allows bursts of one period worth of events at the current rate. The current rate and the last
+     * decisions are exposed by {@link #rate()} and {@link #recentDecisions()}, e.g. for a monitoring endpoint.
+     */
+    public static class AdaptiveBarrier implements IBatchLoggingBarrier, ILogWriteListener {
+
+        /**
+         * the number of decisions that are kept
+         */
+        private static final int HISTORY = 16;
+
+        /**
+         * The action of a single adjustment
+         */
+        public enum Action {
+            INCREASE, DECREASE, HOLD
+        }
+
+        private final long minRate;
+        private final long maxRate;
+        private final long step;
+        private final double decreaseFactor;
+        private final long period;
+        private final long latencyThreshold;
+        private final double backlogThreshold;
+        private final long adjustInterval;
+        private final AtomicLong arrival;
+        private final AtomicLong nextAdjust;
+        private final AtomicLong writes = new AtomicLong(0);
+        private final AtomicLong latency = new AtomicLong(0);
+        private final AtomicLong maxBacklog = new AtomicLong(0);
+        private final AtomicLong increases = new AtomicLong(0);
+        private final AtomicLong decreases = new AtomicLong(0);
+        private final Decision[] history = new Decision[HISTORY];
+        private int historySize = 0;
+        private volatile long rate;
+        private volatile long interval;
+
+        /**
+         * Construct. The rate is raised by 5% of the range between min and max rate and halved on overload, it's
+         * adjusted once per period.
+         *
+         * @param minRate          the min number of events per period
+         * @param maxRate          the max number of events per period, it's the initial rate too
+         * @param period           the period of all rates
+         * @param latencyThreshold the max average latency of a write
+         * @param backlogThreshold the max fill level of the async queue between 0 and 1
+         */
+        public AdaptiveBarrier(final long minRate, final long maxRate, final Duration period, final Duration latencyThreshold,
+                               final double backlogThreshold) {
+            this(minRate, maxRate, period, latencyThreshold, backlogThreshold, Math.max(1, (maxRate - minRate) / 20), 0.5, period);
+        }
+
+        /**
+         * Construct.
+         *
+         * @param minRate          the min number of events per period
+         * @param maxRate          the max number of events per period, it's the initial rate too
+         * @param period           the period of all rates
+         * @param latencyThreshold the max average latency of a write
+         * @param backlogThreshold the max fill level of the async queue between 0 and 1
+         * @param step             the number of events per period the rate is raised by while the log store is healthy
+         * @param decreaseFactor   the factor the rate is multiplied with while the log store is overloaded
+         * @param adjustInterval   the time between two adjustments
+         */
+        public AdaptiveBarrier(final long minRate, final long maxRate, final Duration period, final Duration latencyThreshold,
+                               final double backlogThreshold, final long step, final double decreaseFactor, final Duration adjustInterval) {
+            Args.isTrue(minRate > 0, "minRate must be positive");
+            Args.isTrue(maxRate >= minRate, "maxRate must be greater than or equal to minRate");
+            Args.isTrue(step > 0, "step must be positive");
+            Args.isTrue(decreaseFactor > 0 && decreaseFactor < 1, "decreaseFactor must be between 0 and 1");
+
+            this.minRate = minRate;
+            this.maxRate = maxRate;
+            this.step = step;
+            this.decreaseFactor = decreaseFactor;
+            this.period = Math.max(1, Args.notNull(period, "period").getMilliseconds() * 1000000L);
+            this.latencyThreshold = Args.notNull(latencyThreshold, "latencyThreshold").getMilliseconds() * 1000000L;
+            this.backlogThreshold = backlogThreshold;
+            this.adjustInterval = Math.max(1, Args.notNull(adjustInterval, "adjustInterval").getMilliseconds() * 1000000L);
+            this.arrival = new AtomicLong(nanoTime());
+            this.nextAdjust = new AtomicLong(nanoTime() + this.adjustInterval);
+
+            rate(maxRate);
+        }
+
+        /**
+         * @return the current value of the monotonic clock in nanoseconds
+         */
+        protected long nanoTime() {
+            return System.nanoTime();
+        }
+
+        /**
+         * @return the current number of allowed events per period
+         */
+        public long rate() {
+            return rate;
+        }
+
+        /**
+         * @return the number of adjustments that raised the rate
+         */
+        public long increases() {
+            return increases.get();
+        }
+
+        /**
+         * @return the number of adjustments that lowered the rate
+         */
+        public long decreases() {
+            return decreases.get();
+        }
+
+        /**
+         * @return the last adjustments, oldest first
+         */
+        public synchronized List<Decision> recentDecisions() {
+            final List<Decision> decisions = new ArrayList<>(historySize);
+
+            for (int i = Math.max(0, historySize - HISTORY); i < historySize; i++) {
+                decisions.add(history[i % HISTORY]);
+            }
+
+            return decisions;
+        }
+
+        @Override
+        public int tryAcquireUpTo(final int permits) {
+            if (permits <= 0) {
+                return 0;
+            }
+
+            final long now = nanoTime();
+            adjustIfDue(now);
+
+            while (true) {
+                final long current = arrival.get();
+                final long cost = interval;
+                final long base = current - now < 0 ? now : current;
+                final long granted = Math.min(permits, (period - (base - now)) / cost);
+
+                if (granted <= 0) {
+                    return 0;
+                } else if (arrival.compareAndSet(current, base + granted * cost)) {
+                    return (int) granted;
+                }
+            }
+        }
+
+        @Override
+        public Collection<ClientSideLogObject> admit(final Collection<ClientSideLogObject> logObjects) {
+            return IBatchLoggingBarrier.LevelPriority.admit(logObjects, tryAcquireUpTo(logObjects.size()));
+        }
+
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject) {
+            return tryAcquireUpTo(1) == 1;
+        }
+
+        /**
+         * checks whether there are enough tokens for all given log events, no token is acquired.
+         *
+         * @param logObjects the log events to check
+         * @return true, if there are enough tokens for all log events
+         */
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects) {
+            final long now = nanoTime();
+            final long backlog = arrival.get() - now;
+
+            return backlog <= 0 || logObjects.size() <= (period - backlog) / interval;
+        }
+
+        @Override
+        public void onWritten(final int events, final long latencyNanos, final double backlog) {
+            writes.incrementAndGet();
+            latency.addAndGet(latencyNanos);
+
+            final long permille = (long) (backlog * 1000);
+            long current = maxBacklog.get();
+            while (permille > current && !maxBacklog.compareAndSet(current, permille)) {
+                current = maxBacklog.get();
+            }
+
+            adjustIfDue(nanoTime());
+        }
+
         @Override
         public void destroy() throws Throwable {
             // nothing to do.
         }
+
+        private void adjustIfDue(final long now) {
+            final long next = nextAdjust.get();
+
+            if (now - next >= 0 && nextAdjust.compareAndSet(next, now + adjustInterval)) {
+                adjust();
+            }
+        }
+
+        /**
+         * adjusts the rate to the writes of the last interval
+         */
+        private synchronized void adjust() {
+            final long calls = writes.getAndSet(0);
+            final long averageLatency = calls > 0 ? latency.getAndSet(0) / calls : 0;
+            final double backlog = maxBacklog.getAndSet(0) / 1000.0;
+            final long previous = rate;
+            final Action action;
+
+            if (averageLatency > latencyThreshold || backlog > backlogThreshold) {
+                rate(Math.max(minRate, (long) (previous * decreaseFactor)));
+                action = rate < previous ? Action.DECREASE : Action.HOLD;
+            } else {
+                rate(Math.min(maxRate, previous + step));
+                action = rate > previous ? Action.INCREASE : Action.HOLD;
+            }
+
+            if (action == Action.DECREASE) {
+                decreases.incrementAndGet();
+            } else if (action == Action.INCREASE) {
+                increases.incrementAndGet();
+            }
+
+            history[historySize++ % HISTORY] = new Decision(System.currentTimeMillis(), action, rate, averageLatency, backlog);
+        }
+
+        private void rate(final long rate) {
+            this.interval = Math.max(1, period / rate);
+            this.rate = rate;
+        }
+
+        /**
+         * A single adjustment of the rate
+         */
+        public static final class Decision {
+            private final long timestamp;
+            private final Action action;
+            private final long rate;
+            private final long averageLatency;
+            private final double backlog;
+
+            private Decision(long timestamp, Action action, long rate, long averageLatency, double backlog) {
+                this.timestamp = timestamp;
+                this.action = action;
+                this.rate = rate;
+                this.averageLatency = averageLatency;
+                this.backlog = backlog;
+            }
+
+            /**
+             * @return the time of this decision in milliseconds
+             */
+            public long timestamp() { return timestamp; }
+
+            /**
+             * @return the action that was taken
+             */
+            public Action action() { return action; }
+
+            /**
+             * @return the rate after this decision
+             */
+            public long rate() { return rate; }
+
+            /**
+             * @return the average latency of a write in the last interval in nanoseconds
+             */
+            public long averageLatency() { return averageLatency; }
+
+            /**
+             * @return the max fill level of the async queue in the last interval
+             */
+            public double backlog() { return backlog; }
+
+            @Override
+            public String toString() {
+                return action + " to " + rate + " (latency: " + averageLatency / 1000 + "us, backlog: " + backlog + ")";
+            }
+        }
     }
 
     /**
      * A special barrier that allows a maximum number of events in a time frame.
+     *
+     * @deprecated needs a timer thread per instance and allows twice the max size at time frame edges,
+     * use {@link TokenBucketBarrier} instead.
      */
-    public static class SizeAndTimeFrameBasedBarrier implements ILoggingBarrier {
+    @Deprecated
+    public static class SizeAndTimeFrameBasedBarrier implements IBatchLoggingBarrier {
 
         private final ScheduledExecutorService executor;
         private final AtomicLong counter;
@@ -131,6 +817,33 @@ public interface ILoggingBarrier {
             return counter.get() - logObjects.size() > 0;
         }
 
+        /**
+         * reserves up to given number of permits by a single CAS, it follows {@link #isAllowed(ClientSideLogObject)}
+         * that allows an event as long as the decremented counter is positive.
+         */
+        @Override
+        public int tryAcquireUpTo(final int permits) {
+            if (permits <= 0) {
+                return 0;
+            }
+
+            while (true) {
+                final long current = counter.get();
+                final long granted = Math.min(permits, current - 1);
+
+                if (granted <= 0) {
+                    return 0;
+                } else if (counter.compareAndSet(current, current - granted)) {
+                    return (int) granted;
+                }
+            }
+        }
+
+        @Override
+        public Collection<ClientSideLogObject> admit(final Collection<ClientSideLogObject> logObjects) {
+            return IBatchLoggingBarrier.LevelPriority.admit(logObjects, tryAcquireUpTo(logObjects.size()));
+        }
+
         @Override
         public void destroy() throws Throwable {
             if (!executor.isShutdown()) {
@@ -0,0 +1,344 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.apache.wicket.util.lang.Args;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An {@link IStackTraceParser} turns a client side stacktrace, as it's sent by the browser, into
+ * a list of structured {@link StackFrame}s.
+ *
+ * @author miha
+ */
+public interface IStackTraceParser {
+
+    /**
+     * @param stacktrace the stacktrace to parse
+     * @return all frames of given stacktrace, top frame first; an empty list if there's no known frame
+     */
+    List<StackFrame> parse(String stacktrace);
+
+    /**
+     * Default implementation of {@link IStackTraceParser} that reads the stacktrace formats of all
+     * major browsers:
+     * <ul>
+     *     <li>Chrome, Edge, Opera and IE 10+: {@code "    at fn (http://host/app.js:10:5)"} or {@code "    at http://host/app.js:10:5"}</li>
+     *     <li>Firefox and Safari: {@code "fn@http://host/app.js:10:5"} or {@code "@http://host/app.js:10:5"}</li>
+     *     <li>stacktrace.js: {@code "fn()@http://host/app.js:10:5"} or {@code "{anonymous}()@http://host/app.js:10:5"}</li>
+     * </ul>
+     * All other lines, e.g. the error message of Chrome stacktraces, are ignored. Query strings and
+     * fragments are removed from all files, the location of eval'ed code is the location of the eval call.
+     */
+    public static final class DefaultStackTraceParser implements IStackTraceParser {
+        public static final DefaultStackTraceParser INSTANCE = new DefaultStackTraceParser();
+
+        /**
+         * the max number of frames that are read
+         */
+        public static final int MAX_FRAMES = 100;
+
+        @Override
+        public List<StackFrame> parse(final String stacktrace) {
+            if (stacktrace == null || stacktrace.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            List<StackFrame> frames = null;
+            int start = 0;
+
+            while (start < stacktrace.length()) {
+                int end = stacktrace.indexOf('\n', start);
+                if (end < 0) {
+                    end = stacktrace.length();
+                }
+
+                int from = start;
+                int to = end;
+                while (from < to && Character.isWhitespace(stacktrace.charAt(from))) {
+                    from++;
+                }
+                while (to > from && Character.isWhitespace(stacktrace.charAt(to - 1))) {
+                    to--;
+                }
+
+                final StackFrame frame = from < to ? parseFrame(stacktrace, from, to) : null;
+                if (frame != null) {
+                    if (frames == null) {
+                        frames = new ArrayList<>(8);
+                    }
+                    frames.add(frame);
+
+                    if (frames.size() == MAX_FRAMES) {
+                        break;
+                    }
+                }
+                start = end + 1;
+            }
+
+            return frames != null ? Collections.unmodifiableList(frames) : Collections.<StackFrame>emptyList();
+        }
+
+        /**
+         * parses a single, trimmed line of a stacktrace
+         *
+         * @return the frame or null, if given line isn't a frame
+         */
+        private static StackFrame parseFrame(final String line, int from, final int to) {
+            final int functionFrom;
+            final int functionTo;
+            int locationFrom;
+            int locationTo;
+
+            if (line.startsWith("at ", from)) {
+                from += 3;
+                while (from < to && line.charAt(from) == ' ') {
+                    from++;
+                }
+
+                final int open = line.indexOf('(', from);
+                if (line.charAt(to - 1) == ')' && open > -1 && open < to) {
+                    functionFrom = from;
+                    functionTo = open;
+                    locationFrom = open + 1;
+                    locationTo = to - 1;
+
+                    // eval'ed code: "eval (eval at fn (http://host/app.js:1:2), <anonymous>:1:1)"
+                    final int innerOpen = line.lastIndexOf('(', locationTo - 1);
+                    if (innerOpen >= locationFrom) {
+                        final int innerClose = line.indexOf(')', innerOpen);
+                        if (innerClose > -1 && innerClose < locationTo) {
+                            locationFrom = innerOpen + 1;
+                            locationTo = innerClose;
+                        }
+                    }
+                } else {
+                    functionFrom = functionTo = from;
+                    locationFrom = from;
+                    locationTo = to;
+                }
+            } else {
+                final int at = line.indexOf('@', from);
+                if (at < 0 || at >= to) {
+                    return null;
+                }
+
+                functionFrom = from;
+                functionTo = at;
+                locationFrom = at + 1;
+                locationTo = to;
+            }
+
+            int lineNumber = -1;
+            int column = -1;
+
+            final int last = numberStart(line, locationFrom, locationTo);
+            if (last > -1) {
+                final int lastValue = parseNumber(line, last, locationTo);
+                final int previous = numberStart(line, locationFrom, last - 1);
+
+                if (previous > -1) {
+                    lineNumber = parseNumber(line, previous, last - 1);
+                    column = lastValue;
+                    locationTo = previous - 1;
+                } else {
+                    lineNumber = lastValue;
+                    locationTo = last - 1;
+                }
+            }
+
+            final String function = function(line, functionFrom, functionTo);
+            final String file = file(line, locationFrom, locationTo);
+
+            if (function.isEmpty() && file.isEmpty()) {
+                return null;
+            }
+
+            return new StackFrame(function, file, lineNumber, column);
+        }
+
+        /**
+         * @return the start of the number at the end of given range, if it's prefixed by a ':'; -1 otherwise
+         */
+        private static int numberStart(final String line, final int from, final int to) {
+            int start = to;
+            while (start > from && start > to - 9 && Character.isDigit(line.charAt(start - 1))) {
+                start--;
+            }
+
+            return start < to && start > from && line.charAt(start - 1) == ':' ? start : -1;
+        }
+
+        private static int parseNumber(final String line, final int from, final int to) {
+            int value = 0;
+            for (int i = from; i < to; i++) {
+                value = value * 10 + (line.charAt(i) - '0');
+            }
+            return value;
+        }
+
+        /**
+         * @return the function name without the "()" suffix of stacktrace.js; empty for anonymous functions
+         */
+        private static String function(final String line, final int from, int to) {
+            while (to > from && line.charAt(to - 1) == ' ') {
+                to--;
+            }
+            if (to - from >= 2 && line.charAt(to - 1) == ')' && line.charAt(to - 2) == '(') {
+                to -= 2;
+            }
+
+            if (to == from || line.startsWith("{anonymous}", from) && to - from == 11
+                || line.startsWith("<anonymous>", from) && to - from == 11) {
+                return "";
+            }
+
+            return line.substring(from, to);
+        }
+
+        /**
+         * @return the file without query string and fragment
+         */
+        private static String file(final String line, final int from, int to) {
+            for (int i = from; i < to; i++) {
+                final char c = line.charAt(i);
+
+                if (c == '?' || c == '#') {
+                    to = i;
+                    break;
+                }
+            }
+
+            return line.substring(from, to);
+        }
+    }
+
+    /**
+     * A bounded, lock free {@link IStackTraceParser} that caches the parsed frames of the last stacktraces.
+     * Like the {@link ICanonicalizer.BoundedCanonicalizer} each stacktrace is mapped to a single slot by its hash
+     * code, so a repeated stacktrace costs a hash lookup instead of a re-parse. All parsed frames are interned
+     * in a second slot table, so stacktraces that share frames (e.g. same error with different cache busters)
+     * share the frame instances too. Stacktraces longer than "maxLength" are parsed but not cached.
+     */
+    public static class CachingStackTraceParser implements IStackTraceParser {
+        private final IStackTraceParser delegate;
+        private final AtomicReferenceArray<Entry> entries;
+        private final AtomicReferenceArray<StackFrame> frames;
+        private final int mask;
+        private final int maxLength;
+        private final AtomicLong hits = new AtomicLong(0);
+        private final AtomicLong misses = new AtomicLong(0);
+
+        /**
+         * Construct.
+         *
+         * @param size      the max number of cached stacktraces, is rounded up to the next power of two
+         * @param maxLength the max length of a stacktrace that is cached
+         */
+        public CachingStackTraceParser(final int size, final int maxLength) {
+            this(DefaultStackTraceParser.INSTANCE, size, maxLength);
+        }
+
+        /**
+         * Construct.
+         *
+         * @param delegate  the parser to use for stacktraces that aren't cached
+         * @param size      the max number of cached stacktraces, is rounded up to the next power of two
+         * @param maxLength the max length of a stacktrace that is cached
+         */
+        public CachingStackTraceParser(final IStackTraceParser delegate, final int size, final int maxLength) {
+            Args.withinRange(1, 1 << 24, size, "size");
+
+            int capacity = 1;
+            while (capacity < size) {
+                capacity <<= 1;
+            }
+
+            this.delegate = Args.notNull(delegate, "delegate");
+            this.entries = new AtomicReferenceArray<>(capacity);
+            this.frames = new AtomicReferenceArray<>(capacity * 4);
+            this.mask = capacity - 1;
+            this.maxLength = maxLength;
+        }
+
+        @Override
+        public List<StackFrame> parse(final String stacktrace) {
+            if (stacktrace == null || stacktrace.isEmpty() || stacktrace.length() > maxLength) {
+                return delegate.parse(stacktrace);
+            }
+
+            final int hash = stacktrace.hashCode();
+            final int slot = (hash ^ (hash >>> 16)) & mask;
+            final Entry cached = entries.get(slot);
+
+            if (cached != null && cached.stacktrace.hashCode() == hash && cached.stacktrace.equals(stacktrace)) {
+                hits.incrementAndGet();
+                return cached.frames;
+            }
+
+            misses.incrementAndGet();
+
+            final List<StackFrame> parsed = intern(delegate.parse(stacktrace));
+            entries.set(slot, new Entry(stacktrace, parsed));
+
+            return parsed;
+        }
+
+        /**
+         * replaces all frames of given list by their interned instance
+         */
+        private List<StackFrame> intern(final List<StackFrame> parsed) {
+            if (parsed.isEmpty()) {
+                return parsed;
+            }
+
+            final List<StackFrame> interned = new ArrayList<>(parsed.size());
+            final int frameMask = frames.length() - 1;
+
+            for (StackFrame frame : parsed) {
+                final int hash = frame.hashCode();
+                final int slot = (hash ^ (hash >>> 16)) & frameMask;
+                final StackFrame cached = frames.get(slot);
+
+                if (cached != null && cached.equals(frame)) {
+                    interned.add(cached);
+                } else {
+                    frames.set(slot, frame);
+                    interned.add(frame);
+                }
+            }
+
+            return Collections.unmodifiableList(interned);
+        }
+
+        /**
+         * @return the number of stacktraces that were found in cache
+         */
+        public long hits() {
+            return hits.get();
+        }
+
+        /**
+         * @return the number of stacktraces that weren't found in cache
+         */
+        public long misses() {
+            return misses.get();
+        }
+
+        /**
+         * A cached stacktrace and its frames
+         */
+        private static final class Entry {
+            private final String stacktrace;
+            private final List<StackFrame> frames;
+
+            private Entry(String stacktrace, List<StackFrame> frames) {
+                this.stacktrace = stacktrace;
+                this.frames = frames;
+            }
+        }
+    }
+}
@@ -0,0 +1,426 @@
+package de.agilecoders.wicket.logging.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A minimal streaming json tokenizer that reads a json document token by token from a {@link Reader}.
+ * It doesn't build any object tree, so values that aren't needed can be skipped without
+ * creating any string instance.
+ *
+ * @author miha
+ */
+public class JsonReader implements Closeable {
+
+    /**
+     * all available json tokens
+     */
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int MAX_DEPTH = 32;
+
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_OBJECT = 2;
+    private static final int NONEMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int EMPTY_ARRAY = 5;
+    private static final int NONEMPTY_ARRAY = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[1024];
+    private final StringBuilder value = new StringBuilder();
+    private final int[] stack = new int[MAX_DEPTH];
+    private int depth = 0;
+    private int pos = 0;
+    private int limit = 0;
+    private Token peeked = null;
+
+    /**
+     * Construct.
+     *
+     * @param in the reader to read the json document from
+     */
+    public JsonReader(final Reader in) {
+        this.in = in;
+        this.stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * @return the type of the next token without consuming it
+     * @throws IOException if the document can't be read or is malformed
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+
+        int c;
+        switch (stack[depth - 1]) {
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                break;
+
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                } else if (c != ',') {
+                    throw syntaxError("expected ',' or ']'");
+                }
+                c = nextNonWhitespace();
+                break;
+
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                } else if (stack[depth - 1] == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("expected ',' or '}'");
+                    }
+                    c = nextNonWhitespace();
+                }
+
+                if (c != '"') {
+                    throw syntaxError("expected name");
+                }
+                stack[depth - 1] = DANGLING_NAME;
+                return peeked = Token.NAME;
+
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("expected ':'");
+                }
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                c = nextNonWhitespace();
+                break;
+
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                c = nextNonWhitespace();
+                break;
+
+            default:
+                if (nextNonWhitespace() == -1) {
+                    return peeked = Token.END_DOCUMENT;
+                }
+                throw syntaxError("expected end of document");
+        }
+
+        switch (c) {
+            case '{':
+                return peeked = Token.BEGIN_OBJECT;
+            case '[':
+                return peeked = Token.BEGIN_ARRAY;
+            case '"':
+                return peeked = Token.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return peeked = Token.BOOLEAN;
+            case 'n':
+                pos--;
+                return peeked = Token.NULL;
+            case -1:
+                throw syntaxError("unexpected end of document");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return peeked = Token.NUMBER;
+                }
+                throw syntaxError("unexpected character '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * @return TRUE, if the current array or object has another element
+     * @throws IOException if the document can't be read or is malformed
+     */
+    public boolean hasNext() throws IOException {
+        final Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * consumes the next token, which must be the beginning of an object
+     *
+     * @throws IOException if the document can't be read or is malformed
+     */
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /**
+     * consumes the next token, which must be the end of the current object
+     *
+     * @throws IOException if the document can't be read or is malformed
+     */
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    /**
+     * consumes the next token, which must be the beginning of an array
+     *
+     * @throws IOException if the document can't be read or is malformed
+     */
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /**
+     * consumes the next token, which must be the end of the current array
+     *
+     * @throws IOException if the document can't be read or is malformed
+     */
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    /**
+     * @return the next property name
+     * @throws IOException if the document can't be read or is malformed
+     */
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * reads the next scalar value as string. Numbers and booleans are returned as they are written
+     * in the document.
+     *
+     * @return the next value or null, if the value is a json null
+     * @throws IOException if the document can't be read or is malformed
+     */
+    public String nextString() throws IOException {
+        switch (peek()) {
+            case STRING:
+                peeked = null;
+                return readString();
+            case NUMBER:
+                peeked = null;
+                return readLiteral();
+            case BOOLEAN:
+                peeked = null;
+                return readBoolean();
+            case NULL:
+                peeked = null;
+                readNull();
+                return null;
+            default:
+                throw syntaxError("expected a value but was " + peeked);
+        }
+    }
+
+    /**
+     * skips the next value; objects and arrays are skipped completely.
+     *
+     * @throws IOException if the document can't be read or is malformed
+     */
+    public void skipValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_ARRAY:
+                beginArray();
+                while (hasNext()) {
+                    skipValue();
+                }
+                endArray();
+                break;
+            case BEGIN_OBJECT:
+                beginObject();
+                while (hasNext()) {
+                    expect(Token.NAME);
+                    skipString();
+                    skipValue();
+                }
+                endObject();
+                break;
+            case STRING:
+                peeked = null;
+                skipString();
+                break;
+            case NUMBER:
+                peeked = null;
+                readLiteral();
+                break;
+            case BOOLEAN:
+                peeked = null;
+                readBoolean();
+                break;
+            case NULL:
+                peeked = null;
+                readNull();
+                break;
+            default:
+                throw syntaxError("expected a value but was " + peeked);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void expect(final Token token) throws IOException {
+        if (peek() != token) {
+            throw syntaxError("expected " + token + " but was " + peeked);
+        }
+        peeked = null;
+    }
+
+    private void push(final int scope) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw syntaxError("max nesting depth of " + MAX_DEPTH + " exceeded");
+        }
+        stack[depth++] = scope;
+    }
+
+    private int read() throws IOException {
+        if (pos == limit) {
+            limit = in.read(buffer, 0, buffer.length);
+            pos = 0;
+
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+
+        return buffer[pos++];
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        int c = read();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            c = read();
+        }
+        return c;
+    }
+
+    /**
+     * reads a string value, the opening quote was already consumed.
+     */
+    private String readString() throws IOException {
+        value.setLength(0);
+
+        int c = read();
+        while (c != '"') {
+            if (c == -1) {
+                throw syntaxError("unterminated string");
+            } else if (c == '\\') {
+                value.append(readEscapeCharacter());
+            } else {
+                value.append((char) c);
+            }
+            c = read();
+        }
+
+        return value.toString();
+    }
+
+    /**
+     * skips a string value, the opening quote was already consumed.
+     */
+    private void skipString() throws IOException {
+        int c = read();
+        while (c != '"') {
+            if (c == -1) {
+                throw syntaxError("unterminated string");
+            } else if (c == '\\') {
+                readEscapeCharacter();
+            }
+            c = read();
+        }
+    }
+
+    private char readEscapeCharacter() throws IOException {
+        final int c = read();
+        switch (c) {
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'u':
+                int result = 0;
+                for (int i = 0; i < 4; i++) {
+                    final int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("invalid unicode escape sequence");
+                    }
+                    result = (result << 4) | digit;
+                }
+                return (char) result;
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            default:
+                throw syntaxError("invalid escape sequence");
+        }
+    }
+
+    /**
+     * reads an unquoted literal like a number, true, false or null.
+     */
+    private String readLiteral() throws IOException {
+        value.setLength(0);
+
+        int c = read();
+        while (c != -1 && c != ',' && c != ']' && c != '}' && c != ':' && c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+            value.append((char) c);
+            c = read();
+        }
+
+        if (c != -1) {
+            pos--;
+        }
+
+        return value.toString();
+    }
+
+    /**
+     * reads a literal that must be true or false.
+     */
+    private String readBoolean() throws IOException {
+        final String literal = readLiteral();
+
+        if (!"true".equals(literal) && !"false".equals(literal)) {
+            throw syntaxError("invalid literal");
+        }
+
+        return literal;
+    }
+
+    /**
+     * reads a literal that must be null.
+     */
+    private void readNull() throws IOException {
+        if (!"null".equals(readLiteral())) {
+            throw syntaxError("invalid literal");
+        }
+    }
+
+    private IOException syntaxError(final String message) {
+        return new IOException("malformed json: " + message);
+    }
+}
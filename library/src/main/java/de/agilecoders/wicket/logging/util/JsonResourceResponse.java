@@ -0,0 +1,39 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.apache.wicket.request.resource.AbstractResource;
+import org.apache.wicket.request.resource.IResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A resource response that disables caching and writes a small json document.
+ *
+ * @author miha
+ */
+public class JsonResourceResponse extends AbstractResource.ResourceResponse {
+
+    /**
+     * Construct.
+     *
+     * @param statusCode the return http status code
+     * @param json       the json document to write
+     */
+    public JsonResourceResponse(final int statusCode, final String json) {
+        super();
+
+        final byte[] content = json.getBytes(StandardCharsets.UTF_8);
+
+        disableCaching();
+        setStatusCode(statusCode);
+        setContentLength(content.length);
+        setContentType("application/json");
+        setTextEncoding("UTF-8");
+        setWriteCallback(new AbstractResource.WriteCallback() {
+            @Override
+            public void writeData(IResource.Attributes attributes) throws IOException {
+                attributes.getResponse().write(content);
+            }
+        });
+    }
+}
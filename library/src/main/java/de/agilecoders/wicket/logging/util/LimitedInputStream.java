@@ -0,0 +1,92 @@
+package de.agilecoders.wicket.logging.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} that fails as soon as more than a given number of bytes were read. It's
+ * used to protect the backend from oversized or highly compressed ("zip bomb") log requests.
+ *
+ * @author miha
+ */
+public class LimitedInputStream extends FilterInputStream {
+
+    private final long maxSize;
+    private long count = 0;
+
+    /**
+     * Construct.
+     *
+     * @param in      the stream to read from
+     * @param maxSize the max number of bytes that can be read
+     */
+    public LimitedInputStream(final InputStream in, final long maxSize) {
+        super(in);
+
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+
+        if (b != -1) {
+            count(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final int read = super.read(b, off, len);
+
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        final long skipped = super.skip(n);
+
+        count(skipped);
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * @return number of bytes read so far
+     */
+    public long count() {
+        return count;
+    }
+
+    private void count(final long bytes) throws LimitExceededException {
+        count += bytes;
+
+        if (count > maxSize) {
+            throw new LimitExceededException(maxSize);
+        }
+    }
+
+    /**
+     * Thrown if more bytes than allowed were read
+     */
+    public static class LimitExceededException extends IOException {
+
+        /**
+         * Construct.
+         *
+         * @param maxSize the max number of bytes that can be read
+         */
+        public LimitExceededException(final long maxSize) {
+            super("request body exceeds max size of " + maxSize + " bytes");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package de.agilecoders.wicket.logging.util;
+
+/**
+ * All log levels that are known on client side.
+ *
+ * @author miha
+ */
+public enum LogLevel {
+    Error("error"),
+    Warn("warn"),
+    Info("info"),
+    Debug("debug"),
+    Trace("trace");
+
+    private final String value;
+
+    LogLevel(final String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return the client side name of this level, e.g. "error"
+     */
+    public String value() {
+        return value;
+    }
+
+    /**
+     * @param value the client side name of a log level
+     * @return the matching log level or null, if the name is unknown
+     */
+    public static LogLevel parse(final String value) {
+        if (value == null) {
+            return null;
+        }
+
+        switch (value) {
+            case "error":
+                return Error;
+            case "warn":
+                return Warn;
+            case "info":
+                return Info;
+            case "debug":
+                return Debug;
+            case "trace":
+                return Trace;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package de.agilecoders.wicket.logging.util;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * The context of a single log request: who has sent it. It's passed to an {@link IContextAwareLoggingBarrier},
+ * so the barrier can limit each client on its own.
+ * <p>
+ * The remote address is the one of the servlet container; applications behind a reverse proxy should let the
+ * container resolve the real client address (e.g. by the RemoteIpValve of Tomcat).
+ *
+ * @author miha
+ */
+public final class LogRequestContext {
+
+    /**
+     * the context of requests that aren't backed by a servlet request
+     */
+    public static final LogRequestContext EMPTY = new LogRequestContext(null, null, null);
+
+    private final String remoteAddress;
+    private final String sessionId;
+    private final ClientInfos clientInfos;
+
+    /**
+     * Construct.
+     *
+     * @param remoteAddress the address of the client or null if unknown
+     * @param sessionId     the id of an existing http session or null if there is none
+     * @param clientInfos   the client information the client has sent or null if unknown
+     */
+    public LogRequestContext(final String remoteAddress, final String sessionId, final ClientInfos clientInfos) {
+        this.remoteAddress = remoteAddress;
+        this.sessionId = sessionId;
+        this.clientInfos = clientInfos;
+    }
+
+    /**
+     * creates the context of given servlet request. A new http session is never created.
+     *
+     * @param request the servlet request, can be null
+     * @return the context of given request
+     */
+    public static LogRequestContext of(final HttpServletRequest request) {
+        if (request == null) {
+            return EMPTY;
+        }
+
+        final HttpSession session = request.getSession(false);
+        return new LogRequestContext(request.getRemoteAddr(), session != null ? session.getId() : null, null);
+    }
+
+    /**
+     * @param clientInfos the client information the client has sent
+     * @return a copy of this context with given client information
+     */
+    public LogRequestContext clientInfos(final ClientInfos clientInfos) {
+        return new LogRequestContext(remoteAddress, sessionId, clientInfos);
+    }
+
+    /**
+     * @return the address of the client or null if unknown
+     */
+    public String remoteAddress() {
+        return remoteAddress;
+    }
+
+    /**
+     * @return the id of an existing http session or null if there is none
+     */
+    public String sessionId() {
+        return sessionId;
+    }
+
+    /**
+     * @return the client information the client has sent or null if unknown
+     */
+    public ClientInfos clientInfos() {
+        return clientInfos;
+    }
+
+    /**
+     * @return the page view id the client has sent or null if unknown
+     */
+    public String pageViewId() {
+        return clientInfos != null ? clientInfos.pageViewId() : null;
+    }
+
+    @Override
+    public String toString() {
+        return "LogRequestContext{remoteAddress=" + remoteAddress + ", sessionId=" + sessionId + ", pageViewId=" + pageViewId() + "}";
+    }
+}
@@ -0,0 +1,36 @@
+package de.agilecoders.wicket.logging.util;
+
+/**
+ * Defines how the asynchronous log queue behaves if it is full.
+ *
+ * @author miha
+ */
+public enum OverflowPolicy {
+    /**
+     * the incoming log message is dropped, all queued messages are kept
+     */
+    DropNewest,
+
+    /**
+     * the oldest queued log message is dropped to make room for the incoming one
+     */
+    DropOldest,
+
+    /**
+     * the request thread waits a configurable amount of time for free space and
+     * drops the incoming log message if the queue is still full afterwards.
+     */
+    Block;
+
+    /**
+     * @return overflow policy as string
+     */
+    public String asString() {
+        return name().toLowerCase();
+    }
+
+    @Override
+    public String toString() {
+        return asString();
+    }
+}
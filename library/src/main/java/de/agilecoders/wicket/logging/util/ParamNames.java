@@ -13,10 +13,22 @@ public final class ParamNames {
     public static final String LEVEL = "lvl";
     public static final String FILE = "file";
     public static final String LINE = "line";
+    public static final String COUNT = "count";
+    public static final String LAST_TIMESTAMP = "lastTs";
 
     public static final String USER_AGENT = "ua";
     public static final String AJAX_BASE_URL = "ajaxBaseUrl";
     public static final String SCREEN_SIZE = "screenSize";
     public static final String WINDOW_SIZE = "winSize";
+    public static final String PAGE_VIEW_ID = "pageViewId";
+
+    public static final String ELEMENTS = "elements";
+
+    /**
+     * the json wire format sends all log messages as array of arrays, each inner array
+     * contains the fields in this order: level, timestamp, message, file, line, stacktrace and, for
+     * collapsed repeats only, count and last timestamp.
+     */
+    public static final String ENTRIES = "entries";
 
 }
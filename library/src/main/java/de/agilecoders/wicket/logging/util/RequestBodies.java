@@ -0,0 +1,136 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.apache.wicket.request.IRequestParameters;
+import org.apache.wicket.util.io.Streams;
+import org.apache.wicket.util.string.StringValue;
+import org.apache.wicket.util.string.Strings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Helper to read raw log request bodies.
+ *
+ * @author miha
+ */
+public final class RequestBodies {
+
+    /**
+     * @param contentType the content type of current request
+     * @return TRUE, if given content type is json
+     */
+    public static boolean isJson(final String contentType) {
+        return contentType != null && contentType.toLowerCase().startsWith("application/json");
+    }
+
+    /**
+     * @param characterEncoding the character encoding of current request
+     * @return the charset of the request body, defaults to UTF-8
+     */
+    public static Charset charset(final String characterEncoding) {
+        return Strings.isEmpty(characterEncoding) ? StandardCharsets.UTF_8 : Charset.forName(characterEncoding);
+    }
+
+    /**
+     * parses an url encoded form body into request parameters. Parameter values are looked up by
+     * hash, so reading all parameters of a large batch is linear.
+     *
+     * @param body    the form body
+     * @param charset the charset of the form body
+     * @return all request parameters
+     * @throws IOException if the body can't be read or isn't url encoded properly
+     */
+    public static IRequestParameters formParameters(final InputStream body, final Charset charset) throws IOException {
+        final FormParameters params = new FormParameters();
+
+        for (String pair : Strings.split(Streams.readString(body, charset.name()), '&')) {
+            if (Strings.isEmpty(pair)) {
+                continue;
+            }
+
+            final int index = pair.indexOf('=');
+            final String name = index < 0 ? pair : pair.substring(0, index);
+            final String value = index < 0 ? "" : pair.substring(index + 1);
+
+            try {
+                params.add(URLDecoder.decode(name, charset.name()), URLDecoder.decode(value, charset.name()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("malformed form body: " + e.getMessage(), e);
+            }
+        }
+
+        return params;
+    }
+
+    /**
+     * wraps given request body so that it's inflated on the fly. The number of inflated bytes is
+     * limited to given max size, a {@link LimitedInputStream.LimitExceededException} is thrown if the
+     * body is larger.
+     *
+     * @param body            the raw request body
+     * @param contentEncoding the content encoding of current request (gzip, deflate or identity)
+     * @param maxSize         the max number of (inflated) bytes
+     * @return the decoded request body
+     * @throws IOException if the content encoding isn't supported
+     */
+    public static InputStream decode(final InputStream body, final String contentEncoding, final long maxSize) throws IOException {
+        final String encoding = Strings.isEmpty(contentEncoding) ? "identity" : contentEncoding.trim().toLowerCase();
+
+        switch (encoding) {
+            case "identity":
+                return new LimitedInputStream(body, maxSize);
+            case "gzip":
+            case "x-gzip":
+                return new LimitedInputStream(new GZIPInputStream(body, 4096), maxSize);
+            case "deflate":
+                return new LimitedInputStream(new InflaterInputStream(body), maxSize);
+            default:
+                throw new IOException("unsupported content encoding: " + contentEncoding);
+        }
+    }
+
+    /**
+     * Hash based {@link IRequestParameters} of a form body that keep the order of all parameter names.
+     */
+    private static final class FormParameters implements IRequestParameters {
+        private final Map<String, List<StringValue>> values = new LinkedHashMap<>();
+
+        private void add(final String name, final String value) {
+            List<StringValue> list = values.get(name);
+
+            if (list == null) {
+                list = new ArrayList<>(1);
+                values.put(name, list);
+            }
+            list.add(StringValue.valueOf(value));
+        }
+
+        @Override
+        public Set<String> getParameterNames() {
+            return Collections.unmodifiableSet(values.keySet());
+        }
+
+        @Override
+        public StringValue getParameterValue(final String name) {
+            final List<StringValue> list = values.get(name);
+            return list != null ? list.get(0) : StringValue.valueOf((String) null);
+        }
+
+        @Override
+        public List<StringValue> getParameterValues(final String name) {
+            final List<StringValue> list = values.get(name);
+            return list != null ? Collections.unmodifiableList(list) : null;
+        }
+    }
+}
@@ -32,6 +32,7 @@ public class SpecBuilder {
             .put("flushMessagesOnUnload", new BooleanParser(DefaultValues.flushMessagesOnUnload))
             .put("collectClientInfos", new BooleanParser(DefaultValues.collectClientInfos))
             .put("collectionTimer", new DurationParser(DefaultValues.collectionTimer))
+            .put("throttleInterval", new DurationParser(DefaultValues.throttleInterval))
             .put("maxQueueSize", new LongParser(DefaultValues.maxQueueSize))
             .put("maxEntriesPerPage", new LongParser(DefaultValues.maxEntriesPerPage))
             .put("loggerName", new StringParser(DefaultValues.loggerName))
@@ -0,0 +1,96 @@
+package de.agilecoders.wicket.logging.util;
+
+/**
+ * A single frame of a client side stacktrace. The file is normalized, that means query strings and
+ * fragments (e.g. cache busters) are removed.
+ *
+ * @author miha
+ */
+public final class StackFrame {
+
+    private final String function;
+    private final String file;
+    private final int line;
+    private final int column;
+
+    /**
+     * Construct.
+     *
+     * @param function the function name or empty string if it's anonymous
+     * @param file     the normalized file
+     * @param line     the line number or -1 if unknown
+     * @param column   the column number or -1 if unknown
+     */
+    public StackFrame(final String function, final String file, final int line, final int column) {
+        this.function = function != null ? function : "";
+        this.file = file != null ? file : "";
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return the function name or empty string if it's anonymous
+     */
+    public String function() {
+        return function;
+    }
+
+    /**
+     * @return the normalized file
+     */
+    public String file() {
+        return file;
+    }
+
+    /**
+     * @return the line number or -1 if unknown
+     */
+    public int line() {
+        return line;
+    }
+
+    /**
+     * @return the column number or -1 if unknown
+     */
+    public int column() {
+        return column;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(function.length() + file.length() + 16);
+        sb.append(function.isEmpty() ? "<anonymous>" : function).append('@').append(file);
+
+        if (line > -1) {
+            sb.append(':').append(line);
+        }
+        if (column > -1) {
+            sb.append(':').append(column);
+        }
+
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        StackFrame frame = (StackFrame) o;
+
+        return line == frame.line && column == frame.column && function.equals(frame.function) && file.equals(frame.file);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = function.hashCode();
+        result = 31 * result + file.hashCode();
+        result = 31 * result + line;
+        result = 31 * result + column;
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+package de.agilecoders.wicket.logging.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter that is split into stripes to avoid contention, like {@code java.util.concurrent.atomic.LongAdder} which
+ * isn't available on java 7. Each thread adds to the stripe of its thread id, the stripes are padded so they don't
+ * share a cache line. {@link #sum()} isn't an atomic snapshot if other threads add concurrently.
+ *
+ * @author miha
+ */
+public final class StripedCounter {
+
+    /**
+     * the number of longs between two stripes: 64 bytes
+     */
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+    /**
+     * Construct. Uses twice the number of available processors as number of stripes.
+     */
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * Construct.
+     *
+     * @param stripes the number of stripes, is rounded up to the next power of two
+     */
+    public StripedCounter(final int stripes) {
+        int capacity = 1;
+        while (capacity < stripes && capacity < 256) {
+            capacity <<= 1;
+        }
+
+        this.cells = new AtomicLongArray(capacity * PADDING);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * adds given value to the stripe of the current thread
+     *
+     * @param value the value to add
+     */
+    public void add(final long value) {
+        cells.addAndGet(stripe(), value);
+    }
+
+    /**
+     * adds one to the stripe of the current thread
+     */
+    public void increment() {
+        add(1);
+    }
+
+    /**
+     * @return the sum of all stripes
+     */
+    public long sum() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * resets all stripes to zero
+     */
+    public void reset() {
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            cells.set(i, 0);
+        }
+    }
+
+    private int stripe() {
+        return ((int) HyperLogLog.mix(Thread.currentThread().getId()) & mask) * PADDING;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(sum());
+    }
+}
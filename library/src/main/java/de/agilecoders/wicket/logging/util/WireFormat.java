@@ -0,0 +1,30 @@
+package de.agilecoders.wicket.logging.util;
+
+/**
+ * Defines all supported formats that are used to send log messages to the backend.
+ *
+ * @author miha
+ */
+public enum WireFormat {
+    /**
+     * all log messages are sent as url encoded form parameters (msg_1, lvl_1, ...)
+     */
+    Form,
+
+    /**
+     * all log messages are sent as compact json document with content type "application/json"
+     */
+    Json;
+
+    /**
+     * @return wire format as string
+     */
+    public String asString() {
+        return name().toLowerCase();
+    }
+
+    @Override
+    public String toString() {
+        return asString();
+    }
+}
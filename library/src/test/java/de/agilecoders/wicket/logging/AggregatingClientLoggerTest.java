@@ -0,0 +1,200 @@
+package de.agilecoders.wicket.logging;
+
+import com.google.common.collect.Lists;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ParamNames;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Timer;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link AggregatingClientLogger}
+ *
+ * @author miha
+ */
+public class AggregatingClientLoggerTest {
+
+    @Test
+    public void onlyFirstOccurrenceIsWrittenInFull() {
+        RecordingLogger delegate = new RecordingLogger();
+        TestLogger logger = new TestLogger(delegate, 100);
+
+        for (int i = 0; i < 5; i++) {
+            logger.log(Lists.newArrayList(logObject("item " + i + " not found")), clientInfos("client " + i));
+        }
+
+        assertThat(delegate.logObjects.size(), is(equalTo(1)));
+        assertThat(logger.size(), is(equalTo(1)));
+        assertThat(logger.summaries.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void summaryIsWrittenAfterWindow() {
+        RecordingLogger delegate = new RecordingLogger();
+        TestLogger logger = new TestLogger(delegate, 100);
+
+        for (int i = 0; i < 5; i++) {
+            logger.log(Lists.newArrayList(logObject("message")), clientInfos("client " + (i % 2)));
+        }
+
+        logger.time = 60000;
+        logger.log(Lists.newArrayList(logObject("message")), clientInfos("client 0"));
+
+        assertThat(logger.summaries.size(), is(equalTo(1)));
+        assertThat(logger.summaries.get(0).count(), is(equalTo(5L)));
+        assertThat(logger.summaries.get(0).clients(), is(equalTo(2)));
+        assertThat(logger.summaries.get(0).description(), is(equalTo("app.js:12: message")));
+        assertThat(logger.newSummaryMessage(logger.summaries.get(0)).endsWith("seen 5 times from 2 clients in the last 60s: app.js:12: message"), is(true));
+    }
+
+    @Test
+    public void collapsedRepeatsAreCounted() {
+        RecordingLogger delegate = new RecordingLogger();
+        TestLogger logger = new TestLogger(delegate, 100);
+
+        logger.log(Lists.newArrayList(new ClientSideLogObject("error", "message", 1234L, true, "app.js", "12", null, 1, 10, 2345L)), clientInfos("client"));
+        logger.log(Lists.newArrayList(new ClientSideLogObject("error", "message", 2346L, true, "app.js", "12", null, 1, 3, 2400L)), clientInfos("client"));
+
+        logger.time = 60000;
+        logger.flush(logger.time);
+
+        assertThat(delegate.logObjects.size(), is(equalTo(1)));
+        assertThat(logger.summaries.size(), is(equalTo(1)));
+        assertThat(logger.summaries.get(0).count(), is(equalTo(12L)));
+    }
+
+    @Test
+    public void idleFingerprintsAreRemoved() throws Throwable {
+        RecordingLogger delegate = new RecordingLogger();
+        TestLogger logger = new TestLogger(delegate, 100);
+
+        logger.log(Lists.newArrayList(logObject("message")), clientInfos("client"));
+
+        logger.time = 60000;
+        logger.flush(logger.time);
+        assertThat(logger.size(), is(equalTo(0)));
+
+        logger.log(Lists.newArrayList(logObject("message")), clientInfos("client"));
+        assertThat(delegate.logObjects.size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void numberOfFingerprintsIsBounded() {
+        RecordingLogger delegate = new RecordingLogger();
+        TestLogger logger = new TestLogger(delegate, 16);
+
+        for (int i = 0; i < 100; i++) {
+            logger.log(Lists.newArrayList(new ClientSideLogObject("error", "message", 1234L, "file" + i + ".js", "1", null, 1)), clientInfos("client"));
+        }
+
+        assertThat(logger.size() <= 16, is(true));
+        assertThat(logger.evictedFingerprints(), is(equalTo(100L - logger.size())));
+    }
+
+    @Test
+    public void pendingSummariesAreWrittenOnDestroy() throws Throwable {
+        RecordingLogger delegate = new RecordingLogger();
+        TestLogger logger = new TestLogger(delegate, 100);
+
+        logger.log(Lists.newArrayList(logObject("message"), logObject("message 2")), clientInfos("client"));
+        logger.log(Lists.newArrayList(logObject("message")), clientInfos("client"));
+        logger.destroy();
+
+        assertThat(logger.summaries.size(), is(equalTo(1)));
+        assertThat(delegate.destroyed, is(true));
+    }
+
+    @Test
+    public void summaryIsWrittenByTimerWithoutFurtherMessages() throws Throwable {
+        RecordingLogger delegate = new RecordingLogger();
+        TimerLogger logger = new TimerLogger(delegate);
+
+        try {
+            logger.log(Lists.newArrayList(logObject("message")), clientInfos("client"));
+            logger.log(Lists.newArrayList(logObject("message")), clientInfos("client"));
+
+            for (int i = 0; i < 100 && logger.summaries.isEmpty(); i++) {
+                Thread.sleep(50);
+            }
+
+            assertThat(logger.summaries.size(), is(equalTo(1)));
+            assertThat(logger.summaries.get(0).count(), is(equalTo(1L)));
+        } finally {
+            logger.destroy();
+        }
+    }
+
+    private static ClientSideLogObject logObject(String message) {
+        return new ClientSideLogObject("error", message, 1234L, "app.js", "12", null, 1);
+    }
+
+    private static ClientInfos clientInfos(String userAgent) {
+        ClientInfos clientInfos = new ClientInfos();
+        clientInfos.put(ParamNames.USER_AGENT, userAgent);
+        return clientInfos;
+    }
+
+    private static final class TestLogger extends AggregatingClientLogger {
+        private final List<Summary> summaries = new ArrayList<>();
+        private long time = 0;
+
+        private TestLogger(IClientLogger delegate, int maxFingerprints) {
+            super(delegate, "test", Duration.minutes(1), maxFingerprints);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+
+        @Override
+        protected Timer newFlushTimer() {
+            return null;
+        }
+
+        @Override
+        protected void writeSummary(Summary summary) {
+            summaries.add(summary);
+        }
+    }
+
+    /**
+     * logger with a real clock and a short window, its summaries are written by the flush timer
+     */
+    private static final class TimerLogger extends AggregatingClientLogger {
+        private final List<Summary> summaries = new CopyOnWriteArrayList<>();
+
+        private TimerLogger(IClientLogger delegate) {
+            super(delegate, "test", Duration.milliseconds(100), 100);
+        }
+
+        @Override
+        protected void writeSummary(Summary summary) {
+            summaries.add(summary);
+        }
+    }
+
+    private static final class RecordingLogger implements IClientLogger {
+        private final List<ClientSideLogObject> logObjects = new ArrayList<>();
+        private boolean destroyed = false;
+
+        @Override
+        public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+            this.logObjects.addAll(logObjects);
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package de.agilecoders.wicket.logging;
+
+import com.google.common.collect.Lists;
+import de.agilecoders.wicket.logging.settings.ClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ILogWriteListener;
+import de.agilecoders.wicket.logging.util.ILoggingBarrier;
+import de.agilecoders.wicket.logging.util.OverflowPolicy;
+import org.apache.wicket.util.string.StringValue;
+import org.apache.wicket.util.time.Duration;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link AsyncLogDispatcher}
+ *
+ * @author miha
+ */
+public class AsyncLogDispatcherTest {
+
+    private AsyncLogDispatcher dispatcher;
+
+    @After
+    public void tearDown() throws Exception {
+        if (dispatcher != null) {
+            dispatcher.destroy();
+        }
+    }
+
+    @Test
+    public void allSubmittedMessagesAreWrittenByWorkers() throws Exception {
+        final RecordingLogger logger = new RecordingLogger(null);
+        dispatcher = new AsyncLogDispatcher(new ClientSideLoggingSettings().logger(logger).asyncWorkers(3));
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(dispatcher.submit(Lists.newArrayList(createLogObject("message " + i)), new ClientInfos()), is(true));
+        }
+
+        dispatcher.destroy();
+
+        assertThat(logger.logObjects.size(), is(equalTo(10)));
+        assertThat(dispatcher.processedEvents(), is(equalTo(10L)));
+        assertThat(dispatcher.droppedEvents(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void writesAreReportedToListeningBarrier() throws Exception {
+        final RecordingLogger logger = new RecordingLogger(null);
+        final RecordingBarrier barrier = new RecordingBarrier();
+        dispatcher = new AsyncLogDispatcher(new ClientSideLoggingSettings().logger(logger).barrier(barrier).asyncWorkers(1));
+
+        for (int i = 0; i < 10; i++) {
+            dispatcher.submit(Lists.newArrayList(createLogObject("message " + i)), new ClientInfos());
+        }
+
+        dispatcher.destroy();
+
+        assertThat(barrier.events, is(equalTo(10)));
+    }
+
+    @Test
+    public void sameErrorIsAlwaysHandledBySameWorker() throws Exception {
+        final RecordingLogger logger = new RecordingLogger(null);
+        dispatcher = new AsyncLogDispatcher(new ClientSideLoggingSettings().logger(logger).asyncWorkers(4));
+
+        for (int i = 0; i < 20; i++) {
+            dispatcher.submit(Lists.newArrayList(createLogObject("message")), new ClientInfos());
+        }
+
+        dispatcher.destroy();
+
+        assertThat(logger.threads.size(), is(equalTo(20)));
+        for (String thread : logger.threads) {
+            assertThat(thread, is(equalTo(logger.threads.get(0))));
+        }
+    }
+
+    @Test
+    public void newestMessagesAreDroppedIfQueueIsFull() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RecordingLogger logger = new RecordingLogger(latch);
+        dispatcher = new AsyncLogDispatcher(new ClientSideLoggingSettings().logger(logger)
+                                                    .asyncWorkers(1).asyncQueueSize(2)
+                                                    .overflowPolicy(OverflowPolicy.DropNewest));
+
+        fillQueue(logger);
+
+        assertThat(dispatcher.submit(Lists.newArrayList(createLogObject("dropped")), new ClientInfos()), is(false));
+        assertThat(dispatcher.droppedEvents(), is(equalTo(1L)));
+        assertThat(dispatcher.queueDepth(), is(equalTo(2)));
+
+        latch.countDown();
+    }
+
+    @Test
+    public void oldestMessagesAreDroppedIfQueueIsFull() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RecordingLogger logger = new RecordingLogger(latch);
+        dispatcher = new AsyncLogDispatcher(new ClientSideLoggingSettings().logger(logger)
+                                                    .asyncWorkers(1).asyncQueueSize(2)
+                                                    .overflowPolicy(OverflowPolicy.DropOldest));
+
+        fillQueue(logger);
+
+        assertThat(dispatcher.submit(Lists.newArrayList(createLogObject("newest")), new ClientInfos()), is(true));
+        assertThat(dispatcher.droppedEvents(), is(equalTo(1L)));
+
+        latch.countDown();
+        dispatcher.destroy();
+
+        assertThat(logger.logObjects.get(logger.logObjects.size() - 1).message(), is(equalTo("newest")));
+    }
+
+    @Test
+    public void blockingSubmitDropsMessageAfterTimeout() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RecordingLogger logger = new RecordingLogger(latch);
+        dispatcher = new AsyncLogDispatcher(new ClientSideLoggingSettings().logger(logger)
+                                                    .asyncWorkers(1).asyncQueueSize(2)
+                                                    .overflowPolicy(OverflowPolicy.Block)
+                                                    .overflowTimeout(Duration.milliseconds(10)));
+
+        fillQueue(logger);
+
+        assertThat(dispatcher.submit(Lists.newArrayList(createLogObject("dropped")), new ClientInfos()), is(false));
+        assertThat(dispatcher.droppedEvents(), is(equalTo(1L)));
+
+        latch.countDown();
+    }
+
+    @Test
+    public void blockingSubmitAcceptsPartiallyQueuedRequest() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RecordingLogger logger = new RecordingLogger(latch);
+        dispatcher = new AsyncLogDispatcher(new ClientSideLoggingSettings().logger(logger)
+                                                    .asyncWorkers(1).asyncQueueSize(2)
+                                                    .overflowPolicy(OverflowPolicy.Block)
+                                                    .overflowTimeout(Duration.milliseconds(10)));
+
+        dispatcher.submit(Lists.newArrayList(createLogObject("blocker")), new ClientInfos());
+        assertThat(logger.started.await(1, TimeUnit.SECONDS), is(true));
+        dispatcher.submit(Lists.newArrayList(createLogObject("first")), new ClientInfos());
+
+        // only one message of the batch fits, the request must not be rejected, otherwise it's retried with duplicates
+        assertThat(dispatcher.submit(Lists.newArrayList(createLogObject("a"), createLogObject("b"), createLogObject("c")), new ClientInfos()), is(true));
+        assertThat(dispatcher.droppedEvents(), is(equalTo(2L)));
+        assertThat(dispatcher.queueDepth(), is(equalTo(2)));
+
+        latch.countDown();
+        dispatcher.destroy();
+
+        assertThat(logger.logObjects.size(), is(equalTo(3)));
+        assertThat(logger.logObjects.get(2).message(), is(equalTo("a")));
+    }
+
+    @Test
+    public void blockingSubmitRejectsRequestIfNothingWasQueued() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final RecordingLogger logger = new RecordingLogger(latch);
+        dispatcher = new AsyncLogDispatcher(new ClientSideLoggingSettings().logger(logger)
+                                                    .asyncWorkers(1).asyncQueueSize(2)
+                                                    .overflowPolicy(OverflowPolicy.Block)
+                                                    .overflowTimeout(Duration.milliseconds(10)));
+
+        fillQueue(logger);
+
+        assertThat(dispatcher.submit(Lists.newArrayList(createLogObject("a"), createLogObject("b"), createLogObject("c")), new ClientInfos()), is(false));
+        assertThat(dispatcher.droppedEvents(), is(equalTo(3L)));
+
+        latch.countDown();
+    }
+
+    /**
+     * blocks the single worker thread and fills the queue with two messages
+     */
+    private void fillQueue(RecordingLogger logger) throws InterruptedException {
+        dispatcher.submit(Lists.newArrayList(createLogObject("blocker")), new ClientInfos());
+        assertThat(logger.started.await(1, TimeUnit.SECONDS), is(true));
+
+        dispatcher.submit(Lists.newArrayList(createLogObject("first")), new ClientInfos());
+        dispatcher.submit(Lists.newArrayList(createLogObject("second")), new ClientInfos());
+    }
+
+    private static ClientSideLogObject createLogObject(String message) {
+        return new ClientSideLogObject(StringValue.valueOf("error"), StringValue.valueOf(message),
+                                       StringValue.valueOf(1234), StringValue.valueOf("file"),
+                                       StringValue.valueOf("1"), StringValue.valueOf(""), 1);
+    }
+
+    /**
+     * logger that records all log messages and blocks until the given latch is released
+     */
+    private static final class RecordingLogger implements IClientLogger {
+        private final List<ClientSideLogObject> logObjects = new CopyOnWriteArrayList<>();
+        private final List<String> threads = new CopyOnWriteArrayList<>();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch latch;
+
+        private RecordingLogger(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+            started.countDown();
+
+            if (latch != null) {
+                try {
+                    latch.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            for (ClientSideLogObject logObject : logObjects) {
+                this.logObjects.add(logObject);
+                this.threads.add(Thread.currentThread().getName());
+            }
+        }
+
+        @Override
+        public void destroy() throws Throwable {
+        }
+    }
+
+    /**
+     * a barrier that counts all written events
+     */
+    private static final class RecordingBarrier implements ILoggingBarrier, ILogWriteListener {
+        private volatile int events = 0;
+
+        @Override
+        public synchronized void onWritten(int events, long latencyNanos, double backlog) {
+            this.events += events;
+        }
+
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject) {
+            return true;
+        }
+
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects) {
+            return true;
+        }
+
+        @Override
+        public void destroy() throws Throwable {
+        }
+    }
+}
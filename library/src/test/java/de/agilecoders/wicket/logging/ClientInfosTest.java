@@ -25,11 +25,28 @@ public class ClientInfosTest {
         clientInfos.put(ParamNames.WINDOW_SIZE, "windowSize");
         clientInfos.put(ParamNames.SCREEN_SIZE, "screenSize");
         clientInfos.put(ParamNames.USER_AGENT, "userAgent");
+        clientInfos.put(ParamNames.PAGE_VIEW_ID, "pageViewId");
 
         assertThat(clientInfos.ajaxBaseUrl(), is(equalTo("baseUrl")));
         assertThat(clientInfos.windowSize(), is(equalTo("windowSize")));
         assertThat(clientInfos.screenSize(), is(equalTo("screenSize")));
         assertThat(clientInfos.userAgent(), is(equalTo("userAgent")));
+        assertThat(clientInfos.pageViewId(), is(equalTo("pageViewId")));
+    }
+
+    @Test
+    public void clientHashPrefersPageViewId() {
+        final ClientInfos first = new ClientInfos();
+        first.put(ParamNames.USER_AGENT, "userAgent");
+        final ClientInfos second = new ClientInfos();
+        second.put(ParamNames.USER_AGENT, "userAgent");
+
+        assertThat(first.clientHash(), is(equalTo(second.clientHash())));
+
+        first.put(ParamNames.PAGE_VIEW_ID, "page view 1");
+        second.put(ParamNames.PAGE_VIEW_ID, "page view 2");
+
+        assertThat(first.clientHash() == second.clientHash(), is(false));
     }
 
     @Test(expected = UnsupportedOperationException.class)
@@ -46,4 +63,24 @@ public class ClientInfosTest {
         assertThat(clientInfos.get("invalidKey"), is(nullValue()));
     }
 
+    @Test
+    public void nullKeyIsIgnored() {
+        final ClientInfos clientInfos = new ClientInfos();
+
+        assertThat(clientInfos.put(null, "value"), is(nullValue()));
+        assertThat(clientInfos.get(null), is(nullValue()));
+        assertThat(clientInfos.asMap().isEmpty(), is(true));
+    }
+
+    @Test
+    public void valuesCanBeReadAsMap() {
+        final ClientInfos clientInfos = new ClientInfos();
+        clientInfos.put(ParamNames.AJAX_BASE_URL, "baseUrl");
+        clientInfos.put(ParamNames.USER_AGENT, "userAgent");
+
+        assertThat(clientInfos.get(ParamNames.AJAX_BASE_URL), is(equalTo("baseUrl")));
+        assertThat(clientInfos.asMap().size(), is(equalTo(2)));
+        assertThat(clientInfos.asMap().get(ParamNames.USER_AGENT), is(equalTo("userAgent")));
+        assertThat(clientInfos.asMap().get(ParamNames.WINDOW_SIZE), is(nullValue()));
+    }
 }
@@ -0,0 +1,92 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.settings.ClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
+import org.apache.wicket.request.handler.resource.ResourceRequestHandler;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ClientSideErrorLoggingResourceReference}
+ *
+ * @author miha
+ */
+public class ClientSideErrorLoggingResourceReferenceTest {
+
+    private final List<ClientSideLogObject> logObjects = new ArrayList<>();
+    private WicketTester tester;
+
+    @Before
+    public void setUp() throws Exception {
+        tester = new WicketTester(new MockApplication() {
+            @Override
+            protected void init() {
+                super.init();
+
+                ClientSideLogging.install(this, new ClientSideLoggingSettings().logger(new IClientLogger() {
+                    @Override
+                    public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+                        ClientSideErrorLoggingResourceReferenceTest.this.logObjects.addAll(logObjects);
+                    }
+
+                    @Override
+                    public void destroy() throws Throwable {
+                    }
+                }));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tester.destroy();
+    }
+
+    @Test
+    public void logRequestIsWrittenByProcessor() {
+        process(new ClientSideErrorLoggingResourceReference.ClientSideErrorLoggingResource());
+
+        assertThat(tester.getLastResponse().getStatus(), is(equalTo(200)));
+        assertThat(logObjects.size(), is(equalTo(1)));
+        assertThat(logObjects.get(0).message(), is(equalTo("message")));
+    }
+
+    @Test
+    public void deprecatedWriteToLogHookIsStillCalled() {
+        final List<String> calls = new ArrayList<>();
+
+        process(new ClientSideErrorLoggingResourceReference.ClientSideErrorLoggingResource() {
+            @Override
+            protected void writeToLog(Attributes attributes) {
+                calls.add("writeToLog");
+                super.writeToLog(attributes);
+            }
+        });
+
+        assertThat(tester.getLastResponse().getStatus(), is(equalTo(200)));
+        assertThat(calls.size(), is(equalTo(1)));
+        assertThat(logObjects.size(), is(equalTo(1)));
+    }
+
+    private void process(final ClientSideErrorLoggingResourceReference.ClientSideErrorLoggingResource resource) {
+        final MockHttpServletRequest request = tester.getRequest();
+        request.setMethod("POST");
+        request.getPostParameters().setParameterValue("msg_1", "message");
+        request.getPostParameters().setParameterValue("lvl_1", "error");
+        request.getPostParameters().setParameterValue("timestamp_1", "1234");
+
+        tester.processRequest(new ResourceRequestHandler(resource, null));
+    }
+}
@@ -1,9 +1,13 @@
 package de.agilecoders.wicket.logging;
 
+import de.agilecoders.wicket.logging.util.LogLevel;
+import de.agilecoders.wicket.logging.util.StackFrame;
+import org.apache.wicket.util.string.StringValue;
 import org.junit.Test;
 
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
@@ -26,4 +30,45 @@ public class ClientSideLogObjectTest {
         assertThat(logObject.index(), is(equalTo(0)));
     }
 
+    @Test
+    public void numericValuesAreStoredAsPrimitives() {
+        ClientSideLogObject logObject = new ClientSideLogObject("warn", "message", 1234L, "file", "42", null, 1);
+
+        assertThat(logObject.logLevel(), is(equalTo(LogLevel.Warn)));
+        assertThat(logObject.level(), is(equalTo("warn")));
+        assertThat(logObject.lineNumber(), is(equalTo(42)));
+        assertThat(logObject.line(), is(equalTo("42")));
+        assertThat(logObject.stacktrace(), is(equalTo("")));
+        assertThat(logObject.isValid(), is(equalTo(true)));
+    }
+
+    @Test
+    public void unknownValuesAreKept() {
+        ClientSideLogObject logObject = new ClientSideLogObject("fatal", "message", 1234L, "file", "line", "stacktrace", 1);
+
+        assertThat(logObject.logLevel(), is(nullValue()));
+        assertThat(logObject.level(), is(equalTo("fatal")));
+        assertThat(logObject.lineNumber(), is(equalTo(-1)));
+        assertThat(logObject.line(), is(equalTo("line")));
+    }
+
+    @Test
+    public void missingTimestampIsInvalid() {
+        ClientSideLogObject logObject = new ClientSideLogObject(StringValue.valueOf("error"), StringValue.valueOf("message"),
+                                                                StringValue.valueOf((String) null), StringValue.valueOf("file"),
+                                                                StringValue.valueOf("1"), StringValue.valueOf("stack"), 1);
+
+        assertThat(logObject.timestamp(), is(equalTo(-1L)));
+        assertThat(logObject.isValid(), is(equalTo(false)));
+    }
+
+    @Test
+    public void stacktraceIsParsedIntoFrames() {
+        ClientSideLogObject logObject = new ClientSideLogObject("error", "message", 1234L, "app.js", "1",
+                                                                "TypeError: message\n    at foo (app.js?v=1:1:2)", 1);
+
+        assertThat(logObject.frames().size(), is(equalTo(1)));
+        assertThat(logObject.frames().get(0), is(equalTo(new StackFrame("foo", "app.js", 1, 2))));
+        assertThat(new ClientSideLogObject("error", "message", 1234L, "app.js", "1", null, 1).frames().size(), is(equalTo(0)));
+    }
 }
@@ -67,6 +67,14 @@ public class ClientSideLoggingBehaviorTest {
         assertThat(b.data().containsKey("collectionTimer"), is(true));
     }
 
+    @Test
+    public void builderAddsThrottleIntervalInMilliseconds() {
+        ClientSideLoggingBehavior.Builder b = ClientSideLoggingBehavior.newBuilder("throttleInterval=5 seconds");
+
+        assertThat(b.data().size(), is(equalTo(1)));
+        assertThat(b.data().get("throttleInterval"), is(equalTo((Object) 5000L)));
+    }
+
     @Test
     public void builderConstructsCorrectSubclassOfBehavior() {
         ClientSideLoggingBehavior.Builder b = ClientSideLoggingBehavior.newBuilder();
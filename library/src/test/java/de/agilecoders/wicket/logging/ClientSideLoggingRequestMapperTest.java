@@ -0,0 +1,110 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.settings.ClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import org.apache.wicket.MarkupContainer;
+import org.apache.wicket.markup.IMarkupResourceStreamProvider;
+import org.apache.wicket.markup.html.WebPage;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.mock.MockWebRequest;
+import org.apache.wicket.protocol.http.mock.MockHttpServletRequest;
+import org.apache.wicket.request.Url;
+import org.apache.wicket.util.resource.IResourceStream;
+import org.apache.wicket.util.resource.StringResourceStream;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ClientSideLoggingRequestMapper}
+ *
+ * @author miha
+ */
+public class ClientSideLoggingRequestMapperTest {
+
+    private final List<ClientSideLogObject> logObjects = new ArrayList<>();
+    private WicketTester tester;
+
+    @Before
+    public void setUp() throws Exception {
+        tester = new WicketTester(new MockApplication() {
+            @Override
+            protected void init() {
+                super.init();
+
+                ClientSideLogging.install(this, new ClientSideLoggingSettings().ingestPath("/client-log/").logger(new IClientLogger() {
+                    @Override
+                    public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+                        ClientSideLoggingRequestMapperTest.this.logObjects.addAll(logObjects);
+                    }
+
+                    @Override
+                    public void destroy() throws Throwable {
+                    }
+                }));
+            }
+        });
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        tester.destroy();
+    }
+
+    @Test
+    public void logRequestIsHandledByIngestPath() {
+        final MockHttpServletRequest request = tester.getRequest();
+        request.setMethod("POST");
+        request.setURL(request.getContextPath() + request.getServletPath() + "/client-log");
+        request.getPostParameters().setParameterValue("msg_1", "message");
+        request.getPostParameters().setParameterValue("lvl_1", "error");
+        request.getPostParameters().setParameterValue("timestamp_1", "1234");
+        tester.processRequest(request);
+
+        assertThat(tester.getLastResponse().getStatus(), is(equalTo(200)));
+        assertThat(logObjects.size(), is(equalTo(1)));
+        assertThat(logObjects.get(0).message(), is(equalTo("message")));
+    }
+
+    @Test
+    public void otherRequestsAreNotHandled() {
+        final ClientSideLoggingRequestMapper mapper = new ClientSideLoggingRequestMapper(ClientSideLogging.settings(tester.getApplication()));
+
+        assertThat(mapper.getCompatibilityScore(new MockWebRequest(Url.parse("client-log"))), is(equalTo(Integer.MAX_VALUE)));
+        assertThat(mapper.getCompatibilityScore(new MockWebRequest(Url.parse("client-log/other"))), is(equalTo(0)));
+        assertThat(mapper.mapRequest(new MockWebRequest(Url.parse("wicket/resource/client-log"))), is(nullValue()));
+    }
+
+    @Test
+    public void behaviorRendersIngestPath() {
+        tester.startPage(new LoggingPage());
+
+        tester.assertContains("\"url\":\"../client-log\"");
+        assertThat(tester.getLastResponseAsString(), containsString("wicketClientSideLogging"));
+    }
+
+    /**
+     * a page that uses the client side logging behavior
+     */
+    public static class LoggingPage extends WebPage implements IMarkupResourceStreamProvider {
+        public LoggingPage() {
+            add(new ClientSideLoggingBehavior());
+        }
+
+        @Override
+        public IResourceStream getMarkupResourceStream(MarkupContainer container, Class<?> containerClass) {
+            return new StringResourceStream("<html><head></head><body></body></html>");
+        }
+    }
+}
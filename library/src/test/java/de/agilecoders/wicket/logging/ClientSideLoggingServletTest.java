@@ -0,0 +1,292 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.settings.ClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.util.lang.Bytes;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncListener;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletConfig;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ClientSideLoggingServlet}
+ *
+ * @author miha
+ */
+public class ClientSideLoggingServletTest {
+
+    private final List<ClientSideLogObject> logObjects = new CopyOnWriteArrayList<>();
+    private WicketTester tester;
+    private ClientSideLoggingServlet servlet;
+
+    @Before
+    public void setUp() throws Exception {
+        tester = new WicketTester(new MockApplication() {
+            @Override
+            protected void init() {
+                super.init();
+
+                ClientSideLogging.install(this, new ClientSideLoggingSettings().maxRequestBodySize(Bytes.bytes(1024)).logger(new IClientLogger() {
+                    @Override
+                    public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+                        ClientSideLoggingServletTest.this.logObjects.addAll(logObjects);
+                    }
+
+                    @Override
+                    public void destroy() throws Throwable {
+                    }
+                }));
+            }
+        });
+
+        final Map<String, String> parameters = new HashMap<>();
+        parameters.put("applicationName", tester.getApplication().getName());
+        parameters.put("threads", "1");
+
+        servlet = new ClientSideLoggingServlet();
+        servlet.init(new Config(parameters));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        servlet.destroy();
+        tester.destroy();
+    }
+
+    @Test
+    public void jsonBodyIsReadInChunks() throws Exception {
+        final Context context = read("application/json", "{\"elements\":1,\"entries\":[", "[\"error\",1234,\"message\",", "\"file\",12,null]]}");
+
+        assertThat(context.status(), is(equalTo(200)));
+        assertThat(logObjects.size(), is(equalTo(1)));
+        assertThat(logObjects.get(0).message(), is(equalTo("message")));
+    }
+
+    @Test
+    public void formBodyIsParsedWithParamValueExtractor() throws Exception {
+        final Context context = read("application/x-www-form-urlencoded", "msg_1=a+message&lvl_1=warn&", "timestamp_1=1234");
+
+        assertThat(context.status(), is(equalTo(200)));
+        assertThat(logObjects.size(), is(equalTo(1)));
+        assertThat(logObjects.get(0).message(), is(equalTo("a message")));
+        assertThat(logObjects.get(0).level(), is(equalTo("warn")));
+    }
+
+    @Test
+    public void oversizedBodyIsRejected() throws Exception {
+        final char[] value = new char[2048];
+        Arrays.fill(value, 'a');
+
+        final Context context = read("application/json", "{\"message\":\"", new String(value), "\"}");
+
+        assertThat(context.status(), is(equalTo(413)));
+        assertThat(logObjects.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void malformedBodyIsRejected() throws Exception {
+        final Context context = read("application/json", "{\"entries\":[");
+
+        assertThat(context.status(), is(equalTo(400)));
+    }
+
+    /**
+     * delivers all given chunks one after another to a new body reader
+     */
+    private Context read(final String contentType, final String... chunks) throws Exception {
+        final Input input = new Input();
+        final Context context = new Context(new MockHttpServletResponse(tester.getRequest()));
+        final ClientSideLoggingServlet.BodyReader reader = servlet.newBodyReader(context, input, contentType, null, "UTF-8");
+
+        for (String chunk : chunks) {
+            input.deliver(chunk.getBytes(StandardCharsets.UTF_8));
+            reader.onDataAvailable();
+        }
+
+        input.finish();
+        reader.onAllDataRead();
+
+        assertThat(context.completed.await(5, TimeUnit.SECONDS), is(true));
+        return context;
+    }
+
+    /**
+     * a servlet input stream that delivers data chunk by chunk
+     */
+    private static final class Input extends ServletInputStream {
+        private final LinkedList<Byte> data = new LinkedList<>();
+        private boolean finished = false;
+
+        private void deliver(final byte[] chunk) {
+            for (byte b : chunk) {
+                data.add(b);
+            }
+        }
+
+        private void finish() {
+            finished = true;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished && data.isEmpty();
+        }
+
+        @Override
+        public boolean isReady() {
+            return !data.isEmpty();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+        }
+
+        @Override
+        public int read() throws IOException {
+            return data.isEmpty() ? -1 : data.removeFirst() & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = 0;
+            while (read < len && !data.isEmpty()) {
+                b[off + read++] = data.removeFirst();
+            }
+            return read == 0 && len > 0 ? -1 : read;
+        }
+    }
+
+    /**
+     * an async context that records completion
+     */
+    private static final class Context implements AsyncContext {
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private final MockHttpServletResponse response;
+
+        private Context(MockHttpServletResponse response) {
+            this.response = response;
+        }
+
+        private int status() {
+            return response.getStatus();
+        }
+
+        @Override
+        public ServletRequest getRequest() {
+            return null;
+        }
+
+        @Override
+        public ServletResponse getResponse() {
+            return response;
+        }
+
+        @Override
+        public boolean hasOriginalRequestAndResponse() {
+            return true;
+        }
+
+        @Override
+        public void dispatch() {
+        }
+
+        @Override
+        public void dispatch(String path) {
+        }
+
+        @Override
+        public void dispatch(ServletContext context, String path) {
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void start(Runnable run) {
+            run.run();
+        }
+
+        @Override
+        public void addListener(AsyncListener listener) {
+        }
+
+        @Override
+        public void addListener(AsyncListener listener, ServletRequest servletRequest, ServletResponse servletResponse) {
+        }
+
+        @Override
+        public <T extends AsyncListener> T createListener(Class<T> clazz) {
+            return null;
+        }
+
+        @Override
+        public void setTimeout(long timeout) {
+        }
+
+        @Override
+        public long getTimeout() {
+            return 0;
+        }
+    }
+
+    /**
+     * a servlet config with given init parameters
+     */
+    private static final class Config implements ServletConfig {
+        private final Map<String, String> parameters;
+
+        private Config(Map<String, String> parameters) {
+            this.parameters = parameters;
+        }
+
+        @Override
+        public String getServletName() {
+            return "client-side-logging";
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return null;
+        }
+
+        @Override
+        public String getInitParameter(String name) {
+            return parameters.get(name);
+        }
+
+        @Override
+        public Enumeration<String> getInitParameterNames() {
+            return Collections.enumeration(parameters.keySet());
+        }
+    }
+}
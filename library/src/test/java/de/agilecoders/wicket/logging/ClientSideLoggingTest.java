@@ -0,0 +1,75 @@
+package de.agilecoders.wicket.logging;
+
+import com.google.common.collect.Lists;
+import de.agilecoders.wicket.logging.settings.ClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.util.tester.WicketTester;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ClientSideLogging}
+ *
+ * @author miha
+ */
+public class ClientSideLoggingTest {
+
+    @Test
+    public void loggerIsDestroyedWithApplication() {
+        final RecordingLogger delegate = new RecordingLogger();
+        final SummaryLogger logger = new SummaryLogger(delegate);
+        final WicketTester tester = new WicketTester(new MockApplication() {
+            @Override
+            protected void init() {
+                super.init();
+
+                ClientSideLogging.install(this, new ClientSideLoggingSettings().logger(logger));
+            }
+        });
+
+        ClientSideLogObject logObject = new ClientSideLogObject("error", "message", 1234L, "app.js", "12", null, 1);
+        logger.log(Lists.newArrayList(logObject), new ClientInfos());
+        logger.log(Lists.newArrayList(logObject), new ClientInfos());
+        assertThat(logger.summaries.size(), is(equalTo(0)));
+
+        tester.destroy();
+
+        assertThat(logger.summaries.size(), is(equalTo(1)));
+        assertThat(delegate.destroyed, is(true));
+    }
+
+    private static final class SummaryLogger extends AggregatingClientLogger {
+        private final List<Summary> summaries = new ArrayList<>();
+
+        private SummaryLogger(IClientLogger delegate) {
+            super(delegate, "test", Duration.minutes(1), 100);
+        }
+
+        @Override
+        protected void writeSummary(Summary summary) {
+            summaries.add(summary);
+        }
+    }
+
+    private static final class RecordingLogger implements IClientLogger {
+        private boolean destroyed = false;
+
+        @Override
+        public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+        }
+
+        @Override
+        public void destroy() {
+            destroyed = true;
+        }
+    }
+}
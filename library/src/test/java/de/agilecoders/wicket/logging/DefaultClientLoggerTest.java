@@ -0,0 +1,183 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ParamNames;
+import org.apache.wicket.util.string.StringValue;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.event.SubstituteLoggingEvent;
+import org.slf4j.helpers.SubstituteLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link IClientLogger.DefaultClientLogger}
+ *
+ * @author miha
+ */
+public class DefaultClientLoggerTest {
+
+    @Test
+    public void enabledLevelsAreWritten() {
+        TestLogger logger = new TestLogger();
+
+        logger.log(Arrays.asList(log("error", "first"), log("debug", "second"), log("warn", "third")), clientInfos());
+
+        assertThat(logger.messages(), is(equalTo(Arrays.asList(
+                "ERROR [/shop/checkout] [1234 | error] app.js:12: first [Mozilla/5.0]; Stack: ",
+                "WARN [/shop/checkout] [1234 | warn] app.js:12: third [Mozilla/5.0]; Stack: "))));
+    }
+
+    @Test
+    public void pathAndUserAgentAreCleanedOncePerBatch() {
+        TestLogger logger = new TestLogger();
+
+        logger.log(Arrays.asList(log("error", "first"), log("warn", "second"), log("info", "third")), clientInfos());
+
+        assertThat(logger.messages().size(), is(equalTo(3)));
+        assertThat(logger.cleaner.paths.get(), is(equalTo(1)));
+        assertThat(logger.cleaner.values.get(), is(equalTo(1)));
+    }
+
+    @Test
+    public void nothingIsCleanedIfAllLevelsAreDisabled() {
+        TestLogger logger = new TestLogger();
+
+        logger.log(Arrays.asList(log("debug", "first"), log("trace", "second")), clientInfos());
+
+        assertThat(logger.messages().isEmpty(), is(true));
+        assertThat(logger.cleaner.paths.get(), is(equalTo(0)));
+    }
+
+    @Test
+    public void customLayoutIsUsed() {
+        TestLogger logger = new TestLogger(LogMessageLayout.compile("%level: %message (%path)"));
+
+        logger.log(Arrays.asList(log("error", "first")), clientInfos());
+
+        assertThat(logger.messages(), is(equalTo(Arrays.asList("ERROR error: first (/shop/checkout)"))));
+    }
+
+    @Test
+    public void deprecatedHookIsStillCalled() {
+        TestLogger logger = new TestLogger() {
+            @Override
+            protected String newLogMessage(String logLevel, ClientSideLogObject logObject, ClientInfos clientInfos, ILogCleaner cleaner) {
+                return "legacy " + logLevel + " " + super.newLogMessage(logLevel, logObject, clientInfos, cleaner);
+            }
+        };
+
+        logger.log(Arrays.asList(log("error", "first"), log("warn", "second")), clientInfos());
+
+        assertThat(logger.messages(), is(equalTo(Arrays.asList(
+                "ERROR legacy error [/shop/checkout] [1234 | error] app.js:12: first [Mozilla/5.0]; Stack: ",
+                "WARN legacy warn [/shop/checkout] [1234 | warn] app.js:12: second [Mozilla/5.0]; Stack: "))));
+    }
+
+    private static ClientSideLogObject log(String level, String message) {
+        return new ClientSideLogObject(level, message, 1234L, "app.js", "12", null, 1);
+    }
+
+    private static ClientInfos clientInfos() {
+        ClientInfos clientInfos = new ClientInfos();
+        clientInfos.put(ParamNames.AJAX_BASE_URL, "shop/checkout?0");
+        clientInfos.put(ParamNames.USER_AGENT, "Mozilla/5.0\n");
+        return clientInfos;
+    }
+
+    /**
+     * logger that records all messages and has debug and trace disabled
+     */
+    private static class TestLogger extends IClientLogger.DefaultClientLogger {
+        private final CountingCleaner cleaner;
+        private RecordingLogger logger;
+
+        private TestLogger() {
+            this(LogMessageLayout.DEFAULT);
+        }
+
+        private TestLogger(LogMessageLayout layout) {
+            this(layout, new CountingCleaner());
+        }
+
+        private TestLogger(LogMessageLayout layout, CountingCleaner cleaner) {
+            super("test", layout, cleaner);
+            this.cleaner = cleaner;
+        }
+
+        @Override
+        protected Logger newLogger(String loggerName) {
+            logger = new RecordingLogger(loggerName);
+            return logger;
+        }
+
+        private List<String> messages() {
+            List<String> messages = new ArrayList<>();
+            for (SubstituteLoggingEvent event : logger.events) {
+                messages.add(event.getLevel() + " " + event.getMessage());
+            }
+            return messages;
+        }
+    }
+
+    private static final class RecordingLogger extends SubstituteLogger {
+        private final ConcurrentLinkedQueue<SubstituteLoggingEvent> events;
+
+        private RecordingLogger(String name) {
+            this(name, new ConcurrentLinkedQueue<SubstituteLoggingEvent>());
+        }
+
+        private RecordingLogger(String name, ConcurrentLinkedQueue<SubstituteLoggingEvent> events) {
+            super(name, events, false);
+            this.events = events;
+        }
+
+        @Override
+        public boolean isDebugEnabled() {
+            return false;
+        }
+
+        @Override
+        public boolean isTraceEnabled() {
+            return false;
+        }
+    }
+
+    /**
+     * cleaner that counts its calls, it removes line breaks and the query string
+     */
+    private static final class CountingCleaner implements ILogCleaner {
+        private final AtomicInteger paths = new AtomicInteger();
+        private final AtomicInteger values = new AtomicInteger();
+
+        @Override
+        public String clean(String value) {
+            values.incrementAndGet();
+            return value.replace("\n", "");
+        }
+
+        @Override
+        public String toCleanPath(String value) {
+            paths.incrementAndGet();
+            return "/" + value.substring(0, value.indexOf('?'));
+        }
+
+        @Override
+        public String clean(StringValue value) {
+            return clean(value.toString());
+        }
+
+        @Override
+        public String toCleanPath(StringValue value) {
+            return toCleanPath(value.toString());
+        }
+    }
+}
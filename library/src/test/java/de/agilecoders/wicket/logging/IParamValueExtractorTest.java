@@ -29,6 +29,7 @@ public class IParamValueExtractorTest {
         params.setParameterValue(ParamNames.SCREEN_SIZE, "screenSize");
         params.setParameterValue(ParamNames.WINDOW_SIZE, "winSize");
         params.setParameterValue(ParamNames.USER_AGENT, "userAgent");
+        params.setParameterValue(ParamNames.PAGE_VIEW_ID, "pageViewId");
 
         IParamValueExtractor.Result result = extractor.parse(params);
 
@@ -36,6 +37,7 @@ public class IParamValueExtractorTest {
         assertThat(result.clientInfos().screenSize(), is(equalTo("screenSize")));
         assertThat(result.clientInfos().windowSize(), is(equalTo("winSize")));
         assertThat(result.clientInfos().userAgent(), is(equalTo("userAgent")));
+        assertThat(result.clientInfos().pageViewId(), is(equalTo("pageViewId")));
     }
 
     @Test
@@ -59,6 +61,101 @@ public class IParamValueExtractorTest {
         assertThat(result.logObjects(), hasItem(new ClientSideLogObject("error", "message 3", Time.valueOf(new Date(1982, 12, 14, 16, 0)).getMilliseconds(), "file3", "line3", "stacktrace 3", 3)));
     }
 
+    @Test
+    public void logMessagesWithHighIndexWillBeExtracted() {
+        IParamValueExtractor extractor = new IParamValueExtractor.DefaultParamValueExtractor();
+
+        MockRequestParameters params = new MockRequestParameters();
+        params.setParameterValue(ParamNames.ELEMENTS, "1");
+        addMessage(250, params, "error", "message 250", 1000L, "file", "12", "stacktrace");
+
+        IParamValueExtractor.Result result = extractor.parse(params);
+
+        assertThat(result.logObjects().size(), is(equalTo(1)));
+        assertThat(result.logObjects(), hasItem(new ClientSideLogObject("error", "message 250", 1000L, "file", "12", "stacktrace", 250)));
+    }
+
+    @Test
+    public void partialLogMessageWillBeExtracted() {
+        IParamValueExtractor extractor = new IParamValueExtractor.DefaultParamValueExtractor();
+
+        MockRequestParameters params = new MockRequestParameters();
+        params.setParameterValue(ParamNames.MESSAGE + "_" + 1, "message 1");
+        params.setParameterValue(ParamNames.LEVEL + "_" + 1, "error");
+        params.setParameterValue(ParamNames.TIMESTAMP + "_" + 1, "1000");
+
+        IParamValueExtractor.Result result = extractor.parse(params);
+
+        assertThat(result.logObjects().size(), is(equalTo(1)));
+
+        ClientSideLogObject logObject = result.logObjects().iterator().next();
+        assertThat(logObject.message(), is(equalTo("message 1")));
+        assertThat(logObject.file(), is(equalTo("")));
+        assertThat(logObject.stacktrace(), is(equalTo("")));
+    }
+
+    @Test
+    public void invalidParameterNamesWillBeIgnored() {
+        IParamValueExtractor extractor = new IParamValueExtractor.DefaultParamValueExtractor();
+
+        MockRequestParameters params = new MockRequestParameters();
+        addMessage(1, params, "error", "message 1", 1000L, "file1", "1", "stacktrace 1");
+        params.setParameterValue(ParamNames.MESSAGE + "_", "no index");
+        params.setParameterValue(ParamNames.MESSAGE + "_x", "no number");
+        params.setParameterValue(ParamNames.MESSAGE + "_99999999999", "overflow");
+        params.setParameterValue("msgs_2", "unknown field");
+
+        IParamValueExtractor.Result result = extractor.parse(params);
+
+        assertThat(result.logObjects().size(), is(equalTo(1)));
+        assertThat(result.logObjects(), hasItem(new ClientSideLogObject("error", "message 1", 1000L, "file1", "1", "stacktrace 1", 1)));
+    }
+
+    @Test
+    public void logMessagesOfDisabledLevelsWillBeSkipped() {
+        IParamValueExtractor extractor = new IParamValueExtractor.DefaultParamValueExtractor(new ILogLevelFilter() {
+            @Override
+            public boolean isEnabled(String level) {
+                return "error".equals(level);
+            }
+        });
+
+        MockRequestParameters params = new MockRequestParameters();
+        addMessage(1, params, "debug", "message 1", 1000L, "file1", "1", "stacktrace 1");
+        addMessage(2, params, "error", "message 2", 2000L, "file2", "2", "stacktrace 2");
+        addMessage(3, params, "info", "message 3", 3000L, "file3", "3", "stacktrace 3");
+
+        IParamValueExtractor.Result result = extractor.parse(params);
+
+        assertThat(result.logObjects().size(), is(equalTo(1)));
+        assertThat(result.logObjects(), hasItem(new ClientSideLogObject("error", "message 2", 2000L, "file2", "2", "stacktrace 2", 2)));
+    }
+
+    @Test
+    public void collapsedRepeatsAreExtracted() {
+        IParamValueExtractor extractor = new IParamValueExtractor.DefaultParamValueExtractor();
+
+        MockRequestParameters params = new MockRequestParameters();
+        addMessage(1, params, "error", "message 1", 1000L, "file1", "1", "stacktrace 1");
+        addMessage(2, params, "error", "message 2", 2000L, "file2", "2", "stacktrace 2");
+        params.setParameterValue(ParamNames.COUNT + "_" + 2, "12");
+        params.setParameterValue(ParamNames.LAST_TIMESTAMP + "_" + 2, "3000");
+
+        IParamValueExtractor.Result result = extractor.parse(params);
+
+        assertThat(result.logObjects().size(), is(equalTo(2)));
+        for (ClientSideLogObject logObject : result.logObjects()) {
+            if (logObject.index() == 1) {
+                assertThat(logObject.count(), is(equalTo(1)));
+                assertThat(logObject.lastTimestamp(), is(equalTo(1000L)));
+            } else {
+                assertThat(logObject.count(), is(equalTo(12)));
+                assertThat(logObject.lastTimestamp(), is(equalTo(3000L)));
+                assertThat(logObject.toString().endsWith("(12 times until 3000)"), is(true));
+            }
+        }
+    }
+
     private void addMessage(int index, MockRequestParameters params, String level, String message, long utcTimestamp,
                             String file, String line, String stacktrace) {
         params.setParameterValue(ParamNames.LEVEL + "_" + index, level);
@@ -0,0 +1,109 @@
+package de.agilecoders.wicket.logging;
+
+import com.google.common.collect.Lists;
+import de.agilecoders.wicket.logging.util.ICanonicalizer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the default implementation of {@link IRequestBodyExtractor}
+ *
+ * @author miha
+ */
+public class IRequestBodyExtractorTest {
+
+    @Test
+    public void clientInfoWillBeExtracted() throws IOException {
+        IRequestBodyExtractor extractor = new IRequestBodyExtractor.JsonBodyExtractor();
+
+        IParamValueExtractor.Result result = extractor.parse(new StringReader(
+                "{\"ajaxBaseUrl\":\"ajaxBaseUrl\",\"ua\":\"userAgent\",\"winSize\":\"winSize\",\"screenSize\":\"screenSize\",\"pageViewId\":\"pageViewId\",\"elements\":0,\"entries\":[]}"));
+
+        assertThat(result.clientInfos().ajaxBaseUrl(), is(equalTo("ajaxBaseUrl")));
+        assertThat(result.clientInfos().screenSize(), is(equalTo("screenSize")));
+        assertThat(result.clientInfos().windowSize(), is(equalTo("winSize")));
+        assertThat(result.clientInfos().userAgent(), is(equalTo("userAgent")));
+        assertThat(result.clientInfos().pageViewId(), is(equalTo("pageViewId")));
+        assertThat(result.logObjects().size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void logMessagesWillBeExtracted() throws IOException {
+        IRequestBodyExtractor extractor = new IRequestBodyExtractor.JsonBodyExtractor();
+
+        IParamValueExtractor.Result result = extractor.parse(new StringReader(
+                "{\"ajaxBaseUrl\":\".\",\"elements\":4,\"entries\":[" +
+                "[\"error\",1234,\"message 1\",\"file1\",12,\"stacktrace 1\"]," +
+                "[\"warn\",1235,\"message \\\"2\\\"\",null,null,null]," +
+                "[\"info\",1236,\"message 3\",\"file3\",\"13\",null,\"unknown\",{\"a\":[1]}]," +
+                "[\"error\",null,\"invalid\"]" +
+                "]}"));
+
+        assertThat(Lists.newArrayList(result.logObjects()).size(), is(equalTo(3)));
+        assertThat(result.logObjects(), hasItem(new ClientSideLogObject("error", "message 1", 1234, "file1", "12", "stacktrace 1", 1)));
+        assertThat(result.logObjects(), hasItem(new ClientSideLogObject("warn", "message \"2\"", 1235, null, null, null, 2)));
+        assertThat(result.logObjects(), hasItem(new ClientSideLogObject("info", "message 3", 1236, "file3", "13", null, 3)));
+    }
+
+    @Test
+    public void logMessagesOfDisabledLevelsWillBeSkipped() throws IOException {
+        IRequestBodyExtractor extractor = new IRequestBodyExtractor.JsonBodyExtractor(new ILogLevelFilter() {
+            @Override
+            public boolean isEnabled(String level) {
+                return "error".equals(level);
+            }
+        });
+
+        IParamValueExtractor.Result result = extractor.parse(new StringReader(
+                "{\"elements\":3,\"entries\":[" +
+                "[\"debug\",1234,\"message 1\",\"file1\",12,{\"nested\":[\"stack\"]}]," +
+                "[\"error\",1235,\"message 2\",null,null,null]," +
+                "[\"info\",1236,\"message 3\"]" +
+                "]}"));
+
+        assertThat(result.logObjects().size(), is(equalTo(1)));
+        assertThat(result.logObjects(), hasItem(new ClientSideLogObject("error", "message 2", 1235, null, null, null, 2)));
+    }
+
+    @Test
+    public void repeatingValuesAreCanonicalized() throws IOException {
+        IRequestBodyExtractor extractor = new IRequestBodyExtractor.JsonBodyExtractor(null, new ICanonicalizer.BoundedCanonicalizer(16, 100));
+
+        IParamValueExtractor.Result first = extractor.parse(new StringReader("{\"ua\":\"userAgent\",\"entries\":[[\"error\",1,\"message\",\"file\"]]}"));
+        IParamValueExtractor.Result second = extractor.parse(new StringReader("{\"ua\":\"userAgent\",\"entries\":[[\"error\",2,\"message\",\"file\"]]}"));
+
+        ClientSideLogObject firstLogObject = first.logObjects().iterator().next();
+        ClientSideLogObject secondLogObject = second.logObjects().iterator().next();
+
+        assertThat(second.clientInfos().userAgent(), is(sameInstance(first.clientInfos().userAgent())));
+        assertThat(secondLogObject.message(), is(sameInstance(firstLogObject.message())));
+        assertThat(secondLogObject.file(), is(sameInstance(firstLogObject.file())));
+    }
+
+    @Test
+    public void collapsedRepeatsAreExtracted() throws IOException {
+        IRequestBodyExtractor extractor = new IRequestBodyExtractor.JsonBodyExtractor();
+
+        IParamValueExtractor.Result result = extractor.parse(new StringReader(
+                "{\"elements\":1,\"entries\":[[\"error\",1234,\"message\",null,null,null,50,2345]]}"));
+
+        ClientSideLogObject logObject = result.logObjects().iterator().next();
+
+        assertThat(logObject.count(), is(equalTo(50)));
+        assertThat(logObject.timestamp(), is(equalTo(1234L)));
+        assertThat(logObject.lastTimestamp(), is(equalTo(2345L)));
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedBodyIsRejected() throws IOException {
+        new IRequestBodyExtractor.JsonBodyExtractor().parse(new StringReader("{\"entries\":[[\"error\",1234"));
+    }
+}
@@ -0,0 +1,76 @@
+package de.agilecoders.wicket.logging;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link LogMessageLayout}
+ *
+ * @author miha
+ */
+public class LogMessageLayoutTest {
+
+    @Test
+    public void defaultLayoutIsSameAsFormattedMessage() {
+        ClientSideLogObject[] logObjects = new ClientSideLogObject[]{
+                new ClientSideLogObject("error", "message", 1234L, "app.js", "12", "at app.js:12", 1),
+                new ClientSideLogObject("warn", "message", 1234L, "app.js", "anonymous", null, 1),
+                new ClientSideLogObject("info", "message", 1234L, null, null, null, 1),
+                new ClientSideLogObject("error", "message", 1234L, true, "app.js", "12", "", 1, 12, 3000L)
+        };
+
+        for (ClientSideLogObject logObject : logObjects) {
+            String expected = String.format("[%s] %s [%s]; Stack: %s", "/shop", formatted(logObject), "Mozilla/5.0", logObject.stacktrace());
+
+            assertThat(LogMessageLayout.DEFAULT.render(logObject, "/shop", "Mozilla/5.0"), is(equalTo(expected)));
+        }
+    }
+
+    @Test
+    public void singleFieldsAreRendered() {
+        LogMessageLayout layout = LogMessageLayout.compile("%level|%timestamp|%location|%message|%count|100%% %path");
+        ClientSideLogObject logObject = new ClientSideLogObject("error", "message", 1234L, true, "app.js", "12", "", 1, 12, 3000L);
+
+        assertThat(layout.render(logObject, "/shop", "ua"), is(equalTo("error|1234|app.js:12:|message|12|100% /shop")));
+    }
+
+    @Test
+    public void patternWithoutFieldsIsRenderedAsIs() {
+        LogMessageLayout layout = LogMessageLayout.compile("static");
+
+        assertThat(layout.render(new ClientSideLogObject("error", "message", 1234L, "app.js", "12", null, 1), "/", "ua"), is(equalTo("static")));
+        assertThat(layout.toString(), is(equalTo("static")));
+    }
+
+    @Test
+    public void hugeMessagesAreRendered() {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            message.append("message ");
+        }
+        LogMessageLayout layout = LogMessageLayout.compile("%message");
+
+        assertThat(layout.render(new ClientSideLogObject("error", message.toString(), 1234L, null, null, null, 1), "/", "ua"), is(equalTo(message.toString())));
+        assertThat(layout.render(new ClientSideLogObject("error", "small", 1234L, null, null, null, 1), "/", "ua"), is(equalTo("small")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownFieldIsRejected() {
+        LogMessageLayout.compile("[%path] %unknown");
+    }
+
+    /**
+     * the former implementation of {@link ClientSideLogObject#toString()}
+     */
+    private static String formatted(ClientSideLogObject logObject) {
+        String fileAndLine = logObject.file().isEmpty() ? "" : logObject.line().isEmpty() ? logObject.file() + ":" : logObject.file() + ":" + logObject.line() + ":";
+
+        if (logObject.count() > 1) {
+            return String.format("[%s | %s] %s %s (%d times until %s)", logObject.timestamp(), logObject.level(), fileAndLine, logObject.message(), logObject.count(), logObject.lastTimestamp());
+        }
+        return String.format("[%s | %s] %s %s", logObject.timestamp(), logObject.level(), fileAndLine, logObject.message());
+    }
+}
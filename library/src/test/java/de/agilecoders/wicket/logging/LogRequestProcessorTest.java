@@ -0,0 +1,314 @@
+package de.agilecoders.wicket.logging;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import de.agilecoders.wicket.logging.settings.ClientSideLoggingSettings;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.IContextAwareLoggingBarrier;
+import de.agilecoders.wicket.logging.util.ILoggingBarrier;
+import de.agilecoders.wicket.logging.util.LogLevel;
+import de.agilecoders.wicket.logging.util.LogRequestContext;
+import de.agilecoders.wicket.logging.util.ParamNames;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link LogRequestProcessor}
+ *
+ * @author miha
+ */
+public class LogRequestProcessorTest {
+
+    private final List<ClientSideLogObject> logObjects = new ArrayList<>();
+
+    @Test
+    public void allowedRequestIsWritten() {
+        LogRequestProcessor.Response response = new LogRequestProcessor(settings()).process(result());
+
+        assertThat(response.status(), is(equalTo(200)));
+        assertThat(response.retryAfter(), is(equalTo(0L)));
+        assertThat(response.body(), is(nullValue()));
+        assertThat(logObjects.size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void writtenRequestIsTracked() {
+        TopErrorTracker tracker = new TopErrorTracker();
+
+        new LogRequestProcessor(settings().topErrorTracker(tracker)).process(result());
+
+        assertThat(tracker.top(10).size(), is(equalTo(1)));
+        assertThat(tracker.top(10).get(0).count(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void clientControlIsSentWithResponse() {
+        ClientSideLoggingSettings settings = settings();
+        settings.clientControl().disabled(true);
+
+        LogRequestProcessor.Response response = new LogRequestProcessor(settings).process(result());
+
+        assertThat(response.status(), is(equalTo(200)));
+        assertThat(response.body(), is(equalTo(settings.clientControl().toJson())));
+        assertThat(response.body(), containsString("\"off\":true"));
+    }
+
+    @Test
+    public void requestRejectedByBarrierAnswersTooManyRequests() {
+        LogRequestProcessor.Response response = new LogRequestProcessor(settings().barrier(new DenyAllBarrier()).retryAfter(Duration.seconds(7))).process(result());
+
+        assertThat(response.status(), is(equalTo(429)));
+        assertThat(response.retryAfter(), is(equalTo(7L)));
+        assertThat(logObjects.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void contextAwareBarrierGetsRequestContext() {
+        IContextAwareLoggingBarrier barrier = new IContextAwareLoggingBarrier.PerClientBarrier(new ILoggingBarrier.AllowAllBarrier(),
+                IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.PAGE_VIEW_ID, 1, 1, Duration.hours(1), 100);
+        LogRequestProcessor processor = new LogRequestProcessor(settings().barrier(barrier));
+        ClientInfos clientInfos = new ClientInfos();
+        clientInfos.put(ParamNames.PAGE_VIEW_ID, "pv-1");
+
+        assertThat(processor.process(result(clientInfos), new LogRequestContext("10.0.0.1", null, null)).status(), is(equalTo(200)));
+        assertThat(processor.process(result(clientInfos), new LogRequestContext("10.0.0.2", null, null)).status(), is(equalTo(429)));
+        assertThat(processor.process(result(new ClientInfos()), new LogRequestContext("10.0.0.1", null, null)).status(), is(equalTo(200)));
+        assertThat(logObjects.size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void batchBarrierAdmitsErrorsFirst() {
+        ClientSideLogObject info = new ClientSideLogObject("info", "info", 1234L, "app.js", "1", null, 1);
+        ClientSideLogObject error = new ClientSideLogObject("error", "error", 1234L, "app.js", "1", null, 1);
+        LogRequestProcessor processor = new LogRequestProcessor(settings().barrier(new ILoggingBarrier.TokenBucketBarrier(1, 1, Duration.hours(1))));
+
+        assertThat(processor.process(new IParamValueExtractor.Result(Sets.newHashSet(info, error), new ClientInfos())).status(), is(equalTo(200)));
+        assertThat(processor.process(result()).status(), is(equalTo(429)));
+        assertThat(logObjects, is(equalTo((List<ClientSideLogObject>) Lists.newArrayList(error))));
+    }
+
+    @Test
+    public void wrappedBatchBarrierAdmitsErrorsFirst() {
+        ClientSideLogObject info = new ClientSideLogObject("info", "info", 1234L, "app.js", "1", null, 1);
+        ClientSideLogObject error = new ClientSideLogObject("error", "error", 1234L, "app.js", "1", null, 1);
+        ClientSideLoggingSettings settings = settings();
+        settings.barrier(new IContextAwareLoggingBarrier.SamplingBarrier(new ILoggingBarrier.TokenBucketBarrier(1, 1, Duration.hours(1)),
+                                                                         settings.clientControl()));
+        LogRequestProcessor processor = new LogRequestProcessor(settings);
+
+        assertThat(processor.process(new IParamValueExtractor.Result(Sets.newHashSet(info, error), new ClientInfos())).status(), is(equalTo(200)));
+        assertThat(processor.process(result()).status(), is(equalTo(429)));
+        assertThat(logObjects, is(equalTo((List<ClientSideLogObject>) Lists.newArrayList(error))));
+    }
+
+    @Test
+    public void sampledOutRequestIsNotRetried() {
+        ClientSideLoggingSettings settings = settings();
+        settings.clientControl().sampling("error", 0);
+        IContextAwareLoggingBarrier.SamplingBarrier barrier = new IContextAwareLoggingBarrier.SamplingBarrier(
+                new ILoggingBarrier.TokenBucketBarrier(10, 1, Duration.hours(1)), settings.clientControl());
+        LogRequestProcessor processor = new LogRequestProcessor(settings.barrier(barrier));
+
+        LogRequestProcessor.Response response = processor.process(result(), new LogRequestContext("10.0.0.1", null, null));
+
+        assertThat(response.status(), is(equalTo(200)));
+        assertThat(response.retryAfter(), is(equalTo(0L)));
+        assertThat(response.body(), is(equalTo(settings.clientControl().toJson())));
+        assertThat(sendLikeClient(processor, result()), is(equalTo(1)));
+        assertThat(barrier.sampledOut(LogLevel.Error), is(equalTo(2L)));
+        assertThat(logObjects.isEmpty(), is(true));
+    }
+
+    @Test
+    public void suppressedRequestIsCountedOnceAndNotRetried() {
+        IContextAwareLoggingBarrier.FingerprintBarrier barrier = new IContextAwareLoggingBarrier.FingerprintBarrier(
+                new ILoggingBarrier.TokenBucketBarrier(10, 1, Duration.hours(1)), 1, Duration.minutes(1), 64);
+        LogRequestProcessor processor = new LogRequestProcessor(settings().barrier(barrier));
+
+        assertThat(processor.process(result()).status(), is(equalTo(200)));
+        assertThat(processor.process(result()).status(), is(equalTo(200)));
+        assertThat(barrier.suppressed(), is(equalTo(1L)));
+
+        assertThat(sendLikeClient(processor, result()), is(equalTo(1)));
+        assertThat(barrier.suppressed(), is(equalTo(2L)));
+        assertThat(logObjects.size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void writeLatencyIsReportedToBarrier() {
+        ILoggingBarrier.AdaptiveBarrier barrier = new ILoggingBarrier.AdaptiveBarrier(10, 100, Duration.seconds(1), Duration.milliseconds(50), 0.8,
+                                                                                      5, 0.5, Duration.milliseconds(1));
+        ClientSideLoggingSettings settings = new ClientSideLoggingSettings().barrier(barrier).logger(new IClientLogger() {
+            @Override
+            public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void destroy() throws Throwable {
+            }
+        });
+
+        new LogRequestProcessor(settings).process(result());
+
+        assertThat(barrier.rate(), is(equalTo(50L)));
+        assertThat(barrier.decreases(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void requestIsRejectedIfQueueIsSaturated() {
+        ClientSideLoggingSettings settings = new ClientSideLoggingSettings() {
+            @Override
+            protected AsyncLogDispatcher newAsyncDispatcher() {
+                return new AsyncLogDispatcher(this) {
+                    @Override
+                    public int queueDepth() {
+                        return capacity();
+                    }
+                };
+            }
+        }.async(true);
+
+        LogRequestProcessor.Response response = new LogRequestProcessor(settings).process(
+                new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8)), "application/json", null, "UTF-8");
+
+        assertThat(response.status(), is(equalTo(503)));
+        assertThat(response.retryAfter(), is(equalTo(10L)));
+    }
+
+    @Test
+    public void requestIsRejectedIfItsPartitionIsFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        ClientSideLoggingSettings settings = new ClientSideLoggingSettings().logger(new IClientLogger() {
+            @Override
+            public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                LogRequestProcessorTest.this.logObjects.addAll(logObjects);
+            }
+
+            @Override
+            public void destroy() throws Throwable {
+            }
+        }).async(true).asyncWorkers(2).asyncQueueSize(4);
+        LogRequestProcessor processor = new LogRequestProcessor(settings);
+
+        try {
+            // the worker of the partition is blocked by the first request, the next two fill its partition
+            assertThat(processor.process(result()).status(), is(equalTo(200)));
+            assertThat(started.await(1, TimeUnit.SECONDS), is(true));
+            assertThat(processor.process(result()).status(), is(equalTo(200)));
+            assertThat(processor.process(result()).status(), is(equalTo(200)));
+
+            LogRequestProcessor.Response response = processor.process(result());
+
+            assertThat(settings.asyncDispatcher().queueDepth() < settings.asyncDispatcher().capacity(), is(true));
+            assertThat(response.status(), is(equalTo(503)));
+            assertThat(settings.asyncDispatcher().droppedEvents(), is(equalTo(1L)));
+        } finally {
+            release.countDown();
+            settings.asyncDispatcher().destroy();
+        }
+
+        assertThat(logObjects.size(), is(equalTo(3)));
+    }
+
+    @Test
+    public void malformedRequestIsRejected() {
+        LogRequestProcessor.Response response = new LogRequestProcessor(settings()).process(
+                new ByteArrayInputStream("{\"entries\":".getBytes(StandardCharsets.UTF_8)), "application/json", null, "UTF-8");
+
+        assertThat(response.status(), is(equalTo(400)));
+        assertThat(response.retryAfter(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void malformedFormBodyIsRejected() {
+        LogRequestProcessor.Response response = new LogRequestProcessor(settings()).process(
+                new ByteArrayInputStream("msg_1=%zz&lvl_1=error".getBytes(StandardCharsets.UTF_8)), "application/x-www-form-urlencoded", null, "UTF-8");
+
+        assertThat(response.status(), is(equalTo(400)));
+        assertThat(logObjects.isEmpty(), is(true));
+    }
+
+    /**
+     * sends given request like clientside-logging.js does: it's sent again as long as the server answers
+     * 429 or 503, but not more than 3 times
+     *
+     * @return the number of times the request was sent
+     */
+    private static int sendLikeClient(LogRequestProcessor processor, IParamValueExtractor.Result result) {
+        int sent = 0;
+        int status;
+        do {
+            status = processor.process(result, new LogRequestContext("10.0.0.1", null, null)).status();
+            sent++;
+        } while ((status == 429 || status == 503) && sent < 3);
+
+        return sent;
+    }
+
+    private ClientSideLoggingSettings settings() {
+        return new ClientSideLoggingSettings().logger(new IClientLogger() {
+            @Override
+            public void log(Collection<ClientSideLogObject> logObjects, ClientInfos clientInfos) {
+                LogRequestProcessorTest.this.logObjects.addAll(logObjects);
+            }
+
+            @Override
+            public void destroy() throws Throwable {
+            }
+        });
+    }
+
+    private IParamValueExtractor.Result result() {
+        return result(new ClientInfos());
+    }
+
+    private IParamValueExtractor.Result result(ClientInfos clientInfos) {
+        return new IParamValueExtractor.Result(Sets.newHashSet(Mocks.createClientSideLogObject()), clientInfos);
+    }
+
+    /**
+     * a barrier that rejects everything
+     */
+    private static final class DenyAllBarrier implements ILoggingBarrier {
+
+        @Override
+        public boolean isAllowed(ClientSideLogObject logObject) {
+            return false;
+        }
+
+        @Override
+        public boolean isAllowed(Collection<ClientSideLogObject> logObjects) {
+            return false;
+        }
+
+        @Override
+        public void destroy() throws Throwable {
+        }
+    }
+}
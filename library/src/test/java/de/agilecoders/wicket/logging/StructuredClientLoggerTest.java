@@ -0,0 +1,184 @@
+package de.agilecoders.wicket.logging;
+
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ErrorFingerprint;
+import de.agilecoders.wicket.logging.util.ParamNames;
+import org.apache.wicket.util.string.StringValue;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.event.SubstituteLoggingEvent;
+import org.slf4j.helpers.SubstituteLogger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link StructuredClientLogger}
+ *
+ * @author miha
+ */
+public class StructuredClientLoggerTest {
+
+    @Test
+    public void plainMessageIsWrittenWithFieldsAsMdc() {
+        TestLogger logger = new TestLogger(StructuredClientLogger.DEFAULT_PREFIX);
+        ClientSideLogObject logObject = new ClientSideLogObject("error", "message", 1234L, "app.js", "12", "at app.js:12", 1);
+
+        logger.log(Arrays.asList(logObject), clientInfos());
+
+        assertThat(logger.messages, is(equalTo(Arrays.asList("message"))));
+
+        Map<String, String> mdc = logger.mdcs.get(0);
+        assertThat(mdc.get("client.level"), is(equalTo("error")));
+        assertThat(mdc.get("client.file"), is(equalTo("app.js")));
+        assertThat(mdc.get("client.line"), is(equalTo("12")));
+        assertThat(mdc.get("client.timestamp"), is(equalTo("1234")));
+        assertThat(mdc.get("client.path"), is(equalTo("/shop/checkout")));
+        assertThat(mdc.get("client.userAgent"), is(equalTo("Mozilla/5.0")));
+        assertThat(mdc.get("client.windowSize"), is(equalTo("1280x720")));
+        assertThat(mdc.get("client.screenSize"), is(equalTo("1920x1040")));
+        assertThat(mdc.get("client.pageViewId"), is(equalTo("pv-1")));
+        assertThat(mdc.get("client.fingerprint"), is(equalTo(ErrorFingerprint.toString(ErrorFingerprint.of(logObject)))));
+        assertThat(mdc.get("client.stack"), is(equalTo("at app.js:12")));
+        assertThat(mdc.get("client.count"), is(nullValue()));
+    }
+
+    @Test
+    public void mdcIsRemovedAfterEachMessage() {
+        TestLogger logger = new TestLogger(StructuredClientLogger.DEFAULT_PREFIX);
+
+        logger.log(Arrays.asList(new ClientSideLogObject("error", "first", 1234L, "app.js", "12", null, 1),
+                                 new ClientSideLogObject("warn", "second", 1234L, null, null, null, 2)), clientInfos());
+
+        assertThat(logger.messages, is(equalTo(Arrays.asList("first", "second"))));
+        assertThat(logger.mdcs.get(1).get("client.level"), is(equalTo("warn")));
+        assertThat(logger.mdcs.get(1).containsKey("client.file"), is(false));
+        assertThat(logger.mdc.isEmpty(), is(true));
+    }
+
+    @Test
+    public void collapsedMessagesHaveCount() {
+        TestLogger logger = new TestLogger(StructuredClientLogger.DEFAULT_PREFIX);
+
+        logger.log(Arrays.asList(new ClientSideLogObject("error", "message", 1234L, true, "app.js", "12", "", 1, 12, 3000L)), clientInfos());
+
+        assertThat(logger.mdcs.get(0).get("client.count"), is(equalTo("12")));
+    }
+
+    @Test
+    public void disabledLevelsAreSkipped() {
+        TestLogger logger = new TestLogger(StructuredClientLogger.DEFAULT_PREFIX);
+
+        logger.log(Arrays.asList(new ClientSideLogObject("debug", "message", 1234L, "app.js", "12", null, 1)), clientInfos());
+
+        assertThat(logger.messages.isEmpty(), is(true));
+    }
+
+    @Test
+    public void prefixIsConfigurable() {
+        TestLogger logger = new TestLogger("");
+
+        logger.log(Arrays.asList(new ClientSideLogObject("error", "message", 1234L, "app.js", "12", null, 1)), clientInfos());
+
+        assertThat(logger.key(StructuredClientLogger.Key.USER_AGENT), is(equalTo("userAgent")));
+        assertThat(logger.mdcs.get(0).get("userAgent"), is(equalTo("Mozilla/5.0")));
+    }
+
+    private static ClientInfos clientInfos() {
+        ClientInfos clientInfos = new ClientInfos();
+        clientInfos.put(ParamNames.AJAX_BASE_URL, "shop/checkout?0");
+        clientInfos.put(ParamNames.USER_AGENT, "Mozilla/5.0\n");
+        clientInfos.put(ParamNames.WINDOW_SIZE, "1280x720");
+        clientInfos.put(ParamNames.SCREEN_SIZE, "1920x1040");
+        clientInfos.put(ParamNames.PAGE_VIEW_ID, "pv-1");
+        return clientInfos;
+    }
+
+    /**
+     * logger that keeps its MDC in a map and records each message with a copy of the MDC; debug and trace are disabled
+     */
+    private static final class TestLogger extends StructuredClientLogger {
+        private final Map<String, String> mdc = new HashMap<>();
+        private final List<String> messages = new ArrayList<>();
+        private final List<Map<String, String>> mdcs = new ArrayList<>();
+
+        private TestLogger(String prefix) {
+            super("test", prefix, new PathCleaner());
+        }
+
+        @Override
+        protected Logger newLogger(String loggerName) {
+            return new SubstituteLogger(loggerName, new ConcurrentLinkedQueue<SubstituteLoggingEvent>(), false) {
+                @Override
+                public void error(String msg) {
+                    record(msg);
+                }
+
+                @Override
+                public void warn(String msg) {
+                    record(msg);
+                }
+
+                @Override
+                public boolean isDebugEnabled() {
+                    return false;
+                }
+
+                @Override
+                public boolean isTraceEnabled() {
+                    return false;
+                }
+            };
+        }
+
+        private void record(String message) {
+            messages.add(message);
+            mdcs.add(new HashMap<>(mdc));
+        }
+
+        @Override
+        protected void put(String key, String value) {
+            mdc.put(key, value);
+        }
+
+        @Override
+        protected void remove(String key) {
+            mdc.remove(key);
+        }
+    }
+
+    /**
+     * cleaner that removes line breaks and the query string
+     */
+    private static final class PathCleaner implements ILogCleaner {
+
+        @Override
+        public String clean(String value) {
+            return value.replace("\n", "");
+        }
+
+        @Override
+        public String toCleanPath(String value) {
+            return "/" + value.substring(0, value.indexOf('?'));
+        }
+
+        @Override
+        public String clean(StringValue value) {
+            return clean(value.toString());
+        }
+
+        @Override
+        public String toCleanPath(StringValue value) {
+            return toCleanPath(value.toString());
+        }
+    }
+}
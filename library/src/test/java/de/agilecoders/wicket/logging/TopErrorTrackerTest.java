@@ -0,0 +1,150 @@
+package de.agilecoders.wicket.logging;
+
+import com.google.common.collect.Lists;
+import de.agilecoders.wicket.logging.util.ClientInfos;
+import de.agilecoders.wicket.logging.util.ErrorFingerprint;
+import de.agilecoders.wicket.logging.util.ParamNames;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link TopErrorTracker}
+ *
+ * @author miha
+ */
+public class TopErrorTrackerTest {
+
+    @Test
+    public void errorsAreCountedByFingerprintAndPath() {
+        TestTracker tracker = new TestTracker(64);
+
+        for (int i = 0; i < 5; i++) {
+            tracker.record(Lists.newArrayList(logObject("item " + i + " not found")), clientInfos("wicket/page?" + i));
+        }
+        tracker.record(Lists.newArrayList(logObject("item 1 not found")), clientInfos("other/page"));
+
+        List<TopErrorTracker.Entry> top = tracker.top(10);
+
+        assertThat(top.size(), is(equalTo(2)));
+        assertThat(top.get(0).count(), is(equalTo(5L)));
+        assertThat(top.get(0).error(), is(equalTo(0L)));
+        assertThat(top.get(0).path(), is(equalTo("wicket/page")));
+        assertThat(top.get(0).fingerprint(), is(equalTo(ErrorFingerprint.of(logObject("item 1 not found")))));
+        assertThat(top.get(1).path(), is(equalTo("other/page")));
+    }
+
+    @Test
+    public void distinctClientsAreEstimated() {
+        TestTracker tracker = new TestTracker(64);
+
+        for (int i = 0; i < 1000; i++) {
+            tracker.record(Lists.newArrayList(logObject("reload loop")), clientInfos("page", "reloading client"));
+            tracker.record(Lists.newArrayList(logObject("widespread")), clientInfos("page", "client " + (i % 100)));
+        }
+        tracker.time = 30000;
+        for (int i = 0; i < 100; i++) {
+            tracker.record(Lists.newArrayList(logObject("widespread")), clientInfos("page", "client " + (i + 50)));
+        }
+
+        List<TopErrorTracker.Entry> top = tracker.top(10);
+        TopErrorTracker.Entry widespread = top.get(0).sample().message().equals("widespread") ? top.get(0) : top.get(1);
+        TopErrorTracker.Entry loop = top.get(0) == widespread ? top.get(1) : top.get(0);
+
+        assertThat(loop.count(), is(equalTo(1000L)));
+        assertThat(loop.clients(), is(equalTo(1L)));
+        assertThat(Math.abs(widespread.clients() - 150) <= 15, is(true));
+        assertThat(widespread.clientSketch().estimate(), is(equalTo(widespread.clients())));
+    }
+
+    @Test
+    public void collapsedRepeatsAreCounted() {
+        TestTracker tracker = new TestTracker(64);
+
+        tracker.record(Lists.newArrayList(new ClientSideLogObject("error", "message", 1234L, true, "app.js", "1", null, 1, 42, 2345L)), clientInfos("page"));
+
+        assertThat(tracker.top(1).get(0).count(), is(equalTo(42L)));
+    }
+
+    @Test
+    public void heavyHittersSurviveManyRareErrors() {
+        TestTracker tracker = new TestTracker(16);
+
+        for (int i = 0; i < 1000; i++) {
+            tracker.record(Lists.newArrayList(logObject("frequent")), clientInfos("page"));
+            tracker.record(Lists.newArrayList(new ClientSideLogObject("error", "rare", 1234L, "file" + i + ".js", "1", null, 1)), clientInfos("page"));
+        }
+
+        TopErrorTracker.Entry top = tracker.top(1).get(0);
+
+        assertThat(top.sample().message(), is(equalTo("frequent")));
+        assertThat(top.count() - top.error() <= 1000, is(true));
+        assertThat(top.count() >= 1000, is(true));
+    }
+
+    @Test
+    public void countsAreKeptForSlidingWindow() {
+        TestTracker tracker = new TestTracker(64);
+
+        tracker.record(Lists.newArrayList(logObject("old")), clientInfos("page"));
+        tracker.time = 30000;
+        tracker.record(Lists.newArrayList(logObject("new")), clientInfos("page"));
+
+        assertThat(tracker.top(10).size(), is(equalTo(2)));
+        assertThat(tracker.top(10, Duration.seconds(10)).size(), is(equalTo(1)));
+        assertThat(tracker.top(10, Duration.seconds(10)).get(0).sample().message(), is(equalTo("new")));
+
+        tracker.time = 60000;
+        assertThat(tracker.top(10).size(), is(equalTo(1)));
+
+        tracker.time = 95000;
+        assertThat(tracker.top(10).size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void limitIsRespected() {
+        TestTracker tracker = new TestTracker(64);
+
+        for (int i = 0; i < 10; i++) {
+            tracker.record(Lists.newArrayList(new ClientSideLogObject("error", "message", 1234L, "file" + i + ".js", "1", null, 1)), clientInfos("page"));
+        }
+
+        assertThat(tracker.top(3).size(), is(equalTo(3)));
+    }
+
+    private ClientSideLogObject logObject(String message) {
+        return new ClientSideLogObject("error", message, 1234L, "app.js", "12", null, 1);
+    }
+
+    private ClientInfos clientInfos(String ajaxBaseUrl) {
+        return clientInfos(ajaxBaseUrl, null);
+    }
+
+    private ClientInfos clientInfos(String ajaxBaseUrl, String pageViewId) {
+        ClientInfos clientInfos = new ClientInfos();
+        clientInfos.put(ParamNames.AJAX_BASE_URL, ajaxBaseUrl);
+        clientInfos.put(ParamNames.PAGE_VIEW_ID, pageViewId);
+        return clientInfos;
+    }
+
+    /**
+     * tracker with a window of 60 seconds in buckets of 10 seconds and a controllable clock
+     */
+    private static final class TestTracker extends TopErrorTracker {
+        private long time = 0;
+
+        private TestTracker(int capacity) {
+            super(capacity, Duration.minutes(1), 6);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ILoggingBarrier.AdaptiveBarrier}
+ *
+ * @author miha
+ */
+public class AdaptiveBarrierTest {
+
+    private static final long SECOND = 1000000000L;
+    private static final long MILLISECOND = 1000000L;
+
+    @Test
+    public void startsWithMaxRate() {
+        TestBarrier barrier = new TestBarrier();
+
+        assertThat(barrier.rate(), is(equalTo(100L)));
+        assertThat(barrier.tryAcquireUpTo(200), is(equalTo(100)));
+        assertThat(barrier.tryAcquireUpTo(1), is(equalTo(0)));
+    }
+
+    @Test
+    public void highLatencyDecreasesRateMultiplicatively() {
+        TestBarrier barrier = new TestBarrier();
+
+        barrier.onWritten(10, 80 * MILLISECOND, 0);
+        barrier.onWritten(10, 40 * MILLISECOND, 0);
+        barrier.time = SECOND;
+        barrier.tryAcquireUpTo(1);
+
+        assertThat(barrier.rate(), is(equalTo(50L)));
+        assertThat(barrier.decreases(), is(equalTo(1L)));
+
+        barrier.onWritten(10, 100 * MILLISECOND, 0);
+        barrier.time = 2 * SECOND;
+        barrier.tryAcquireUpTo(1);
+
+        assertThat(barrier.rate(), is(equalTo(25L)));
+    }
+
+    @Test
+    public void backlogDecreasesRate() {
+        TestBarrier barrier = new TestBarrier();
+
+        barrier.onWritten(10, MILLISECOND, 0.9);
+        barrier.time = SECOND;
+        barrier.tryAcquireUpTo(1);
+
+        assertThat(barrier.rate(), is(equalTo(50L)));
+    }
+
+    @Test
+    public void rateIsRaisedAdditivelyWhileHealthy() {
+        TestBarrier barrier = new TestBarrier();
+        barrier.onWritten(10, SECOND, 0);
+        barrier.time = SECOND;
+        barrier.tryAcquireUpTo(1);
+        assertThat(barrier.rate(), is(equalTo(50L)));
+
+        for (int i = 2; i <= 4; i++) {
+            barrier.onWritten(10, MILLISECOND, 0.1);
+            barrier.time = i * SECOND;
+            barrier.tryAcquireUpTo(1);
+        }
+
+        assertThat(barrier.rate(), is(equalTo(65L)));
+        assertThat(barrier.increases(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void rateStaysBetweenMinAndMax() {
+        TestBarrier barrier = new TestBarrier();
+
+        for (int i = 1; i <= 10; i++) {
+            barrier.onWritten(10, SECOND, 1);
+            barrier.time = i * SECOND;
+            barrier.tryAcquireUpTo(1);
+        }
+        assertThat(barrier.rate(), is(equalTo(10L)));
+
+        for (int i = 11; i <= 30; i++) {
+            barrier.time = i * SECOND;
+            barrier.tryAcquireUpTo(1);
+        }
+        assertThat(barrier.rate(), is(equalTo(100L)));
+    }
+
+    @Test
+    public void lowerRateLimitsEvents() {
+        TestBarrier barrier = new TestBarrier();
+        barrier.onWritten(10, SECOND, 0);
+        barrier.time = 10 * SECOND;
+        barrier.tryAcquireUpTo(1);
+
+        barrier.time = 10 * SECOND + 500 * MILLISECOND;
+        assertThat(barrier.rate(), is(equalTo(50L)));
+        assertThat(barrier.tryAcquireUpTo(200), is(equalTo(50)));
+    }
+
+    @Test
+    public void recentDecisionsAreKept() {
+        TestBarrier barrier = new TestBarrier();
+
+        for (int i = 1; i <= 20; i++) {
+            barrier.onWritten(10, i == 20 ? SECOND : MILLISECOND, 0);
+            barrier.time = i * SECOND;
+            barrier.tryAcquireUpTo(1);
+        }
+
+        List<ILoggingBarrier.AdaptiveBarrier.Decision> decisions = barrier.recentDecisions();
+        assertThat(decisions.size(), is(equalTo(16)));
+        assertThat(decisions.get(0).action(), is(equalTo(ILoggingBarrier.AdaptiveBarrier.Action.HOLD)));
+        assertThat(decisions.get(15).action(), is(equalTo(ILoggingBarrier.AdaptiveBarrier.Action.DECREASE)));
+        assertThat(decisions.get(15).rate(), is(equalTo(50L)));
+        assertThat(decisions.get(15).averageLatency(), is(equalTo(SECOND)));
+    }
+
+    /**
+     * barrier with a controllable clock: 10 to 100 events per second, raised by 5 per second, halved if writes take
+     * longer than 50ms on average or the queue is more than 80% full
+     */
+    private static final class TestBarrier extends ILoggingBarrier.AdaptiveBarrier {
+        private long time = 0;
+
+        private TestBarrier() {
+            super(10, 100, Duration.seconds(1), Duration.milliseconds(50), 0.8, 5, 0.5, Duration.seconds(1));
+        }
+
+        @Override
+        protected long nanoTime() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Stress tests of all {@link IBatchLoggingBarrier}s in the style of jcstress: many rounds in which several threads
+ * start at the same time and race for the permits of a barrier that doesn't refill during the round. No round may
+ * issue more permits than the barrier has, and no permit may get lost.
+ *
+ * @author miha
+ */
+public class BatchAdmissionStressTest {
+
+    private static final int ROUNDS = 200;
+    private static final int THREADS = 8;
+    private static final int BUDGET = 100;
+
+    @Test
+    public void tokenBucketNeverIssuesTooManyPermits() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            final ILoggingBarrier.TokenBucketBarrier barrier = new ILoggingBarrier.TokenBucketBarrier(BUDGET, 1, Duration.hours(1));
+
+            assertThat("round " + round, race(barrier, round), is(equalTo((long) BUDGET)));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void sizeAndTimeFrameBarrierNeverIssuesTooManyPermits() throws Throwable {
+        for (int round = 0; round < ROUNDS; round++) {
+            final ILoggingBarrier.SizeAndTimeFrameBasedBarrier barrier = new ILoggingBarrier.SizeAndTimeFrameBasedBarrier(BUDGET + 1, 1, TimeUnit.HOURS);
+
+            try {
+                assertThat("round " + round, race(barrier, round), is(equalTo((long) BUDGET)));
+            } finally {
+                barrier.destroy();
+            }
+        }
+    }
+
+    @Test
+    public void admittedEventsNeverExceedPermits() throws Exception {
+        final ILoggingBarrier.TokenBucketBarrier barrier = new ILoggingBarrier.TokenBucketBarrier(BUDGET, 1, Duration.hours(1));
+        final AtomicLong admitted = new AtomicLong(0);
+        final AtomicInteger violations = new AtomicInteger(0);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            final List<ClientSideLogObject> batch = batch(t, 30);
+
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        final Collection<ClientSideLogObject> result = barrier.admit(batch);
+                        admitted.addAndGet(result.size());
+
+                        int errors = 0;
+                        for (ClientSideLogObject logObject : result) {
+                            if ("error".equals(logObject.level())) {
+                                errors++;
+                            }
+                        }
+
+                        // the 10 errors of each batch must be admitted before any info message
+                        if (errors != Math.min(10, result.size())) {
+                            violations.incrementAndGet();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        assertThat(admitted.get(), is(equalTo((long) BUDGET)));
+        assertThat(violations.get(), is(equalTo(0)));
+    }
+
+    /**
+     * lets all threads acquire random numbers of permits until the barrier is exhausted
+     *
+     * @return the number of issued permits
+     */
+    private static long race(final IBatchLoggingBarrier barrier, final int seed) throws InterruptedException {
+        final AtomicLong issued = new AtomicLong(0);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+
+        for (int t = 0; t < THREADS; t++) {
+            final Random random = new Random(seed * 31 + t);
+
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+
+                        for (int i = 0; i < 20; i++) {
+                            issued.addAndGet(barrier.tryAcquireUpTo(1 + random.nextInt(10)));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        return issued.get();
+    }
+
+    /**
+     * @return a batch of given size with 10 errors at its end, all other events are info messages
+     */
+    private static List<ClientSideLogObject> batch(final int id, final int size) {
+        final List<ClientSideLogObject> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            batch.add(new ClientSideLogObject(i < size - 10 ? "info" : "error", "message " + id + "-" + i, 1234L, "app.js", "1", null, 1));
+        }
+        return batch;
+    }
+}
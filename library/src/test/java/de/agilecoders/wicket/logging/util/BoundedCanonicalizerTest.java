@@ -0,0 +1,62 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ICanonicalizer.BoundedCanonicalizer}
+ *
+ * @author miha
+ */
+public class BoundedCanonicalizerTest {
+
+    @Test
+    public void equalValuesShareOneInstance() {
+        ICanonicalizer.BoundedCanonicalizer canonicalizer = new ICanonicalizer.BoundedCanonicalizer(16, 100);
+
+        String first = canonicalizer.canonicalize(new String("Mozilla/5.0"));
+        String second = canonicalizer.canonicalize(new String("Mozilla/5.0"));
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(canonicalizer.hits(), is(equalTo(1L)));
+        assertThat(canonicalizer.misses(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void sizeIsRoundedToPowerOfTwo() {
+        assertThat(new ICanonicalizer.BoundedCanonicalizer(1, 100).size(), is(equalTo(1)));
+        assertThat(new ICanonicalizer.BoundedCanonicalizer(100, 100).size(), is(equalTo(128)));
+    }
+
+    @Test
+    public void cachedValueIsEvictedByAnotherValue() {
+        ICanonicalizer.BoundedCanonicalizer canonicalizer = new ICanonicalizer.BoundedCanonicalizer(1, 100);
+
+        String first = canonicalizer.canonicalize(new String("a"));
+        canonicalizer.canonicalize("b");
+        String third = canonicalizer.canonicalize(new String("a"));
+
+        assertThat(third, is(equalTo(first)));
+        assertThat(third, is(not(sameInstance(first))));
+        assertThat(canonicalizer.evictions(), is(equalTo(2L)));
+        assertThat(canonicalizer.hits(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void longValuesArentCached() {
+        ICanonicalizer.BoundedCanonicalizer canonicalizer = new ICanonicalizer.BoundedCanonicalizer(16, 3);
+
+        String first = canonicalizer.canonicalize(new String("abcd"));
+        String second = canonicalizer.canonicalize(new String("abcd"));
+
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(canonicalizer.misses(), is(equalTo(0L)));
+        assertThat(canonicalizer.canonicalize(null), is(nullValue()));
+    }
+}
@@ -0,0 +1,52 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link BufferPool}
+ *
+ * @author miha
+ */
+public class BufferPoolTest {
+
+    @Test
+    public void releasedBufferIsReused() {
+        BufferPool pool = new BufferPool(16, 2);
+
+        byte[] buffer = pool.acquire();
+        assertThat(buffer.length, is(equalTo(16)));
+
+        pool.release(buffer);
+        assertThat(pool.size(), is(equalTo(1)));
+        assertThat(pool.acquire(), is(sameInstance(buffer)));
+        assertThat(pool.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void poolNeverExceedsCapacity() {
+        BufferPool pool = new BufferPool(16, 2);
+
+        pool.release(pool.acquire());
+        pool.release(new byte[16]);
+        pool.release(new byte[16]);
+
+        assertThat(pool.size(), is(equalTo(2)));
+    }
+
+    @Test
+    public void foreignBuffersAreIgnored() {
+        BufferPool pool = new BufferPool(16, 2);
+
+        pool.release(new byte[8]);
+        pool.release(null);
+
+        assertThat(pool.size(), is(equalTo(0)));
+        assertThat(pool.acquire(), is(not(sameInstance((byte[]) null))));
+    }
+}
@@ -0,0 +1,53 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link IStackTraceParser.CachingStackTraceParser}
+ *
+ * @author miha
+ */
+public class CachingStackTraceParserTest {
+
+    @Test
+    public void repeatedStacktraceIsParsedOnce() {
+        IStackTraceParser.CachingStackTraceParser parser = new IStackTraceParser.CachingStackTraceParser(16, 1000);
+
+        List<StackFrame> first = parser.parse(new String("    at foo (app.js:1:2)"));
+        List<StackFrame> second = parser.parse(new String("    at foo (app.js:1:2)"));
+
+        assertThat(second, is(sameInstance(first)));
+        assertThat(parser.hits(), is(equalTo(1L)));
+        assertThat(parser.misses(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void framesAreSharedAcrossStacktraces() {
+        IStackTraceParser.CachingStackTraceParser parser = new IStackTraceParser.CachingStackTraceParser(16, 1000);
+
+        List<StackFrame> first = parser.parse("    at foo (app.js?v=1:1:2)\n    at bar (app.js?v=1:3:4)");
+        List<StackFrame> second = parser.parse("    at foo (app.js?v=2:1:2)\n    at baz (app.js?v=2:5:6)");
+
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.get(0), is(sameInstance(first.get(0))));
+    }
+
+    @Test
+    public void longStacktracesAreNotCached() {
+        IStackTraceParser.CachingStackTraceParser parser = new IStackTraceParser.CachingStackTraceParser(16, 10);
+
+        List<StackFrame> first = parser.parse("    at foo (app.js:1:2)");
+        List<StackFrame> second = parser.parse("    at foo (app.js:1:2)");
+
+        assertThat(second, is(equalTo(first)));
+        assertThat(parser.hits(), is(equalTo(0L)));
+    }
+}
@@ -0,0 +1,88 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.apache.wicket.ajax.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ClientControl}
+ *
+ * @author miha
+ */
+public class ClientControlTest {
+
+    @Test
+    public void unchangedControlHasNoJson() {
+        ClientControl control = new ClientControl();
+
+        assertThat(control.toJson(), is(nullValue()));
+        assertThat(control.version(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void allOptionsAreWrittenAsJson() throws Exception {
+        ClientControl control = new ClientControl()
+                .sampling("INFO", 0.25)
+                .maxEntriesPerPage(3)
+                .collectionType(CollectionType.Timer)
+                .disabled(true);
+
+        JSONObject json = new JSONObject(control.toJson());
+
+        assertThat(json.getLong("v"), is(equalTo(control.version())));
+        assertThat(json.getBoolean("off"), is(true));
+        assertThat(json.getInt("maxEntriesPerPage"), is(equalTo(3)));
+        assertThat(json.getString("collectionType"), is(equalTo("timer")));
+        assertThat(json.getJSONObject("sampling").getDouble("info"), is(equalTo(0.25)));
+    }
+
+    @Test
+    public void eachChangeCreatesNewerVersion() {
+        ClientControl control = new ClientControl().maxEntriesPerPage(3);
+        long version = control.version();
+
+        control.maxEntriesPerPage(2);
+
+        assertThat(control.version() > version, is(true));
+    }
+
+    @Test
+    public void resetRemovesAllChanges() {
+        ClientControl control = new ClientControl().disabled(true).reset();
+
+        assertThat(control.toJson(), is(nullValue()));
+        assertThat(control.disabled(), is(false));
+    }
+
+    @Test
+    public void samplingRateIsOneByDefault() {
+        ClientControl control = new ClientControl().sampling("Info", 0.01);
+
+        assertThat(control.sampling("info"), is(equalTo(0.01)));
+        assertThat(control.sampling("error"), is(equalTo(1.0)));
+        assertThat(control.reset().sampling("info"), is(equalTo(1.0)));
+    }
+
+    @Test
+    public void levelIsLowerCasedIndependentOfLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+
+        try {
+            assertThat(new ClientControl().sampling("INFO", 0.5).sampling("info"), is(equalTo(0.5)));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSamplingRateIsRejected() {
+        new ClientControl().sampling("info", 1.5);
+    }
+}
@@ -0,0 +1,53 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ConsistentSampling}
+ *
+ * @author miha
+ */
+public class ConsistentSamplingTest {
+
+    @Test
+    public void hashIsFnv1a() {
+        assertThat(ConsistentSampling.hash(""), is(equalTo(0x811c9dc5)));
+        assertThat(ConsistentSampling.hash("a"), is(equalTo(0xe40c292c)));
+        assertThat(ConsistentSampling.hash("foobar"), is(equalTo(0xbf9cf968)));
+    }
+
+    /**
+     * the same values are computed by clientside-logging.js
+     */
+    @Test
+    public void sampleMatchesClientSide() {
+        assertThat(ConsistentSampling.sample("k3j2h1lkg0z"), is(equalTo(0x56e96680 / 4294967296.0)));
+        assertThat(ConsistentSampling.sample("pv-ä中"), is(equalTo(0x60915aed / 4294967296.0)));
+        assertThat(ConsistentSampling.sample("a"), is(equalTo(0xe40c292cL / 4294967296.0)));
+    }
+
+    @Test
+    public void sampledPageViewIsSampledAtHigherRates() {
+        assertThat(ConsistentSampling.isSampled("k3j2h1lkg0z", 0.3), is(false));
+        assertThat(ConsistentSampling.isSampled("k3j2h1lkg0z", 0.34), is(true));
+        assertThat(ConsistentSampling.isSampled("k3j2h1lkg0z", 0.5), is(true));
+        assertThat(ConsistentSampling.isSampled("k3j2h1lkg0z", 1), is(true));
+        assertThat(ConsistentSampling.isSampled("k3j2h1lkg0z", 0), is(false));
+    }
+
+    @Test
+    public void pageViewIdsAreSampledAtGivenRate() {
+        int sampled = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (ConsistentSampling.isSampled(Long.toString(i * 7919L, 36) + "kf2x9a1c", 0.01)) {
+                sampled++;
+            }
+        }
+
+        assertThat("sampled: " + sampled, sampled > 800 && sampled < 1200, is(true));
+    }
+}
@@ -0,0 +1,97 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link IStackTraceParser.DefaultStackTraceParser}
+ *
+ * @author miha
+ */
+public class DefaultStackTraceParserTest {
+
+    private final IStackTraceParser parser = IStackTraceParser.DefaultStackTraceParser.INSTANCE;
+
+    @Test
+    public void chromeStacktraceIsParsed() {
+        List<StackFrame> frames = parser.parse("TypeError: Cannot read property 'x' of undefined\n" +
+                                               "    at Object.foo (http://host/js/app.js?v=123:10:5)\n" +
+                                               "    at new Bar (http://host/js/app.js:20:15)\n" +
+                                               "    at http://host/js/lib.js#hash:30:1\n" +
+                                               "    at Array.forEach (native)");
+
+        assertThat(frames.size(), is(equalTo(4)));
+        assertThat(frames.get(0), is(equalTo(new StackFrame("Object.foo", "http://host/js/app.js", 10, 5))));
+        assertThat(frames.get(1), is(equalTo(new StackFrame("new Bar", "http://host/js/app.js", 20, 15))));
+        assertThat(frames.get(2), is(equalTo(new StackFrame("", "http://host/js/lib.js", 30, 1))));
+        assertThat(frames.get(3), is(equalTo(new StackFrame("Array.forEach", "native", -1, -1))));
+    }
+
+    @Test
+    public void evalLocationIsTheLocationOfTheEvalCall() {
+        List<StackFrame> frames = parser.parse("    at eval (eval at run (http://host/app.js:5:3), <anonymous>:1:1)");
+
+        assertThat(frames.size(), is(equalTo(1)));
+        assertThat(frames.get(0), is(equalTo(new StackFrame("eval", "http://host/app.js", 5, 3))));
+    }
+
+    @Test
+    public void firefoxAndSafariStacktraceIsParsed() {
+        List<StackFrame> frames = parser.parse("foo@http://host/app.js?v=1:10:5\n" +
+                                               "bar/<@http://host/app.js:20\n" +
+                                               "@http://host/app.js:30:1\n" +
+                                               "forEach@[native code]\n" +
+                                               "global code@http://host/index.html:2:3");
+
+        assertThat(frames.size(), is(equalTo(5)));
+        assertThat(frames.get(0), is(equalTo(new StackFrame("foo", "http://host/app.js", 10, 5))));
+        assertThat(frames.get(1), is(equalTo(new StackFrame("bar/<", "http://host/app.js", 20, -1))));
+        assertThat(frames.get(2), is(equalTo(new StackFrame("", "http://host/app.js", 30, 1))));
+        assertThat(frames.get(3), is(equalTo(new StackFrame("forEach", "[native code]", -1, -1))));
+        assertThat(frames.get(4), is(equalTo(new StackFrame("global code", "http://host/index.html", 2, 3))));
+    }
+
+    @Test
+    public void stacktraceJsOutputIsParsed() {
+        List<StackFrame> frames = parser.parse("foo()@http://host/app.js:10:5\n{anonymous}()@http://host/app.js:20:1");
+
+        assertThat(frames.size(), is(equalTo(2)));
+        assertThat(frames.get(0), is(equalTo(new StackFrame("foo", "http://host/app.js", 10, 5))));
+        assertThat(frames.get(1), is(equalTo(new StackFrame("", "http://host/app.js", 20, 1))));
+    }
+
+    @Test
+    public void portIsNotALineNumber() {
+        List<StackFrame> frames = parser.parse("    at foo (http://host:8080/app.js:10:5)");
+
+        assertThat(frames.get(0), is(equalTo(new StackFrame("foo", "http://host:8080/app.js", 10, 5))));
+    }
+
+    @Test
+    public void unknownLinesAreIgnored() {
+        assertThat(parser.parse(null).size(), is(equalTo(0)));
+        assertThat(parser.parse("").size(), is(equalTo(0)));
+        assertThat(parser.parse("Error: message\n\n   \nsomething else").size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void numberOfFramesIsLimited() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("    at f").append(i).append(" (app.js:1:1)\n");
+        }
+
+        assertThat(parser.parse(sb.toString()).size(), is(equalTo(IStackTraceParser.DefaultStackTraceParser.MAX_FRAMES)));
+    }
+
+    @Test
+    public void frameIsPrinted() {
+        assertThat(new StackFrame("foo", "app.js", 1, 2).toString(), is(equalTo("foo@app.js:1:2")));
+        assertThat(new StackFrame("", "app.js", 1, -1).toString(), is(equalTo("<anonymous>@app.js:1")));
+    }
+}
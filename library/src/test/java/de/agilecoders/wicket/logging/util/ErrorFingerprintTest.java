@@ -0,0 +1,72 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ErrorFingerprint}
+ *
+ * @author miha
+ */
+public class ErrorFingerprintTest {
+
+    @Test
+    public void numbersInMessageAreIgnored() {
+        assertThat(fingerprint("error", "item 12 not found", "app.js", "1", null),
+                   is(equalTo(fingerprint("error", "item 345 not found", "app.js", "1", null))));
+    }
+
+    @Test
+    public void queryStringsAreIgnored() {
+        assertThat(fingerprint("error", "message", "http://host/app.js?v=1", "1", "at a (http://host/app.js?v=1:1:2)"),
+                   is(equalTo(fingerprint("error", "message", "http://host/app.js?v=2", "1", "at a (http://host/app.js?v=2:1:2)"))));
+    }
+
+    @Test
+    public void onlyTopFramesAreUsed() {
+        String top = "TypeError: message\n  at a (app.js:1:2)\n  at b (app.js:3:4)\n  at c (app.js:5:6)\n";
+
+        assertThat(fingerprint("error", "message", "app.js", "1", top + "  at d (app.js:7:8)"),
+                   is(equalTo(fingerprint("error", "message", "app.js", "1", top + "  at e (app.js:9:10)"))));
+        assertThat(fingerprint("error", "message", "app.js", "1", "  at a (app.js:1:2)"),
+                   is(not(equalTo(fingerprint("error", "message", "app.js", "1", "  at b (app.js:1:2)")))));
+    }
+
+    @Test
+    public void framesOfDifferentBrowsersAreNormalized() {
+        assertThat(fingerprint("error", "message", "app.js", "1", "TypeError: message\n    at a (http://host/app.js?v=1:1:2)"),
+                   is(equalTo(fingerprint("error", "message", "app.js", "1", "Error: other message\n    at a (http://host/app.js?v=2:1:2)"))));
+        assertThat(fingerprint("error", "message", "app.js", "1", "a@http://host/app.js:1:2"),
+                   is(equalTo(fingerprint("error", "message", "app.js", "1", "a()@http://host/app.js#x:1:2"))));
+    }
+
+    @Test
+    public void unknownStacktraceFormatIsHashedLineByLine() {
+        assertThat(fingerprint("error", "message", "app.js", "1", "line 1\nline 2"),
+                   is(not(equalTo(fingerprint("error", "message", "app.js", "1", "line 1\nline 3")))));
+    }
+
+    @Test
+    public void levelFileAndLineArePartOfFingerprint() {
+        long fingerprint = fingerprint("error", "message", "app.js", "1", null);
+
+        assertThat(fingerprint("warn", "message", "app.js", "1", null), is(not(equalTo(fingerprint))));
+        assertThat(fingerprint("error", "message", "lib.js", "1", null), is(not(equalTo(fingerprint))));
+        assertThat(fingerprint("error", "message", "app.js", "2", null), is(not(equalTo(fingerprint))));
+    }
+
+    @Test
+    public void fingerprintIsPrintedAsHex() {
+        assertThat(ErrorFingerprint.toString(255L), is(equalTo("00000000000000ff")));
+        assertThat(ErrorFingerprint.toString(-1L), is(equalTo("ffffffffffffffff")));
+    }
+
+    private long fingerprint(String level, String message, String file, String line, String stacktrace) {
+        return ErrorFingerprint.of(new ClientSideLogObject(level, message, 1234L, file, line, stacktrace, 1));
+    }
+}
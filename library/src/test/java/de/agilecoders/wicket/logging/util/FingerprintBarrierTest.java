@@ -0,0 +1,147 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link IContextAwareLoggingBarrier.FingerprintBarrier}
+ *
+ * @author miha
+ */
+public class FingerprintBarrierTest {
+
+    @Test
+    public void eachErrorHasItsOwnBudget() {
+        TestBarrier barrier = new TestBarrier(new ILoggingBarrier.AllowAllBarrier());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat("event " + i, barrier.isAllowed(error("noisy")), is(true));
+        }
+        assertThat(barrier.isAllowed(error("noisy")), is(false));
+        assertThat(barrier.isAllowed(error("rare")), is(true));
+    }
+
+    @Test
+    public void sameErrorWithDifferentNumbersSharesBudget() {
+        TestBarrier barrier = new TestBarrier(new ILoggingBarrier.AllowAllBarrier());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat("event " + i, barrier.isAllowed(error("item " + i + " not found")), is(true));
+        }
+        assertThat(barrier.isAllowed(error("item 42 not found")), is(false));
+    }
+
+    @Test
+    public void suppressedOccurrencesAreReportedWhenWindowRollsOver() {
+        TestBarrier barrier = new TestBarrier(new ILoggingBarrier.AllowAllBarrier());
+
+        for (int i = 0; i < 10; i++) {
+            barrier.isAllowed(error("noisy"));
+        }
+        assertThat(barrier.reported.isEmpty(), is(true));
+        assertThat(barrier.suppressed(), is(equalTo(7L)));
+
+        barrier.time = 60000;
+        assertThat(barrier.isAllowed(error("other")), is(true));
+
+        assertThat(barrier.reported.size(), is(equalTo(1)));
+        assertThat(barrier.reported.get(ErrorFingerprint.of(error("noisy"))), is(equalTo(7L)));
+        assertThat(barrier.isAllowed(error("noisy")), is(true));
+    }
+
+    @Test
+    public void remainingSuppressedOccurrencesAreReportedOnDestroy() throws Throwable {
+        TestBarrier barrier = new TestBarrier(new ILoggingBarrier.AllowAllBarrier());
+
+        for (int i = 0; i < 5; i++) {
+            barrier.isAllowed(error("noisy"));
+        }
+        barrier.destroy();
+
+        assertThat(barrier.reported.get(ErrorFingerprint.of(error("noisy"))), is(equalTo(2L)));
+    }
+
+    @Test
+    public void suppressedErrorsDontUseUpBudgetOfNextBarrier() {
+        TestBarrier barrier = new TestBarrier(new ILoggingBarrier.TokenBucketBarrier(4, 1, Duration.hours(1)));
+
+        for (int i = 0; i < 10; i++) {
+            barrier.isAllowed(error("noisy"));
+        }
+
+        assertThat(barrier.isAllowed(error("rare")), is(true));
+        assertThat(barrier.isAllowed(error("other")), is(false));
+    }
+
+    @Test
+    public void noisyErrorDoesntBlockWholeRequest() {
+        TestBarrier barrier = new TestBarrier(new ILoggingBarrier.AllowAllBarrier());
+        List<ClientSideLogObject> noisy = new ArrayList<>(Collections.nCopies(10, error("noisy")));
+
+        assertThat(barrier.isAllowed(noisy), is(true));
+        assertThat(barrier.isAllowed(noisy, LogRequestContext.EMPTY), is(true));
+        assertThat(barrier.suppressed(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void memoryIsFixedForManyDistinctErrors() {
+        TestBarrier barrier = new TestBarrier(new ILoggingBarrier.AllowAllBarrier());
+
+        for (int i = 0; i < 10000; i++) {
+            assertThat(barrier.isAllowed(new ClientSideLogObject("error", "message", 1234L, "file" + i + ".js", "1", null, 1)), is(true));
+        }
+        assertThat(barrier.suppressed(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void suppressedBatchIsNotRejected() {
+        TestBarrier barrier = new TestBarrier(new ILoggingBarrier.TokenBucketBarrier(10, 1, Duration.hours(1)));
+        List<ClientSideLogObject> batch = new ArrayList<>(Collections.nCopies(5, error("noisy")));
+
+        IContextAwareLoggingBarrier.Admission admission = barrier.admit(batch, LogRequestContext.EMPTY);
+        assertThat(admission.admitted().size(), is(equalTo(3)));
+        assertThat(admission.rejected(), is(equalTo(0)));
+
+        admission = barrier.admit(batch.subList(0, 2), LogRequestContext.EMPTY);
+        assertThat(admission.admitted().isEmpty(), is(true));
+        assertThat(admission.isRejected(), is(false));
+        assertThat(barrier.suppressed(), is(equalTo(4L)));
+    }
+
+    private static ClientSideLogObject error(String message) {
+        return new ClientSideLogObject("error", message, 1234L, "app.js", "12", null, 1);
+    }
+
+    /**
+     * barrier with a controllable clock that allows 3 messages per error and minute in 64 slots
+     */
+    private static final class TestBarrier extends IContextAwareLoggingBarrier.FingerprintBarrier {
+        private final Map<Long, Long> reported = new HashMap<>();
+        private long time = 0;
+
+        private TestBarrier(ILoggingBarrier next) {
+            super(next, 3, Duration.minutes(1), 64);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+
+        @Override
+        protected void writeSuppressed(long fingerprint, long count, ClientSideLogObject sample) {
+            reported.put(fingerprint, count);
+        }
+    }
+}
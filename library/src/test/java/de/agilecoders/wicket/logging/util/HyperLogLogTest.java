@@ -0,0 +1,99 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link HyperLogLog}
+ *
+ * @author miha
+ */
+public class HyperLogLogTest {
+
+    @Test
+    public void emptySketchEstimatesZero() {
+        assertThat(new HyperLogLog().estimate(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void duplicatesAreCountedOnce() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        for (int i = 0; i < 10000; i++) {
+            sketch.add("client " + (i % 3));
+        }
+
+        assertThat(sketch.estimate(), is(equalTo(3L)));
+    }
+
+    @Test
+    public void estimateIsCloseToExactCount() {
+        for (int precision : new int[]{HyperLogLog.DEFAULT_PRECISION, 12}) {
+            // three times the standard error
+            final double maxError = 3 * 1.04 / Math.sqrt(1 << precision);
+
+            for (int exact : new int[]{10, 100, 1000, 10000, 100000, 1000000}) {
+                HyperLogLog sketch = new HyperLogLog(precision);
+                for (int i = 0; i < exact; i++) {
+                    sketch.add("page view " + i);
+                }
+
+                final double error = Math.abs(sketch.estimate() - exact) / (double) exact;
+                assertThat("precision " + precision + ", " + exact + " values: " + sketch.estimate(), error <= maxError, is(true));
+            }
+        }
+    }
+
+    @Test
+    public void mergedSketchEstimatesUnion() {
+        HyperLogLog first = new HyperLogLog();
+        HyperLogLog second = new HyperLogLog();
+
+        for (int i = 0; i < 6000; i++) {
+            first.add("client " + i);
+            second.add("client " + (i + 4000));
+        }
+
+        final long union = first.copy().merge(second).estimate();
+
+        assertThat(Math.abs(union - 10000) <= 10000 * 0.2, is(true));
+        assertThat(first.copy().merge(first).estimate(), is(equalTo(first.estimate())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sketchesOfDifferentPrecisionCantBeMerged() {
+        new HyperLogLog(8).merge(new HyperLogLog(10));
+    }
+
+    @Test
+    public void sketchIsSerializable() {
+        HyperLogLog sketch = new HyperLogLog(10);
+        for (int i = 0; i < 5000; i++) {
+            sketch.add("client " + i);
+        }
+
+        byte[] bytes = sketch.toBytes();
+        HyperLogLog copy = HyperLogLog.fromBytes(bytes);
+
+        assertThat(bytes.length, is(equalTo(1025)));
+        assertThat(copy.precision(), is(equalTo(10)));
+        assertThat(copy.estimate(), is(equalTo(sketch.estimate())));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSketchIsRejected() {
+        HyperLogLog.fromBytes(new byte[]{8, 1, 2, 3});
+    }
+
+    @Test
+    public void clearRemovesAllValues() {
+        HyperLogLog sketch = new HyperLogLog();
+        sketch.add("client");
+        sketch.clear();
+
+        assertThat(sketch.estimate(), is(equalTo(0L)));
+    }
+}
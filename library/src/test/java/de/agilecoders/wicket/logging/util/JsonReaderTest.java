@@ -0,0 +1,110 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link de.agilecoders.wicket.logging.util.JsonReader}
+ *
+ * @author miha
+ */
+public class JsonReaderTest {
+
+    @Test
+    public void nestedDocumentCanBeRead() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader(" { \"a\" : [ 1 , -2.5e3, true, null ], \"b\":\"\\u0041\\n\\\\\" } "));
+
+        reader.beginObject();
+        assertThat(reader.nextName(), is(equalTo("a")));
+        reader.beginArray();
+        assertThat(reader.nextString(), is(equalTo("1")));
+        assertThat(reader.nextString(), is(equalTo("-2.5e3")));
+        assertThat(reader.nextString(), is(equalTo("true")));
+        assertThat(reader.nextString(), is(nullValue()));
+        assertThat(reader.hasNext(), is(false));
+        reader.endArray();
+        assertThat(reader.nextName(), is(equalTo("b")));
+        assertThat(reader.nextString(), is(equalTo("A\n\\")));
+        reader.endObject();
+
+        assertThat(reader.peek(), is(equalTo(JsonReader.Token.END_DOCUMENT)));
+    }
+
+    @Test
+    public void valuesCanBeSkipped() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader("[{\"a\":[1,{\"b\":\"x\\\"]\"}]},\"c\"]"));
+
+        reader.beginArray();
+        reader.skipValue();
+        assertThat(reader.nextString(), is(equalTo("c")));
+        reader.endArray();
+    }
+
+    @Test
+    public void emptyContainersCanBeRead() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader("{\"a\":[],\"b\":{}}"));
+
+        reader.beginObject();
+        assertThat(reader.nextName(), is(equalTo("a")));
+        reader.beginArray();
+        assertThat(reader.hasNext(), is(false));
+        reader.endArray();
+        assertThat(reader.nextName(), is(equalTo("b")));
+        reader.beginObject();
+        assertThat(reader.hasNext(), is(false));
+        reader.endObject();
+        reader.endObject();
+    }
+
+    @Test(expected = IOException.class)
+    public void missingCommaIsRejected() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader("[1 2]"));
+
+        reader.beginArray();
+        reader.nextString();
+        reader.nextString();
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidBooleanIsRejected() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader("{\"lvl\":tru}"));
+
+        reader.beginObject();
+        reader.nextName();
+        reader.nextString();
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidBooleanIsRejectedWhenSkipped() throws IOException {
+        new JsonReader(new StringReader("{\"x\":fxyz}")).skipValue();
+    }
+
+    @Test
+    public void booleansCanBeSkipped() throws IOException {
+        JsonReader reader = new JsonReader(new StringReader("[true,false,null,\"c\"]"));
+
+        reader.beginArray();
+        reader.skipValue();
+        reader.skipValue();
+        reader.skipValue();
+        assertThat(reader.nextString(), is(equalTo("c")));
+        reader.endArray();
+    }
+
+    @Test(expected = IOException.class)
+    public void tooDeepNestingIsRejected() throws IOException {
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            json.append('[');
+        }
+
+        new JsonReader(new StringReader(json.toString())).skipValue();
+    }
+}
@@ -0,0 +1,64 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link IBatchLoggingBarrier.LevelPriority}
+ *
+ * @author miha
+ */
+public class LevelPriorityTest {
+
+    private final ClientSideLogObject info1 = logObject("info", "1");
+    private final ClientSideLogObject error1 = logObject("error", "2");
+    private final ClientSideLogObject debug1 = logObject("debug", "3");
+    private final ClientSideLogObject warn1 = logObject("warn", "4");
+    private final ClientSideLogObject error2 = logObject("error", "5");
+    private final ClientSideLogObject unknown1 = logObject("fatal", "6");
+    private final ClientSideLogObject info2 = logObject("info", "7");
+    private final List<ClientSideLogObject> all = Arrays.asList(info1, error1, debug1, warn1, error2, unknown1, info2);
+
+    @Test
+    public void highestSeverityIsSelectedFirst() {
+        assertThat(IBatchLoggingBarrier.LevelPriority.select(all, 2), is(equalTo(Arrays.asList(error1, error2))));
+        assertThat(IBatchLoggingBarrier.LevelPriority.select(all, 3), is(equalTo(Arrays.asList(error1, warn1, error2))));
+    }
+
+    @Test
+    public void eventsOfSameSeverityAreSelectedInOrder() {
+        assertThat(IBatchLoggingBarrier.LevelPriority.select(all, 4), is(equalTo(Arrays.asList(info1, error1, warn1, error2))));
+        assertThat(IBatchLoggingBarrier.LevelPriority.select(all, 1), is(equalTo(Arrays.asList(error1))));
+    }
+
+    @Test
+    public void unknownLevelHasLowestSeverity() {
+        assertThat(IBatchLoggingBarrier.LevelPriority.select(all, 6), is(equalTo(Arrays.asList(info1, error1, debug1, warn1, error2, info2))));
+        assertThat(IBatchLoggingBarrier.LevelPriority.select(all, 7), is(equalTo(all)));
+    }
+
+    @Test
+    public void nothingIsSelectedWithoutPermits() {
+        assertThat(IBatchLoggingBarrier.LevelPriority.select(all, 0).isEmpty(), is(true));
+        assertThat(IBatchLoggingBarrier.LevelPriority.select(new ArrayList<ClientSideLogObject>(), 3).isEmpty(), is(true));
+    }
+
+    @Test
+    public void allEventsAreAdmittedIfThereAreEnoughPermits() {
+        assertThat(IBatchLoggingBarrier.LevelPriority.admit(all, 10), is(sameInstance((Object) all)));
+        assertThat(IBatchLoggingBarrier.LevelPriority.admit(all, 2).size(), is(equalTo(2)));
+    }
+
+    private static ClientSideLogObject logObject(String level, String message) {
+        return new ClientSideLogObject(level, message, 1234L, "app.js", "1", null, 1);
+    }
+}
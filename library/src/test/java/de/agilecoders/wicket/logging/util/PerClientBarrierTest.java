@@ -0,0 +1,195 @@
+package de.agilecoders.wicket.logging.util;
+
+import com.google.common.collect.Lists;
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import de.agilecoders.wicket.logging.Mocks;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link IContextAwareLoggingBarrier.PerClientBarrier}
+ *
+ * @author miha
+ */
+public class PerClientBarrierTest {
+
+    private final ClientSideLogObject logObject = Mocks.createClientSideLogObject();
+
+    @Test
+    public void eachClientHasItsOwnBucket() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.REMOTE_ADDRESS, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertThat("event " + i, barrier.isAllowed(logObject, client("10.0.0.1")), is(true));
+        }
+        assertThat(barrier.isAllowed(logObject, client("10.0.0.1")), is(false));
+        assertThat(barrier.isAllowed(logObject, client("10.0.0.2")), is(true));
+    }
+
+    @Test
+    public void bucketIsRefilled() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.REMOTE_ADDRESS, 100);
+        assertThat(barrier.tryAcquire(client("10.0.0.1"), 3), is(true));
+        assertThat(barrier.isAllowed(logObject, client("10.0.0.1")), is(false));
+
+        barrier.time = 1000 * 1000000L;
+        assertThat(barrier.availableTokens(client("10.0.0.1")), is(equalTo(1L)));
+        assertThat(barrier.isAllowed(logObject, client("10.0.0.1")), is(true));
+        assertThat(barrier.isAllowed(logObject, client("10.0.0.1")), is(false));
+    }
+
+    @Test
+    public void globalBarrierLimitsAllClients() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.REMOTE_ADDRESS, 100);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat("client " + i, barrier.isAllowed(logObject, client("10.0.0." + i)), is(true));
+        }
+        assertThat(barrier.isAllowed(logObject, client("10.0.1.1")), is(false));
+    }
+
+    @Test
+    public void collectionCheckDoesntAcquireTokens() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.REMOTE_ADDRESS, 100);
+        List<ClientSideLogObject> three = new ArrayList<>(Collections.nCopies(3, logObject));
+        List<ClientSideLogObject> four = new ArrayList<>(Collections.nCopies(4, logObject));
+
+        assertThat(barrier.isAllowed(three, client("10.0.0.1")), is(true));
+        assertThat(barrier.isAllowed(three, client("10.0.0.1")), is(true));
+        assertThat(barrier.isAllowed(four, client("10.0.0.1")), is(true));
+        assertThat(barrier.availableTokens(client("10.0.0.1")), is(equalTo(3L)));
+    }
+
+    @Test
+    public void batchLargerThanBurstIsAdmittedPartially() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.REMOTE_ADDRESS, 100);
+        List<ClientSideLogObject> five = new ArrayList<>(Collections.nCopies(5, logObject));
+
+        assertThat(barrier.isAllowed(five, client("10.0.0.1")), is(true));
+
+        int admitted = 0;
+        for (ClientSideLogObject event : five) {
+            if (barrier.isAllowed(event, client("10.0.0.1"))) {
+                admitted++;
+            }
+        }
+        assertThat(admitted, is(equalTo(3)));
+
+        assertThat(barrier.isAllowed(five, client("10.0.0.1")), is(false));
+    }
+
+    @Test
+    public void tokenIsGivenBackIfGlobalBarrierRejects() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.REMOTE_ADDRESS, 100);
+        for (int i = 0; i < 10; i++) {
+            barrier.isAllowed(logObject, client("10.0.0." + i));
+        }
+
+        assertThat(barrier.isAllowed(logObject, client("10.0.1.1")), is(false));
+        assertThat(barrier.availableTokens(client("10.0.1.1")), is(equalTo(3L)));
+    }
+
+    @Test
+    public void pageViewIdFallsBackToRemoteAddress() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.PAGE_VIEW_ID, 100);
+        ClientInfos clientInfos = new ClientInfos();
+        clientInfos.put(ParamNames.PAGE_VIEW_ID, "pv-1");
+
+        assertThat(barrier.tryAcquire(new LogRequestContext("10.0.0.1", null, clientInfos), 3), is(true));
+        assertThat(barrier.availableTokens(new LogRequestContext("10.0.0.1", null, null)), is(equalTo(3L)));
+        assertThat(barrier.tryAcquire(new LogRequestContext("10.0.0.1", null, null), 3), is(true));
+        assertThat(barrier.isAllowed(logObject, new LogRequestContext("10.0.0.1", null, null)), is(false));
+    }
+
+    @Test
+    public void unknownClientIsOnlyLimitedGlobally() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.SESSION_ID, 100);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat("event " + i, barrier.isAllowed(logObject, LogRequestContext.EMPTY), is(true));
+        }
+        assertThat(barrier.isAllowed(logObject, LogRequestContext.EMPTY), is(false));
+        assertThat(barrier.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void numberOfTrackedClientsIsBounded() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.REMOTE_ADDRESS, 64);
+
+        for (int i = 0; i < 100000; i++) {
+            barrier.tryAcquire(client("key-" + i), 1);
+        }
+
+        assertThat(barrier.size() <= 64, is(true));
+    }
+
+    @Test
+    public void idleClientsAreEvicted() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.REMOTE_ADDRESS, 1024);
+
+        for (int i = 0; i < 20; i++) {
+            barrier.tryAcquire(client("key-" + i), 1);
+        }
+        barrier.time = 3600 * 1000000000L;
+        for (int i = 0; i < 100; i++) {
+            barrier.tryAcquire(client("key-" + i), 1);
+        }
+        barrier.time = 7200 * 1000000000L;
+        for (int i = 0; i < 100; i++) {
+            barrier.tryAcquire(client("other-" + i), 1);
+        }
+
+        assertThat(barrier.size() < 200, is(true));
+    }
+
+    @Test
+    public void batchIsAdmittedByLevelAndUnusedTokensAreGivenBack() {
+        TestBarrier barrier = new TestBarrier(IContextAwareLoggingBarrier.PerClientBarrier.ClientKey.REMOTE_ADDRESS, 100);
+        ClientSideLogObject info = new ClientSideLogObject("info", "info", 1234L, "app.js", "1", null, 1);
+        ClientSideLogObject warn = new ClientSideLogObject("warn", "warn", 1234L, "app.js", "1", null, 1);
+        ClientSideLogObject error = new ClientSideLogObject("error", "error", 1234L, "app.js", "1", null, 1);
+
+        IContextAwareLoggingBarrier.Admission admission = barrier.admit(Lists.newArrayList(info, info, error, warn, info), client("10.0.0.1"));
+
+        assertThat(admission.admitted(), is(equalTo((Collection<ClientSideLogObject>) Lists.newArrayList(info, error, warn))));
+        assertThat(admission.rejected(), is(equalTo(2)));
+        assertThat(barrier.admit(Lists.newArrayList(error), client("10.0.0.1")).isRejected(), is(true));
+
+        // the global bucket has a single token left, the second client gives back the other two
+        ILoggingBarrier.TokenBucketBarrier global = (ILoggingBarrier.TokenBucketBarrier) barrier.global();
+        assertThat(global.tryAcquireUpTo(6), is(equalTo(6)));
+        admission = barrier.admit(Lists.newArrayList(info, info, error), client("10.0.0.2"));
+        assertThat(admission.admitted(), is(equalTo((Collection<ClientSideLogObject>) Lists.newArrayList(error))));
+        assertThat(barrier.availableTokens(client("10.0.0.2")), is(equalTo(2L)));
+    }
+
+    private static LogRequestContext client(String remoteAddress) {
+        return new LogRequestContext(remoteAddress, null, null);
+    }
+
+    /**
+     * barrier with a controllable clock that allows 3 events per client and 10 events of all clients at once,
+     * each client gets a new token per second
+     */
+    private static final class TestBarrier extends IContextAwareLoggingBarrier.PerClientBarrier {
+        private long time = 0;
+
+        private TestBarrier(ClientKey clientKey, int maxClients) {
+            super(new ILoggingBarrier.TokenBucketBarrier(10, 1, Duration.hours(1)), clientKey, 3, 1, Duration.seconds(1), maxClients);
+        }
+
+        @Override
+        protected long nanoTime() {
+            return time;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package de.agilecoders.wicket.logging.util;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link de.agilecoders.wicket.logging.util.RequestBodies} helper
+ *
+ * @author miha
+ */
+public class RequestBodiesTest {
+
+    private static final String BODY = "{\"entries\":[[\"error\",1234,\"message\"]]}";
+
+    @Test
+    public void jsonContentTypeIsDetected() {
+        assertThat(RequestBodies.isJson("application/json"), is(true));
+        assertThat(RequestBodies.isJson("Application/JSON; charset=UTF-8"), is(true));
+        assertThat(RequestBodies.isJson("application/x-www-form-urlencoded"), is(false));
+        assertThat(RequestBodies.isJson(null), is(false));
+    }
+
+    @Test
+    public void uncompressedBodyIsReadAsItIs() throws IOException {
+        assertThat(read(RequestBodies.decode(stream(BODY.getBytes(StandardCharsets.UTF_8)), null, 1024)), is(equalTo(BODY)));
+    }
+
+    @Test
+    public void gzipBodyIsInflated() throws IOException {
+        assertThat(read(RequestBodies.decode(stream(gzip(BODY)), "gzip", 1024)), is(equalTo(BODY)));
+    }
+
+    @Test
+    public void deflateBodyIsInflated() throws IOException {
+        assertThat(read(RequestBodies.decode(stream(deflate(BODY)), "deflate", 1024)), is(equalTo(BODY)));
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedFormBodyIsRejected() throws IOException {
+        RequestBodies.formParameters(stream("msg_1=%zz".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+
+    @Test(expected = LimitedInputStream.LimitExceededException.class)
+    public void inflatedSizeIsLimited() throws IOException {
+        final byte[] bomb = gzip(new String(new char[1024 * 1024]).replace('\0', 'a'));
+
+        assertThat(bomb.length < 4096, is(true));
+        read(RequestBodies.decode(stream(bomb), "gzip", 64 * 1024));
+    }
+
+    @Test(expected = LimitedInputStream.LimitExceededException.class)
+    public void uncompressedSizeIsLimited() throws IOException {
+        read(RequestBodies.decode(stream(BODY.getBytes(StandardCharsets.UTF_8)), "identity", 10));
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownEncodingIsRejected() throws IOException {
+        RequestBodies.decode(stream(new byte[0]), "br", 1024);
+    }
+
+    private static InputStream stream(byte[] data) {
+        return new ByteArrayInputStream(data);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(String value) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(String value) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out)) {
+            deflate.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,122 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link IContextAwareLoggingBarrier.SamplingBarrier}
+ *
+ * @author miha
+ */
+public class SamplingBarrierTest {
+
+    /**
+     * sample value 0.34
+     */
+    private static final LogRequestContext SAMPLED = context("k3j2h1lkg0z");
+
+    /**
+     * sample value 0.89
+     */
+    private static final LogRequestContext NOT_SAMPLED = context("a");
+
+    private final ClientControl control = new ClientControl().sampling("info", 0.5).sampling("debug", 0.01);
+
+    @Test
+    public void levelsWithoutRateAreAllowed() {
+        IContextAwareLoggingBarrier.SamplingBarrier barrier = barrier();
+
+        assertThat(barrier.isAllowed(log("error"), NOT_SAMPLED), is(true));
+        assertThat(barrier.isAllowed(log("warn"), NOT_SAMPLED), is(true));
+        assertThat(barrier.isAllowed(log("error"), LogRequestContext.EMPTY), is(true));
+    }
+
+    @Test
+    public void pageViewIsSampledPerLevel() {
+        IContextAwareLoggingBarrier.SamplingBarrier barrier = barrier();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(barrier.isAllowed(log("info"), SAMPLED), is(true));
+            assertThat(barrier.isAllowed(log("debug"), SAMPLED), is(false));
+            assertThat(barrier.isAllowed(log("info"), NOT_SAMPLED), is(false));
+        }
+    }
+
+    @Test
+    public void remoteAddressIsUsedWithoutPageViewId() {
+        IContextAwareLoggingBarrier.SamplingBarrier barrier = barrier();
+
+        assertThat(barrier.isAllowed(log("info"), new LogRequestContext("k3j2h1lkg0z", null, null)), is(true));
+        assertThat(barrier.isAllowed(log("info"), new LogRequestContext("a", null, null)), is(false));
+    }
+
+    @Test
+    public void sampledMessagesAreExtrapolated() {
+        IContextAwareLoggingBarrier.SamplingBarrier barrier = barrier();
+
+        for (int i = 0; i < 10; i++) {
+            barrier.isAllowed(log("info"), SAMPLED);
+            barrier.isAllowed(log("error"), SAMPLED);
+        }
+        barrier.isAllowed(log("info"), NOT_SAMPLED);
+
+        assertThat(barrier.kept(LogLevel.Info), is(equalTo(10L)));
+        assertThat(barrier.sampledOut(LogLevel.Info), is(equalTo(1L)));
+        assertThat(barrier.estimated(LogLevel.Info), is(equalTo(20L)));
+        assertThat(barrier.estimated(LogLevel.Error), is(equalTo(10L)));
+        assertThat(barrier.estimated(LogLevel.Debug), is(equalTo(0L)));
+    }
+
+    @Test
+    public void sampledOutMessagesDontUseNextBarrier() {
+        IContextAwareLoggingBarrier.SamplingBarrier barrier = new IContextAwareLoggingBarrier.SamplingBarrier(
+                new ILoggingBarrier.TokenBucketBarrier(1, 1, Duration.minutes(1)), control);
+
+        assertThat(barrier.isAllowed(log("info"), NOT_SAMPLED), is(false));
+        assertThat(barrier.isAllowed(log("error"), NOT_SAMPLED), is(true));
+        assertThat(barrier.isAllowed(log("error"), NOT_SAMPLED), is(false));
+    }
+
+    @Test
+    public void changedRatesAreUsedImmediately() {
+        IContextAwareLoggingBarrier.SamplingBarrier barrier = barrier();
+        assertThat(barrier.isAllowed(log("info"), NOT_SAMPLED), is(false));
+
+        control.sampling("info", 1);
+        assertThat(barrier.isAllowed(log("info"), NOT_SAMPLED), is(true));
+
+        control.reset();
+        assertThat(barrier.isAllowed(log("debug"), NOT_SAMPLED), is(true));
+    }
+
+    @Test
+    public void collectionCheckIsDoneByNextBarrier() {
+        IContextAwareLoggingBarrier.SamplingBarrier barrier = barrier();
+
+        assertThat(barrier.isAllowed(new ArrayList<>(Collections.nCopies(5, log("debug"))), NOT_SAMPLED), is(true));
+        assertThat(barrier.sampledOut(LogLevel.Debug), is(equalTo(0L)));
+    }
+
+    private IContextAwareLoggingBarrier.SamplingBarrier barrier() {
+        return new IContextAwareLoggingBarrier.SamplingBarrier(new ILoggingBarrier.AllowAllBarrier(), control);
+    }
+
+    private static ClientSideLogObject log(String level) {
+        return new ClientSideLogObject(level, "message", 1234L, "app.js", "12", null, 1);
+    }
+
+    private static LogRequestContext context(String pageViewId) {
+        ClientInfos clientInfos = new ClientInfos();
+        clientInfos.put(ParamNames.PAGE_VIEW_ID, pageViewId);
+
+        return new LogRequestContext("10.0.0.1", null, clientInfos);
+    }
+}
@@ -0,0 +1,144 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import de.agilecoders.wicket.logging.Mocks;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ILoggingBarrier.SlidingWindowBarrier}
+ *
+ * @author miha
+ */
+public class SlidingWindowBarrierTest {
+
+    private final ClientSideLogObject logObject = Mocks.createClientSideLogObject();
+
+    @Test
+    public void limitIsAllowedPerWindow() {
+        TestBarrier barrier = new TestBarrier();
+
+        for (int i = 0; i < 100; i++) {
+            assertThat("event " + i, barrier.isAllowed(logObject), is(true));
+        }
+        assertThat(barrier.isAllowed(logObject), is(false));
+        assertThat(barrier.count(), is(equalTo(100L)));
+    }
+
+    @Test
+    public void windowEdgeDoesntAllowDoubleLimit() {
+        TestBarrier barrier = new TestBarrier();
+        barrier.time = 9999;
+        assertThat(barrier.tryAcquire(100), is(true));
+
+        barrier.time = 10000;
+        assertThat(barrier.tryAcquire(1), is(false));
+
+        barrier.time = 10500;
+        assertThat(barrier.tryAcquire(1), is(false));
+    }
+
+    @Test
+    public void oldestBucketSlidesOutOfWindow() {
+        TestBarrier barrier = new TestBarrier();
+        assertThat(barrier.tryAcquire(100), is(true));
+
+        barrier.time = 10000;
+        assertThat(barrier.count(), is(equalTo(100L)));
+
+        barrier.time = 10500;
+        assertThat(barrier.count(), is(equalTo(50L)));
+        assertThat(barrier.tryAcquire(50), is(true));
+        assertThat(barrier.tryAcquire(1), is(false));
+
+        barrier.time = 11000;
+        assertThat(barrier.count(), is(equalTo(50L)));
+
+        barrier.time = 30000;
+        assertThat(barrier.count(), is(equalTo(0L)));
+        assertThat(barrier.tryAcquire(100), is(true));
+    }
+
+    @Test
+    public void rejectionsAndRateAreReported() {
+        TestBarrier barrier = new TestBarrier();
+
+        for (int i = 0; i < 150; i++) {
+            barrier.isAllowed(logObject);
+        }
+        assertThat(barrier.isAllowed(new ArrayList<>(Collections.nCopies(5, logObject))), is(false));
+
+        assertThat(barrier.rejected(), is(equalTo(50L)));
+        assertThat(barrier.rate(), is(equalTo(10.0)));
+    }
+
+    @Test
+    public void collectionCheckDoesntAcquirePermits() {
+        TestBarrier barrier = new TestBarrier();
+        List<ClientSideLogObject> hundred = new ArrayList<>(Collections.nCopies(100, logObject));
+
+        assertThat(barrier.isAllowed(hundred), is(true));
+        assertThat(barrier.isAllowed(hundred), is(true));
+        assertThat(barrier.count(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void batchLargerThanLimitIsAdmittedPartially() {
+        TestBarrier barrier = new TestBarrier();
+        List<ClientSideLogObject> batch = new ArrayList<>(Collections.nCopies(150, logObject));
+
+        assertThat(barrier.isAllowed(batch), is(true));
+
+        int admitted = 0;
+        for (ClientSideLogObject event : batch) {
+            if (barrier.isAllowed(event)) {
+                admitted++;
+            }
+        }
+        assertThat(admitted, is(equalTo(100)));
+        assertThat(barrier.isAllowed(batch), is(false));
+        assertThat(barrier.rejected(), is(equalTo(50L)));
+    }
+
+    @Test
+    public void batchIsAdmittedUpToTheLimitHighestSeverityFirst() {
+        TestBarrier barrier = new TestBarrier();
+        assertThat(barrier.tryAcquire(98), is(true));
+
+        ClientSideLogObject info = new ClientSideLogObject("info", "1", 1234L, "app.js", "1", null, 1);
+        ClientSideLogObject error = new ClientSideLogObject("error", "2", 1234L, "app.js", "1", null, 1);
+        ClientSideLogObject warn = new ClientSideLogObject("warn", "3", 1234L, "app.js", "1", null, 1);
+
+        assertThat(barrier.admit(Arrays.asList(info, error, warn)), is(equalTo((Collection<ClientSideLogObject>) Arrays.asList(error, warn))));
+        assertThat(barrier.count(), is(equalTo(100L)));
+        assertThat(barrier.rejected(), is(equalTo(1L)));
+        assertThat(barrier.admit(Arrays.asList(info, error)).isEmpty(), is(true));
+        assertThat(barrier.tryAcquireUpTo(5), is(equalTo(0)));
+    }
+
+    /**
+     * barrier with a controllable clock that allows 100 events per 10 seconds in buckets of one second
+     */
+    private static final class TestBarrier extends ILoggingBarrier.SlidingWindowBarrier {
+        private long time = 0;
+
+        private TestBarrier() {
+            super(100, Duration.seconds(10), 10);
+        }
+
+        @Override
+        protected long now() {
+            return time;
+        }
+    }
+}
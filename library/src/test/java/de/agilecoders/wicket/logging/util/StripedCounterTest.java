@@ -0,0 +1,50 @@
+package de.agilecoders.wicket.logging.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link StripedCounter}
+ *
+ * @author miha
+ */
+public class StripedCounterTest {
+
+    @Test
+    public void valuesAreSummed() {
+        StripedCounter counter = new StripedCounter(4);
+        counter.add(5);
+        counter.increment();
+
+        assertThat(counter.sum(), is(equalTo(6L)));
+
+        counter.reset();
+        assertThat(counter.sum(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void concurrentAddsAreCounted() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        final CountDownLatch done = new CountDownLatch(8);
+
+        for (int t = 0; t < 8; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        counter.increment();
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertThat(counter.sum(), is(equalTo(80000L)));
+    }
+}
@@ -0,0 +1,151 @@
+package de.agilecoders.wicket.logging.util;
+
+import de.agilecoders.wicket.logging.ClientSideLogObject;
+import de.agilecoders.wicket.logging.Mocks;
+import org.apache.wicket.util.time.Duration;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Tests the {@link ILoggingBarrier.TokenBucketBarrier}
+ *
+ * @author miha
+ */
+public class TokenBucketBarrierTest {
+
+    private final ClientSideLogObject logObject = Mocks.createClientSideLogObject();
+
+    @Test
+    public void burstIsAllowedAtOnce() {
+        TestBarrier barrier = new TestBarrier(10, 1);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat("event " + i, barrier.isAllowed(logObject), is(true));
+        }
+        assertThat(barrier.isAllowed(logObject), is(false));
+    }
+
+    @Test
+    public void tokensAreRefilledAtSustainedRate() {
+        TestBarrier barrier = new TestBarrier(10, 1);
+        assertThat(barrier.tryAcquire(10), is(true));
+
+        barrier.time = 999 * 1000000L;
+        assertThat(barrier.isAllowed(logObject), is(false));
+
+        barrier.time = 1000 * 1000000L;
+        assertThat(barrier.isAllowed(logObject), is(true));
+        assertThat(barrier.isAllowed(logObject), is(false));
+
+        barrier.time = 3500 * 1000000L;
+        assertThat(barrier.availableTokens(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void bucketNeverHoldsMoreThanBurst() {
+        TestBarrier barrier = new TestBarrier(10, 1);
+
+        barrier.time = 3600 * 1000000000L;
+
+        assertThat(barrier.availableTokens(), is(equalTo(10L)));
+        assertThat(barrier.tryAcquire(11), is(false));
+        assertThat(barrier.tryAcquire(10), is(true));
+        assertThat(barrier.tryAcquire(1), is(false));
+    }
+
+    @Test
+    public void batchIsAcquiredCompletelyOrNotAtAll() {
+        TestBarrier barrier = new TestBarrier(10, 1);
+
+        assertThat(barrier.tryAcquire(7), is(true));
+        assertThat(barrier.tryAcquire(4), is(false));
+        assertThat(barrier.availableTokens(), is(equalTo(3L)));
+        assertThat(barrier.tryAcquire(3), is(true));
+    }
+
+    @Test
+    public void batchReservesAvailableTokens() {
+        TestBarrier barrier = new TestBarrier(10, 1);
+
+        assertThat(barrier.tryAcquireUpTo(7), is(equalTo(7)));
+        assertThat(barrier.tryAcquireUpTo(7), is(equalTo(3)));
+        assertThat(barrier.tryAcquireUpTo(7), is(equalTo(0)));
+
+        barrier.time = 2000 * 1000000L;
+        assertThat(barrier.tryAcquireUpTo(7), is(equalTo(2)));
+    }
+
+    @Test
+    public void errorsAreAdmittedFirst() {
+        TestBarrier barrier = new TestBarrier(2, 1);
+        ClientSideLogObject info = new ClientSideLogObject("info", "info", 1234L, "app.js", "1", null, 1);
+        ClientSideLogObject warn = new ClientSideLogObject("warn", "warn", 1234L, "app.js", "1", null, 1);
+        ClientSideLogObject error = new ClientSideLogObject("error", "error", 1234L, "app.js", "1", null, 1);
+
+        assertThat(barrier.admit(Arrays.asList(info, warn, info, error)), is(equalTo((Collection<ClientSideLogObject>) Arrays.asList(warn, error))));
+        assertThat(barrier.admit(Arrays.asList(error)).isEmpty(), is(true));
+    }
+
+    @Test
+    public void collectionCheckDoesntAcquireTokens() {
+        TestBarrier barrier = new TestBarrier(2, 1);
+        List<ClientSideLogObject> two = new ArrayList<>(Collections.nCopies(2, logObject));
+        List<ClientSideLogObject> three = new ArrayList<>(Collections.nCopies(3, logObject));
+
+        assertThat(barrier.isAllowed(two), is(true));
+        assertThat(barrier.isAllowed(two), is(true));
+        assertThat(barrier.isAllowed(three), is(false));
+        assertThat(barrier.availableTokens(), is(equalTo(2L)));
+    }
+
+    @Test
+    public void concurrentAcquiresDontExceedBurst() throws Exception {
+        final ILoggingBarrier.TokenBucketBarrier barrier = new ILoggingBarrier.TokenBucketBarrier(1000, 1, Duration.hours(1));
+        final AtomicInteger allowed = new AtomicInteger(0);
+        final CountDownLatch done = new CountDownLatch(8);
+
+        for (int t = 0; t < 8; t++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 500; i++) {
+                        if (barrier.isAllowed(logObject)) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+
+        assertThat(allowed.get(), is(equalTo(1000)));
+    }
+
+    /**
+     * barrier with a controllable clock that allows given burst and a rate per second
+     */
+    private static final class TestBarrier extends ILoggingBarrier.TokenBucketBarrier {
+        private long time = 0;
+
+        private TestBarrier(long burst, long rate) {
+            super(burst, rate, Duration.seconds(1));
+        }
+
+        @Override
+        protected long nanoTime() {
+            return time;
+        }
+    }
+}